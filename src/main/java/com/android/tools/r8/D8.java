@@ -44,6 +44,7 @@ import com.android.tools.r8.synthesis.SyntheticFinalization;
 import com.android.tools.r8.synthesis.SyntheticItems;
 import com.android.tools.r8.synthesis.SyntheticItems.GlobalSyntheticsStrategy;
 import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.DesugaringCache;
 import com.android.tools.r8.utils.ExceptionUtils;
 import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.StringDiagnostic;
@@ -174,7 +175,7 @@ public final class D8 {
     LazyLoadedDexApplication app = applicationReader.read(executor);
     timing.end();
     timing.begin("Load desugared lib");
-    options.loadMachineDesugaredLibrarySpecification(timing, app);
+    options.loadMachineDesugaredLibrarySpecification(timing, app, inputApp);
     timing.end();
     TypeRewriter typeRewriter = options.getTypeRewriter();
     AppInfo appInfo =
@@ -202,7 +203,12 @@ public final class D8 {
       System.out.println("D8 is running with max memory:" + runtime.maxMemory());
     }
     Timing timing = Timing.create("D8 " + Version.LABEL, options);
+    DesugaringCache desugaringCache = DesugaringCache.createIfEnabled(inputApp, options);
     try {
+      if (desugaringCache != null) {
+        // Only the classes without a valid cache entry are compiled.
+        inputApp = desugaringCache.prepare(inputApp, executor, timing);
+      }
       timing.begin("Pre conversion");
       // Synthetic assertion to check that testing assertions works and can be enabled.
       assert forTesting(options, () -> !options.testing.testEnableTestAssertions);
@@ -304,7 +310,7 @@ public final class D8 {
         timing.begin("Generate main-dex list");
         appView.dexItemFactory().clearTypeElementsCache();
         MainDexInfo mainDexInfo =
-            new GenerateMainDexList(options).traceMainDexForD8(appView, executor);
+            new GenerateMainDexList(options).traceMainDexForD8(appView, inputApp, executor);
         appView.setAppInfo(appView.appInfo().rebuildWithMainDexInfo(mainDexInfo));
         timing.end();
       }
@@ -328,10 +334,13 @@ public final class D8 {
       reportSyntheticInformation(appView);
 
       if (options.isGeneratingClassFiles()) {
-        new CfApplicationWriter(appView, marker).write(options.getClassFileConsumer(), inputApp);
+        new CfApplicationWriter(appView, marker).write(options.getClassFileConsumer(), inputApp, executor);
       } else {
         ApplicationWriter.create(appView, marker).write(executor, inputApp);
       }
+      if (desugaringCache != null) {
+        desugaringCache.store(executor, timing);
+      }
       options.printWarnings();
     } catch (ExecutionException e) {
       throw unwrapExecutionException(e);
@@ -341,6 +350,13 @@ public final class D8 {
       // Dump timings.
       if (options.printTimes) {
         timing.report();
+        options.dexItemFactory().leastUpperBoundOfInterfacesCache.printStatistics();
+      }
+      if (options.printLibraryClassLoading) {
+        options.getLibraryClassLoadingStatistics().print();
+      }
+      if (options.printIRPassProfile) {
+        options.getIRPassProfiler().print();
       }
     }
   }
@@ -21,6 +21,7 @@ import com.android.tools.r8.profile.rewriting.ProfileCollectionAdditions;
 import com.android.tools.r8.shaking.Enqueuer;
 import com.android.tools.r8.shaking.EnqueuerFactory;
 import com.android.tools.r8.shaking.MainDexInfo;
+import com.android.tools.r8.shaking.MainDexInfoCache;
 import com.android.tools.r8.shaking.MainDexListBuilder;
 import com.android.tools.r8.shaking.RootSetUtils.MainDexRootSet;
 import com.android.tools.r8.shaking.WhyAreYouKeepingConsumer;
@@ -30,6 +31,7 @@ import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.SortingStringConsumer;
 import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
+import com.google.common.hash.HashCode;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -49,7 +51,7 @@ public class GenerateMainDexList {
       throws IOException {
     try {
       DexApplication application = new ApplicationReader(app, options, timing).read(executor);
-      traceMainDexForGenerateMainDexList(executor, application)
+      traceMainDexForGenerateMainDexList(executor, application, app)
           .forEach(type -> consumer.accept(type.toBinaryName() + ".class", options.reporter));
       consumer.finished(options.reporter);
     } catch (ExecutionException e) {
@@ -57,17 +59,61 @@ public class GenerateMainDexList {
     }
   }
 
-  public MainDexInfo traceMainDexForD8(AppView<AppInfo> appView, ExecutorService executor)
+  /**
+   * Traces the main-dex classes of the D8 compilation of the input app. The input app identifies
+   * the inputs of the compilation for caching the traced classes, see {@link MainDexInfoCache}.
+   */
+  public MainDexInfo traceMainDexForD8(
+      AppView<AppInfo> appView, AndroidApp inputApp, ExecutorService executor)
       throws ExecutionException {
     return traceMainDex(
         AppView.createForSimulatingR8InD8(
             appView.app().toDirect(), appView.appInfo().getMainDexInfo()),
+        inputApp,
+        "D8",
         executor);
   }
 
   public MainDexInfo traceMainDexForGenerateMainDexList(
       ExecutorService executor, DexApplication application) throws ExecutionException {
-    return traceMainDex(AppView.createForR8(application.toDirect()), executor);
+    return traceMainDexForGenerateMainDexList(executor, application, null);
+  }
+
+  private MainDexInfo traceMainDexForGenerateMainDexList(
+      ExecutorService executor, DexApplication application, AndroidApp inputApp)
+      throws ExecutionException {
+    return traceMainDex(
+        AppView.createForR8(application.toDirect()),
+        inputApp,
+        "GenerateMainDexList",
+        executor);
+  }
+
+  private MainDexInfo traceMainDex(
+      AppView<? extends AppInfoWithClassHierarchy> appView,
+      AndroidApp inputApp,
+      String kind,
+      ExecutorService executor)
+      throws ExecutionException {
+    MainDexListBuilder.checkForAssumedLibraryTypes(appView.appInfo());
+    HashCode key = MainDexInfoCache.computeKey(inputApp, kind, options);
+    if (key != null) {
+      timing.begin("Lookup traced main-dex classes");
+      MainDexInfo mainDexInfo = MainDexInfoCache.lookup(key, appView);
+      timing.end();
+      if (mainDexInfo != null) {
+        return mainDexInfo;
+      }
+    }
+    int numberOfReportedDiagnostics = options.reporter.getNumberOfReportedDiagnostics();
+    MainDexInfo mainDexInfo = traceMainDex(appView, executor);
+    // A tracing that reports diagnostics is not cached, such that every compilation reports the
+    // diagnostics.
+    if (key != null
+        && options.reporter.getNumberOfReportedDiagnostics() == numberOfReportedDiagnostics) {
+      MainDexInfoCache.store(key, mainDexInfo, options);
+    }
+    return mainDexInfo;
   }
 
   private MainDexInfo traceMainDex(
@@ -75,8 +121,6 @@ public class GenerateMainDexList {
       throws ExecutionException {
     appView.setAppServices(AppServices.builder(appView).build());
 
-    MainDexListBuilder.checkForAssumedLibraryTypes(appView.appInfo());
-
     SubtypingInfo subtypingInfo = SubtypingInfo.create(appView);
 
     ProfileCollectionAdditions profileCollectionAdditions = ProfileCollectionAdditions.nop();
@@ -212,7 +212,7 @@ public class R8 {
       Marker marker = options.getMarker();
       assert marker != null;
       if (options.isGeneratingClassFiles()) {
-        new CfApplicationWriter(appView, marker).write(options.getClassFileConsumer(), inputApp);
+        new CfApplicationWriter(appView, marker).write(options.getClassFileConsumer(), inputApp, executorService);
       } else {
         ApplicationWriter.create(appView, marker).write(executorService, inputApp);
       }
@@ -279,7 +279,7 @@ public class R8 {
         DirectMappedDexApplication application = lazyLoaded.toDirect();
         timing.end();
         timing.end();
-        options.loadMachineDesugaredLibrarySpecification(timing, application);
+        options.loadMachineDesugaredLibrarySpecification(timing, application, inputApp);
         timing.begin("Read main dex classes");
         MainDexInfo mainDexInfo = applicationReader.readMainDexClassesForR8(application);
         timing.end();
@@ -851,12 +851,19 @@ public class R8 {
 
       if (options.printTimes) {
         timing.report();
+        options.dexItemFactory().leastUpperBoundOfInterfacesCache.printStatistics();
       }
     } catch (ExecutionException e) {
       throw unwrapExecutionException(e);
     } finally {
       inputApp.signalFinishedToProviders(options.reporter);
       options.signalFinishedToConsumers();
+      if (options.printLibraryClassLoading) {
+        options.getLibraryClassLoadingStatistics().print();
+      }
+      if (options.printIRPassProfile) {
+        options.getIRPassProfiler().print();
+      }
     }
   }
 
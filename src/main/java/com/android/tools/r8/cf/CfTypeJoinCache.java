@@ -0,0 +1,71 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.cf;
+
+import static com.android.tools.r8.utils.FunctionUtils.ignoreArgument;
+
+import com.android.tools.r8.graph.AppInfo;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.graph.lens.GraphLens;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Cache of the joins of two reference types computed when building stack map frames for class file
+ * output.
+ *
+ * <p>The same pairs of types are joined in the frames of many methods, and each join requires
+ * walking the class hierarchy of both types. The cache is shared between all methods and is safe
+ * for concurrent use. The result of a join depends on the class hierarchy, thus the cached joins
+ * are dropped when the app info or the graph lens changes.
+ */
+public class CfTypeJoinCache {
+
+  private volatile State state = new State(null, null);
+
+  @SuppressWarnings("ReferenceEquality")
+  public DexType join(
+      DexType type1,
+      DexType type2,
+      AppView<?> appView,
+      BiFunction<DexType, DexType, DexType> computeJoin) {
+    State current = getState(appView);
+    Map<DexType, DexType> joins =
+        current.joins.computeIfAbsent(type1, ignoreArgument(ConcurrentHashMap::new));
+    DexType result = joins.get(type2);
+    if (result == null) {
+      // Joins are computed outside the map as the computation may be recursive.
+      result = computeJoin.apply(type1, type2);
+      DexType existing = joins.putIfAbsent(type2, result);
+      assert existing == null || existing == result;
+    }
+    return result;
+  }
+
+  @SuppressWarnings("ReferenceEquality")
+  private State getState(AppView<?> appView) {
+    State current = state;
+    if (current.appInfo != appView.appInfo() || current.graphLens != appView.graphLens()) {
+      // Racing threads may each install a new state, in which case some joins are recomputed.
+      current = new State(appView.appInfo(), appView.graphLens());
+      state = current;
+    }
+    return current;
+  }
+
+  private static class State {
+
+    private final AppInfo appInfo;
+    private final GraphLens graphLens;
+    private final Map<DexType, Map<DexType, DexType>> joins = new ConcurrentHashMap<>();
+
+    State(AppInfo appInfo, GraphLens graphLens) {
+      this.appInfo = appInfo;
+      this.graphLens = graphLens;
+    }
+  }
+}
@@ -188,6 +188,20 @@ public class TypeVerificationHelper {
     if (types.size() == 1) {
       return types.iterator().next();
     }
+    if (types.size() == 2) {
+      Iterator<DexType> iterator = types.iterator();
+      return appView
+          .cfTypeJoinCache()
+          .join(iterator.next(), iterator.next(), appView, this::computeJoin);
+    }
+    return computeJoin(types);
+  }
+
+  private DexType computeJoin(DexType type1, DexType type2) {
+    return computeJoin(ImmutableSet.of(type1, type2));
+  }
+
+  private DexType computeJoin(Set<DexType> types) {
     Iterator<DexType> iterator = types.iterator();
     TypeElement result = toTypeElement(iterator.next());
     while (iterator.hasNext()) {
@@ -82,6 +82,11 @@ public class CfFrameVerifier {
       return StackMapStatus.NOT_PRESENT;
     }
 
+    if (appView.options().trustInputStackMaps) {
+      appView.options().infoTrustedInputStackMaps();
+      return StackMapStatus.VALID;
+    }
+
     // Build a map from labels to frames.
     TraversalContinuation<CfCodeDiagnostics, Map<CfLabel, CfFrame>> labelToFrameMapOrError =
         buildLabelToFrameMap();
@@ -492,7 +492,7 @@ public class DebugRepresentation {
     // Note that the line number optimizer could reduce the line diffs such that deltas are
     // smaller, but this is likely a very good estimate of the actual cost.
     int parameterCount = info.getParameterCount();
-    int eventCount = info.asEventBasedInfo().events.length;
+    int eventCount = info.asEventBasedInfo().getEvents().size();
     // Size: startline(0) + paramCount + null-array[paramCount] + eventCount + 1(end-event)
     return LebUtils.sizeAsUleb128(0)
         + LebUtils.sizeAsUleb128(parameterCount)
@@ -356,19 +356,12 @@ public class ApplicationReader {
       // Read the DexCode items and DexProgramClass items in parallel.
       if (!options.skipReadingDexCode) {
         ApplicationReaderMap applicationReaderMap = ApplicationReaderMap.getInstance(options);
-        if (!options.testing.dexContainerExperiment) {
-          for (DexParser<DexProgramClass> dexParser : dexParsers) {
-            tasks.submit(
-                () -> {
-                  dexParser.addClassDefsTo(
-                      classes::add, applicationReaderMap); // Depends on Methods, Code items etc.
-                });
-          }
-        } else {
-          // All Dex parsers use the same DEX reader, so don't process in parallel.
-          for (int i = 0; i < dexParsers.size(); i++) {
-            dexParsers.get(i).addClassDefsTo(classes::add, applicationReaderMap);
-          }
+        // The class_defs sections are read on this thread. The class definitions are then read by
+        // tasks that each use their own DEX reader, thus this also holds for the Dex parsers of a
+        // container, which share a single DEX reader.
+        for (DexParser<DexProgramClass> dexParser : dexParsers) {
+          dexParser.addClassDefsTo(
+              classes::add, applicationReaderMap, tasks); // Depends on Methods, Code items etc.
         }
       }
     }
@@ -499,6 +492,10 @@ public class ApplicationReader {
       ClassProvider<DexLibraryClass> libraryClassProvider = buildClassProvider(LIBRARY,
           libraryClasses, inputApp.getLibraryResourceProviders(), application);
       if (libraryClassProvider != null) {
+        if (options.isRecordingLibraryClassLoading()) {
+          libraryClassProvider =
+              libraryClassProvider.recordingLoads(options.getLibraryClassLoadingStatistics());
+        }
         builder.setLibraryClassCollection(new LibraryClassCollection(libraryClassProvider));
       }
     }
@@ -80,6 +80,7 @@ import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -300,8 +301,16 @@ public class ApplicationWriter {
 
   protected Timing rewriteJumboStringsAndComputeDebugRepresentation(
       VirtualFile virtualFile, List<LazyDexString> lazyDexStrings) {
+    return rewriteJumboStringsAndComputeDebugRepresentation(virtualFile, lazyDexStrings, null);
+  }
+
+  protected Timing rewriteJumboStringsAndComputeDebugRepresentation(
+      VirtualFile virtualFile,
+      List<LazyDexString> lazyDexStrings,
+      ExecutorService executorService) {
     Timing fileTiming = Timing.create("VirtualFile " + virtualFile.getId(), options);
-    computeOffsetMappingAndRewriteJumboStrings(virtualFile, lazyDexStrings, fileTiming);
+    computeOffsetMappingAndRewriteJumboStrings(
+        virtualFile, lazyDexStrings, fileTiming, executorService);
     DebugRepresentation.computeForFile(appView, virtualFile);
     fileTiming.end();
     return fileTiming;
@@ -312,6 +321,13 @@ public class ApplicationWriter {
       List<VirtualFile> virtualFiles,
       List<LazyDexString> lazyDexStrings)
       throws ExecutionException {
+    if (virtualFiles.size() == 1) {
+      // Compute the mapping of a single file on this thread, such that the tables can be sorted
+      // using the executor without waiting for tasks from within a task.
+      return Collections.singletonList(
+          rewriteJumboStringsAndComputeDebugRepresentation(
+              virtualFiles.get(0), lazyDexStrings, executorService));
+    }
     return ThreadUtils.processItemsWithResults(
         virtualFiles,
         virtualFile ->
@@ -327,17 +343,21 @@ public class ApplicationWriter {
       Timing timing)
       throws ExecutionException {
     TimingMerger merger = timing.beginMerger("Write files", executorService);
-    Collection<Timing> timings =
-        ThreadUtils.processItemsWithResults(
-            virtualFiles,
-            virtualFile -> {
-              Timing fileTiming = Timing.create("VirtualFile " + virtualFile.getId(), options);
-              writeVirtualFile(virtualFile, fileTiming, forcedStrings);
-              fileTiming.end();
-              return fileTiming;
-            },
-            appView.options().getThreadingModule(),
-            executorService);
+    Collection<Timing> timings;
+    if (virtualFiles.size() == 1) {
+      // Write a single file on this thread, such that its code items can be encoded using the
+      // executor without waiting for tasks from within a task.
+      timings =
+          Collections.singletonList(
+              writeVirtualFile(virtualFiles.get(0), forcedStrings, executorService));
+    } else {
+      timings =
+          ThreadUtils.processItemsWithResults(
+              virtualFiles,
+              virtualFile -> writeVirtualFile(virtualFile, forcedStrings, null),
+              appView.options().getThreadingModule(),
+              executorService);
+    }
     merger.add(timings);
     merger.end();
     if (globalsSyntheticsConsumer != null) {
@@ -407,11 +427,16 @@ public class ApplicationWriter {
       // Now that the instruction offsets in each code object are fixed, compute the mapping file
       // content.
       if (willComputeProguardMap()) {
-        // TODO(b/220999985): Refactor line number optimization to be per file and thread it above.
         DebugRepresentationPredicate representation =
             DebugRepresentation.fromFiles(virtualFiles, options);
         delayedProguardMapId.set(
-            runAndWriteMap(inputApp, appView, timing, originalSourceFiles, representation));
+            runAndWriteMap(
+                inputApp,
+                appView,
+                timing,
+                originalSourceFiles,
+                representation,
+                executorService));
       }
 
       // With the mapping id/hash known, it is safe to compute the remaining dex strings.
@@ -537,12 +562,15 @@ public class ApplicationWriter {
   }
 
   private void computeOffsetMappingAndRewriteJumboStrings(
-      VirtualFile virtualFile, List<LazyDexString> lazyDexStrings, Timing timing) {
+      VirtualFile virtualFile,
+      List<LazyDexString> lazyDexStrings,
+      Timing timing,
+      ExecutorService executorService) {
     if (virtualFile.isEmpty()) {
       return;
     }
     timing.begin("Compute object offset mapping");
-    virtualFile.computeMapping(appView, lazyDexStrings.size(), timing);
+    virtualFile.computeMapping(appView, lazyDexStrings.size(), timing, null, executorService);
     timing.end();
     timing.begin("Rewrite jumbo strings");
     rewriteCodeWithJumboStrings(
@@ -575,8 +603,19 @@ public class ApplicationWriter {
     System.out.println("," + many.get());
   }
 
+  private Timing writeVirtualFile(
+      VirtualFile virtualFile, List<DexString> forcedStrings, ExecutorService executorService) {
+    Timing fileTiming = Timing.create("VirtualFile " + virtualFile.getId(), options);
+    writeVirtualFile(virtualFile, fileTiming, forcedStrings, executorService);
+    fileTiming.end();
+    return fileTiming;
+  }
+
   private void writeVirtualFile(
-      VirtualFile virtualFile, Timing timing, List<DexString> forcedStrings) {
+      VirtualFile virtualFile,
+      Timing timing,
+      List<DexString> forcedStrings,
+      ExecutorService executorService) {
     if (virtualFile.isEmpty()) {
       return;
     }
@@ -613,7 +652,8 @@ public class ApplicationWriter {
     timing.end();
 
     timing.begin("Write bytes");
-    ByteBufferResult result = writeDexFile(objectMapping, byteBufferProvider, virtualFile, timing);
+    ByteBufferResult result =
+        writeDexFile(objectMapping, byteBufferProvider, virtualFile, timing, executorService);
     ByteDataView data =
         new ByteDataView(result.buffer.array(), result.buffer.arrayOffset(), result.length);
     timing.end();
@@ -957,9 +997,16 @@ public class ApplicationWriter {
       ObjectToOffsetMapping objectMapping,
       ByteBufferProvider provider,
       VirtualFile virtualFile,
-      Timing timing) {
+      Timing timing,
+      ExecutorService executorService) {
     FileWriter fileWriter =
-        new FileWriter(appView, provider, objectMapping, desugaredLibraryCodeToKeep, virtualFile);
+        new FileWriter(
+            appView,
+            provider,
+            objectMapping,
+            desugaredLibraryCodeToKeep,
+            virtualFile,
+            executorService);
     // Collect the non-fixed sections.
     timing.time("collect", fileWriter::collect);
     // Generate and write the bytes.
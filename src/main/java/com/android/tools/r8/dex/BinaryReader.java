@@ -28,6 +28,12 @@ public abstract class BinaryReader {
     buffer = CompatByteBuffer.wrap(bytes);
   }
 
+  protected BinaryReader(Origin origin, CompatByteBuffer buffer) {
+    assert origin != null;
+    this.origin = origin;
+    this.buffer = buffer;
+  }
+
   public Origin getOrigin() {
     return origin;
   }
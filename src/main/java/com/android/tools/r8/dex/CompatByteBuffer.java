@@ -94,6 +94,11 @@ public class CompatByteBuffer {
     return asByteBuffer().asShortBuffer();
   }
 
+  /** Returns a buffer sharing the content and byte order of this buffer with its own position. */
+  public CompatByteBuffer duplicate() {
+    return new CompatByteBuffer(asByteBuffer().duplicate().order(asByteBuffer().order()));
+  }
+
   public void order(ByteOrder bo) {
     asByteBuffer().order(bo);
   }
@@ -142,6 +147,10 @@ public class CompatByteBuffer {
     asByteBuffer().put(bytes);
   }
 
+  public void put(byte[] bytes, int offset, int length) {
+    asByteBuffer().put(bytes, offset, length);
+  }
+
   // ----------------------------------------------------------------------------------------------
   // Additional custom methods
   // ----------------------------------------------------------------------------------------------
@@ -34,7 +34,8 @@ public class DebugBytecodeWriter {
 
   private void maybeGrow(int size) {
     if (buffer.remaining() < size) {
-      ByteBuffer newBuffer = ByteBuffer.allocate(buffer.capacity() * 2);
+      ByteBuffer newBuffer =
+          ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
       newBuffer.put(buffer.array(), 0, buffer.position());
       buffer = newBuffer;
     }
@@ -45,6 +46,11 @@ public class DebugBytecodeWriter {
     buffer.put((byte) item);
   }
 
+  public void putBytes(byte[] bytes, int offset, int length) {
+    maybeGrow(length);
+    buffer.put(bytes, offset, length);
+  }
+
   public void putSleb128(int item) {
     byte[] encoded = LebUtils.encodeSleb128(item);
     maybeGrow(encoded.length);
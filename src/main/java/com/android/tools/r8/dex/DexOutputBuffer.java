@@ -11,7 +11,6 @@ import com.android.tools.r8.graph.ObjectToOffsetMapping;
 import com.android.tools.r8.graph.ProgramMethod;
 import com.android.tools.r8.utils.EncodedValueUtils;
 import com.android.tools.r8.utils.LebUtils;
-import com.google.common.annotations.VisibleForTesting;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.ShortBuffer;
@@ -26,7 +25,6 @@ public class DexOutputBuffer {
   private final ByteBufferProvider byteBufferProvider;
   private CompatByteBuffer byteBuffer;
 
-  @VisibleForTesting
   DexOutputBuffer() {
     this(new ByteBufferProvider() {});
   }
@@ -123,6 +121,11 @@ public class DexOutputBuffer {
     byteBuffer.put(bytes);
   }
 
+  public void putBytes(byte[] bytes, int offset, int length) {
+    ensureSpaceFor(length);
+    byteBuffer.put(bytes, offset, length);
+  }
+
   public void putShort(short aShort) {
     ensureSpaceFor(Short.BYTES);
     byteBuffer.putShort(aShort);
@@ -25,8 +25,7 @@ import com.android.tools.r8.graph.DexCode;
 import com.android.tools.r8.graph.DexCode.Try;
 import com.android.tools.r8.graph.DexCode.TryHandler;
 import com.android.tools.r8.graph.DexCode.TryHandler.TypeAddrPair;
-import com.android.tools.r8.graph.DexDebugEvent;
-import com.android.tools.r8.graph.DexDebugEvent.Default;
+import com.android.tools.r8.graph.DexDebugEvents;
 import com.android.tools.r8.graph.DexDebugInfo;
 import com.android.tools.r8.graph.DexDebugInfo.EventBasedDebugInfo;
 import com.android.tools.r8.graph.DexDebugInfo.PcBasedDebugInfo;
@@ -70,12 +69,14 @@ import com.android.tools.r8.graph.PermittedSubclassAttribute;
 import com.android.tools.r8.graph.RecordComponentInfo;
 import com.android.tools.r8.origin.Origin;
 import com.android.tools.r8.origin.PathOrigin;
+import com.android.tools.r8.threading.TaskCollection;
 import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.ListUtils;
 import com.android.tools.r8.utils.Pair;
 import com.google.common.io.ByteStreams;
 import it.unimi.dsi.fastutil.ints.Int2IntArrayMap;
 import it.unimi.dsi.fastutil.ints.Int2ReferenceMap;
+import it.unimi.dsi.fastutil.ints.Int2ReferenceMaps;
 import it.unimi.dsi.fastutil.ints.Int2ReferenceOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2LongMap;
 import java.io.ByteArrayOutputStream;
@@ -88,12 +89,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 public class DexParser<T extends DexClass> {
 
   private final int NO_INDEX = -1;
+
+  // Number of class definitions per task when reading the class definitions concurrently.
+  private static final int CLASS_DEFS_CHUNK_SIZE = 256;
+
   private final Origin origin;
   private DexReader dexReader;
   private final List<DexSection> dexSections;
@@ -168,6 +174,32 @@ public class DexParser<T extends DexClass> {
     this.options = options;
   }
 
+  /**
+   * Creates a parser for reading a subset of the class definitions of the given parser
+   * concurrently with other parsers for the same dex file.
+   *
+   * <p>The parser has its own position in the shared dex data. The index tables are shared, as they
+   * are only read after {@link #populateIndexTables()}. The given caches of the items at offsets
+   * must be thread safe when they are shared with other parsers.
+   */
+  private DexParser(
+      DexParser<T> parser,
+      Int2ReferenceMap<Object> offsetMap,
+      Int2ReferenceMap<EventBasedDebugInfo> nonPcBasedDebugInfo) {
+    this.origin = parser.origin;
+    this.dexReader = parser.dexReader.duplicate();
+    this.dexSections = parser.dexSections;
+    this.offset = parser.offset;
+    this.stringIDs = parser.stringIDs;
+    this.classKind = parser.classKind;
+    this.options = parser.options;
+    this.checksums = parser.checksums;
+    this.indexedItems = parser.indexedItems;
+    this.dexItemFactory = parser.dexItemFactory;
+    this.offsetMap = offsetMap;
+    this.nonPcBasedDebugInfo = nonPcBasedDebugInfo;
+  }
+
   // We explicitly reread the code objects even if they are deduplicated in the input (i.e., two
   // methods point to the same code object) to allow us to change code objects in our pipeline.
   private DexCode readCodeObject(int offset) {
@@ -462,8 +494,12 @@ public class DexParser<T extends DexClass> {
     // Cache is empty so parse the structure.
     dexReader.position(offset);
     result = function.get();
-    // Update the map.
-    offsetMap.put(offset, result);
+    // Update the map. If the map is shared then another parser may have parsed the same structure
+    // in the meantime, in which case its result is used such that the structure remains shared.
+    Object existing = offsetMap.putIfAbsent(offset, result);
+    if (existing != null) {
+      return existing;
+    }
     assert offsetMap.get(offset) == result;
     return result;
   }
@@ -568,17 +604,17 @@ public class DexParser<T extends DexClass> {
         isPcBasedDebugInfo = false;
       }
     }
-    List<DexDebugEvent> events = new ArrayList<>();
+    DexDebugEvents.Builder events = DexDebugEvents.builder();
     for (int head = dexReader.getUbyte();
         head != Constants.DBG_END_SEQUENCE;
         head = dexReader.getUbyte()) {
       switch (head) {
         case Constants.DBG_ADVANCE_PC:
-          events.add(dexItemFactory.createAdvancePC(dexReader.getUleb128()));
+          events.addAdvancePC(dexReader.getUleb128());
           isPcBasedDebugInfo = false;
           break;
         case Constants.DBG_ADVANCE_LINE:
-          events.add(dexItemFactory.createAdvanceLine(dexReader.getSleb128()));
+          events.addAdvanceLine(dexReader.getSleb128());
           isPcBasedDebugInfo = false;
           break;
         case Constants.DBG_START_LOCAL:
@@ -586,12 +622,11 @@ public class DexParser<T extends DexClass> {
             int registerNum = dexReader.getUleb128();
             int nameIdx = dexReader.getUleb128p1();
             int typeIdx = dexReader.getUleb128p1();
-            events.add(
-                new DexDebugEvent.StartLocal(
-                    registerNum,
-                    nameIdx == NO_INDEX ? null : indexedItems.getString(nameIdx),
-                    typeIdx == NO_INDEX ? null : indexedItems.getType(typeIdx),
-                    null));
+            events.addStartLocal(
+                registerNum,
+                nameIdx == NO_INDEX ? null : indexedItems.getString(nameIdx),
+                typeIdx == NO_INDEX ? null : indexedItems.getType(typeIdx),
+                null);
             isPcBasedDebugInfo = false;
             break;
           }
@@ -601,36 +636,35 @@ public class DexParser<T extends DexClass> {
             int nameIdx = dexReader.getUleb128p1();
             int typeIdx = dexReader.getUleb128p1();
             int sigIdx = dexReader.getUleb128p1();
-            events.add(
-                new DexDebugEvent.StartLocal(
-                    registerNum,
-                    nameIdx == NO_INDEX ? null : indexedItems.getString(nameIdx),
-                    typeIdx == NO_INDEX ? null : indexedItems.getType(typeIdx),
-                    sigIdx == NO_INDEX ? null : indexedItems.getString(sigIdx)));
+            events.addStartLocal(
+                registerNum,
+                nameIdx == NO_INDEX ? null : indexedItems.getString(nameIdx),
+                typeIdx == NO_INDEX ? null : indexedItems.getType(typeIdx),
+                sigIdx == NO_INDEX ? null : indexedItems.getString(sigIdx));
             isPcBasedDebugInfo = false;
             break;
           }
         case Constants.DBG_END_LOCAL:
           {
-            events.add(dexItemFactory.createEndLocal(dexReader.getUleb128()));
+            events.addEndLocal(dexReader.getUleb128());
             isPcBasedDebugInfo = false;
             break;
           }
         case Constants.DBG_RESTART_LOCAL:
           {
-            events.add(dexItemFactory.createRestartLocal(dexReader.getUleb128()));
+            events.addRestartLocal(dexReader.getUleb128());
             isPcBasedDebugInfo = false;
             break;
           }
         case Constants.DBG_SET_PROLOGUE_END:
           {
-            events.add(dexItemFactory.createSetPrologueEnd());
+            events.addSetPrologueEnd();
             isPcBasedDebugInfo = false;
             break;
           }
         case Constants.DBG_SET_EPILOGUE_BEGIN:
           {
-            events.add(dexItemFactory.createSetEpilogueBegin());
+            events.addSetEpilogueBegin();
             isPcBasedDebugInfo = false;
             break;
           }
@@ -639,7 +673,7 @@ public class DexParser<T extends DexClass> {
             int nameIdx = dexReader.getUleb128p1();
             DexString sourceFile = nameIdx == NO_INDEX ? null : indexedItems.getString(nameIdx);
             if (options.readDebugSetFileEvent) {
-              events.add(dexItemFactory.createSetFile(sourceFile));
+              events.addSetFile(sourceFile);
             }
             isPcBasedDebugInfo = false;
             break;
@@ -647,13 +681,12 @@ public class DexParser<T extends DexClass> {
         default:
           {
             assert head >= 0x0a && head <= 0xff;
-            Default event = dexItemFactory.createDefault(head);
-            events.add(event);
+            events.addDefault(head);
             if (isPcBasedDebugInfo) {
               if (events.size() == 1) {
-                isPcBasedDebugInfo = event.equals(dexItemFactory.zeroChangeDefaultEvent);
+                isPcBasedDebugInfo = head == dexItemFactory.zeroChangeDefaultEvent.getOpcode();
               } else {
-                isPcBasedDebugInfo = event.equals(dexItemFactory.oneChangeDefaultEvent);
+                isPcBasedDebugInfo = head == dexItemFactory.oneChangeDefaultEvent.getOpcode();
               }
             }
           }
@@ -661,7 +694,7 @@ public class DexParser<T extends DexClass> {
     }
     return isPcBasedDebugInfo
         ? new PcBasedDebugInfo(parametersSize, events.size() - 1)
-        : new EventBasedDebugInfo(start, parameters, events.toArray(DexDebugEvent.EMPTY_ARRAY));
+        : new EventBasedDebugInfo(start, parameters, events.build());
   }
 
   private static class MemberAnnotationIterator<R extends DexMember<?, R>, T extends DexItem> {
@@ -783,36 +816,92 @@ public class DexParser<T extends DexClass> {
     return methods;
   }
 
+  /**
+   * Reads the class definitions and adds them to the given collection in the order of the
+   * class_defs section.
+   */
   void addClassDefsTo(Consumer<T> classCollection, ApplicationReaderMap applicationReaderMap) {
+    ClassDefs classDefs = readClassDefs();
+    addClassDefsTo(classDefs, 0, classDefs.length, classCollection, applicationReaderMap);
+  }
+
+  /**
+   * Reads the class_defs section and submits tasks that read the class definitions and add them to
+   * the given collection, which must thus be thread safe.
+   *
+   * <p>The class definitions of a large dex file are read in ranges concurrently. Each task reads
+   * its range with its own parser, which shares the dex data, the index tables and the caches of
+   * the items at offsets with this parser. Thus items that are referenced from several ranges are
+   * read once and shared, as when reading the class definitions sequentially.
+   */
+  void addClassDefsTo(
+      Consumer<T> classCollection,
+      ApplicationReaderMap applicationReaderMap,
+      TaskCollection<?> tasks)
+      throws ExecutionException {
+    ClassDefs classDefs = readClassDefs();
+    int length = classDefs.length;
+    if (length == 0) {
+      return;
+    }
+    if (length < 2 * CLASS_DEFS_CHUNK_SIZE) {
+      DexParser<T> parser = new DexParser<>(this, offsetMap, nonPcBasedDebugInfo);
+      tasks.submit(
+          () -> parser.addClassDefsTo(classDefs, 0, length, classCollection, applicationReaderMap));
+      return;
+    }
+    Int2ReferenceMap<Object> sharedOffsetMap = Int2ReferenceMaps.synchronize(offsetMap);
+    Int2ReferenceMap<EventBasedDebugInfo> sharedNonPcBasedDebugInfo =
+        Int2ReferenceMaps.synchronize(nonPcBasedDebugInfo);
+    for (int start = 0; start < length; start += CLASS_DEFS_CHUNK_SIZE) {
+      int rangeStart = start;
+      int rangeEnd = Math.min(start + CLASS_DEFS_CHUNK_SIZE, length);
+      DexParser<T> parser = new DexParser<>(this, sharedOffsetMap, sharedNonPcBasedDebugInfo);
+      tasks.submit(
+          () ->
+              parser.addClassDefsTo(
+                  classDefs, rangeStart, rangeEnd, classCollection, applicationReaderMap));
+    }
+  }
+
+  private ClassDefs readClassDefs() {
     final DexSection dexSection = lookupSection(Constants.TYPE_CLASS_DEF_ITEM);
     final int length = dexSection.length;
     indexedItems.initializeClasses(length);
+    ClassDefs classDefs = new ClassDefs(length);
     if (length == 0) {
-      return;
+      return classDefs;
     }
     dexReader.position(dexSection.offset);
-
-    int[] classIndices = new int[length];
-    int[] accessFlags = new int[length];
-    int[] superclassIndices = new int[length];
-    int[] interfacesOffsets = new int[length];
-    int[] sourceFileIndices = new int[length];
-    int[] annotationsOffsets = new int[length];
-    int[] classDataOffsets = new int[length];
-    int[] staticValuesOffsets = new int[length];
-
     for (int i = 0; i < length; i++) {
-      classIndices[i] = dexReader.getUint();
-      accessFlags[i] = dexReader.getUint();
-      superclassIndices[i] = dexReader.getInt();
-      interfacesOffsets[i] = dexReader.getUint();
-      sourceFileIndices[i] = dexReader.getInt();
-      annotationsOffsets[i] = dexReader.getUint();
-      classDataOffsets[i] = dexReader.getUint();
-      staticValuesOffsets[i] = dexReader.getUint();
-    }
+      classDefs.classIndices[i] = dexReader.getUint();
+      classDefs.accessFlags[i] = dexReader.getUint();
+      classDefs.superclassIndices[i] = dexReader.getInt();
+      classDefs.interfacesOffsets[i] = dexReader.getUint();
+      classDefs.sourceFileIndices[i] = dexReader.getInt();
+      classDefs.annotationsOffsets[i] = dexReader.getUint();
+      classDefs.classDataOffsets[i] = dexReader.getUint();
+      classDefs.staticValuesOffsets[i] = dexReader.getUint();
+    }
+    return classDefs;
+  }
 
-    for (int i = 0; i < length; i++) {
+  private void addClassDefsTo(
+      ClassDefs classDefs,
+      int start,
+      int end,
+      Consumer<T> classCollection,
+      ApplicationReaderMap applicationReaderMap) {
+    int[] classIndices = classDefs.classIndices;
+    int[] accessFlags = classDefs.accessFlags;
+    int[] superclassIndices = classDefs.superclassIndices;
+    int[] interfacesOffsets = classDefs.interfacesOffsets;
+    int[] sourceFileIndices = classDefs.sourceFileIndices;
+    int[] annotationsOffsets = classDefs.annotationsOffsets;
+    int[] classDataOffsets = classDefs.classDataOffsets;
+    int[] staticValuesOffsets = classDefs.staticValuesOffsets;
+
+    for (int i = start; i < end; i++) {
       int superclassIdx = superclassIndices[i];
       DexType superclass = superclassIdx == NO_INDEX ? null : indexedItems.getType(superclassIdx);
       int srcIdx = sourceFileIndices[i];
@@ -905,6 +994,32 @@ public class DexParser<T extends DexClass> {
     }
   }
 
+  /** The fixed size class_def_items of a dex file. */
+  private static class ClassDefs {
+
+    private final int length;
+    private final int[] classIndices;
+    private final int[] accessFlags;
+    private final int[] superclassIndices;
+    private final int[] interfacesOffsets;
+    private final int[] sourceFileIndices;
+    private final int[] annotationsOffsets;
+    private final int[] classDataOffsets;
+    private final int[] staticValuesOffsets;
+
+    private ClassDefs(int length) {
+      this.length = length;
+      classIndices = new int[length];
+      accessFlags = new int[length];
+      superclassIndices = new int[length];
+      interfacesOffsets = new int[length];
+      sourceFileIndices = new int[length];
+      annotationsOffsets = new int[length];
+      classDataOffsets = new int[length];
+      staticValuesOffsets = new int[length];
+    }
+  }
+
   private void parseStringIDs() {
     DexSection dexSection = lookupSection(Constants.TYPE_STRING_ID_ITEM);
     stringIDs = new int[dexSection.length];
@@ -43,6 +43,19 @@ public class DexReader extends BinaryReader {
     version = parseMagic(buffer, offset);
   }
 
+  private DexReader(Origin origin, CompatByteBuffer buffer, DexVersion version) {
+    super(origin, buffer);
+    this.version = version;
+  }
+
+  /**
+   * Returns a reader of the same dex data with its own position, such that the two readers can be
+   * used concurrently.
+   */
+  DexReader duplicate() {
+    return new DexReader(origin, buffer.duplicate(), version);
+  }
+
   // Parse the magic header and determine the dex file version.
   private DexVersion parseMagic(CompatByteBuffer buffer, int offset) {
     try {
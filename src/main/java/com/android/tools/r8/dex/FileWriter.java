@@ -4,9 +4,11 @@
 package com.android.tools.r8.dex;
 
 import static com.android.tools.r8.utils.DexVersion.Layout.SINGLE_DEX;
+import static com.android.tools.r8.utils.ExceptionUtils.unwrapExecutionException;
 import static com.android.tools.r8.utils.LebUtils.sizeAsUleb128;
 
 import com.android.tools.r8.ByteBufferProvider;
+import com.android.tools.r8.dex.StartupLayoutPageModel.Section;
 import com.android.tools.r8.errors.CompilationError;
 import com.android.tools.r8.errors.UnsupportedDefaultInterfaceMethodDiagnostic;
 import com.android.tools.r8.errors.UnsupportedInvokeCustomDiagnostic;
@@ -57,12 +59,14 @@ import com.android.tools.r8.utils.DexVersion;
 import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.IterableUtils;
 import com.android.tools.r8.utils.LebUtils;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Reference2IntLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -75,6 +79,8 @@ import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 import java.util.function.ToIntFunction;
 import java.util.zip.Adler32;
@@ -103,6 +109,7 @@ public class FileWriter {
   private final CodeToKeep desugaredLibraryCodeToKeep;
   private final VirtualFile virtualFile;
   private final boolean includeStringData;
+  private final ExecutorService executorService;
 
   public FileWriter(
       AppView<?> appView,
@@ -110,13 +117,29 @@ public class FileWriter {
       ObjectToOffsetMapping mapping,
       CodeToKeep desugaredLibraryCodeToKeep,
       VirtualFile virtualFile) {
+    this(appView, provider, mapping, desugaredLibraryCodeToKeep, virtualFile, null);
+  }
+
+  /**
+   * Creates a writer for a single dex file. If an executor service is given, then the code items
+   * of large dex files are encoded concurrently. The writer then waits for tasks on the executor
+   * service, thus it must not be used from within a task on the same executor service.
+   */
+  public FileWriter(
+      AppView<?> appView,
+      ByteBufferProvider provider,
+      ObjectToOffsetMapping mapping,
+      CodeToKeep desugaredLibraryCodeToKeep,
+      VirtualFile virtualFile,
+      ExecutorService executorService) {
     this(
         appView,
         new DexOutputBuffer(provider),
         mapping,
         desugaredLibraryCodeToKeep,
         virtualFile,
-        true);
+        true,
+        executorService);
   }
 
   public FileWriter(
@@ -126,6 +149,24 @@ public class FileWriter {
       CodeToKeep desugaredLibraryCodeToKeep,
       VirtualFile virtualFile,
       boolean includeStringData) {
+    this(
+        appView,
+        dexOutputBuffer,
+        mapping,
+        desugaredLibraryCodeToKeep,
+        virtualFile,
+        includeStringData,
+        null);
+  }
+
+  public FileWriter(
+      AppView<?> appView,
+      DexOutputBuffer dexOutputBuffer,
+      ObjectToOffsetMapping mapping,
+      CodeToKeep desugaredLibraryCodeToKeep,
+      VirtualFile virtualFile,
+      boolean includeStringData,
+      ExecutorService executorService) {
     this.appView = appView;
     this.graphLens = appView.graphLens();
     this.mapping = mapping;
@@ -135,6 +176,7 @@ public class FileWriter {
     this.desugaredLibraryCodeToKeep = desugaredLibraryCodeToKeep;
     this.virtualFile = virtualFile;
     this.includeStringData = includeStringData;
+    this.executorService = executorService;
   }
 
   private NamingLens getNamingLens() {
@@ -223,6 +265,9 @@ public class FileWriter {
     // Sort the codes first, as their order might impact size due to alignment constraints.
     MixedSectionLayoutStrategy mixedSectionLayoutStrategy =
         MixedSectionLayoutStrategy.create(appView, mixedSectionOffsets, virtualFile);
+    StartupLayoutPageModel startupLayoutPageModel =
+        StartupLayoutPageModel.createIfEnabled(
+            appView, mixedSectionOffsets, mixedSectionLayoutStrategy, virtualFile);
     Collection<ProgramMethod> codes = mixedSectionLayoutStrategy.getCodeLayout();
 
     // Output the debug_info_items first, as they have no dependencies.
@@ -249,21 +294,11 @@ public class FileWriter {
     // Now output the code.
     dest.moveTo(layout.getCodesOffset());
     assert dest.isAligned(4);
-    Map<DexWritableCacheKey, Integer> offsetCache = new HashMap<>();
-    for (ProgramMethod method : codes) {
-      DexWritableCode dexWritableCode = method.getDefinition().getCode().asDexWritableCode();
-      if (!options.canUseCanonicalizedCodeObjects()) {
-        writeCodeItem(method, dexWritableCode);
-      } else {
-        DexWritableCacheKey cacheLookupKey =
-            dexWritableCode.getCacheLookupKey(method, appView.dexItemFactory());
-        Integer offsetOrNull = offsetCache.get(cacheLookupKey);
-        if (offsetOrNull != null) {
-          mixedSectionOffsets.setOffsetFor(method.getDefinition(), offsetOrNull);
-        } else {
-          offsetCache.put(cacheLookupKey, writeCodeItem(method, dexWritableCode));
-        }
-      }
+    if (executorService == null
+        || sizeAndCountOfCodeItems.getCount() < 2 * options.testing.dexWriterCodeItemChunkSize) {
+      writeCodeItems(codes, startupLayoutPageModel);
+    } else {
+      writeCodeItemsConcurrently(codes, startupLayoutPageModel);
     }
     assert sizeAndCountOfCodeItems.getCount()
         == ImmutableSet.copyOf(mixedSectionOffsets.codes.values()).size();
@@ -274,11 +309,15 @@ public class FileWriter {
     dest.moveTo(layout.getTypeListsOffset());
     writeItems(
         mixedSectionLayoutStrategy.getTypeListLayout(),
+        startupLayoutPageModel,
+        Section.TYPE_LIST,
         layout::alreadySetOffset,
         this::writeTypeList);
     if (includeStringData) {
       writeItems(
           mixedSectionLayoutStrategy.getStringDataLayout(),
+          startupLayoutPageModel,
+          Section.STRING_DATA,
           layout::setStringDataOffsets,
           this::writeStringData);
     } else {
@@ -286,28 +325,40 @@ public class FileWriter {
     }
     writeItems(
         mixedSectionLayoutStrategy.getAnnotationLayout(),
+        startupLayoutPageModel,
+        Section.ANNOTATION,
         layout::setAnnotationsOffset,
         this::writeAnnotation);
     writeItems(
         mixedSectionLayoutStrategy.getClassDataLayout(),
+        startupLayoutPageModel,
+        Section.CLASS_DATA,
         layout::setClassDataOffset,
         this::writeClassData);
     writeItems(
         mixedSectionLayoutStrategy.getEncodedArrayLayout(),
+        startupLayoutPageModel,
+        Section.ENCODED_ARRAY,
         layout::setEncodedArraysOffset,
         this::writeEncodedArray);
     writeItems(
         mixedSectionLayoutStrategy.getAnnotationSetLayout(),
+        startupLayoutPageModel,
+        Section.ANNOTATION_SET,
         layout::setAnnotationSetsOffset,
         this::writeAnnotationSet,
         4);
     writeItems(
         mixedSectionLayoutStrategy.getAnnotationSetRefListLayout(),
+        startupLayoutPageModel,
+        Section.ANNOTATION_SET_REF_LIST,
         layout::setAnnotationSetRefListsOffset,
         this::writeAnnotationSetRefList,
         4);
     writeItems(
         mixedSectionLayoutStrategy.getAnnotationDirectoryLayout(),
+        startupLayoutPageModel,
+        Section.ANNOTATION_DIRECTORY,
         layout::setAnnotationDirectoriesOffset,
         this::writeAnnotationDirectory,
         4);
@@ -315,6 +366,9 @@ public class FileWriter {
     // Add the map at the end.
     writeMap(layout);
     layout.setEndOfFile(dest.position());
+    if (startupLayoutPageModel != null) {
+      startupLayoutPageModel.report();
+    }
 
     // Now that we have all mixedSectionOffsets, lets write the indexed items.
     dest.moveTo(layout.headerOffset + layout.getHeaderSize());
@@ -441,18 +495,30 @@ public class FileWriter {
     }
   }
 
-  private <T extends DexItem> void writeItems(Collection<T> items, Consumer<Integer> offsetSetter,
+  private <T extends DexItem> void writeItems(
+      Collection<T> items,
+      StartupLayoutPageModel startupLayoutPageModel,
+      Section section,
+      Consumer<Integer> offsetSetter,
       Consumer<T> writer) {
-    writeItems(items, offsetSetter, writer, 1);
+    writeItems(items, startupLayoutPageModel, section, offsetSetter, writer, 1);
   }
 
   private <T> void writeItems(
-      Collection<T> items, Consumer<Integer> offsetSetter, Consumer<T> writer, int alignment) {
+      Collection<T> items,
+      StartupLayoutPageModel startupLayoutPageModel,
+      Section section,
+      Consumer<Integer> offsetSetter,
+      Consumer<T> writer,
+      int alignment) {
     if (items.isEmpty()) {
       offsetSetter.accept(0);
     } else {
       offsetSetter.accept(dest.align(alignment));
-      items.forEach(writer);
+      items.forEach(
+          startupLayoutPageModel != null
+              ? startupLayoutPageModel.recordItems(section, writer, dest::position)
+              : writer);
     }
   }
 
@@ -567,57 +633,178 @@ public class FileWriter {
     dest.putBytes(new DebugBytecodeWriter(debugInfo, mapping, graphLens).generate());
   }
 
+  private void writeCodeItems(
+      Collection<ProgramMethod> codes, StartupLayoutPageModel startupLayoutPageModel) {
+    Map<DexWritableCacheKey, Integer> offsetCache = new HashMap<>();
+    for (ProgramMethod method : codes) {
+      DexWritableCode dexWritableCode = method.getDefinition().getCode().asDexWritableCode();
+      int start = dest.position();
+      if (!options.canUseCanonicalizedCodeObjects()) {
+        writeCodeItem(method, dexWritableCode);
+      } else {
+        DexWritableCacheKey cacheLookupKey =
+            dexWritableCode.getCacheLookupKey(method, appView.dexItemFactory());
+        Integer offsetOrNull = offsetCache.get(cacheLookupKey);
+        if (offsetOrNull != null) {
+          mixedSectionOffsets.setOffsetFor(method.getDefinition(), offsetOrNull);
+        } else {
+          offsetCache.put(cacheLookupKey, writeCodeItem(method, dexWritableCode));
+        }
+      }
+      if (startupLayoutPageModel != null && dest.position() > start) {
+        startupLayoutPageModel.recordItem(Section.CODE, method, start, dest.position());
+      }
+    }
+  }
+
+  /**
+   * Writes the code items to the output in the same layout as {@link #writeCodeItems}, but encodes
+   * consecutive chunks of code items into separate buffers concurrently.
+   *
+   * <p>A code item only refers to other items by their index or by their offset in the mixed
+   * sections that are already written, and all offsets within a code item are relative to its
+   * start. Since code items are 4-byte aligned, each chunk can be encoded starting at position 0 of
+   * its own buffer and then be copied to a 4-byte aligned position in the output.
+   */
+  private void writeCodeItemsConcurrently(
+      Collection<ProgramMethod> codes, StartupLayoutPageModel startupLayoutPageModel) {
+    // Determine the code items to write and the code item shared by each of the other methods.
+    List<ProgramMethod> codeItems = new ArrayList<>();
+    Map<ProgramMethod, ProgramMethod> canonicalCodeItems = new IdentityHashMap<>();
+    Map<DexWritableCacheKey, ProgramMethod> canonicalCodeItemsByKey = new HashMap<>();
+    for (ProgramMethod method : codes) {
+      if (options.canUseCanonicalizedCodeObjects()) {
+        DexWritableCacheKey cacheLookupKey =
+            method
+                .getDefinition()
+                .getCode()
+                .asDexWritableCode()
+                .getCacheLookupKey(method, appView.dexItemFactory());
+        ProgramMethod canonicalCodeItem =
+            canonicalCodeItemsByKey.putIfAbsent(cacheLookupKey, method);
+        if (canonicalCodeItem != null) {
+          canonicalCodeItems.put(method, canonicalCodeItem);
+          continue;
+        }
+      }
+      codeItems.add(method);
+    }
+    int chunkSize = options.testing.dexWriterCodeItemChunkSize;
+    List<CodeItemChunk> chunks = new ArrayList<>();
+    for (int i = 0; i < codeItems.size(); i += chunkSize) {
+      chunks.add(
+          new CodeItemChunk(codeItems.subList(i, Math.min(i + chunkSize, codeItems.size()))));
+    }
+    try {
+      ThreadUtils.processItems(
+          chunks, CodeItemChunk::encode, options.getThreadingModule(), executorService);
+    } catch (ExecutionException e) {
+      throw unwrapExecutionException(e);
+    }
+    // Copy the encoded chunks to the output and fix up the offsets.
+    Reference2IntMap<ProgramMethod> codeItemOffsets = new Reference2IntOpenHashMap<>();
+    for (CodeItemChunk chunk : chunks) {
+      int start = dest.position();
+      int base = dest.align(4);
+      dest.putBytes(chunk.buffer.asArray(), 0, chunk.buffer.position());
+      for (int i = 0; i < chunk.methods.size(); i++) {
+        ProgramMethod method = chunk.methods.get(i);
+        int codeOffset = base + chunk.offsets[i];
+        int end = base + chunk.ends[i];
+        mixedSectionOffsets.setOffsetFor(method.getDefinition(), codeOffset);
+        codeItemOffsets.put(method, codeOffset);
+        if (startupLayoutPageModel != null) {
+          startupLayoutPageModel.recordItem(Section.CODE, method, start, end);
+        }
+        start = end;
+      }
+    }
+    canonicalCodeItems.forEach(
+        (method, canonicalCodeItem) ->
+            mixedSectionOffsets.setOffsetFor(
+                method.getDefinition(), codeItemOffsets.getInt(canonicalCodeItem)));
+  }
+
+  private class CodeItemChunk {
+
+    private final List<ProgramMethod> methods;
+    private final int[] offsets;
+    private final int[] ends;
+    private DexOutputBuffer buffer;
+
+    CodeItemChunk(List<ProgramMethod> methods) {
+      this.methods = methods;
+      this.offsets = new int[methods.size()];
+      this.ends = new int[methods.size()];
+    }
+
+    void encode() {
+      buffer = new DexOutputBuffer();
+      for (int i = 0; i < methods.size(); i++) {
+        ProgramMethod method = methods.get(i);
+        offsets[i] =
+            writeCodeItem(buffer, method, method.getDefinition().getCode().asDexWritableCode());
+        ends[i] = buffer.position();
+      }
+    }
+  }
+
   private int writeCodeItem(ProgramMethod method, DexWritableCode code) {
-    int codeOffset = dest.align(4);
+    int codeOffset = writeCodeItem(dest, method, code);
     mixedSectionOffsets.setOffsetFor(method.getDefinition(), codeOffset);
+    return codeOffset;
+  }
+
+  private int writeCodeItem(DexOutputBuffer buffer, ProgramMethod method, DexWritableCode code) {
+    int codeOffset = buffer.align(4);
     // Fixed size header information.
-    dest.putShort((short) code.getRegisterSize(method));
-    dest.putShort((short) code.getIncomingRegisterSize(method));
-    dest.putShort((short) code.getOutgoingRegisterSize());
-    dest.putShort((short) code.getTries().length);
-    dest.putInt(mixedSectionOffsets.getOffsetFor(code.getDebugInfoForWriting()));
+    buffer.putShort((short) code.getRegisterSize(method));
+    buffer.putShort((short) code.getIncomingRegisterSize(method));
+    buffer.putShort((short) code.getOutgoingRegisterSize());
+    buffer.putShort((short) code.getTries().length);
+    buffer.putInt(mixedSectionOffsets.getOffsetFor(code.getDebugInfoForWriting()));
     // Jump over the size.
-    int insnSizeOffset = dest.position();
-    dest.forward(4);
+    int insnSizeOffset = buffer.position();
+    buffer.forward(4);
     // Write instruction stream.
-    dest.putInstructions(appView, code, method, mapping, desugaredLibraryCodeToKeep);
+    buffer.putInstructions(appView, code, method, mapping, desugaredLibraryCodeToKeep);
     // Compute size and do the backward/forward dance to write the size at the beginning.
-    int insnSize = dest.position() - insnSizeOffset - 4;
-    dest.rewind(insnSize + 4);
-    dest.putInt(insnSize / 2);
-    dest.forward(insnSize);
+    int insnSize = buffer.position() - insnSizeOffset - 4;
+    buffer.rewind(insnSize + 4);
+    buffer.putInt(insnSize / 2);
+    buffer.forward(insnSize);
     if (code.getTries().length > 0) {
       // The tries need to be 4 byte aligned.
-      int beginOfTriesOffset = dest.align(4);
+      int beginOfTriesOffset = buffer.align(4);
       // First write the handlers, so that we know their mixedSectionOffsets.
-      dest.forward(code.getTries().length * 8);
-      int beginOfHandlersOffset = dest.position();
-      dest.putUleb128(code.getHandlers().length);
+      buffer.forward(code.getTries().length * 8);
+      int beginOfHandlersOffset = buffer.position();
+      buffer.putUleb128(code.getHandlers().length);
       short[] offsets = new short[code.getHandlers().length];
       int i = 0;
       for (TryHandler handler : code.getHandlers()) {
-        offsets[i++] = (short) (dest.position() - beginOfHandlersOffset);
+        offsets[i++] = (short) (buffer.position() - beginOfHandlersOffset);
         boolean hasCatchAll = handler.catchAllAddr != TryHandler.NO_HANDLER;
-        dest.putSleb128(hasCatchAll ? -handler.pairs.length : handler.pairs.length);
+        buffer.putSleb128(hasCatchAll ? -handler.pairs.length : handler.pairs.length);
         for (TypeAddrPair pair : handler.pairs) {
-          dest.putUleb128(mapping.getOffsetFor(pair.getType(graphLens)));
-          dest.putUleb128(pair.addr);
+          buffer.putUleb128(mapping.getOffsetFor(pair.getType(graphLens)));
+          buffer.putUleb128(pair.addr);
           desugaredLibraryCodeToKeep.recordClass(pair.getType(graphLens));
         }
         if (hasCatchAll) {
-          dest.putUleb128(handler.catchAllAddr);
+          buffer.putUleb128(handler.catchAllAddr);
         }
       }
-      int endOfCodeOffset = dest.position();
+      int endOfCodeOffset = buffer.position();
       // Now write the tries.
-      dest.moveTo(beginOfTriesOffset);
+      buffer.moveTo(beginOfTriesOffset);
       for (Try aTry : code.getTries()) {
-        dest.putInt(aTry.startAddress);
-        dest.putShort((short) aTry.instructionCount);
-        dest.putShort(offsets[aTry.handlerIndex]);
+        buffer.putInt(aTry.startAddress);
+        buffer.putShort((short) aTry.instructionCount);
+        buffer.putShort(offsets[aTry.handlerIndex]);
       }
       // And move to the end.
-      dest.moveTo(endOfCodeOffset);
+      buffer.moveTo(endOfCodeOffset);
     }
     return codeOffset;
   }
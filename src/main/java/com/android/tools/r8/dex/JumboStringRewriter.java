@@ -37,6 +37,7 @@ import com.android.tools.r8.graph.DexCode.TryHandler.TypeAddrPair;
 import com.android.tools.r8.graph.DexDebugEvent;
 import com.android.tools.r8.graph.DexDebugEvent.AdvancePC;
 import com.android.tools.r8.graph.DexDebugEvent.Default;
+import com.android.tools.r8.graph.DexDebugEvents;
 import com.android.tools.r8.graph.DexDebugInfo;
 import com.android.tools.r8.graph.DexDebugInfo.EventBasedDebugInfo;
 import com.android.tools.r8.graph.DexEncodedMethod;
@@ -280,14 +281,14 @@ public class JumboStringRewriter {
       assert debugEventBasedInfo != null;
       int lastOriginalOffset = 0;
       int lastNewOffset = 0;
-      List<DexDebugEvent> events = new ArrayList<>();
-      for (DexDebugEvent event : debugEventBasedInfo.events) {
+      DexDebugEvents.Builder events = DexDebugEvents.builder();
+      for (DexDebugEvent event : debugEventBasedInfo.getEvents()) {
         if (event instanceof AdvancePC) {
           AdvancePC advance = (AdvancePC) event;
           lastOriginalOffset += advance.delta;
           DexInstruction target = debugEventTargets.get(lastOriginalOffset);
           int pcDelta = target.getOffset() - lastNewOffset;
-          events.add(factory.createAdvancePC(pcDelta));
+          events.addAdvancePC(pcDelta);
           lastNewOffset = target.getOffset();
         } else if (event instanceof Default) {
           Default defaultEvent = (Default) event;
@@ -295,7 +296,7 @@ public class JumboStringRewriter {
           DexInstruction target = debugEventTargets.get(lastOriginalOffset);
           int lineDelta = defaultEvent.getLineDelta();
           int pcDelta = target.getOffset() - lastNewOffset;
-          addDefaultEventWithAdvancePcIfNecessary(lineDelta, pcDelta, events, factory);
+          addDefaultEventWithAdvancePcIfNecessary(lineDelta, pcDelta, events);
           lastNewOffset = target.getOffset();
         } else {
           events.add(event);
@@ -304,7 +305,7 @@ public class JumboStringRewriter {
       return new EventBasedDebugInfo(
           debugEventBasedInfo.startLine,
           debugEventBasedInfo.parameters,
-          events.toArray(DexDebugEvent.EMPTY_ARRAY));
+          events.build());
     }
     return code.getDebugInfo();
   }
@@ -556,7 +557,7 @@ public class JumboStringRewriter {
     }
     debugEventBasedInfo = eventBasedInfo;
     int address = 0;
-    for (DexDebugEvent event : eventBasedInfo.events) {
+    for (DexDebugEvent event : eventBasedInfo.getEvents()) {
       if (event instanceof AdvancePC) {
         AdvancePC advance = (AdvancePC) event;
         address += advance.delta;
@@ -17,6 +17,7 @@ import com.android.tools.r8.graph.ParameterAnnotationsList;
 import com.android.tools.r8.graph.ProgramMethod;
 import com.android.tools.r8.profile.startup.profile.StartupProfile;
 import java.util.Collection;
+import java.util.function.Consumer;
 
 public abstract class MixedSectionLayoutStrategy {
 
@@ -50,6 +51,14 @@ public abstract class MixedSectionLayoutStrategy {
         .apply(mixedSectionLayoutStrategy, virtualFile);
   }
 
+  /**
+   * Calls the given consumer with each item that is accessed during startup. Items of the code
+   * layout are given as {@link ProgramMethod}s.
+   */
+  public void forEachStartupItem(Consumer<Object> consumer) {
+    // Intentionally empty.
+  }
+
   public abstract Collection<DexAnnotation> getAnnotationLayout();
 
   public abstract Collection<DexAnnotationDirectory> getAnnotationDirectoryLayout();
@@ -0,0 +1,214 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.dex;
+
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.ProgramMethod;
+import com.android.tools.r8.utils.StringDiagnostic;
+import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Estimates the number of pages of a dex file that are touched during startup.
+ *
+ * <p>An item of a mixed section is considered to be accessed during startup if it is part of the
+ * startup layout of the {@link MixedSectionLayoutStrategy}. The number of pages touched is the
+ * number of distinct pages that overlap with at least one startup item. To measure the effect of
+ * the startup layout, the number of pages is also computed for the default layout of each section,
+ * using the sizes of the items as they were written, and assuming that each section starts at the
+ * same offset as in the written file.
+ */
+public class StartupLayoutPageModel {
+
+  public static final int PAGE_SIZE = 4096;
+
+  enum Section {
+    ANNOTATION,
+    ANNOTATION_DIRECTORY,
+    ANNOTATION_SET,
+    ANNOTATION_SET_REF_LIST,
+    CLASS_DATA,
+    CODE,
+    ENCODED_ARRAY,
+    STRING_DATA,
+    TYPE_LIST
+  }
+
+  private final AppView<?> appView;
+  private final MixedSectionLayoutStrategy defaultLayoutStrategy;
+  private final VirtualFile virtualFile;
+
+  private final Set<Object> startupItems = Sets.newIdentityHashSet();
+  private final Map<Section, SectionInfo> sections = new EnumMap<>(Section.class);
+
+  private StartupLayoutPageModel(
+      AppView<?> appView,
+      MixedSectionLayoutStrategy defaultLayoutStrategy,
+      VirtualFile virtualFile) {
+    this.appView = appView;
+    this.defaultLayoutStrategy = defaultLayoutStrategy;
+    this.virtualFile = virtualFile;
+  }
+
+  /**
+   * Returns a page model for the given layout, or null if the page report is disabled or the
+   * layout does not have any startup items.
+   *
+   * <p>This must be called before the layouts are retrieved from the layout strategy, since the
+   * startup layouts are amended with the remaining items when they are retrieved.
+   */
+  static StartupLayoutPageModel createIfEnabled(
+      AppView<?> appView,
+      FileWriter.MixedSectionOffsets mixedSectionOffsets,
+      MixedSectionLayoutStrategy layoutStrategy,
+      VirtualFile virtualFile) {
+    if (!appView.options().getStartupOptions().isStartupLayoutPageReportEnabled()) {
+      return null;
+    }
+    StartupLayoutPageModel pageModel =
+        new StartupLayoutPageModel(
+            appView,
+            new DefaultMixedSectionLayoutStrategy(appView, mixedSectionOffsets),
+            virtualFile);
+    layoutStrategy.forEachStartupItem(item -> pageModel.startupItems.add(getKey(item)));
+    return pageModel.startupItems.isEmpty() ? null : pageModel;
+  }
+
+  private static Object getKey(Object item) {
+    // The code layouts contain different ProgramMethod instances for the same method.
+    return item instanceof ProgramMethod ? ((ProgramMethod) item).getDefinition() : item;
+  }
+
+  <T> Consumer<T> recordItems(Section section, Consumer<T> writer, IntSupplier position) {
+    return item -> {
+      int start = position.getAsInt();
+      writer.accept(item);
+      recordItem(section, item, start, position.getAsInt());
+    };
+  }
+
+  void recordItem(Section section, Object item, int start, int end) {
+    SectionInfo sectionInfo = sections.get(section);
+    if (sectionInfo == null) {
+      sectionInfo = new SectionInfo(start);
+      sections.put(section, sectionInfo);
+    }
+    sectionInfo.record(getKey(item), start, end);
+  }
+
+  /** Returns the number of pages touched by startup items in the written file. */
+  public int getNumberOfStartupPages() {
+    BitSet pages = new BitSet();
+    for (SectionInfo sectionInfo : sections.values()) {
+      for (int i = 0; i < sectionInfo.items.size(); i++) {
+        if (startupItems.contains(sectionInfo.items.get(i))) {
+          markPages(pages, sectionInfo.starts.getInt(i), sectionInfo.ends.getInt(i));
+        }
+      }
+    }
+    return pages.cardinality();
+  }
+
+  /** Returns the estimated number of pages touched by startup items using the default layout. */
+  public int getNumberOfStartupPagesWithDefaultLayout() {
+    BitSet pages = new BitSet();
+    sections.forEach(
+        (section, sectionInfo) -> {
+          int position = sectionInfo.offset;
+          for (Object item : getDefaultLayout(section)) {
+            Object key = getKey(item);
+            int size = sectionInfo.getSize(key);
+            if (startupItems.contains(key)) {
+              markPages(pages, position, position + size);
+            }
+            position += size;
+          }
+        });
+    return pages.cardinality();
+  }
+
+  private Collection<?> getDefaultLayout(Section section) {
+    switch (section) {
+      case ANNOTATION:
+        return defaultLayoutStrategy.getAnnotationLayout();
+      case ANNOTATION_DIRECTORY:
+        return defaultLayoutStrategy.getAnnotationDirectoryLayout();
+      case ANNOTATION_SET:
+        return defaultLayoutStrategy.getAnnotationSetLayout();
+      case ANNOTATION_SET_REF_LIST:
+        return defaultLayoutStrategy.getAnnotationSetRefListLayout();
+      case CLASS_DATA:
+        return defaultLayoutStrategy.getClassDataLayout();
+      case CODE:
+        return defaultLayoutStrategy.getCodeLayout();
+      case ENCODED_ARRAY:
+        return defaultLayoutStrategy.getEncodedArrayLayout();
+      case STRING_DATA:
+        return defaultLayoutStrategy.getStringDataLayout();
+      case TYPE_LIST:
+        return defaultLayoutStrategy.getTypeListLayout();
+      default:
+        throw new IllegalArgumentException(section.toString());
+    }
+  }
+
+  private static void markPages(BitSet pages, int start, int end) {
+    if (end > start) {
+      pages.set(start / PAGE_SIZE, (end - 1) / PAGE_SIZE + 1);
+    }
+  }
+
+  void report() {
+    int numberOfStartupPages = getNumberOfStartupPages();
+    int numberOfStartupPagesWithDefaultLayout = getNumberOfStartupPagesWithDefaultLayout();
+    appView
+        .reporter()
+        .info(
+            new StringDiagnostic(
+                "Startup pages touched in dex file "
+                    + virtualFile.getId()
+                    + ": "
+                    + numberOfStartupPages
+                    + " (default layout: "
+                    + numberOfStartupPagesWithDefaultLayout
+                    + ")"));
+  }
+
+  private static class SectionInfo {
+
+    private final int offset;
+    private final List<Object> items = new ArrayList<>();
+    private final IntList starts = new IntArrayList();
+    private final IntList ends = new IntArrayList();
+    private final Map<Object, Integer> sizes = new IdentityHashMap<>();
+
+    SectionInfo(int offset) {
+      this.offset = offset;
+    }
+
+    void record(Object item, int start, int end) {
+      items.add(item);
+      starts.add(start);
+      ends.add(end);
+      sizes.put(item, end - start);
+    }
+
+    // Items that are not written, such as deduplicated code objects, take up no space.
+    int getSize(Object item) {
+      return sizes.getOrDefault(item, 0);
+    }
+  }
+}
@@ -32,6 +32,7 @@ import com.android.tools.r8.utils.collections.ProgramMethodSet;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public class StartupMixedSectionLayoutStrategy extends DefaultMixedSectionLayoutStrategy {
 
@@ -129,6 +130,19 @@ public class StartupMixedSectionLayoutStrategy extends DefaultMixedSectionLayout
     }
   }
 
+  @Override
+  public void forEachStartupItem(Consumer<Object> consumer) {
+    annotationLayout.forEach(consumer);
+    annotationDirectoryLayout.forEach(consumer);
+    annotationSetLayout.forEach(consumer);
+    annotationSetRefListLayout.forEach(consumer);
+    classDataLayout.forEach(consumer);
+    codeLayout.forEach(consumer);
+    encodedArrayLayout.forEach(consumer);
+    stringDataLayout.forEach(consumer);
+    typeListLayout.forEach(consumer);
+  }
+
   private static <T> Collection<T> amendStartupLayout(
       Collection<T> startupLayout, Collection<T> defaultLayout) {
     startupLayout.addAll(defaultLayout);
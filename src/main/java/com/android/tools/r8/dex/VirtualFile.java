@@ -231,6 +231,15 @@ public class VirtualFile {
       int lazyDexStringsCount,
       Timing timing,
       ObjectToOffsetMapping sharedMapping) {
+    computeMapping(appView, lazyDexStringsCount, timing, sharedMapping, null);
+  }
+
+  public void computeMapping(
+      AppView<?> appView,
+      int lazyDexStringsCount,
+      Timing timing,
+      ObjectToOffsetMapping sharedMapping,
+      ExecutorService executorService) {
     assert transaction.isEmpty();
     assert objectMapping == null;
     objectMapping =
@@ -247,7 +256,8 @@ public class VirtualFile {
             indexedItems.callSites,
             indexedItems.methodHandles,
             lazyDexStringsCount,
-            timing);
+            timing,
+            executorService);
   }
 
   public void addClass(DexProgramClass clazz) {
@@ -28,8 +28,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
@@ -64,6 +66,17 @@ public class AppInfoWithClassHierarchy extends AppInfo {
   // TODO(b/175659048): Consider hoisting to AppInfo to allow using MissingClasses in D8 desugar.
   private final MissingClasses missingClasses;
 
+  /**
+   * Cache of the strict supertypes of library and classpath classes, which are not modified in
+   * place, for answering subtype queries without traversing the (often deep) library hierarchy.
+   * The cache is discarded when the app info is rebuilt.
+   */
+  private final Map<DexType, Set<DexType>> nonProgramSupertypesCache = new ConcurrentHashMap<>();
+
+  // Marker for non-program classes that have a program class as a supertype and thus can't be
+  // cached.
+  private static final Set<DexType> NOT_CACHEABLE = Collections.emptySet();
+
   // For AppInfoWithLiveness subclass.
   protected AppInfoWithClassHierarchy(
       CommittedItems committedItems,
@@ -297,10 +310,118 @@ public class AppInfoWithClassHierarchy extends AppInfo {
       return false;
     }
     // TODO(b/123506120): Report missing types when the predicate is inconclusive.
-    return traverseSuperTypes(
+    boolean result = isStrictSubtypeOf(clazz, supertype);
+    assert result
+        == traverseSuperTypes(
+                clazz,
+                (superType, subclass, isInterface) ->
+                    superType == supertype ? doBreak() : doContinue())
+            .shouldBreak();
+    return result;
+  }
+
+  /**
+   * Same as traversing the supertypes of the given class in search for the given supertype, but
+   * uses the cached supertypes of the first non-program class in the superclass chain, and of
+   * non-program interfaces, instead of traversing their supertypes.
+   */
+  @SuppressWarnings("ReferenceEquality")
+  private boolean isStrictSubtypeOf(DexClass clazz, DexType supertype) {
+    // First walk the superclass chain, which does not require a worklist.
+    boolean hasInterfaces = false;
+    DexClass currentClass = clazz;
+    while (currentClass != null) {
+      Set<DexType> cachedSupertypes = getCachedSupertypes(currentClass);
+      if (cachedSupertypes != null) {
+        if (cachedSupertypes.contains(supertype)) {
+          return true;
+        }
+        break;
+      }
+      hasInterfaces |= !currentClass.getInterfaces().isEmpty();
+      if (currentClass.superType == null) {
+        break;
+      }
+      if (currentClass.superType == supertype) {
+        return true;
+      }
+      currentClass = definitionFor(currentClass.superType);
+    }
+    if (!hasInterfaces) {
+      return false;
+    }
+    // Then search the interfaces of the classes in the superclass chain that do not have cached
+    // supertypes.
+    Set<DexType> seen = Sets.newIdentityHashSet();
+    Deque<DexType> worklist = new ArrayDeque<>();
+    currentClass = clazz;
+    while (currentClass != null && getCachedSupertypes(currentClass) == null) {
+      for (DexType iface : currentClass.getInterfaces()) {
+        if (seen.add(iface)) {
+          worklist.addLast(iface);
+        }
+      }
+      if (currentClass.superType == null) {
+        break;
+      }
+      currentClass = definitionFor(currentClass.superType);
+    }
+    while (!worklist.isEmpty()) {
+      DexType type = worklist.removeFirst();
+      if (type == supertype) {
+        return true;
+      }
+      DexClass definition = definitionFor(type);
+      if (definition == null) {
+        continue;
+      }
+      Set<DexType> cachedSupertypes = getCachedSupertypes(definition);
+      if (cachedSupertypes != null) {
+        if (cachedSupertypes.contains(supertype)) {
+          return true;
+        }
+        continue;
+      }
+      for (DexType iface : definition.getInterfaces()) {
+        if (seen.add(iface)) {
+          worklist.addLast(iface);
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the strict supertypes of the given class if it is a library or classpath class that
+   * only has library or classpath supertypes, and null otherwise.
+   */
+  private Set<DexType> getCachedSupertypes(DexClass clazz) {
+    if (clazz.isProgramClass()) {
+      return null;
+    }
+    Set<DexType> supertypes = nonProgramSupertypesCache.get(clazz.getType());
+    if (supertypes == null) {
+      supertypes = computeNonProgramSupertypes(clazz);
+      nonProgramSupertypesCache.putIfAbsent(clazz.getType(), supertypes);
+    }
+    return supertypes != NOT_CACHEABLE ? supertypes : null;
+  }
+
+  private Set<DexType> computeNonProgramSupertypes(DexClass clazz) {
+    assert clazz.isNotProgramClass();
+    Set<DexType> supertypes = Sets.newIdentityHashSet();
+    TraversalContinuation<?, ?> traversalContinuation =
+        traverseSuperTypes(
             clazz,
-            (superType, subclass, isInterface) -> superType == supertype ? doBreak() : doContinue())
-        .shouldBreak();
+            (superType, subclass, isInterface) -> {
+              DexClass superClass = definitionFor(superType);
+              if (superClass != null && superClass.isProgramClass()) {
+                return doBreak();
+              }
+              supertypes.add(superType);
+              return doContinue();
+            });
+    return traversalContinuation.shouldBreak() ? NOT_CACHEABLE : supertypes;
   }
 
   public boolean isSubtype(DexClass subclass, DexClass superclass) {
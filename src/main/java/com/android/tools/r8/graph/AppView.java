@@ -6,6 +6,7 @@ package com.android.tools.r8.graph;
 
 import com.android.tools.r8.androidapi.AndroidApiLevelCompute;
 import com.android.tools.r8.androidapi.ComputedApiLevel;
+import com.android.tools.r8.cf.CfTypeJoinCache;
 import com.android.tools.r8.contexts.CompilationContext;
 import com.android.tools.r8.contexts.CompilationContext.ProcessorContext;
 import com.android.tools.r8.errors.dontwarn.DontWarnConfiguration;
@@ -90,6 +91,7 @@ public class AppView<T extends AppInfo> implements DexDefinitionSupplier, Librar
   private T appInfo;
   private AppInfoWithClassHierarchy appInfoForDesugaring;
   private AppServices appServices;
+  private ProgramMemberIndex programMemberIndex;
   private ArtProfileCollection artProfileCollection;
   private AssumeInfoCollection assumeInfoCollection = AssumeInfoCollection.builder().build();
   private final DontWarnConfiguration dontWarnConfiguration;
@@ -120,6 +122,7 @@ public class AppView<T extends AppInfo> implements DexDefinitionSupplier, Librar
       new InstanceFieldInitializationInfoFactory();
   private final SimpleInliningConstraintFactory simpleInliningConstraintFactory =
       new SimpleInliningConstraintFactory();
+  private final CfTypeJoinCache cfTypeJoinCache = new CfTypeJoinCache();
 
   // Desugaring.
   public final TypeRewriter typeRewriter;
@@ -373,10 +376,25 @@ public class AppView<T extends AppInfo> implements DexDefinitionSupplier, Librar
     return simpleInliningConstraintFactory;
   }
 
+  public CfTypeJoinCache cfTypeJoinCache() {
+    return cfTypeJoinCache;
+  }
+
   public DexApplication app() {
     return appInfo().app();
   }
 
+  /**
+   * Returns a dense numbering of the program methods and fields of the current application. The
+   * index is recomputed when the application or the graph lens has changed since it was created.
+   */
+  public synchronized ProgramMemberIndex programMemberIndex() {
+    if (programMemberIndex == null || !programMemberIndex.isValidFor(app(), graphLens())) {
+      programMemberIndex = ProgramMemberIndex.create(this);
+    }
+    return programMemberIndex;
+  }
+
   public T appInfo() {
     assert !appInfo.hasClassHierarchy() || enableWholeProgramOptimizations();
     return appInfo;
@@ -411,6 +429,7 @@ public class AppView<T extends AppInfo> implements DexDefinitionSupplier, Librar
     AppInfo previous = this.appInfo;
     this.appInfo = appInfo;
     unsetAppInfoForDesugaring();
+    programMemberIndex = null;
     if (appInfo != previous) {
       previous.markObsolete();
     }
@@ -489,6 +508,10 @@ public class AppView<T extends AppInfo> implements DexDefinitionSupplier, Librar
     return sourceDebugExtensions.get(clazz.type);
   }
 
+  public boolean hasSourceDebugExtensions() {
+    return !sourceDebugExtensions.isEmpty();
+  }
+
   @Override
   public ClassResolutionResult contextIndependentDefinitionForWithResolutionResult(DexType type) {
     return appInfo().contextIndependentDefinitionForWithResolutionResult(type);
@@ -56,13 +56,11 @@ import it.unimi.dsi.fastutil.ints.Int2IntMap;
 import javax.annotation.Nonnull;
 
 import java.nio.ShortBuffer;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
@@ -322,7 +320,7 @@ public class DexCode extends Code
     for (DexString parameter : eventBasedInfo.parameters) {
       largestPrefix = Integer.max(largestPrefix, getLargestPrefix(factory, parameter));
     }
-    for (DexDebugEvent event : eventBasedInfo.events) {
+    for (DexDebugEvent event : eventBasedInfo.getEvents()) {
       if (event instanceof DexDebugEvent.StartLocal) {
         DexString name = ((StartLocal) event).name;
         largestPrefix = Integer.max(largestPrefix, getLargestPrefix(factory, name));
@@ -334,7 +332,8 @@ public class DexCode extends Code
     DexString[] newParameters = new DexString[parameters.length + 1];
     newParameters[0] = factory.createString(fakeThisName);
     System.arraycopy(parameters, 0, newParameters, 1, parameters.length);
-    return new EventBasedDebugInfo(eventBasedInfo.startLine, newParameters, eventBasedInfo.events);
+    return new EventBasedDebugInfo(
+        eventBasedInfo.startLine, newParameters, eventBasedInfo.getEvents());
   }
 
   public DexDebugInfo debugInfoWithExtraParameters(DexItemFactory factory, int extraParameters) {
@@ -345,7 +344,8 @@ public class DexCode extends Code
     DexString[] parameters = eventBasedInfo.parameters;
     DexString[] newParameters = new DexString[parameters.length + extraParameters];
     System.arraycopy(parameters, 0, newParameters, 0, parameters.length);
-    return new EventBasedDebugInfo(eventBasedInfo.startLine, newParameters, eventBasedInfo.events);
+    return new EventBasedDebugInfo(
+        eventBasedInfo.startLine, newParameters, eventBasedInfo.getEvents());
   }
 
   @Override
@@ -385,9 +385,10 @@ public class DexCode extends Code
       return new EventBasedDebugInfo(
           0,
           new DexString[callee.getArity()],
-          new DexDebugEvent[] {
-            factory.createPositionFrame(preamblePosition), factory.zeroChangeDefaultEvent
-          });
+          DexDebugEvents.builder()
+              .addPositionFrame(preamblePosition)
+              .add(factory.zeroChangeDefaultEvent)
+              .build());
     }
     // At this point we know we had existing debug information:
     // 1) There is an already existing SET_POSITION_FRAME before a default event and the default
@@ -401,67 +402,57 @@ public class DexCode extends Code
     //    => Insert a SET_POSITION_FRAME and a default event and potentially advance line.
     PositionInfo positionInfo =
         computePreamblePosition(callee, isCalleeD8R8Synthesized, eventBasedInfo);
-    DexDebugEvent[] oldEvents = eventBasedInfo.events;
     boolean adjustStartPosition =
         !positionInfo.hasLinePositionAtPcZero() && debugInfo.getStartLine() > 0;
-    List<DexDebugEvent> newEvents =
-        new ArrayList<>(
-            oldEvents.length
-                + (positionInfo.hasFramePosition() ? 0 : 1)
-                + (positionInfo.hasLinePositionAtPcZero() ? 0 : 1)
-                + (adjustStartPosition ? 1 : 0)); // Potentially an advance line.
+    DexDebugEvents.Builder newEvents = DexDebugEvents.builder();
     if (!positionInfo.hasFramePosition()) {
       PositionBuilder<?, ?> calleePositionBuilder =
           isCalleeD8R8Synthesized ? SyntheticPosition.builder() : SourcePosition.builder();
-      newEvents.add(
-          factory.createPositionFrame(
-              newInlineePosition(
-                  callerPosition,
-                  calleePositionBuilder
-                      .setLine(
-                          positionInfo.hasLinePositionAtPcZero()
-                              ? positionInfo.getLinePositionAtPcZero()
-                              : 0)
-                      .setMethod(callee)
-                      .setIsD8R8Synthesized(isCalleeD8R8Synthesized)
-                      .build(),
-                  isCalleeD8R8Synthesized)));
+      newEvents.addPositionFrame(
+          newInlineePosition(
+              callerPosition,
+              calleePositionBuilder
+                  .setLine(
+                      positionInfo.hasLinePositionAtPcZero()
+                          ? positionInfo.getLinePositionAtPcZero()
+                          : 0)
+                  .setMethod(callee)
+                  .setIsD8R8Synthesized(isCalleeD8R8Synthesized)
+                  .build(),
+              isCalleeD8R8Synthesized));
     }
     if (!positionInfo.hasLinePositionAtPcZero()) {
       newEvents.add(factory.zeroChangeDefaultEvent);
     }
-    for (DexDebugEvent event : oldEvents) {
+    for (DexDebugEvent event : eventBasedInfo.getEvents()) {
       if (event.isAdvanceLine() && adjustStartPosition) {
         AdvanceLine advanceLine = event.asAdvanceLine();
-        newEvents.add(factory.createAdvanceLine(debugInfo.getStartLine() + advanceLine.delta));
+        newEvents.addAdvanceLine(debugInfo.getStartLine() + advanceLine.delta);
         adjustStartPosition = false;
       } else if (event.isDefaultEvent() && adjustStartPosition) {
         Default oldDefaultEvent = event.asDefaultEvent();
         addDefaultEventWithAdvancePcIfNecessary(
             oldDefaultEvent.getLineDelta() + debugInfo.getStartLine(),
             oldDefaultEvent.getPCDelta(),
-            newEvents,
-            factory);
+            newEvents);
         adjustStartPosition = false;
       } else if (event.isPositionFrame()) {
         SetPositionFrame oldFrame = event.asSetPositionFrame();
         assert oldFrame.getPosition() != null;
-        newEvents.add(
-            new SetPositionFrame(
-                newInlineePosition(
-                    callerPosition, oldFrame.getPosition(), isCalleeD8R8Synthesized)));
+        newEvents.addPositionFrame(
+            newInlineePosition(callerPosition, oldFrame.getPosition(), isCalleeD8R8Synthesized));
       } else {
         newEvents.add(event);
       }
     }
     if (adjustStartPosition) {
       // This only happens if we have no default event and the debug start line is > 0.
-      newEvents.add(factory.createAdvanceLine(debugInfo.getStartLine()));
+      newEvents.addAdvanceLine(debugInfo.getStartLine());
     }
     return new EventBasedDebugInfo(
         positionInfo.hasLinePositionAtPcZero() ? eventBasedInfo.getStartLine() : 0,
         eventBasedInfo.parameters,
-        newEvents.toArray(DexDebugEvent.EMPTY_ARRAY));
+        newEvents.build());
   }
 
   public static int getLargestPrefix(DexItemFactory factory, DexString name) {
@@ -487,7 +478,8 @@ public class DexCode extends Code
     }
     DexString[] newParameters = new DexString[parameters.length - 1];
     System.arraycopy(parameters, 1, newParameters, 0, parameters.length - 1);
-    return new EventBasedDebugInfo(eventBasedInfo.startLine, newParameters, eventBasedInfo.events);
+    return new EventBasedDebugInfo(
+        eventBasedInfo.startLine, newParameters, eventBasedInfo.getEvents());
   }
 
   @Override
@@ -882,7 +874,7 @@ public class DexCode extends Code
     if (getDebugInfo() == null || getDebugInfo().isPcBasedInfo()) {
       return;
     }
-    for (DexDebugEvent event : getDebugInfo().asEventBasedInfo().events) {
+    for (DexDebugEvent event : getDebugInfo().asEventBasedInfo().getEvents()) {
       if (event.isPositionFrame()) {
         positionConsumer.accept(event.asSetPositionFrame().getPosition());
       }
@@ -91,9 +91,7 @@ public class DexDebugEntryBuilder implements DexDebugEventVisitor {
       }
       argumentRegister += ValueType.fromDexType(types[i]).requiredRegisters();
     }
-    for (DexDebugEvent event : info.events) {
-      event.accept(this);
-    }
+    info.getEvents().accept(this);
   }
 
   public Int2ReferenceMap<DebugLocalInfo> getArguments() {
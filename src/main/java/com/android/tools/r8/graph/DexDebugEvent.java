@@ -691,6 +691,10 @@ public abstract class DexDebugEvent extends DexItem implements StructuralItem<De
       visitor.visit(this);
     }
 
+    public int getOpcode() {
+      return value;
+    }
+
     public int getPCDelta() {
       int adjustedOpcode = value - Constants.DBG_FIRST_SPECIAL;
       return adjustedOpcode / Constants.DBG_LINE_RANGE;
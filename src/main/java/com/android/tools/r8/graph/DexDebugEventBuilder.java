@@ -7,7 +7,6 @@ import static com.android.tools.r8.utils.DexDebugUtils.verifySetPositionFramesFo
 
 import com.android.tools.r8.dex.Constants;
 import com.android.tools.r8.graph.DexDebugEvent.Default;
-import com.android.tools.r8.graph.DexDebugEvent.StartLocal;
 import com.android.tools.r8.graph.DexDebugInfo.EventBasedDebugInfo;
 import com.android.tools.r8.ir.code.Argument;
 import com.android.tools.r8.ir.code.DebugLocalsChange;
@@ -22,7 +21,6 @@ import it.unimi.dsi.fastutil.ints.Int2ReferenceMaps;
 import it.unimi.dsi.fastutil.ints.Int2ReferenceOpenHashMap;
 import it.unimi.dsi.fastutil.ints.Int2ReferenceSortedMap;
 import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Builder for constructing a list of debug events suitable for DexDebugInfo.
@@ -36,7 +34,6 @@ public class DexDebugEventBuilder {
   private static final int NO_LINE_INFO = -1;
 
   private final DexEncodedMethod method;
-  private final DexItemFactory factory;
   private final InternalOptions options;
 
   // In order list of non-this argument locals.
@@ -59,14 +56,13 @@ public class DexDebugEventBuilder {
   private final boolean isComposing;
 
   // Emitted events.
-  private final List<DexDebugEvent> events = new ArrayList<>();
+  private final DexDebugEvents.Builder events = DexDebugEvents.builder();
 
   // Initial known line for the method.
   private int startLine = NO_LINE_INFO;
 
   public DexDebugEventBuilder(AppView<?> appView, IRCode code) {
     method = code.context().getDefinition();
-    factory = appView.dexItemFactory();
     options = appView.options();
     isComposing =
         options.mappingComposeOptions().enableExperimentalMappingComposition
@@ -127,8 +123,9 @@ public class DexDebugEventBuilder {
         params[i] = (local == null || local.signature != null) ? null : local.name;
       }
     }
-    assert verifySetPositionFramesFollowedByDefaultEvent(events);
-    return new EventBasedDebugInfo(startLine, params, events.toArray(DexDebugEvent.EMPTY_ARRAY));
+    DexDebugEvents builtEvents = events.build();
+    assert verifySetPositionFramesFollowedByDefaultEvent(builtEvents);
+    return new EventBasedDebugInfo(startLine, params, builtEvents);
   }
 
   private void updateBlockEntry(Instruction instruction) {
@@ -162,7 +159,7 @@ public class DexDebugEventBuilder {
       if (entry.getValue().signature == null) {
         emittedLocals.put(entry.getIntKey(), entry.getValue());
       } else if (options.testing.emitDebugLocalStartBeforeDefaultEvent) {
-        events.add(new StartLocal(entry.getIntKey(), entry.getValue()));
+        events.addStartLocal(entry.getIntKey(), entry.getValue());
         emittedLocals.put(entry.getIntKey(), entry.getValue());
       }
     }
@@ -212,11 +209,11 @@ public class DexDebugEventBuilder {
     }
     assert emittedPc != pc;
     int previousPc = emittedPc == NO_PC_INFO ? 0 : emittedPc;
-    emitAdvancementEvents(previousPc, emittedPosition, pc, position, events, factory, false);
+    emitAdvancementEvents(previousPc, emittedPosition, pc, position, events, false);
     emittedPc = pc;
     emittedPosition = position;
     if (localsChanged()) {
-      emitLocalChangeEvents(emittedLocals, pendingLocals, lastKnownLocals, events, factory);
+      emitLocalChangeEvents(emittedLocals, pendingLocals, lastKnownLocals, events);
       assert DebugLocalInfo.localsInfoMapsEqual(emittedLocals, pendingLocals);
     }
     pendingLocalChanges = false;
@@ -229,10 +226,10 @@ public class DexDebugEventBuilder {
       int pcDelta = emittedPc == NO_PC_INFO ? pc : pc - emittedPc;
       assert pcDelta > 0 || emittedPc == NO_PC_INFO;
       if (pcDelta > 0) {
-        events.add(factory.createAdvancePC(pcDelta));
+        events.addAdvancePC(pcDelta);
       }
       emittedPc = pc;
-      emitLocalChangeEvents(emittedLocals, pendingLocals, lastKnownLocals, events, factory);
+      emitLocalChangeEvents(emittedLocals, pendingLocals, lastKnownLocals, events);
       pendingLocalChanges = false;
       assert DebugLocalInfo.localsInfoMapsEqual(emittedLocals, pendingLocals);
     }
@@ -244,8 +241,7 @@ public class DexDebugEventBuilder {
       Position previousPosition,
       int nextPc,
       Position nextPosition,
-      List<DexDebugEvent> events,
-      DexItemFactory factory,
+      DexDebugEvents.Builder events,
       boolean optimizingLineNumbers) {
     assert previousPc >= 0;
     int pcDelta = nextPc - previousPc;
@@ -254,7 +250,7 @@ public class DexDebugEventBuilder {
     int lineDelta = nextPosition.isNone() ? 0 : nextPosition.getLine() - previousPosition.getLine();
     assert pcDelta >= 0;
     if (nextPosition.getFile() != previousPosition.getFile()) {
-      events.add(factory.createSetFile(nextPosition.getFile()));
+      events.addSetFile(nextPosition.getFile());
     }
     // The LineNumberOptimizer maps new positions based on the outer most caller with
     // callerPosition == null.
@@ -273,28 +269,28 @@ public class DexDebugEventBuilder {
     boolean isNoLongerOutlineCaller =
         previousPosition.isOutlineCaller() && !nextPosition.isOutlineCaller();
     if (isNewPosition || isOutline || isOutlineCallerWithInfo || isNoLongerOutlineCaller) {
-      events.add(factory.createPositionFrame(nextPosition));
+      events.addPositionFrame(nextPosition);
     }
-    addDefaultEventWithAdvancePcIfNecessary(lineDelta, pcDelta, events, factory);
+    addDefaultEventWithAdvancePcIfNecessary(lineDelta, pcDelta, events);
   }
 
   public static void addDefaultEventWithAdvancePcIfNecessary(
-      int lineDelta, int pcDelta, List<DexDebugEvent> events, DexItemFactory factory) {
+      int lineDelta, int pcDelta, DexDebugEvents.Builder events) {
     if (lineDelta < Constants.DBG_LINE_BASE
         || lineDelta - Constants.DBG_LINE_BASE >= Constants.DBG_LINE_RANGE) {
-      events.add(factory.createAdvanceLine(lineDelta));
+      events.addAdvanceLine(lineDelta);
       // TODO(herhut): To be super clever, encode only the part that is above limit.
       lineDelta = 0;
     }
     int specialOpcode = Default.computeSpecialOpcode(lineDelta, pcDelta);
     if (specialOpcode > Constants.DBG_LAST_SPECIAL) {
-      events.add(factory.createAdvancePC(pcDelta));
+      events.addAdvancePC(pcDelta);
       // TODO(herhut): To be super clever, encode only the part that is above limit.
       specialOpcode = Default.computeSpecialOpcode(lineDelta, 0);
     }
     assert specialOpcode >= Constants.DBG_FIRST_SPECIAL;
     assert specialOpcode <= Constants.DBG_LAST_SPECIAL;
-    events.add(factory.createDefault(specialOpcode));
+    events.addDefault(specialOpcode);
   }
 
   @SuppressWarnings("ReferenceEquality")
@@ -302,8 +298,7 @@ public class DexDebugEventBuilder {
       Int2ReferenceMap<DebugLocalInfo> previousLocals,
       Int2ReferenceMap<DebugLocalInfo> nextLocals,
       Int2ReferenceMap<DebugLocalInfo> lastKnownLocals,
-      List<DexDebugEvent> events,
-      DexItemFactory factory) {
+      DexDebugEvents.Builder events) {
     Int2ReferenceSortedMap<DebugLocalInfo> ending =
         DebugLocalInfo.endingLocals(previousLocals, nextLocals);
     Int2ReferenceSortedMap<DebugLocalInfo> starting =
@@ -313,7 +308,7 @@ public class DexDebugEventBuilder {
       int register = end.getIntKey();
       if (!starting.containsKey(register)) {
         previousLocals.remove(register);
-        events.add(factory.createEndLocal(register));
+        events.addEndLocal(register);
       }
     }
     for (Entry<DebugLocalInfo> start : starting.int2ReferenceEntrySet()) {
@@ -321,9 +316,9 @@ public class DexDebugEventBuilder {
       DebugLocalInfo local = start.getValue();
       previousLocals.put(register, local);
       if (lastKnownLocals.get(register) == local) {
-        events.add(factory.createRestartLocal(register));
+        events.addRestartLocal(register);
       } else {
-        events.add(new StartLocal(register, local));
+        events.addStartLocal(register, local);
         lastKnownLocals.put(register, local);
       }
     }
@@ -0,0 +1,590 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.graph;
+
+import com.android.tools.r8.dex.Constants;
+import com.android.tools.r8.dex.DebugBytecodeWriter;
+import com.android.tools.r8.dex.IndexedItemCollection;
+import com.android.tools.r8.graph.DexDebugEvent.AdvanceLine;
+import com.android.tools.r8.graph.DexDebugEvent.AdvancePC;
+import com.android.tools.r8.graph.DexDebugEvent.Default;
+import com.android.tools.r8.graph.DexDebugEvent.EndLocal;
+import com.android.tools.r8.graph.DexDebugEvent.RestartLocal;
+import com.android.tools.r8.graph.DexDebugEvent.SetEpilogueBegin;
+import com.android.tools.r8.graph.DexDebugEvent.SetFile;
+import com.android.tools.r8.graph.DexDebugEvent.SetPositionFrame;
+import com.android.tools.r8.graph.DexDebugEvent.SetPrologueEnd;
+import com.android.tools.r8.graph.DexDebugEvent.StartLocal;
+import com.android.tools.r8.graph.lens.GraphLens;
+import com.android.tools.r8.ir.code.Position;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable sequence of debug events, stored as the byte stream of a dex debug_info_item.
+ *
+ * <p>The string and type operands of the events are not indices into the string and type ids of a
+ * dex file, but (uleb128p1 encoded) indices into a side table of references. SET_POSITION_FRAME
+ * events, which are not part of the dex format, are encoded as DBG_END_SEQUENCE followed by the
+ * index of the position. The events are decoded on demand, thus holding debug info does not
+ * require an object per event, and the bytes of the writable events are copied as is when the
+ * debug info is written.
+ *
+ * <p>Instances are views on the encoded events, which are stored directly in {@link
+ * com.android.tools.r8.graph.DexDebugInfo.EventBasedDebugInfo}.
+ */
+public final class DexDebugEvents implements Iterable<DexDebugEvent> {
+
+  // Internal opcode of SET_POSITION_FRAME. The end of the sequence is implicit.
+  private static final int DBG_SET_POSITION_FRAME = Constants.DBG_END_SEQUENCE;
+
+  private static final byte[] NO_BYTES = new byte[0];
+  private static final Object[] NO_REFERENCES = new Object[0];
+
+  private static final DexDebugEvents EMPTY = new DexDebugEvents(NO_BYTES, NO_REFERENCES);
+
+  private final byte[] bytes;
+  private final Object[] references;
+
+  DexDebugEvents(byte[] bytes, Object[] references) {
+    this.bytes = bytes;
+    this.references = references;
+  }
+
+  byte[] getBytes() {
+    return bytes;
+  }
+
+  Object[] getReferences() {
+    return references;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static DexDebugEvents create(DexDebugEvent[] events) {
+    if (events.length == 0) {
+      return EMPTY;
+    }
+    Builder builder = new Builder();
+    for (DexDebugEvent event : events) {
+      builder.add(event);
+    }
+    return builder.build();
+  }
+
+  /** Returns the number of events. */
+  public int size() {
+    int size = 0;
+    for (int position = 0; position < bytes.length; position = skipEvent(position)) {
+      size++;
+    }
+    return size;
+  }
+
+  /** Returns the size of the encoded events in bytes. */
+  public int getEncodedSize() {
+    return bytes.length;
+  }
+
+  public DexDebugEvent[] toArray() {
+    int size = size();
+    if (size == 0) {
+      return DexDebugEvent.EMPTY_ARRAY;
+    }
+    DexDebugEvent[] events = new DexDebugEvent[size];
+    Decoder decoder = new Decoder();
+    for (int i = 0; i < size; i++) {
+      events[i] = decoder.next();
+    }
+    assert !decoder.hasNext();
+    return events;
+  }
+
+  @Override
+  public Iterator<DexDebugEvent> iterator() {
+    Decoder decoder = new Decoder();
+    return new Iterator<>() {
+
+      @Override
+      public boolean hasNext() {
+        return decoder.hasNext();
+      }
+
+      @Override
+      public DexDebugEvent next() {
+        if (!decoder.hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return decoder.next();
+      }
+    };
+  }
+
+  public void accept(DexDebugEventVisitor visitor) {
+    for (DexDebugEvent event : this) {
+      event.accept(visitor);
+    }
+  }
+
+  /** Returns the events without the events that are not written to dex. */
+  public DexDebugEvents withoutNonWritableEvents() {
+    Builder builder = null;
+    int position = 0;
+    while (position < bytes.length) {
+      int opcode = bytes[position] & 0xff;
+      int next = skipEvent(position);
+      if (opcode == Constants.DBG_SET_FILE || opcode == DBG_SET_POSITION_FRAME) {
+        if (builder == null) {
+          builder = new Builder();
+          builder.copyEvents(this, 0, position);
+        }
+      } else if (builder != null) {
+        builder.copyEvents(this, position, next);
+      }
+      position = next;
+    }
+    return builder == null ? this : builder.build();
+  }
+
+  void collectIndexedItems(AppView<?> appView, IndexedItemCollection collection) {
+    int position = 0;
+    while (position < bytes.length) {
+      int opcode = bytes[position] & 0xff;
+      if (opcode == Constants.DBG_START_LOCAL || opcode == Constants.DBG_START_LOCAL_EXTENDED) {
+        int operand = skipUleb128(position + 1);
+        DexString name = (DexString) getReference(operand);
+        operand = skipUleb128(operand);
+        DexType type = (DexType) getReference(operand);
+        if (name != null) {
+          name.collectIndexedItems(collection);
+        }
+        if (type != null) {
+          appView.graphLens().lookupType(type).collectIndexedItems(appView, collection);
+        }
+        if (opcode == Constants.DBG_START_LOCAL_EXTENDED) {
+          DexString signature = (DexString) getReference(skipUleb128(operand));
+          if (signature != null) {
+            signature.collectIndexedItems(collection);
+          }
+        }
+      } else if (opcode == Constants.DBG_SET_FILE) {
+        DexString fileName = (DexString) getReference(position + 1);
+        fileName.collectIndexedItems(collection);
+      }
+      position = skipEvent(position);
+    }
+  }
+
+  /**
+   * Writes the events to dex. The bytes between the string and type operands are copied without
+   * decoding the events.
+   */
+  public void write(DebugBytecodeWriter writer, GraphLens graphLens) {
+    int position = 0;
+    int spanStart = 0;
+    while (position < bytes.length) {
+      int opcode = bytes[position] & 0xff;
+      if (opcode == Constants.DBG_START_LOCAL || opcode == Constants.DBG_START_LOCAL_EXTENDED) {
+        int operand = skipUleb128(position + 1);
+        writer.putBytes(bytes, spanStart, operand - spanStart);
+        writer.putString((DexString) getReference(operand));
+        operand = skipUleb128(operand);
+        DexType type = (DexType) getReference(operand);
+        writer.putType(type == null ? null : graphLens.lookupType(type));
+        operand = skipUleb128(operand);
+        if (opcode == Constants.DBG_START_LOCAL_EXTENDED) {
+          writer.putString((DexString) getReference(operand));
+          operand = skipUleb128(operand);
+        }
+        position = spanStart = operand;
+      } else {
+        assert opcode != Constants.DBG_SET_FILE && opcode != DBG_SET_POSITION_FRAME;
+        position = skipEvent(position);
+      }
+    }
+    writer.putBytes(bytes, spanStart, position - spanStart);
+  }
+
+  private Object getReference(int position) {
+    int index = readUleb128(position) - 1;
+    return index < 0 ? null : references[index];
+  }
+
+  private int readUleb128(int position) {
+    int result = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = bytes[position++];
+      result |= (b & 0x7f) << shift;
+      shift += 7;
+    } while (b < 0);
+    return result;
+  }
+
+  private int skipUleb128(int position) {
+    while (bytes[position++] < 0) {}
+    return position;
+  }
+
+  private int skipEvent(int position) {
+    int opcode = bytes[position++] & 0xff;
+    switch (opcode) {
+      case Constants.DBG_ADVANCE_PC:
+      case Constants.DBG_ADVANCE_LINE:
+      case Constants.DBG_END_LOCAL:
+      case Constants.DBG_RESTART_LOCAL:
+      case Constants.DBG_SET_FILE:
+      case DBG_SET_POSITION_FRAME:
+        return skipUleb128(position);
+      case Constants.DBG_START_LOCAL:
+        return skipUleb128(skipUleb128(skipUleb128(position)));
+      case Constants.DBG_START_LOCAL_EXTENDED:
+        return skipUleb128(skipUleb128(skipUleb128(skipUleb128(position))));
+      default:
+        return position;
+    }
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof DexDebugEvents)) {
+      return false;
+    }
+    DexDebugEvents events = (DexDebugEvents) other;
+    return Arrays.equals(bytes, events.bytes) && Arrays.equals(references, events.references);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(bytes) * 31 + Arrays.hashCode(references);
+  }
+
+  private class Decoder {
+
+    private int position = 0;
+
+    boolean hasNext() {
+      return position < bytes.length;
+    }
+
+    DexDebugEvent next() {
+      int opcode = bytes[position++] & 0xff;
+      switch (opcode) {
+        case Constants.DBG_ADVANCE_PC:
+          return new AdvancePC(nextUleb128());
+        case Constants.DBG_ADVANCE_LINE:
+          return new AdvanceLine(nextSleb128());
+        case Constants.DBG_START_LOCAL:
+        case Constants.DBG_START_LOCAL_EXTENDED:
+          {
+            int registerNum = nextUleb128();
+            DexString name = (DexString) nextReference();
+            DexType type = (DexType) nextReference();
+            DexString signature =
+                opcode == Constants.DBG_START_LOCAL_EXTENDED ? (DexString) nextReference() : null;
+            return new StartLocal(registerNum, name, type, signature);
+          }
+        case Constants.DBG_END_LOCAL:
+          return new EndLocal(nextUleb128());
+        case Constants.DBG_RESTART_LOCAL:
+          return new RestartLocal(nextUleb128());
+        case Constants.DBG_SET_PROLOGUE_END:
+          return new SetPrologueEnd();
+        case Constants.DBG_SET_EPILOGUE_BEGIN:
+          return new SetEpilogueBegin();
+        case Constants.DBG_SET_FILE:
+          return new SetFile((DexString) nextReference());
+        case DBG_SET_POSITION_FRAME:
+          return new SetPositionFrame((Position) nextReference());
+        default:
+          return new Default(opcode);
+      }
+    }
+
+    private Object nextReference() {
+      Object reference = getReference(position);
+      position = skipUleb128(position);
+      return reference;
+    }
+
+    private int nextUleb128() {
+      int result = readUleb128(position);
+      position = skipUleb128(position);
+      return result;
+    }
+
+    private int nextSleb128() {
+      int result = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = bytes[position++];
+        result |= (b & 0x7f) << shift;
+        shift += 7;
+      } while (b < 0);
+      if (shift < 32) {
+        // Sign extend the last payload bit.
+        result = (result << (32 - shift)) >> (32 - shift);
+      }
+      return result;
+    }
+  }
+
+  /** Builder that encodes debug events without creating an object per event. */
+  public static class Builder implements DexDebugEventVisitor {
+
+    private byte[] bytes = new byte[16];
+    private int position = 0;
+    private final List<Object> references = new ArrayList<>();
+    private int size = 0;
+
+    private Builder() {}
+
+    public Builder add(DexDebugEvent event) {
+      event.accept(this);
+      return this;
+    }
+
+    public Builder addAll(DexDebugEvents events) {
+      copyEvents(events, 0, events.bytes.length);
+      return this;
+    }
+
+    public Builder addAdvancePC(int delta) {
+      putOpcode(Constants.DBG_ADVANCE_PC);
+      putUleb128(delta);
+      return this;
+    }
+
+    public Builder addAdvanceLine(int delta) {
+      putOpcode(Constants.DBG_ADVANCE_LINE);
+      putSleb128(delta);
+      return this;
+    }
+
+    public Builder addDefault(int specialOpcode) {
+      assert specialOpcode >= Constants.DBG_FIRST_SPECIAL;
+      assert specialOpcode <= Constants.DBG_LAST_SPECIAL;
+      putOpcode(specialOpcode);
+      return this;
+    }
+
+    public Builder addStartLocal(
+        int registerNum, DexString name, DexType type, DexString signature) {
+      putOpcode(
+          signature == null ? Constants.DBG_START_LOCAL : Constants.DBG_START_LOCAL_EXTENDED);
+      putUleb128(registerNum);
+      putReference(name);
+      putReference(type);
+      if (signature != null) {
+        putReference(signature);
+      }
+      return this;
+    }
+
+    public Builder addStartLocal(int registerNum, DebugLocalInfo local) {
+      return addStartLocal(registerNum, local.name, local.type, local.signature);
+    }
+
+    public Builder addEndLocal(int registerNum) {
+      putOpcode(Constants.DBG_END_LOCAL);
+      putUleb128(registerNum);
+      return this;
+    }
+
+    public Builder addRestartLocal(int registerNum) {
+      putOpcode(Constants.DBG_RESTART_LOCAL);
+      putUleb128(registerNum);
+      return this;
+    }
+
+    public Builder addSetPrologueEnd() {
+      putOpcode(Constants.DBG_SET_PROLOGUE_END);
+      return this;
+    }
+
+    public Builder addSetEpilogueBegin() {
+      putOpcode(Constants.DBG_SET_EPILOGUE_BEGIN);
+      return this;
+    }
+
+    public Builder addSetFile(DexString fileName) {
+      putOpcode(Constants.DBG_SET_FILE);
+      putReference(fileName);
+      return this;
+    }
+
+    public Builder addPositionFrame(Position position) {
+      putOpcode(DBG_SET_POSITION_FRAME);
+      putReference(position);
+      return this;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    public boolean isEmpty() {
+      return size == 0;
+    }
+
+    public DexDebugEvents build() {
+      if (size == 0) {
+        return EMPTY;
+      }
+      return new DexDebugEvents(
+          Arrays.copyOf(bytes, position),
+          references.isEmpty() ? NO_REFERENCES : references.toArray());
+    }
+
+    @Override
+    public void visit(AdvancePC advancePC) {
+      addAdvancePC(advancePC.delta);
+    }
+
+    @Override
+    public void visit(AdvanceLine advanceLine) {
+      addAdvanceLine(advanceLine.delta);
+    }
+
+    @Override
+    public void visit(SetPositionFrame setPositionFrame) {
+      addPositionFrame(setPositionFrame.getPosition());
+    }
+
+    @Override
+    public void visit(Default defaultEvent) {
+      addDefault(defaultEvent.value);
+    }
+
+    @Override
+    public void visit(SetFile setFile) {
+      addSetFile(setFile.fileName);
+    }
+
+    @Override
+    public void visit(SetPrologueEnd setPrologueEnd) {
+      addSetPrologueEnd();
+    }
+
+    @Override
+    public void visit(SetEpilogueBegin setEpilogueBegin) {
+      addSetEpilogueBegin();
+    }
+
+    @Override
+    public void visit(StartLocal startLocal) {
+      addStartLocal(
+          startLocal.registerNum, startLocal.name, startLocal.type, startLocal.signature);
+    }
+
+    @Override
+    public void visit(EndLocal endLocal) {
+      addEndLocal(endLocal.registerNum);
+    }
+
+    @Override
+    public void visit(RestartLocal restartLocal) {
+      addRestartLocal(restartLocal.registerNum);
+    }
+
+    // Copies the events in the range [start, end) of the encoding of the given events.
+    private void copyEvents(DexDebugEvents events, int start, int end) {
+      int position = start;
+      while (position < end) {
+        int opcode = events.bytes[position] & 0xff;
+        if (!hasReferenceOperands(opcode)) {
+          int next = events.skipEvent(position);
+          ensureCapacity(next - position);
+          System.arraycopy(events.bytes, position, bytes, this.position, next - position);
+          this.position += next - position;
+          size++;
+          position = next;
+          continue;
+        }
+        putOpcode(opcode);
+        position++;
+        if (opcode == Constants.DBG_START_LOCAL || opcode == Constants.DBG_START_LOCAL_EXTENDED) {
+          putUleb128(events.readUleb128(position));
+          position = events.skipUleb128(position);
+          putReference(events.getReference(position));
+          position = events.skipUleb128(position);
+        }
+        putReference(events.getReference(position));
+        position = events.skipUleb128(position);
+        if (opcode == Constants.DBG_START_LOCAL_EXTENDED) {
+          putReference(events.getReference(position));
+          position = events.skipUleb128(position);
+        }
+      }
+      assert position == end;
+    }
+
+    private void putOpcode(int opcode) {
+      ensureCapacity(1);
+      bytes[position++] = (byte) opcode;
+      size++;
+    }
+
+    private void putReference(Object reference) {
+      if (reference == null) {
+        putUleb128(0);
+      } else {
+        references.add(reference);
+        putUleb128(references.size());
+      }
+    }
+
+    private void putUleb128(int value) {
+      ensureCapacity(5);
+      int remaining = value >>> 7;
+      while (remaining != 0) {
+        bytes[position++] = (byte) ((value & 0x7f) | 0x80);
+        value = remaining;
+        remaining >>>= 7;
+      }
+      bytes[position++] = (byte) (value & 0x7f);
+    }
+
+    private void putSleb128(int value) {
+      ensureCapacity(5);
+      int remaining = value >> 7;
+      int end = value >= 0 ? 0 : -1;
+      boolean hasMore = true;
+      while (hasMore) {
+        hasMore = (remaining != end) || ((remaining & 1) != ((value >> 6) & 1));
+        bytes[position++] = (byte) ((value & 0x7f) | (hasMore ? 0x80 : 0));
+        value = remaining;
+        remaining >>= 7;
+      }
+    }
+
+    private void ensureCapacity(int extra) {
+      if (position + extra > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + extra));
+      }
+    }
+
+    private static boolean hasReferenceOperands(int opcode) {
+      switch (opcode) {
+        case Constants.DBG_START_LOCAL:
+        case Constants.DBG_START_LOCAL_EXTENDED:
+        case Constants.DBG_SET_FILE:
+        case DBG_SET_POSITION_FRAME:
+          return true;
+        default:
+          return false;
+      }
+    }
+  }
+}
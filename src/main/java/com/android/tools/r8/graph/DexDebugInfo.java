@@ -13,7 +13,6 @@ import com.android.tools.r8.dex.MixedSectionCollection;
 import com.android.tools.r8.dex.code.DexInstruction;
 import com.android.tools.r8.errors.Unreachable;
 import com.android.tools.r8.graph.lens.GraphLens;
-import com.android.tools.r8.utils.ArrayUtils;
 import com.android.tools.r8.utils.LebUtils;
 import com.android.tools.r8.utils.StringUtils;
 import com.android.tools.r8.utils.structural.CompareToVisitor;
@@ -22,7 +21,6 @@ import com.android.tools.r8.utils.structural.HashingVisitor;
 import com.android.tools.r8.utils.structural.StructuralItem;
 import com.android.tools.r8.utils.structural.StructuralMapping;
 import com.android.tools.r8.utils.structural.StructuralSpecification;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
@@ -83,7 +81,7 @@ public abstract class DexDebugInfo extends CachedHashValueDexItem
   }
 
   @Override
-  protected final boolean computeEquals(Object other) {
+  protected boolean computeEquals(Object other) {
     return Equatable.equalsImpl(this, other);
   }
 
@@ -199,19 +197,26 @@ public abstract class DexDebugInfo extends CachedHashValueDexItem
 
     public final int startLine;
     public final DexString[] parameters;
-    public DexDebugEvent[] events;
+    // The events are held in their encoded form, see DexDebugEvents.
+    private final byte[] encodedEvents;
+    private final Object[] eventReferences;
 
     private static void specify(StructuralSpecification<EventBasedDebugInfo, ?> spec) {
       spec.withInt(d -> d.startLine)
           .withItemArrayAllowingNullMembers(d -> d.parameters)
-          .withItemArray(d -> d.events);
+          .withItemArray(d -> d.getEvents().toArray());
     }
 
     public EventBasedDebugInfo(int startLine, DexString[] parameters, DexDebugEvent[] events) {
+      this(startLine, parameters, DexDebugEvents.create(events));
+    }
+
+    public EventBasedDebugInfo(int startLine, DexString[] parameters, DexDebugEvents events) {
       assert startLine >= 0;
       this.startLine = startLine;
       this.parameters = parameters;
-      this.events = events;
+      this.encodedEvents = events.getBytes();
+      this.eventReferences = events.getReferences();
     }
 
     @Override
@@ -239,17 +244,32 @@ public abstract class DexDebugInfo extends CachedHashValueDexItem
       return parameters.length;
     }
 
+    public DexDebugEvents getEvents() {
+      return new DexDebugEvents(encodedEvents, eventReferences);
+    }
+
     public List<DexDebugEntry> computeEntries(DexMethod method, boolean isD8R8Synthesized) {
       DexDebugEntryBuilder builder = new DexDebugEntryBuilder(method, isD8R8Synthesized, startLine);
-      for (DexDebugEvent event : events) {
-        event.accept(builder);
-      }
+      getEvents().accept(builder);
       return builder.build();
     }
 
     @Override
     public int computeHashCode() {
-      return startLine + Arrays.hashCode(parameters) * 7 + Arrays.hashCode(events) * 13;
+      return startLine + Arrays.hashCode(parameters) * 7 + getEvents().hashCode() * 13;
+    }
+
+    @Override
+    protected boolean computeEquals(Object other) {
+      if (other == null || getClass() != other.getClass()) {
+        return false;
+      }
+      // Equal event sequences have equal encodings, thus there is no need to decode the events.
+      EventBasedDebugInfo info = (EventBasedDebugInfo) other;
+      return startLine == info.startLine
+          && Arrays.equals(parameters, info.parameters)
+          && Arrays.equals(encodedEvents, info.encodedEvents)
+          && Arrays.equals(eventReferences, info.eventReferences);
     }
 
     @Override
@@ -269,9 +289,7 @@ public abstract class DexDebugInfo extends CachedHashValueDexItem
           parameter.collectIndexedItems(indexedItems);
         }
       }
-      for (DexDebugEvent event : events) {
-        event.collectIndexedItems(appView, indexedItems);
-      }
+      getEvents().collectIndexedItems(appView, indexedItems);
     }
 
     @Override
@@ -284,7 +302,7 @@ public abstract class DexDebugInfo extends CachedHashValueDexItem
     public String toString() {
       StringBuilder builder = new StringBuilder();
       builder.append("DebugInfo (line " + startLine + ") events: [\n");
-      for (DexDebugEvent event : events) {
+      for (DexDebugEvent event : getEvents()) {
         builder.append("  ").append(event).append("\n");
       }
       builder.append("  END_SEQUENCE\n");
@@ -326,17 +344,16 @@ public abstract class DexDebugInfo extends CachedHashValueDexItem
 
   private static EventBasedDebugInfo forceConvertToEventBasedDebugInfo(
       int startLine, int parameterCount, DexInstruction[] instructions, DexItemFactory factory) {
-    List<DexDebugEvent> events = new ArrayList<>(instructions.length);
+    DexDebugEvents.Builder events = DexDebugEvents.builder();
     int delta = 0;
     for (DexInstruction instruction : instructions) {
       if (instruction.canThrow()) {
-        DexDebugEventBuilder.addDefaultEventWithAdvancePcIfNecessary(delta, delta, events, factory);
+        DexDebugEventBuilder.addDefaultEventWithAdvancePcIfNecessary(delta, delta, events);
         delta = 0;
       }
       delta += instruction.getSize();
     }
-    return new EventBasedDebugInfo(
-        startLine, new DexString[parameterCount], events.toArray(DexDebugEvent.EMPTY_ARRAY));
+    return new EventBasedDebugInfo(startLine, new DexString[parameterCount], events.build());
   }
 
   public static DexDebugInfoForWriting convertToWritable(DexDebugInfo debugInfo) {
@@ -347,18 +364,17 @@ public abstract class DexDebugInfo extends CachedHashValueDexItem
       return debugInfo.asPcBasedInfo();
     }
     EventBasedDebugInfo eventBasedInfo = debugInfo.asEventBasedInfo();
-    DexDebugEvent[] writableEvents =
-        ArrayUtils.filter(
-            eventBasedInfo.events, DexDebugEvent::isWritableEvent, DexDebugEvent.EMPTY_ARRAY);
     return new WritableEventBasedDebugInfo(
-        eventBasedInfo.startLine, eventBasedInfo.parameters, writableEvents);
+        eventBasedInfo.startLine,
+        eventBasedInfo.parameters,
+        eventBasedInfo.getEvents().withoutNonWritableEvents());
   }
 
   private static class WritableEventBasedDebugInfo extends EventBasedDebugInfo
       implements DexDebugInfoForWriting {
 
     private WritableEventBasedDebugInfo(
-        int startLine, DexString[] parameters, DexDebugEvent[] writableEvents) {
+        int startLine, DexString[] parameters, DexDebugEvents writableEvents) {
       super(startLine, parameters, writableEvents);
     }
 
@@ -379,7 +395,7 @@ public abstract class DexDebugInfo extends CachedHashValueDexItem
           + LebUtils.sizeAsUleb128(parameters.length)
           // Estimate 4 bytes per parameter pointer.
           + parameters.length * 4
-          + events.length
+          + getEvents().getEncodedSize()
           + 1;
     }
 
@@ -391,9 +407,8 @@ public abstract class DexDebugInfo extends CachedHashValueDexItem
       for (DexString name : parameters) {
         writer.putString(name);
       }
-      for (DexDebugEvent event : events) {
-        event.writeOn(writer, mapping, graphLens);
-      }
+      // The encoded events are copied to the output, only the string and type operands are mapped.
+      getEvents().write(writer, graphLens);
       writer.putByte(Constants.DBG_END_SEQUENCE);
     }
   }
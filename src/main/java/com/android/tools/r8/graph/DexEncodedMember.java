@@ -25,6 +25,10 @@ public abstract class DexEncodedMember<D extends DexEncodedMember<D, R>, R exten
 
   private final R reference;
 
+  // The id of this member in the most recently created ProgramMemberIndex that contains it. Only
+  // meaningful when confirmed by the index, see ProgramMemberIndex#getId.
+  private int programMemberIndexId = ProgramMemberIndex.NO_ID;
+
   public DexEncodedMember(
       R reference,
       DexAnnotationSet annotations,
@@ -106,4 +110,12 @@ public abstract class DexEncodedMember<D extends DexEncodedMember<D, R>, R exten
   public void setApiLevelForDefinition(ComputedApiLevel apiLevelForDefinition) {
     this.apiLevelForDefinition = apiLevelForDefinition;
   }
+
+  int getProgramMemberIndexId() {
+    return programMemberIndexId;
+  }
+
+  void setProgramMemberIndexId(int programMemberIndexId) {
+    this.programMemberIndexId = programMemberIndexId;
+  }
 }
@@ -23,6 +23,7 @@ import com.android.tools.r8.graph.DexMethodHandle.MethodHandleType;
 import com.android.tools.r8.ir.analysis.type.ArrayTypeElement;
 import com.android.tools.r8.ir.analysis.type.ClassTypeElement;
 import com.android.tools.r8.ir.analysis.type.InterfaceCollection;
+import com.android.tools.r8.ir.analysis.type.LeastUpperBoundOfInterfacesCache;
 import com.android.tools.r8.ir.analysis.type.Nullability;
 import com.android.tools.r8.ir.analysis.type.ReferenceTypeElement;
 import com.android.tools.r8.ir.analysis.type.TypeElement;
@@ -37,7 +38,6 @@ import com.android.tools.r8.synthesis.SyntheticNaming;
 import com.android.tools.r8.utils.ArrayUtils;
 import com.android.tools.r8.utils.DequeUtils;
 import com.android.tools.r8.utils.DescriptorUtils;
-import com.android.tools.r8.utils.LRUCacheTable;
 import com.android.tools.r8.utils.ListUtils;
 import com.android.tools.r8.utils.SetUtils;
 import com.google.common.collect.BiMap;
@@ -96,7 +96,7 @@ public class DexItemFactory {
   public static final String androidResourcesDescriptorString = "Landroid/content/res/Resources;";
 
   /** Set of types that may be synthesized during compilation. */
-  private final Set<DexType> possibleCompilerSynthesizedTypes = Sets.newIdentityHashSet();
+  private final Set<DexType> possibleCompilerSynthesizedTypes = Sets.newConcurrentHashSet();
 
   private final Map<DexString, DexString> markers = new ConcurrentHashMap<>();
   private final Map<DexString, DexString> strings = new ConcurrentHashMap<>();
@@ -125,8 +125,8 @@ public class DexItemFactory {
       new ConcurrentHashMap<>();
   private final ConcurrentHashMap<DexType, InterfaceCollection> classTypeInterfaces =
       new ConcurrentHashMap<>();
-  public final LRUCacheTable<InterfaceCollection, InterfaceCollection, InterfaceCollection>
-      leastUpperBoundOfInterfacesTable = LRUCacheTable.create(8, 8);
+  public final LeastUpperBoundOfInterfacesCache leastUpperBoundOfInterfacesCache =
+      LeastUpperBoundOfInterfacesCache.create();
   boolean sorted = false;
 
   // Internal type containing only the null value.
@@ -2948,10 +2948,17 @@ public class DexItemFactory {
     return markers;
   }
 
-  // Non-synchronized internal create.
+  // Lock-free internal create. Types are canonicalized through the concurrent types map, such
+  // that concurrent creations of the same descriptor all observe the same instance.
   private DexType internalCreateType(DexString descriptor) {
     assert !sorted;
     assert descriptor != null;
+    // Most lookups are for existing types. Avoid computeIfAbsent for these, since it may lock the
+    // bin of the key even when the key is present.
+    DexType existing = types.get(descriptor);
+    if (existing != null) {
+      return existing;
+    }
     return types.computeIfAbsent(descriptor, k -> {
       DexType result = new DexType(k);
       assert result.isArrayType()
@@ -2982,9 +2989,9 @@ public class DexItemFactory {
     return type;
   }
 
-  // Safe synchronized external create. May be used for statically known types in synthetic code.
+  // Thread-safe external create. May be used for statically known types in synthetic code.
   // See the generated BackportedMethods.java for reference.
-  public synchronized DexType createSynthesizedType(String descriptor) {
+  public DexType createSynthesizedType(String descriptor) {
     DexType type = internalCreateType(createString(descriptor));
     addPossiblySynthesizedType(type);
     return type;
@@ -3013,8 +3020,8 @@ public class DexItemFactory {
     possibleCompilerSynthesizedTypes.forEach(fn);
   }
 
-  // Safe synchronized external create. Should never be used to create a statically known type!
-  public synchronized DexType createType(DexString descriptor) {
+  // Thread-safe external create. Should never be used to create a statically known type!
+  public DexType createType(DexString descriptor) {
     return internalCreateType(descriptor);
   }
 
@@ -3269,13 +3276,13 @@ public class DexItemFactory {
   public void clearTypeElementsCache() {
     referenceTypes.clear();
     classTypeInterfaces.clear();
-    leastUpperBoundOfInterfacesTable.clear();
+    leastUpperBoundOfInterfacesCache.clear();
   }
 
   public boolean verifyNoCachedTypeElements() {
     assert referenceTypes.isEmpty();
     assert classTypeInterfaces.isEmpty();
-    assert leastUpperBoundOfInterfacesTable.isEmpty();
+    assert leastUpperBoundOfInterfacesCache.isEmpty();
     return true;
   }
 
@@ -154,6 +154,10 @@ public class JarClassFileReader<T extends DexClass> {
     return access & ~ACC_SYNTHETIC_ATTRIBUTE & ~ACC_DEPRECATED;
   }
 
+  public static ClassAccessFlags createClassAccessFlags(int access) {
+    return ClassAccessFlags.fromCfAccessFlags(cleanAccessFlags(access));
+  }
+
   public static FieldAccessFlags createFieldAccessFlags(int access) {
     return FieldAccessFlags.fromCfAccessFlags(cleanAccessFlags(access));
   }
@@ -373,7 +377,7 @@ public class JarClassFileReader<T extends DexClass> {
         throw new CompilationError("Unsupported class file version: " + version, origin);
       }
       this.deprecated = AsmUtils.isDeprecated(access);
-      accessFlags = ClassAccessFlags.fromCfAccessFlags(cleanAccessFlags(access));
+      accessFlags = createClassAccessFlags(access);
       type = application.getTypeFromName(name);
       // Check if constraints from
       // https://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.1 are met.
@@ -534,6 +538,9 @@ public class JarClassFileReader<T extends DexClass> {
         if (deprecated) {
           programClass.setDeprecated();
         }
+        if (application.options.parseCfCodeEagerly) {
+          LazyCfCode.parseAllCode(context);
+        }
       }
       classConsumer.accept(clazz);
     }
@@ -164,15 +164,12 @@ public class LazyCfCode extends Code {
     assert context != null;
     // The ClassCodeVisitor is in charge of setting this.context to null.
     try {
-      parseCode(context, false);
+      parseCode(context, application, false);
     } catch (JsrEncountered e) {
-      for (Code code : context.codeList) {
-        code.asLazyCfCode().code = null;
-        code.asLazyCfCode().context = context;
-        code.asLazyCfCode().application = application;
-      }
+      // The methods that were visited before the JSR was encountered have been fully materialized.
+      // Only the remaining methods are parsed again using the JSR inliner.
       try {
-        parseCode(context, true);
+        parseCode(context, application, true);
       } catch (JsrEncountered e1) {
         throw new Unreachable(e1);
       }
@@ -180,6 +177,16 @@ public class LazyCfCode extends Code {
       throw new CompilationError("Could not parse code", e, origin);
     }
     assert verifyNoReparseContext(context.owner);
+    // All code of the class has been materialized in a single pass, so the class file content is no
+    // longer needed.
+    context.classCache = null;
+  }
+
+  /** Materializes the code of all methods in the class of the given context in a single pass. */
+  public static void parseAllCode(ReparseContext context) {
+    if (!context.codeList.isEmpty()) {
+      context.codeList.get(0).asCfCode();
+    }
   }
 
   @Override
@@ -212,7 +219,8 @@ public class LazyCfCode extends Code {
     }
   }
 
-  public void parseCode(ReparseContext context, boolean useJsrInliner) {
+  private void parseCode(
+      ReparseContext context, JarApplicationReader application, boolean useJsrInliner) {
     DebugParsingOptions parsingOptions = getParsingOptions(application, reachabilitySensitive);
 
     ClassCodeVisitor classVisitor =
@@ -377,7 +385,8 @@ public class LazyCfCode extends Code {
       MethodAccessFlags flags = JarClassFileReader.createMethodAccessFlags(name, access);
       if (!flags.isAbstract() && !flags.isNative()) {
         LazyCfCode code = codeLocator.apply(name, desc);
-        if (code != null) {
+        // The code may already be materialized if the class is reparsed due to JSR inlining.
+        if (code != null && code.code == null) {
           DexMethod method = application.getMethod(clazz.type, name, desc);
           MethodCodeVisitor methodVisitor =
               new MethodCodeVisitor(
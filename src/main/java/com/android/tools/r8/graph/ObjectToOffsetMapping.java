@@ -3,13 +3,17 @@
 // BSD-style license that can be found in the LICENSE file.
 package com.android.tools.r8.graph;
 
+import static com.android.tools.r8.utils.ExceptionUtils.unwrapExecutionException;
+
 import com.android.tools.r8.dex.Constants;
 import com.android.tools.r8.errors.CompilationError;
 import com.android.tools.r8.graph.lens.GraphLens;
 import com.android.tools.r8.graph.lens.InitClassLens;
 import com.android.tools.r8.ir.conversion.LensCodeRewriterUtils;
 import com.android.tools.r8.naming.NamingLens;
+import com.android.tools.r8.threading.TaskCollection;
 import com.android.tools.r8.utils.Box;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
 import com.android.tools.r8.utils.structural.CompareToVisitor;
 import com.android.tools.r8.utils.structural.CompareToVisitorWithStringTable;
@@ -26,6 +30,8 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
 public class ObjectToOffsetMapping {
@@ -70,6 +76,46 @@ public class ObjectToOffsetMapping {
       Collection<DexMethodHandle> methodHandles,
       int lazyDexStringsCount,
       Timing timing) {
+    this(
+        appView,
+        sharedMapping,
+        lensCodeRewriter,
+        classes,
+        protos,
+        types,
+        methods,
+        fields,
+        strings,
+        callSites,
+        methodHandles,
+        lazyDexStringsCount,
+        timing,
+        null);
+  }
+
+  /**
+   * Creates the mapping for a single dex file.
+   *
+   * <p>If an executor service is given, then large tables are sorted in chunks in parallel, and
+   * the tables that only depend on the string and type tables are sorted concurrently. The
+   * resulting order is the same as when sorting sequentially. The mapping must then not be created
+   * from within a task on the same executor service, since it waits for the sorting tasks.
+   */
+  public ObjectToOffsetMapping(
+      AppView<?> appView,
+      ObjectToOffsetMapping sharedMapping,
+      LensCodeRewriterUtils lensCodeRewriter,
+      Collection<DexProgramClass> classes,
+      Map<DexProto, DexString> protos,
+      Collection<DexType> types,
+      Collection<DexMethod> methods,
+      Collection<DexField> fields,
+      Collection<DexString> strings,
+      Collection<DexCallSite> callSites,
+      Collection<DexMethodHandle> methodHandles,
+      int lazyDexStringsCount,
+      Timing timing,
+      ExecutorService executorService) {
     assert appView != null;
     assert classes != null;
     assert protos != null;
@@ -90,7 +136,11 @@ public class ObjectToOffsetMapping {
     if (sharedMapping == null) {
       this.strings =
           createSortedMap(
-              strings, DexString::compareTo, this::setFirstJumboString, lazyDexStringsCount);
+              strings,
+              DexString::compareTo,
+              this::setFirstJumboString,
+              lazyDexStringsCount,
+              executorService);
     } else {
       this.strings = sharedMapping.strings;
       this.firstJumboString = sharedMapping.firstJumboString;
@@ -99,28 +149,79 @@ public class ObjectToOffsetMapping {
         new CompareToVisitorWithStringTable(namingLens, this.strings::getInt);
     timing.end();
     timing.begin("Sort types");
-    this.types = createSortedMap(types, compare(visitor), this::failOnOverflow);
-    visitor =
+    this.types = createSortedMap(types, compare(visitor), this::failOnOverflow, 0, executorService);
+    CompareToVisitor typeTableVisitor =
         new CompareToVisitorWithTypeTable(namingLens, this.strings::getInt, this.types::getInt);
     timing.end();
-    timing.begin("Sort classes");
-    this.classes = sortClasses(classes, visitor);
-    timing.end();
-    timing.begin("Sort protos");
-    this.protos = createSortedMap(protos.keySet(), compare(visitor), this::failOnOverflow);
-    timing.end();
-    timing.begin("Sort methods");
-    this.methods = createSortedMap(methods, compare(visitor), this::failOnOverflow);
-    timing.end();
-    timing.begin("Sort fields");
-    this.fields = createSortedMap(fields, compare(visitor), this::failOnOverflow);
-    timing.end();
-    timing.begin("Sort call-sites");
-    this.callSites = createSortedMap(callSites, compare(visitor), this::failOnOverflow);
-    timing.end();
-    timing.begin("Sort method handles");
-    this.methodHandles = createSortedMap(methodHandles, compare(visitor), this::failOnOverflow);
-    timing.end();
+    if (executorService == null) {
+      timing.begin("Sort classes");
+      this.classes = sortClasses(classes, typeTableVisitor);
+      timing.end();
+      timing.begin("Sort protos");
+      this.protos =
+          createSortedMap(protos.keySet(), compare(typeTableVisitor), this::failOnOverflow);
+      timing.end();
+      timing.begin("Sort methods");
+      this.methods = createSortedMap(methods, compare(typeTableVisitor), this::failOnOverflow);
+      timing.end();
+      timing.begin("Sort fields");
+      this.fields = createSortedMap(fields, compare(typeTableVisitor), this::failOnOverflow);
+      timing.end();
+      timing.begin("Sort call-sites");
+      this.callSites =
+          createSortedMap(callSites, compare(typeTableVisitor), this::failOnOverflow);
+      timing.end();
+      timing.begin("Sort method handles");
+      this.methodHandles =
+          createSortedMap(methodHandles, compare(typeTableVisitor), this::failOnOverflow);
+      timing.end();
+    } else {
+      // The remaining tables only depend on the string and type tables, thus they are sorted
+      // concurrently. The timing is not thread safe, so only the total time is recorded.
+      timing.begin("Sort classes, protos, methods, fields, call-sites and method handles");
+      Box<DexProgramClass[]> sortedClasses = new Box<>();
+      Box<Reference2IntLinkedOpenHashMap<DexProto>> sortedProtos = new Box<>();
+      Box<Reference2IntLinkedOpenHashMap<DexMethod>> sortedMethods = new Box<>();
+      Box<Reference2IntLinkedOpenHashMap<DexField>> sortedFields = new Box<>();
+      Box<Reference2IntLinkedOpenHashMap<DexCallSite>> sortedCallSites = new Box<>();
+      Box<Reference2IntLinkedOpenHashMap<DexMethodHandle>> sortedMethodHandles = new Box<>();
+      TaskCollection<?> tasks = new TaskCollection<>(appView.options(), executorService);
+      try {
+        tasks.submit(() -> sortedClasses.set(sortClasses(classes, typeTableVisitor)));
+        tasks.submit(
+            () ->
+                sortedProtos.set(
+                    createSortedMap(
+                        protos.keySet(), compare(typeTableVisitor), this::failOnOverflow)));
+        tasks.submit(
+            () ->
+                sortedMethods.set(
+                    createSortedMap(methods, compare(typeTableVisitor), this::failOnOverflow)));
+        tasks.submit(
+            () ->
+                sortedFields.set(
+                    createSortedMap(fields, compare(typeTableVisitor), this::failOnOverflow)));
+        tasks.submit(
+            () ->
+                sortedCallSites.set(
+                    createSortedMap(callSites, compare(typeTableVisitor), this::failOnOverflow)));
+        tasks.submit(
+            () ->
+                sortedMethodHandles.set(
+                    createSortedMap(
+                        methodHandles, compare(typeTableVisitor), this::failOnOverflow)));
+        tasks.await();
+      } catch (ExecutionException e) {
+        throw unwrapExecutionException(e);
+      }
+      this.classes = sortedClasses.get();
+      this.protos = sortedProtos.get();
+      this.methods = sortedMethods.get();
+      this.fields = sortedFields.get();
+      this.callSites = sortedCallSites.get();
+      this.methodHandles = sortedMethodHandles.get();
+      timing.end();
+    }
 
     ObjectToOffsetMapping mapping = this;
     compareToVisitor =
@@ -179,20 +280,22 @@ public class ObjectToOffsetMapping {
 
   private <T> Reference2IntLinkedOpenHashMap<T> createSortedMap(
       Collection<T> items, Comparator<T> comparator, Consumer<T> onUInt16Overflow) {
-    return createSortedMap(items, comparator, onUInt16Overflow, 0);
+    return createSortedMap(items, comparator, onUInt16Overflow, 0, null);
   }
 
   private <T> Reference2IntLinkedOpenHashMap<T> createSortedMap(
       Collection<T> items,
       Comparator<T> comparator,
       Consumer<T> onUInt16Overflow,
-      int reservedIndicesBeforeOverflow) {
+      int reservedIndicesBeforeOverflow,
+      ExecutorService executorService) {
     if (items.isEmpty()) {
       return new Reference2IntLinkedOpenHashMap<>();
     }
     // Sort items and compute the offset mapping for each in sorted order.
-    ArrayList<T> sorted = new ArrayList<>(items);
-    sorted.sort(comparator);
+    @SuppressWarnings("unchecked")
+    T[] sorted = (T[]) items.toArray();
+    sort(sorted, comparator, executorService);
     Reference2IntLinkedOpenHashMap<T> map = new Reference2IntLinkedOpenHashMap<>(items.size());
     map.defaultReturnValue(NOT_FOUND);
     int index = 0;
@@ -205,6 +308,32 @@ public class ObjectToOffsetMapping {
     return map;
   }
 
+  private <T> void sort(T[] items, Comparator<T> comparator, ExecutorService executorService) {
+    int chunkSize = appView.options().testing.dexWriterSortChunkSize;
+    if (executorService == null || items.length < 2 * chunkSize) {
+      Arrays.sort(items, comparator);
+      return;
+    }
+    // Sort consecutive chunks in parallel and then merge the sorted chunks. The sort is stable,
+    // thus the result is the same as when sorting all items at once. The final sort only has to
+    // merge the runs formed by the sorted chunks.
+    List<Integer> chunkStarts = new ArrayList<>();
+    for (int start = 0; start < items.length; start += chunkSize) {
+      chunkStarts.add(start);
+    }
+    try {
+      ThreadUtils.processItems(
+          chunkStarts,
+          start ->
+              Arrays.sort(items, start, Math.min(start + chunkSize, items.length), comparator),
+          appView.options().getThreadingModule(),
+          executorService);
+    } catch (ExecutionException e) {
+      throw unwrapExecutionException(e);
+    }
+    Arrays.sort(items, comparator);
+  }
+
   /**
    * Here, 'depth' of a program class is an integer one bigger then the maximum depth of its
    * superclass and implemented interfaces. The depth of classes without any or without known
@@ -0,0 +1,112 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.graph;
+
+import com.android.tools.r8.graph.lens.GraphLens;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Dense numbering of the program methods and program fields of an application.
+ *
+ * <p>The methods and fields are numbered from zero in the deterministic order of the program
+ * classes, such that side tables for program members can be represented as arrays and bit sets
+ * instead of hash maps. The id of a member is stored on its definition, thus looking up an id does
+ * not hash the member reference.
+ *
+ * <p>The numbering is only valid for the application and graph lens it was created for. Members
+ * that are added to the application after the index is created do not have an id, and neither do
+ * members whose definition has been replaced.
+ */
+public class ProgramMemberIndex {
+
+  public static final int NO_ID = -1;
+
+  private final DexApplication application;
+  private final GraphLens graphLens;
+
+  private final ProgramMethod[] methods;
+  private final ProgramField[] fields;
+
+  private ProgramMemberIndex(
+      DexApplication application,
+      GraphLens graphLens,
+      ProgramMethod[] methods,
+      ProgramField[] fields) {
+    this.application = application;
+    this.graphLens = graphLens;
+    this.methods = methods;
+    this.fields = fields;
+  }
+
+  static ProgramMemberIndex create(AppView<?> appView) {
+    return create(
+        appView.app(), appView.graphLens(), appView.appInfo().classesWithDeterministicOrder());
+  }
+
+  private static ProgramMemberIndex create(
+      DexApplication application, GraphLens graphLens, Collection<DexProgramClass> classes) {
+    List<ProgramMethod> methods = new ArrayList<>();
+    List<ProgramField> fields = new ArrayList<>();
+    for (DexProgramClass clazz : classes) {
+      clazz.forEachProgramMethod(
+          method -> {
+            method.getDefinition().setProgramMemberIndexId(methods.size());
+            methods.add(method);
+          });
+      clazz.forEachProgramField(
+          field -> {
+            field.getDefinition().setProgramMemberIndexId(fields.size());
+            fields.add(field);
+          });
+    }
+    return new ProgramMemberIndex(
+        application,
+        graphLens,
+        methods.toArray(new ProgramMethod[0]),
+        fields.toArray(new ProgramField[0]));
+  }
+
+  @SuppressWarnings("ReferenceEquality")
+  boolean isValidFor(DexApplication application, GraphLens graphLens) {
+    return this.application == application && this.graphLens == graphLens;
+  }
+
+  /** Returns the id of the given method, or {@link #NO_ID} if the method is not in this index. */
+  @SuppressWarnings("ReferenceEquality")
+  public int getId(ProgramMethod method) {
+    DexEncodedMethod definition = method.getDefinition();
+    int id = definition.getProgramMemberIndexId();
+    // The id may have been assigned by an index for another application.
+    return id >= 0 && id < methods.length && methods[id].getDefinition() == definition
+        ? id
+        : NO_ID;
+  }
+
+  /** Returns the id of the given field, or {@link #NO_ID} if the field is not in this index. */
+  @SuppressWarnings("ReferenceEquality")
+  public int getId(ProgramField field) {
+    DexEncodedField definition = field.getDefinition();
+    int id = definition.getProgramMemberIndexId();
+    return id >= 0 && id < fields.length && fields[id].getDefinition() == definition ? id : NO_ID;
+  }
+
+  public ProgramMethod getMethod(int id) {
+    return methods[id];
+  }
+
+  public ProgramField getField(int id) {
+    return fields[id];
+  }
+
+  public int numberOfMethods() {
+    return methods.length;
+  }
+
+  public int numberOfFields() {
+    return fields.length;
+  }
+}
@@ -15,6 +15,8 @@ import com.android.tools.r8.shaking.DefaultEnqueuerUseRegistry;
 import com.android.tools.r8.shaking.Enqueuer;
 import com.android.tools.r8.shaking.EnqueuerWorklist;
 import com.android.tools.r8.utils.Timing;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 public abstract class EnqueuerAnalysis {
 
@@ -63,5 +65,6 @@ public abstract class EnqueuerAnalysis {
    * Called when the Enqueuer has reached the final fixpoint. Each analysis may use this callback to
    * perform some post-processing.
    */
-  public void done(Enqueuer enqueuer) {}
+  public void done(Enqueuer enqueuer, ExecutorService executorService, Timing timing)
+      throws ExecutionException {}
 }
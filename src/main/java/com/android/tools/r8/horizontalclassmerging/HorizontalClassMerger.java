@@ -126,9 +126,10 @@ public class HorizontalClassMerger {
       throws ExecutionException {
     // Run the policies on all program classes to produce a final grouping.
     List<Policy> policies =
-        PolicyScheduler.getPolicies(appView, codeProvider, mode, runtimeTypeCheckInfo);
+        PolicyScheduler.getPolicies(appView, codeProvider, mode, runtimeTypeCheckInfo, timing);
     Collection<MergeGroup> groups =
-        new PolicyExecutor().run(getInitialGroups(), policies, executorService, timing);
+        new PolicyExecutor(appView.options())
+            .run(getInitialGroups(), policies, executorService, timing);
 
     // If there are no groups, then end horizontal class merging.
     if (groups.isEmpty()) {
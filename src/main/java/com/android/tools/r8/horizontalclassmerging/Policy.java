@@ -22,6 +22,15 @@ public abstract class Policy {
 
   public abstract String getName();
 
+  /**
+   * Returns true if the policy can be applied to different classes and merge groups concurrently.
+   * This requires that the decisions of the policy for a merge group do not depend on the other
+   * merge groups, and that the policy does not have any mutable state, such as a cache.
+   */
+  public boolean canApplyInParallel() {
+    return false;
+  }
+
   public boolean isIdentityForInterfaceGroups() {
     return false;
   }
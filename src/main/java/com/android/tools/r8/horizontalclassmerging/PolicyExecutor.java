@@ -4,53 +4,91 @@
 
 package com.android.tools.r8.horizontalclassmerging;
 
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
- * This is a simple policy executor that ensures regular sequential execution of policies. It should
- * primarily be readable and correct. The SimplePolicyExecutor should be a reference implementation,
- * against which more efficient policy executors can be compared.
+ * The policy executor applies the policies in order to the merge groups.
+ *
+ * <p>Policies that are independent per class or per merge group, see {@link
+ * Policy#canApplyInParallel()}, are applied to the classes or merge groups concurrently. The result
+ * is the same as the result of the sequential application of the policies, as the results of the
+ * concurrent applications are combined in the order of the merge groups.
+ *
+ * <p>Consecutive single class policies are applied in the order of their measured selectivity in
+ * the previous rounds of class merging, such that the most selective policies reject classes
+ * before the remaining policies are applied to them.
  */
 public class PolicyExecutor {
 
-  private void applySingleClassPolicy(SingleClassPolicy policy, LinkedList<MergeGroup> groups) {
+  private final InternalOptions options;
+  private final PolicyStatistics statistics;
+
+  public PolicyExecutor(InternalOptions options) {
+    this.options = options;
+    this.statistics = options.horizontalClassMergerOptions().getPolicyStatistics();
+  }
+
+  private void applySingleClassPolicy(
+      SingleClassPolicy policy, LinkedList<MergeGroup> groups, ExecutorService executorService)
+      throws ExecutionException {
+    long start = System.nanoTime();
+    Predicate<DexProgramClass> canMerge = getCanMerge(policy, groups, executorService);
+    int numberOfClasses = 0;
+    int numberOfRejectedClasses = 0;
     Iterator<MergeGroup> i = groups.iterator();
     while (i.hasNext()) {
       MergeGroup group = i.next();
       boolean isInterfaceGroup = group.isInterfaceGroup();
       int previousGroupSize = group.size();
-      group.removeIf(clazz -> !policy.canMerge(clazz));
+      group.removeIf(clazz -> !canMerge.test(clazz));
       assert policy.recordRemovedClassesForDebugging(
           isInterfaceGroup, previousGroupSize, ImmutableList.of(group));
+      numberOfClasses += previousGroupSize;
+      numberOfRejectedClasses += previousGroupSize - group.size();
       if (group.isTrivial()) {
         i.remove();
       }
     }
+    statistics.record(policy, numberOfClasses, numberOfRejectedClasses, System.nanoTime() - start);
+  }
+
+  private Predicate<DexProgramClass> getCanMerge(
+      SingleClassPolicy policy, LinkedList<MergeGroup> groups, ExecutorService executorService)
+      throws ExecutionException {
+    if (!policy.canApplyInParallel()) {
+      return policy::canMerge;
+    }
+    // The classes are tested in the same order as they are iterated by the caller.
+    Iterator<Boolean> canMerge =
+        ThreadUtils.processItemsWithResults(
+                Iterables.concat(groups),
+                policy::canMerge,
+                options.getThreadingModule(),
+                executorService)
+            .iterator();
+    return clazz -> canMerge.next();
   }
 
   // TODO(b/270398965): Replace LinkedList.
   @SuppressWarnings("JdkObsolete")
   private LinkedList<MergeGroup> applyMultiClassPolicy(
-      MultiClassPolicy policy, LinkedList<MergeGroup> groups) {
-    // For each group apply the multi class policy and add all the new groups together.
-    LinkedList<MergeGroup> newGroups = new LinkedList<>();
-    groups.forEach(
-        group -> {
-          boolean isInterfaceGroup = group.isInterfaceGroup();
-          int previousGroupSize = group.size();
-          Collection<MergeGroup> policyGroups = policy.apply(group);
-          policyGroups.forEach(newGroup -> newGroup.applyMetadataFrom(group));
-          assert policy.recordRemovedClassesForDebugging(
-              isInterfaceGroup, previousGroupSize, policyGroups);
-          newGroups.addAll(policyGroups);
-        });
-    return newGroups;
+      MultiClassPolicy policy, LinkedList<MergeGroup> groups, ExecutorService executorService)
+      throws ExecutionException {
+    return applyToGroups(policy, groups, policy::apply, executorService);
   }
 
   // TODO(b/270398965): Replace LinkedList.
@@ -60,22 +98,79 @@ public class PolicyExecutor {
       LinkedList<MergeGroup> groups,
       ExecutorService executorService)
       throws ExecutionException {
-    // For each group apply the multi class policy and add all the new groups together.
     T data = policy.preprocess(groups, executorService);
+    return applyToGroups(policy, groups, group -> policy.apply(group, data), executorService);
+  }
+
+  // TODO(b/270398965): Replace LinkedList.
+  @SuppressWarnings("JdkObsolete")
+  private LinkedList<MergeGroup> applyToGroups(
+      Policy policy,
+      LinkedList<MergeGroup> groups,
+      Function<MergeGroup, Collection<MergeGroup>> fn,
+      ExecutorService executorService)
+      throws ExecutionException {
+    // For each group apply the multi class policy and add all the new groups together.
+    Collection<GroupResult> results;
+    if (policy.canApplyInParallel() && groups.size() > 1) {
+      results =
+          ThreadUtils.processItemsWithResults(
+              groups,
+              group -> new GroupResult(group, fn),
+              options.getThreadingModule(),
+              executorService);
+    } else {
+      results = new ArrayList<>(groups.size());
+      for (MergeGroup group : groups) {
+        results.add(new GroupResult(group, fn));
+      }
+    }
     LinkedList<MergeGroup> newGroups = new LinkedList<>();
-    groups.forEach(
-        group -> {
-          boolean isInterfaceGroup = group.isInterfaceGroup();
-          int previousGroupSize = group.size();
-          Collection<MergeGroup> policyGroups = policy.apply(group, data);
-          policyGroups.forEach(newGroup -> newGroup.applyMetadataFrom(group));
-          assert policy.recordRemovedClassesForDebugging(
-              isInterfaceGroup, previousGroupSize, policyGroups);
-          newGroups.addAll(policyGroups);
-        });
+    for (GroupResult result : results) {
+      assert policy.recordRemovedClassesForDebugging(
+          result.isInterfaceGroup, result.previousGroupSize, result.newGroups);
+      newGroups.addAll(result.newGroups);
+    }
     return newGroups;
   }
 
+  // Reorders each run of consecutive single class policies. The policies that can be reordered are
+  // applied first, ordered by their selectivity, followed by the other policies of the run in their
+  // given order.
+  private List<Policy> orderPolicies(Collection<Policy> policies) {
+    List<Policy> orderedPolicies = new ArrayList<>(policies.size());
+    List<SingleClassPolicy> reorderablePolicies = new ArrayList<>();
+    List<SingleClassPolicy> fixedPolicies = new ArrayList<>();
+    for (Policy policy : policies) {
+      if (policy.shouldSkipPolicy()) {
+        continue;
+      }
+      if (policy.isSingleClassPolicy()) {
+        SingleClassPolicy singleClassPolicy = policy.asSingleClassPolicy();
+        if (singleClassPolicy.canBeReordered()) {
+          reorderablePolicies.add(singleClassPolicy);
+        } else {
+          fixedPolicies.add(singleClassPolicy);
+        }
+        continue;
+      }
+      addSingleClassPolicies(reorderablePolicies, fixedPolicies, orderedPolicies);
+      orderedPolicies.add(policy);
+      reorderablePolicies = new ArrayList<>();
+      fixedPolicies = new ArrayList<>();
+    }
+    addSingleClassPolicies(reorderablePolicies, fixedPolicies, orderedPolicies);
+    return orderedPolicies;
+  }
+
+  private void addSingleClassPolicies(
+      List<SingleClassPolicy> reorderablePolicies,
+      List<SingleClassPolicy> fixedPolicies,
+      List<Policy> orderedPolicies) {
+    orderedPolicies.addAll(statistics.orderBySelectivity(reorderablePolicies));
+    orderedPolicies.addAll(fixedPolicies);
+  }
+
   /**
    * Given an initial collection of class groups which can potentially be merged, run all of the
    * policies registered to this policy executor on the class groups yielding a new collection of
@@ -97,16 +192,13 @@ public class PolicyExecutor {
       linkedGroups = new LinkedList<>(inputGroups);
     }
 
-    for (Policy policy : policies) {
-      if (policy.shouldSkipPolicy()) {
-        continue;
-      }
-
+    for (Policy policy : orderPolicies(policies)) {
       timing.begin(policy.getName());
       if (policy.isSingleClassPolicy()) {
-        applySingleClassPolicy(policy.asSingleClassPolicy(), linkedGroups);
+        applySingleClassPolicy(policy.asSingleClassPolicy(), linkedGroups, executorService);
       } else if (policy.isMultiClassPolicy()) {
-        linkedGroups = applyMultiClassPolicy(policy.asMultiClassPolicy(), linkedGroups);
+        linkedGroups =
+            applyMultiClassPolicy(policy.asMultiClassPolicy(), linkedGroups, executorService);
       } else {
         assert policy.isMultiClassPolicyWithPreprocessing();
         linkedGroups =
@@ -127,4 +219,18 @@ public class PolicyExecutor {
 
     return linkedGroups;
   }
+
+  private static class GroupResult {
+
+    private final boolean isInterfaceGroup;
+    private final int previousGroupSize;
+    private final Collection<MergeGroup> newGroups;
+
+    GroupResult(MergeGroup group, Function<MergeGroup, Collection<MergeGroup>> fn) {
+      this.isInterfaceGroup = group.isInterfaceGroup();
+      this.previousGroupSize = group.size();
+      this.newGroups = fn.apply(group);
+      newGroups.forEach(newGroup -> newGroup.applyMetadataFrom(group));
+    }
+  }
 }
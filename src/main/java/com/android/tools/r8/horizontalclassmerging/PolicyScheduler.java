@@ -66,6 +66,7 @@ import com.android.tools.r8.horizontalclassmerging.policies.VerifySingleClassPol
 import com.android.tools.r8.shaking.AppInfoWithLiveness;
 import com.android.tools.r8.shaking.RuntimeTypeCheckInfo;
 import com.android.tools.r8.utils.ListUtils;
+import com.android.tools.r8.utils.Timing;
 import com.google.common.collect.ImmutableList;
 import java.util.List;
 
@@ -75,21 +76,32 @@ public class PolicyScheduler {
       AppView<?> appView,
       IRCodeProvider codeProvider,
       Mode mode,
-      RuntimeTypeCheckInfo runtimeTypeCheckInfo) {
+      RuntimeTypeCheckInfo runtimeTypeCheckInfo,
+      Timing timing) {
+    timing.begin("Create policies");
+    List<Policy> policies;
     if (appView.hasClassHierarchy()) {
-      return getPoliciesForR8(
-          appView.withClassHierarchy(), codeProvider, mode, runtimeTypeCheckInfo);
+      policies =
+          getPoliciesForR8(
+              appView.withClassHierarchy(), codeProvider, mode, runtimeTypeCheckInfo, timing);
     } else {
-      return getPoliciesForD8(appView.withoutClassHierarchy(), mode);
+      policies = getPoliciesForD8(appView.withoutClassHierarchy(), mode, timing);
     }
+    timing.end();
+    return policies;
   }
 
-  private static List<Policy> getPoliciesForD8(AppView<AppInfo> appView, Mode mode) {
+  private static List<Policy> getPoliciesForD8(
+      AppView<AppInfo> appView, Mode mode, Timing timing) {
     assert mode.isFinal();
     List<Policy> policies =
         ImmutableList.<Policy>builder()
-            .addAll(getSingleClassPoliciesForD8(appView, mode))
-            .addAll(getMultiClassPoliciesForD8(appView, mode))
+            .addAll(
+                timing.time(
+                    "Single class policies", () -> getSingleClassPoliciesForD8(appView, mode)))
+            .addAll(
+                timing.time(
+                    "Multi class policies", () -> getMultiClassPoliciesForD8(appView, mode)))
             .build();
     policies = appView.options().testing.horizontalClassMergingPolicyRewriter.apply(policies);
     assert verifyPolicyOrderingConstraints(policies);
@@ -100,11 +112,19 @@ public class PolicyScheduler {
       AppView<? extends AppInfoWithClassHierarchy> appView,
       IRCodeProvider codeProvider,
       Mode mode,
-      RuntimeTypeCheckInfo runtimeTypeCheckInfo) {
+      RuntimeTypeCheckInfo runtimeTypeCheckInfo,
+      Timing timing) {
     List<Policy> policies =
         ImmutableList.<Policy>builder()
-            .addAll(getSingleClassPolicies(appView, mode, runtimeTypeCheckInfo))
-            .addAll(getMultiClassPolicies(appView, codeProvider, mode, runtimeTypeCheckInfo))
+            .addAll(
+                timing.time(
+                    "Single class policies",
+                    () -> getSingleClassPolicies(appView, mode, runtimeTypeCheckInfo)))
+            .addAll(
+                timing.time(
+                    "Multi class policies",
+                    () ->
+                        getMultiClassPolicies(appView, codeProvider, mode, runtimeTypeCheckInfo)))
             .build();
     policies = appView.options().testing.horizontalClassMergingPolicyRewriter.apply(policies);
     assert verifyPolicyOrderingConstraints(policies);
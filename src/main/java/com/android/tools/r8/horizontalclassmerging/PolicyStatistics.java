@@ -0,0 +1,84 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.horizontalclassmerging;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The measured cost and selectivity of the horizontal class merging policies of a compilation.
+ *
+ * <p>The statistics of a round of class merging are used to order the single class policies of the
+ * subsequent rounds, such that the policies that reject the most classes per unit of time are
+ * applied first, and the classes they reject are not considered by the remaining policies.
+ */
+public class PolicyStatistics {
+
+  private final Map<String, Entry> entries = new HashMap<>();
+
+  public synchronized void record(
+      Policy policy, int numberOfClasses, int numberOfRejectedClasses, long nanos) {
+    entries
+        .computeIfAbsent(policy.getName(), ignore -> new Entry())
+        .add(numberOfClasses, numberOfRejectedClasses, nanos);
+  }
+
+  /**
+   * Returns the given single class policies ordered by their measured time per rejected class. The
+   * policies are returned in the given order if any of them has not been measured.
+   *
+   * <p>The result of applying a sequence of single class policies does not depend on the order of
+   * the policies, since a class is only merged if it is accepted by each of the policies.
+   */
+  public synchronized List<SingleClassPolicy> orderBySelectivity(
+      List<SingleClassPolicy> policies) {
+    for (SingleClassPolicy policy : policies) {
+      if (!entries.containsKey(policy.getName())) {
+        return policies;
+      }
+    }
+    List<SingleClassPolicy> orderedPolicies = new ArrayList<>(policies);
+    orderedPolicies.sort(
+        Comparator.comparingDouble(policy -> entries.get(policy.getName()).getNanosPerRejection()));
+    return orderedPolicies;
+  }
+
+  public synchronized Entry getEntry(Policy policy) {
+    return entries.get(policy.getName());
+  }
+
+  public static class Entry {
+
+    private long numberOfClasses;
+    private long numberOfRejectedClasses;
+    private long nanos;
+
+    private void add(int numberOfClasses, int numberOfRejectedClasses, long nanos) {
+      this.numberOfClasses += numberOfClasses;
+      this.numberOfRejectedClasses += numberOfRejectedClasses;
+      this.nanos += nanos;
+    }
+
+    public long getNumberOfClasses() {
+      return numberOfClasses;
+    }
+
+    public long getNumberOfRejectedClasses() {
+      return numberOfRejectedClasses;
+    }
+
+    public long getNanos() {
+      return nanos;
+    }
+
+    // Policies that never reject a class are ordered by their cost.
+    double getNanosPerRejection() {
+      return (double) nanos / (numberOfRejectedClasses + 1);
+    }
+  }
+}
@@ -14,6 +14,16 @@ public abstract class SingleClassPolicy extends Policy {
    */
   public abstract boolean canMerge(DexProgramClass program);
 
+  /**
+   * Returns true if the policy can be applied to classes that are rejected by the preceding single
+   * class policies. Such policies are ordered by their selectivity, see {@link PolicyStatistics}.
+   * The other single class policies, such as policies that only verify properties of the classes
+   * that satisfy the preceding policies, are applied after them in their given order.
+   */
+  public boolean canBeReordered() {
+    return false;
+  }
+
   @Override
   public boolean isSingleClassPolicy() {
     return true;
@@ -27,6 +27,11 @@ public class AllInstantiatedOrUninstantiated extends MultiClassSameReferencePoli
     return appView.appInfo().isInstantiatedDirectlyOrIndirectly(clazz);
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "AllInstantiatedOrUninstantiated";
@@ -23,6 +23,11 @@ public class CheckAbstractClasses extends MultiClassSameReferencePolicy<Abstract
     this.options = appView.options();
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "CheckAbstractClasses";
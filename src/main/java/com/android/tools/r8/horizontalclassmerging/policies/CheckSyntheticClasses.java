@@ -32,6 +32,16 @@ public class CheckSyntheticClasses extends SingleClassPolicy {
     return true;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "CheckSyntheticClasses";
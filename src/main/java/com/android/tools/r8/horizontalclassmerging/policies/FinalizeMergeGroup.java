@@ -53,6 +53,11 @@ public class FinalizeMergeGroup extends MultiClassPolicy {
     return ListUtils.newLinkedList(group);
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "FinalizeMergeGroup";
@@ -57,6 +57,11 @@ public class LimitClassGroups extends MultiClassPolicy {
     return newGroup;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "LimitGroups";
@@ -56,6 +56,11 @@ public class LimitInterfaceGroups extends MultiClassPolicy {
     newGroups.put(new MergeGroup(clazz), increment);
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "LimitInterfaceGroups";
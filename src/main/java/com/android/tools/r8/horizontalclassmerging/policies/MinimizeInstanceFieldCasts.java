@@ -71,6 +71,11 @@ public class MinimizeInstanceFieldCasts extends MultiClassPolicy {
     return fieldTypes;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "MinimizeFieldCasts";
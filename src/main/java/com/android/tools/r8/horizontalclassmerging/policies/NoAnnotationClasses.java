@@ -13,6 +13,16 @@ public class NoAnnotationClasses extends SingleClassPolicy {
     return !program.isAnnotation();
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoAnnotationClasses";
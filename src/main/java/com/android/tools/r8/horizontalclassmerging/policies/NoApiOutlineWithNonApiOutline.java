@@ -23,6 +23,11 @@ public class NoApiOutlineWithNonApiOutline
     this.appView = appView;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoApiOutlineWithNonApiOutline";
@@ -26,6 +26,16 @@ public class NoCheckDiscard extends SingleClassPolicy {
     return !keepInfo.getClassInfo(clazz).isCheckDiscardedEnabled(options);
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoCheckDiscard";
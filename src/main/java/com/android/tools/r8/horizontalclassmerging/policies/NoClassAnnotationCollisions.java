@@ -13,6 +13,11 @@ public class NoClassAnnotationCollisions extends AtMostOneClassThatMatchesPolicy
     return clazz.hasAnnotations();
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoClassAnnotationCollisions";
@@ -29,6 +29,16 @@ public class NoClassInitializerWithObservableSideEffects extends SingleClassPoli
         && program.getKotlinInfo().asSyntheticClass().isLambda();
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoClassInitializerWithObservableSideEffects";
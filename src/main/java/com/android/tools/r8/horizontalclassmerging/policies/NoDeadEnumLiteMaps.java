@@ -32,6 +32,16 @@ public class NoDeadEnumLiteMaps extends SingleClassPolicy {
     return !deadEnumLiteMaps.contains(clazz.getType());
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoDeadEnumLiteMaps";
@@ -59,6 +59,11 @@ public class NoDeadLocks extends MultiClassPolicy {
     return synchronizedGroups;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoDeadLocks";
@@ -345,6 +345,11 @@ public class NoDefaultInterfaceMethodCollisions
     return defaultMethodsInheritedBySubclassesPerClass;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoDefaultInterfaceMethodCollisions";
@@ -147,6 +147,11 @@ public class NoDefaultInterfaceMethodMerging extends MultiClassPolicy {
     }
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoDefaultInterfaceMethodMerging";
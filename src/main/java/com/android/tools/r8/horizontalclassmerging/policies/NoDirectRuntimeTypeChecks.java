@@ -40,6 +40,11 @@ public class NoDirectRuntimeTypeChecks extends SingleClassPolicy {
     return !runtimeTypeCheckInfo.isRuntimeCheckType(clazz);
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoDirectRuntimeTypeChecks";
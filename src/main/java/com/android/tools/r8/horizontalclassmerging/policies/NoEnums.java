@@ -26,6 +26,11 @@ public class NoEnums extends SingleClassPolicy {
     cache.clear();
   }
 
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoEnums";
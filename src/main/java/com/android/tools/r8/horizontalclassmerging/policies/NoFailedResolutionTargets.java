@@ -25,6 +25,16 @@ public class NoFailedResolutionTargets extends SingleClassPolicy {
     }
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoFailedResolutionTargets";
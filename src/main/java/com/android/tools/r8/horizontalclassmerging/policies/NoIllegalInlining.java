@@ -58,6 +58,11 @@ public class NoIllegalInlining extends SingleClassPolicy {
         method -> method.getDefinition().isInstanceInitializer() && disallowInlining(method));
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "DontInlinePolicy";
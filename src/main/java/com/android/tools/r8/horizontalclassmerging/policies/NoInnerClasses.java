@@ -15,6 +15,16 @@ public class NoInnerClasses extends SingleClassPolicy {
     return program.getInnerClasses().isEmpty();
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoInnerClasses";
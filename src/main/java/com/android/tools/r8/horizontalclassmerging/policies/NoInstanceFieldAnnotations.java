@@ -20,6 +20,16 @@ public class NoInstanceFieldAnnotations extends SingleClassPolicy {
     return true;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoInstanceFieldAnnotations";
@@ -30,6 +30,16 @@ public class NoInterfaces extends SingleClassPolicy {
     return options.isInterfaceMergingEnabled(mode);
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoInterfaces";
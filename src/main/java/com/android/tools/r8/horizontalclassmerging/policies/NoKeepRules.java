@@ -54,6 +54,16 @@ public class NoKeepRules extends SingleClassPolicy {
     return !dontMergeTypes.contains(program.getType());
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoKeepRules";
@@ -30,6 +30,11 @@ public class NoKotlinMetadata extends SingleClassPolicy {
     return true;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoKotlinMetadata";
@@ -15,6 +15,16 @@ public class NoNativeMethods extends SingleClassPolicy {
     return !Iterables.any(program.methods(), DexEncodedMethod::isNative);
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoNativeMethods";
@@ -15,6 +15,16 @@ public class NoRecords extends SingleClassPolicy {
     return !program.isRecord();
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoRecords";
@@ -15,6 +15,16 @@ public class NoResourceClasses extends SingleClassPolicy {
     return !simpleName.startsWith("R$") && !simpleName.contains("$R$");
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoResourceClasses";
@@ -26,6 +26,16 @@ public class NoServiceLoaders extends SingleClassPolicy {
         && !allServiceImplementations.contains(program.getType());
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoServiceLoaders";
@@ -28,6 +28,16 @@ public class NoVerticallyMergedClasses extends SingleClassPolicy {
     return !appView.getVerticallyMergedClasses().hasBeenMergedIntoSubtype(program.type);
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NotVerticallyMergedIntoSubtype";
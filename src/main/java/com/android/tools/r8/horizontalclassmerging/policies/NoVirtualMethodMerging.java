@@ -127,6 +127,11 @@ public class NoVirtualMethodMerging extends MultiClassPolicy {
         });
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NoVirtualMethodMerging";
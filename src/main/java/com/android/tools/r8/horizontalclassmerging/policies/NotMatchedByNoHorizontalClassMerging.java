@@ -22,6 +22,16 @@ public class NotMatchedByNoHorizontalClassMerging extends SingleClassPolicy {
     return !appView.appInfo().isNoHorizontalClassMergingOfType(clazz);
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NotMatchedByNoHorizontalClassMerging";
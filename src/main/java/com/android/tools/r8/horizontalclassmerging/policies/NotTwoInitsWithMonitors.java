@@ -28,6 +28,11 @@ public class NotTwoInitsWithMonitors extends AtMostOneClassThatMatchesPolicy {
     return false;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "NotTwoInitsWithMonitors";
@@ -19,6 +19,16 @@ public class OnlyClassesWithStaticDefinitionsAndNoClassInitializer extends Singl
     return !Iterables.any(program.members(), member -> !member.isStatic());
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
+  @Override
+  public boolean canBeReordered() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "OnlyStaticDefinitions";
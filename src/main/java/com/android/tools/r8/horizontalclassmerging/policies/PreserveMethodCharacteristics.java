@@ -29,6 +29,11 @@ import java.util.Objects;
  */
 public class PreserveMethodCharacteristics extends MultiClassPolicy {
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "PreserveMethodCharacteristics";
@@ -161,6 +161,11 @@ public class RespectPackageBoundaries extends MultiClassPolicy {
     return groups;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "RespectPackageBoundaries";
@@ -24,6 +24,11 @@ public class SameFeatureSplit extends MultiClassSameReferencePolicy<FeatureSplit
         clazz, appView);
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "SameFeatureSplit";
@@ -22,6 +22,11 @@ public class SameFilePolicy extends MultiClassSameReferencePolicy<String> {
     return clazz.getType().toDescriptorString().replaceAll("^([^$]+)\\$.*", "$1");
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "SameFilePolicy";
@@ -43,6 +43,11 @@ public class SameInstanceFields extends MultiClassSameReferencePolicy<Multiset<I
     return fields;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "SameInstanceFields";
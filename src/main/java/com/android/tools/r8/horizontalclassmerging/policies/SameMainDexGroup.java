@@ -28,6 +28,11 @@ public class SameMainDexGroup extends MultiClassSameReferencePolicy<MainDexGroup
         : ineligibleForClassMerging();
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "SameMainDexGroup";
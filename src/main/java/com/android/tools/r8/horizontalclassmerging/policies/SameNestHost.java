@@ -23,6 +23,11 @@ public class SameNestHost extends MultiClassSameReferencePolicy<DexType> {
     return clazz.isInANest() ? clazz.getNestHost() : dexItemFactory.objectType;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "SameNestHost";
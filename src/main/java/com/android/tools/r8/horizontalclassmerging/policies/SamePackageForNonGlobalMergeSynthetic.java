@@ -74,6 +74,11 @@ public class SamePackageForNonGlobalMergeSynthetic extends MultiClassPolicy {
     return groups;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "SamePackageForApiOutline";
@@ -15,6 +15,11 @@ public class SameParentClass extends MultiClassSameReferencePolicy<DexType> {
     return clazz.superType;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "SameParentClass";
@@ -37,6 +37,11 @@ public class SyntheticItemsPolicy extends MultiClassSameReferencePolicy<ClassKin
     return ClassKind.NOT_SYNTHETIC;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return true;
+  }
+
   @Override
   public String getName() {
     return "SyntheticItemsPolicy";
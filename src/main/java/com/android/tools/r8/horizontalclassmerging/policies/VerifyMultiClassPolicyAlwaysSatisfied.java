@@ -18,6 +18,11 @@ public class VerifyMultiClassPolicyAlwaysSatisfied extends MultiClassPolicy {
     this.policy = policy;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return policy.canApplyInParallel();
+  }
+
   @Override
   public String getName() {
     return "VerifyMultiClassPolicyAlwaysSatisfied(" + policy.getName() + ")";
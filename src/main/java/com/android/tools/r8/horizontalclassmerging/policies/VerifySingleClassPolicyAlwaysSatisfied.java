@@ -22,6 +22,11 @@ public class VerifySingleClassPolicyAlwaysSatisfied extends SingleClassPolicy {
     return true;
   }
 
+  @Override
+  public boolean canApplyInParallel() {
+    return policy.canApplyInParallel();
+  }
+
   @Override
   public String getName() {
     return "VerifySingleClassPolicyAlwaysSatisfied(" + policy.getName() + ")";
@@ -486,17 +486,11 @@ public class ClassTypeElement extends ReferenceTypeElement {
     if (s1.isEmpty() || s2.isEmpty()) {
       return InterfaceCollection.empty();
     }
-    // Synchronization is required, see b/242286733.
-    synchronized (appView.dexItemFactory().leastUpperBoundOfInterfacesTable) {
-      InterfaceCollection cached =
-          appView.dexItemFactory().leastUpperBoundOfInterfacesTable.get(s1, s2);
-      if (cached != null) {
-        return cached;
-      }
-      cached = appView.dexItemFactory().leastUpperBoundOfInterfacesTable.get(s2, s1);
-      if (cached != null) {
-        return cached;
-      }
+    LeastUpperBoundOfInterfacesCache cache =
+        appView.dexItemFactory().leastUpperBoundOfInterfacesCache;
+    InterfaceCollection cached = cache.get(s1, s2);
+    if (cached != null) {
+      return cached;
     }
     Map<DexType, InterfaceMarker> seen = new IdentityHashMap<>();
     Queue<InterfaceWithMarker> worklist = new ArrayDeque<>();
@@ -550,9 +544,7 @@ public class ClassTypeElement extends ReferenceTypeElement {
     InterfaceCollection lub = lubBuilder.build();
     // Cache the computation result only if the given two sets of interfaces are different.
     if (!s1.equals(s2)) {
-      synchronized (appView.dexItemFactory().leastUpperBoundOfInterfacesTable) {
-        appView.dexItemFactory().leastUpperBoundOfInterfacesTable.put(s1, s2, lub);
-      }
+      cache.put(s1, s2, lub);
     }
     return lub;
   }
@@ -0,0 +1,183 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.ir.analysis.type;
+
+import com.android.tools.r8.utils.SystemPropertyUtils;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the least upper bound of two {@link InterfaceCollection}s.
+ *
+ * <p>The cache is split into a fixed number of shards that are each guarded by their own lock, so
+ * that type joins on different threads do not contend on a single monitor. Each shard evicts its
+ * least recently used entry when it is full. The least upper bound is symmetric, thus the key is
+ * the unordered pair of the two collections.
+ *
+ * <p>The hit and miss counts are kept across {@link #clear()} and are printed with the timings.
+ */
+public class LeastUpperBoundOfInterfacesCache {
+
+  private static final int NUMBER_OF_SHARDS = 16;
+  private static final int DEFAULT_CAPACITY = 1024;
+
+  private final Shard[] shards = new Shard[NUMBER_OF_SHARDS];
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  private LeastUpperBoundOfInterfacesCache(int capacity) {
+    int shardCapacity = Math.max(1, capacity / NUMBER_OF_SHARDS);
+    for (int i = 0; i < NUMBER_OF_SHARDS; i++) {
+      shards[i] = new Shard(shardCapacity);
+    }
+  }
+
+  public static LeastUpperBoundOfInterfacesCache create() {
+    return create(
+        SystemPropertyUtils.parseSystemPropertyForDevelopmentOrDefault(
+            "com.android.tools.r8.leastUpperBoundOfInterfacesCacheSize", DEFAULT_CAPACITY));
+  }
+
+  static LeastUpperBoundOfInterfacesCache create(int capacity) {
+    return new LeastUpperBoundOfInterfacesCache(capacity);
+  }
+
+  public InterfaceCollection get(InterfaceCollection s1, InterfaceCollection s2) {
+    Key key = new Key(s1, s2);
+    Shard shard = getShard(key);
+    InterfaceCollection result;
+    synchronized (shard) {
+      result = shard.get(key);
+    }
+    if (result != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+    }
+    return result;
+  }
+
+  public void put(InterfaceCollection s1, InterfaceCollection s2, InterfaceCollection lub) {
+    Key key = new Key(s1, s2);
+    Shard shard = getShard(key);
+    synchronized (shard) {
+      shard.putIfAbsent(key, lub);
+    }
+  }
+
+  public void clear() {
+    for (Shard shard : shards) {
+      synchronized (shard) {
+        shard.clear();
+      }
+    }
+  }
+
+  public boolean isEmpty() {
+    for (Shard shard : shards) {
+      synchronized (shard) {
+        if (!shard.isEmpty()) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  public int getCapacity() {
+    return shards[0].capacity * NUMBER_OF_SHARDS;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public void printStatistics() {
+    System.out.println(
+        "Least upper bound of interfaces cache: "
+            + getHits()
+            + " hits, "
+            + getMisses()
+            + " misses");
+  }
+
+  int size() {
+    int size = 0;
+    for (Shard shard : shards) {
+      synchronized (shard) {
+        size += shard.size();
+      }
+    }
+    return size;
+  }
+
+  int getShardIndex(InterfaceCollection s1, InterfaceCollection s2) {
+    return getShardIndex(new Key(s1, s2));
+  }
+
+  private int getShardIndex(Key key) {
+    int hash = key.hashCode();
+    return (hash ^ (hash >>> 16)) & (NUMBER_OF_SHARDS - 1);
+  }
+
+  private Shard getShard(Key key) {
+    return shards[getShardIndex(key)];
+  }
+
+  private static class Shard extends LinkedHashMap<Key, InterfaceCollection> {
+
+    private final int capacity;
+
+    private Shard(int capacity) {
+      super(capacity, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, InterfaceCollection> eldest) {
+      return size() > capacity;
+    }
+  }
+
+  private static class Key {
+
+    private final InterfaceCollection s1;
+    private final InterfaceCollection s2;
+    private final int hash;
+
+    private Key(InterfaceCollection s1, InterfaceCollection s2) {
+      this.s1 = s1;
+      this.s2 = s2;
+      // Order independent such that (s1, s2) and (s2, s1) map to the same entry.
+      this.hash = s1.hashCode() + s2.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      if (hash != other.hash) {
+        return false;
+      }
+      return (s1.equals(other.s1) && s2.equals(other.s2))
+          || (s1.equals(other.s2) && s2.equals(other.s1));
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
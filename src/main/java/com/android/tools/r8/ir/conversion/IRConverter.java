@@ -528,19 +528,35 @@ public class IRConverter {
     return optimize(code, feedback, methodProcessor, methodProcessingContext);
   }
 
-  // TODO(b/140766440): Convert all sub steps an implementer of CodeOptimization
   Timing optimize(
       IRCode code,
       OptimizationFeedback feedback,
       MethodProcessor methodProcessor,
       MethodProcessingContext methodProcessingContext) {
+    Timing timing = Timing.create(code.context().toSourceString(), options);
+    optimize(
+        code,
+        feedback,
+        methodProcessor,
+        methodProcessingContext,
+        options.printIRPassProfile
+            ? options.getIRPassProfiler().createTiming(code, timing)
+            : timing);
+    return timing;
+  }
+
+  // TODO(b/140766440): Convert all sub steps an implementer of CodeOptimization
+  private void optimize(
+      IRCode code,
+      OptimizationFeedback feedback,
+      MethodProcessor methodProcessor,
+      MethodProcessingContext methodProcessingContext,
+      Timing timing) {
     ProgramMethod context = code.context();
     DexEncodedMethod method = context.getDefinition();
     DexProgramClass holder = context.getHolder();
     assert holder != null;
 
-    Timing timing = Timing.create(context.toSourceString(), options);
-
     String previous = printMethod(code, "Initial IR (SSA)", null);
 
     if (options.testing.irModifier != null) {
@@ -579,7 +595,7 @@ public class IRConverter {
                   + "` does not type check and will be assumed to be unreachable.");
       options.reporter.warning(warning);
       context.convertToThrowNullMethod(appView);
-      return timing;
+      return;
     }
 
     // This is the first point in time where we can assert that the types are sound. If this
@@ -602,7 +618,7 @@ public class IRConverter {
           timing);
       timing.end();
       markProcessed(code, feedback);
-      return timing;
+      return;
     }
 
     if (options.canHaveArtStringNewInitBug()) {
@@ -896,7 +912,6 @@ public class IRConverter {
         bytecodeMetadataProviderBuilder.build(),
         timing);
     timing.end();
-    return timing;
   }
 
   private boolean shouldPassThrough(ProgramMethod method) {
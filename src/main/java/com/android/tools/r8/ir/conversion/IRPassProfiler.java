@@ -0,0 +1,335 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir.conversion;
+
+import com.android.tools.r8.graph.ProgramMethod;
+import com.android.tools.r8.ir.code.BasicBlock;
+import com.android.tools.r8.ir.code.IRCode;
+import com.android.tools.r8.utils.ThrowingAction;
+import com.android.tools.r8.utils.ThrowingSupplier;
+import com.android.tools.r8.utils.Timing;
+import com.android.tools.r8.utils.Timing.TimingDelegateBase;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the cost of each IR optimization pass of each method in {@link IRConverter#optimize}.
+ *
+ * <p>A pass is a begin/end pair of the timing of the method. For each pass the profiler records the
+ * elapsed time, the bytes allocated by the thread, and the number of IR instructions before and
+ * after the pass. The costs are summed per pass, and the most expensive method and pass
+ * combinations are kept per thread, such that the profiler does not synchronize the compilation
+ * threads.
+ */
+public class IRPassProfiler {
+
+  private static final int NUMBER_OF_ENTRIES_TO_PRINT = 25;
+  private static final String NESTED_PASS_SEPARATOR = " > ";
+
+  private static final com.sun.management.ThreadMXBean threadMXBean = getThreadMXBean();
+
+  private final Map<String, PassStatistics> passStatistics = new ConcurrentHashMap<>();
+  private final Queue<PriorityQueue<Entry>> mostExpensiveEntriesPerThread =
+      new ConcurrentLinkedQueue<>();
+  private final ThreadLocal<PriorityQueue<Entry>> mostExpensiveEntries =
+      ThreadLocal.withInitial(
+          () -> {
+            PriorityQueue<Entry> entries =
+                new PriorityQueue<>(Comparator.comparingLong(entry -> entry.nanos));
+            mostExpensiveEntriesPerThread.add(entries);
+            return entries;
+          });
+
+  private static com.sun.management.ThreadMXBean getThreadMXBean() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean allocationMXBean =
+          (com.sun.management.ThreadMXBean) threadMXBean;
+      if (allocationMXBean.isThreadAllocatedMemorySupported()
+          && allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+        return allocationMXBean;
+      }
+    }
+    return null;
+  }
+
+  private static long getAllocatedBytes() {
+    return threadMXBean != null
+        ? threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId())
+        : 0;
+  }
+
+  private static int getNumberOfInstructions(IRCode code) {
+    int numberOfInstructions = 0;
+    for (BasicBlock block : code.getBlocks()) {
+      numberOfInstructions += block.size();
+    }
+    return numberOfInstructions;
+  }
+
+  /** Returns a timing that profiles the passes of the code and forwards to the given timing. */
+  public Timing createTiming(IRCode code, Timing timing) {
+    return new ProfilingTiming(code, timing);
+  }
+
+  private void record(
+      ProgramMethod method,
+      String pass,
+      long nanos,
+      long allocatedBytes,
+      int instructionsBefore,
+      int instructionsAfter) {
+    passStatistics
+        .computeIfAbsent(pass, PassStatistics::new)
+        .add(nanos, allocatedBytes, instructionsBefore, instructionsAfter);
+    PriorityQueue<Entry> entries = mostExpensiveEntries.get();
+    if (entries.size() < NUMBER_OF_ENTRIES_TO_PRINT || entries.peek().nanos < nanos) {
+      entries.add(
+          new Entry(method, pass, nanos, allocatedBytes, instructionsBefore, instructionsAfter));
+      if (entries.size() > NUMBER_OF_ENTRIES_TO_PRINT) {
+        entries.poll();
+      }
+    }
+  }
+
+  public List<PassStatistics> getPassStatistics() {
+    List<PassStatistics> result = new ArrayList<>(passStatistics.values());
+    result.sort(
+        Comparator.comparingLong(PassStatistics::getNanos)
+            .reversed()
+            .thenComparing(PassStatistics::getPass));
+    return result;
+  }
+
+  public List<Entry> getMostExpensiveEntries() {
+    List<Entry> result = new ArrayList<>();
+    mostExpensiveEntriesPerThread.forEach(result::addAll);
+    result.sort(
+        Comparator.comparingLong(Entry::getNanos)
+            .reversed()
+            .thenComparing(entry -> entry.getMethod().toSourceString())
+            .thenComparing(Entry::getPass));
+    return result.subList(0, Math.min(result.size(), NUMBER_OF_ENTRIES_TO_PRINT));
+  }
+
+  public void print() {
+    System.out.println("IR passes by total time:");
+    List<PassStatistics> passes = getPassStatistics();
+    for (int i = 0; i < Math.min(passes.size(), NUMBER_OF_ENTRIES_TO_PRINT); i++) {
+      PassStatistics pass = passes.get(i);
+      System.out.println(
+          "  "
+              + toMillis(pass.getNanos())
+              + "ms "
+              + pass.getAllocatedBytes() / 1024
+              + "kB "
+              + pass.getInstructionsBefore()
+              + " -> "
+              + pass.getInstructionsAfter()
+              + " instructions in "
+              + pass.getCount()
+              + " runs: "
+              + pass.getPass());
+    }
+    System.out.println("Most expensive methods and IR passes:");
+    for (Entry entry : getMostExpensiveEntries()) {
+      System.out.println(
+          "  "
+              + toMillis(entry.getNanos())
+              + "ms "
+              + entry.getAllocatedBytes() / 1024
+              + "kB "
+              + entry.getInstructionsBefore()
+              + " -> "
+              + entry.getInstructionsAfter()
+              + " instructions: "
+              + entry.getPass()
+              + " in "
+              + entry.getMethod().toSourceString());
+    }
+  }
+
+  private static String toMillis(long nanos) {
+    return String.format("%.3f", nanos / 1_000_000.0);
+  }
+
+  public static class PassStatistics {
+
+    private final String pass;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder instructionsBefore = new LongAdder();
+    private final LongAdder instructionsAfter = new LongAdder();
+
+    private PassStatistics(String pass) {
+      this.pass = pass;
+    }
+
+    private void add(
+        long nanos, long allocatedBytes, int instructionsBefore, int instructionsAfter) {
+      this.count.increment();
+      this.nanos.add(nanos);
+      this.allocatedBytes.add(allocatedBytes);
+      this.instructionsBefore.add(instructionsBefore);
+      this.instructionsAfter.add(instructionsAfter);
+    }
+
+    public String getPass() {
+      return pass;
+    }
+
+    public long getCount() {
+      return count.sum();
+    }
+
+    public long getNanos() {
+      return nanos.sum();
+    }
+
+    public long getAllocatedBytes() {
+      return allocatedBytes.sum();
+    }
+
+    public long getInstructionsBefore() {
+      return instructionsBefore.sum();
+    }
+
+    public long getInstructionsAfter() {
+      return instructionsAfter.sum();
+    }
+  }
+
+  public static class Entry {
+
+    private final ProgramMethod method;
+    private final String pass;
+    private final long nanos;
+    private final long allocatedBytes;
+    private final int instructionsBefore;
+    private final int instructionsAfter;
+
+    private Entry(
+        ProgramMethod method,
+        String pass,
+        long nanos,
+        long allocatedBytes,
+        int instructionsBefore,
+        int instructionsAfter) {
+      this.method = method;
+      this.pass = pass;
+      this.nanos = nanos;
+      this.allocatedBytes = allocatedBytes;
+      this.instructionsBefore = instructionsBefore;
+      this.instructionsAfter = instructionsAfter;
+    }
+
+    public ProgramMethod getMethod() {
+      return method;
+    }
+
+    public String getPass() {
+      return pass;
+    }
+
+    public long getNanos() {
+      return nanos;
+    }
+
+    public long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    public int getInstructionsBefore() {
+      return instructionsBefore;
+    }
+
+    public int getInstructionsAfter() {
+      return instructionsAfter;
+    }
+  }
+
+  private static class ActivePass {
+
+    private final String pass;
+    private final int instructionsBefore;
+    private final long allocatedBytesBefore;
+    private final long start;
+
+    private ActivePass(String pass, int instructionsBefore) {
+      this.pass = pass;
+      this.instructionsBefore = instructionsBefore;
+      this.allocatedBytesBefore = getAllocatedBytes();
+      this.start = System.nanoTime();
+    }
+  }
+
+  // The timing of a single method, which is only used by the thread that optimizes the method.
+  private class ProfilingTiming extends TimingDelegateBase {
+
+    private final IRCode code;
+    private final Deque<ActivePass> activePasses = new ArrayDeque<>();
+
+    private ProfilingTiming(IRCode code, Timing timing) {
+      super("<profile>", timing);
+      this.code = code;
+    }
+
+    @Override
+    public void begin(String title) {
+      super.begin(title);
+      String pass =
+          activePasses.isEmpty() ? title : activePasses.peek().pass + NESTED_PASS_SEPARATOR + title;
+      activePasses.push(new ActivePass(pass, getNumberOfInstructions(code)));
+    }
+
+    @Override
+    public <E extends Exception> void time(String title, ThrowingAction<E> action) throws E {
+      begin(title);
+      try {
+        action.execute();
+      } finally {
+        end();
+      }
+    }
+
+    @Override
+    public <T, E extends Exception> T time(String title, ThrowingSupplier<T, E> supplier)
+        throws E {
+      begin(title);
+      try {
+        return supplier.get();
+      } finally {
+        end();
+      }
+    }
+
+    @Override
+    public void end() {
+      ActivePass activePass = activePasses.pop();
+      long nanos = System.nanoTime() - activePass.start;
+      long allocatedBytes = getAllocatedBytes() - activePass.allocatedBytesBefore;
+      record(
+          code.context(),
+          activePass.pass,
+          nanos,
+          allocatedBytes,
+          activePass.instructionsBefore,
+          getNumberOfInstructions(code));
+      super.end();
+    }
+  }
+}
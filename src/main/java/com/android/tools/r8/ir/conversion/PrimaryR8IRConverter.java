@@ -212,6 +212,13 @@ public class PrimaryR8IRConverter extends IRConverter {
       timing.end();
     }
 
+    if (inliner != null) {
+      inliner.getInlineeTemplateCache().clear();
+      if (options.printTimes) {
+        inliner.getInlineeTemplateCache().printStatistics();
+      }
+    }
+
     appView.clearMethodResolutionOptimizationInfoCollection();
 
     // All the code that should be impacted by the lenses inserted between phase 1 and phase 2
@@ -410,6 +417,9 @@ public class PrimaryR8IRConverter extends IRConverter {
       onWaveDoneActions.forEach(com.android.tools.r8.utils.Action::execute);
       onWaveDoneActions = null;
     }
+    if (inliner != null) {
+      inliner.getInlineeTemplateCache().clear();
+    }
     if (!prunedMethodsInWave.isEmpty()) {
       appView.pruneItems(
           PrunedItems.builder()
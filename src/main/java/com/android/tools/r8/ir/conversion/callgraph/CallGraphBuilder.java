@@ -18,7 +18,7 @@ import java.util.concurrent.ExecutorService;
 public class CallGraphBuilder extends IRProcessingCallGraphBuilderBase {
 
   public CallGraphBuilder(AppView<AppInfoWithLiveness> appView) {
-    super(appView);
+    super(appView, appView.programMemberIndex());
   }
 
   @Override
@@ -6,8 +6,10 @@ package com.android.tools.r8.ir.conversion.callgraph;
 
 import com.android.tools.r8.graph.AppView;
 import com.android.tools.r8.graph.DexMethod;
+import com.android.tools.r8.graph.ProgramMemberIndex;
 import com.android.tools.r8.graph.ProgramMethod;
 import com.android.tools.r8.shaking.AppInfoWithLiveness;
+import com.android.tools.r8.utils.collections.DenseProgramMethodMap;
 import com.android.tools.r8.utils.collections.ProgramMethodSet;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -20,13 +22,34 @@ public abstract class CallGraphBuilderBase<N extends NodeBase<N>> {
   protected final Map<DexMethod, ProgramMethodSet> possibleProgramTargetsCache =
       new ConcurrentHashMap<>();
 
+  // The nodes of the methods that are numbered by the given program member index, if any. The node
+  // of a method is looked up for each call edge, and this avoids hashing the method reference.
+  private final DenseProgramMethodMap<N> indexedNodes;
+
   public CallGraphBuilderBase(AppView<AppInfoWithLiveness> appView) {
+    this(appView, null);
+  }
+
+  public CallGraphBuilderBase(AppView<AppInfoWithLiveness> appView, ProgramMemberIndex index) {
     this.appView = appView;
+    this.indexedNodes = index != null ? DenseProgramMethodMap.create(index) : null;
   }
 
   protected abstract N createNode(ProgramMethod method);
 
   protected N getOrCreateNode(ProgramMethod method) {
+    if (indexedNodes != null && indexedNodes.isIndexed(method)) {
+      N node = indexedNodes.get(method);
+      if (node == null) {
+        N newNode = createNode(method);
+        node = indexedNodes.putIfAbsent(method, newNode);
+        if (node == null) {
+          nodes.put(method.getReference(), newNode);
+          node = newNode;
+        }
+      }
+      return node;
+    }
     return nodes.computeIfAbsent(method.getReference(), ignore -> createNode(method));
   }
 }
@@ -6,21 +6,42 @@ package com.android.tools.r8.ir.conversion.callgraph;
 
 import com.android.tools.r8.errors.CompilationError;
 import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.threading.ThreadingModule;
+import com.android.tools.r8.utils.ListUtils;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.android.tools.r8.utils.ThrowingConsumer;
 import com.android.tools.r8.utils.collections.ProgramMethodSet;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.BiConsumer;
 import java.util.function.Predicate;
 
+/**
+ * Removes call edges and field read edges from the call graph until the graph is acyclic.
+ *
+ * <p>Cycles can only exist within a strongly connected component of the graph. The strongly
+ * connected components are therefore computed first, and the cycles of each component are then
+ * broken independently, possibly in parallel. Each component is traversed from the node through
+ * which a depth-first traversal of the entire graph would first enter it, so that the cycles are
+ * broken in the same way as if the entire graph was traversed at once.
+ */
 public class CycleEliminator {
 
   public static final String CYCLIC_FORCE_INLINING_MESSAGE =
@@ -67,390 +88,583 @@ public class CycleEliminator {
     }
   }
 
-  // DFS stack.
-  private Deque<Node> stack = new ArrayDeque<>();
-
-  // Nodes on the DFS stack.
-  private Map<Node, StackEntryInfo> stackEntryInfo = new IdentityHashMap<>();
-
-  // Subset of the DFS stack, where the nodes on the stack are class initializers.
-  //
-  // This stack is used to efficiently compute if there is a class initializer on the stack.
-  private Deque<Node> clinitCallStack = new ArrayDeque<>();
-
-  // Subset of the DFS stack, where the nodes on the stack satisfy that the edge from the
-  // predecessor to the node itself is a field read edge.
-  //
-  // This stack is used to efficiently compute if there is a field read edge inside a cycle when
-  // a cycle is found.
-  private Deque<Node> writerStack = new ArrayDeque<>();
-
-  // Set of nodes that have been visited entirely.
-  private Set<Node> marked = Sets.newIdentityHashSet();
-
-  // Call edges that should be removed when the caller has been processed. These are not removed
-  // directly since that would lead to ConcurrentModificationExceptions.
-  private Map<Node, Set<Node>> calleesToBeRemoved = new IdentityHashMap<>();
-
-  // Field read edges that should be removed when the reader has been processed. These are not
-  // removed directly since that would lead to ConcurrentModificationExceptions.
-  private Map<Node, Set<Node>> writersToBeRemoved = new IdentityHashMap<>();
-
-  // Mapping from callee to the set of callers that were removed from the callee.
-  private Map<DexEncodedMethod, ProgramMethodSet> removedCallEdges = new IdentityHashMap<>();
+  public CycleEliminationResult breakCycles(Collection<Node> roots) {
+    return internalBreakCycles(
+        roots, eliminators -> eliminators.forEach(ComponentCycleEliminator::run));
+  }
 
-  // Set of nodes from which cycle elimination must be rerun to ensure that all cycles will be
-  // removed.
-  private LinkedHashSet<Node> revisit = new LinkedHashSet<>();
+  public CycleEliminationResult breakCycles(
+      Collection<Node> roots, ThreadingModule threadingModule, ExecutorService executorService)
+      throws ExecutionException {
+    return internalBreakCycles(
+        roots,
+        eliminators ->
+            ThreadUtils.processItems(
+                eliminators, ComponentCycleEliminator::run, threadingModule, executorService));
+  }
 
-  public CycleEliminationResult breakCycles(Collection<Node> roots) {
+  private <E extends Exception> CycleEliminationResult internalBreakCycles(
+      Collection<Node> roots,
+      ThrowingConsumer<List<ComponentCycleEliminator>, E> eliminatorsConsumer)
+      throws E {
+    Map<DexEncodedMethod, ProgramMethodSet> removedCallEdges = new IdentityHashMap<>();
     // Break cycles in this call graph by removing edges causing cycles. We do this in a fixpoint
     // because the algorithm does not guarantee that all cycles will be removed from the graph
     // when we remove an edge in the middle of a cycle that contains another cycle.
     do {
-      traverse(roots);
+      TraversalGraph graph = TraversalGraph.create(roots);
+      List<ComponentCycleEliminator> eliminators =
+          ListUtils.map(
+              graph.getCyclicComponentEntries(),
+              entry -> new ComponentCycleEliminator(graph, entry));
+      eliminatorsConsumer.accept(eliminators);
+
+      // Collect the nodes to revisit in the order they were found by the traversal of the graph.
+      List<RevisitEntry> revisitEntries = new ArrayList<>();
+      for (ComponentCycleEliminator eliminator : eliminators) {
+        eliminator.removedCallEdges.forEach(
+            (callee, callers) -> {
+              ProgramMethodSet existing = removedCallEdges.putIfAbsent(callee, callers);
+              if (existing != null) {
+                existing.addAll(callers);
+              }
+            });
+        revisitEntries.addAll(eliminator.revisit);
+      }
+      revisitEntries.sort(Comparator.comparingInt(entry -> entry.edgeSequenceNumber));
+      LinkedHashSet<Node> revisit = new LinkedHashSet<>();
+      revisitEntries.forEach(entry -> revisit.add(entry.node));
       roots = revisit;
-      prepareForNewTraversal();
     } while (!roots.isEmpty());
-
-    CycleEliminationResult result = new CycleEliminationResult(removedCallEdges);
-    reset();
-    return result;
+    return new CycleEliminationResult(removedCallEdges);
   }
 
-  private void prepareForNewTraversal() {
-    assert calleesToBeRemoved.isEmpty();
-    assert clinitCallStack.isEmpty();
-    assert stack.isEmpty();
-    assert stackEntryInfo.isEmpty();
-    assert writersToBeRemoved.isEmpty();
-    assert writerStack.isEmpty();
-    marked.clear();
-    revisit = new LinkedHashSet<>();
+  private static boolean callEdgeRemovalIsSafe(Node callerOrReader, Node calleeOrWriter) {
+    // All call edges where the callee is a method that should be force inlined must be kept,
+    // to guarantee that the IR converter will process the callee before the caller.
+    assert calleeOrWriter.hasCaller(callerOrReader);
+    return !calleeOrWriter.getMethod().getOptimizationInfo().forceInline();
   }
 
-  private void reset() {
-    assert clinitCallStack.isEmpty();
-    assert marked.isEmpty();
-    assert revisit.isEmpty();
-    assert stack.isEmpty();
-    assert stackEntryInfo.isEmpty();
-    assert writerStack.isEmpty();
-    removedCallEdges = new IdentityHashMap<>();
-  }
+  /**
+   * The part of the call graph that is reachable from a set of roots, along with its strongly
+   * connected components.
+   *
+   * <p>The nodes are numbered densely in the order they are visited by a depth-first traversal from
+   * the roots, and the call edges and field read edges are numbered in the order they are visited
+   * by the same traversal. This is also the order in which the cycle elimination would visit them
+   * when traversing the entire graph at once.
+   */
+  private static class TraversalGraph {
+
+    private static final int ON_STACK = -1;
+
+    private final Reference2IntMap<Node> ids = new Reference2IntOpenHashMap<>();
+    private final List<Node> nodes = new ArrayList<>();
+    private final List<Node[]> successors = new ArrayList<>();
+    private final List<int[]> edgeSequenceNumbers = new ArrayList<>();
+    private final IntArrayList lowlinks = new IntArrayList();
+    private final IntArrayList components = new IntArrayList();
+    private final List<Node> cyclicComponentEntries = new ArrayList<>();
+
+    private TraversalGraph() {
+      ids.defaultReturnValue(-1);
+    }
 
-  private static class WorkItem {
-    boolean isNode() {
-      return false;
+    // Computes the strongly connected components using Tarjan's algorithm.
+    static TraversalGraph create(Collection<Node> roots) {
+      TraversalGraph graph = new TraversalGraph();
+      IntArrayList componentStack = new IntArrayList();
+      IntArrayList traversalStack = new IntArrayList();
+      IntArrayList traversalPositions = new IntArrayList();
+      int nextEdgeSequenceNumber = 0;
+      int nextComponent = 0;
+      for (Node root : roots) {
+        if (graph.ids.containsKey(root)) {
+          continue;
+        }
+        int rootId = graph.addNode(root);
+        componentStack.push(rootId);
+        traversalStack.push(rootId);
+        traversalPositions.push(0);
+        while (!traversalStack.isEmpty()) {
+          int id = traversalStack.topInt();
+          int position = traversalPositions.topInt();
+          Node[] nodeSuccessors = graph.successors.get(id);
+          if (position < nodeSuccessors.length) {
+            traversalPositions.set(traversalPositions.size() - 1, position + 1);
+            graph.edgeSequenceNumbers.get(id)[position] = nextEdgeSequenceNumber++;
+            Node successor = nodeSuccessors[position];
+            int successorId = graph.ids.getInt(successor);
+            if (successorId < 0) {
+              successorId = graph.addNode(successor);
+              componentStack.push(successorId);
+              traversalStack.push(successorId);
+              traversalPositions.push(0);
+            } else if (graph.components.getInt(successorId) == ON_STACK) {
+              graph.lowlinks.set(id, Math.min(graph.lowlinks.getInt(id), successorId));
+            }
+            continue;
+          }
+          traversalStack.popInt();
+          traversalPositions.popInt();
+          int lowlink = graph.lowlinks.getInt(id);
+          if (lowlink == id) {
+            // The node is the first node of its component to be visited.
+            int componentSize = 0;
+            int member;
+            do {
+              member = componentStack.popInt();
+              graph.components.set(member, nextComponent);
+              componentSize++;
+            } while (member != id);
+            if (componentSize > 1) {
+              graph.cyclicComponentEntries.add(graph.nodes.get(id));
+            }
+            nextComponent++;
+          }
+          if (!traversalStack.isEmpty()) {
+            int parent = traversalStack.topInt();
+            graph.lowlinks.set(parent, Math.min(graph.lowlinks.getInt(parent), lowlink));
+          }
+        }
+      }
+      return graph;
     }
 
-    NodeWorkItem asNode() {
-      return null;
+    private int addNode(Node node) {
+      int id = nodes.size();
+      ids.put(node, id);
+      nodes.add(node);
+      Set<Node> callees = node.getCalleesWithDeterministicOrder();
+      Set<Node> writers = node.getWritersWithDeterministicOrder();
+      Node[] nodeSuccessors = new Node[callees.size() + writers.size()];
+      int index = 0;
+      for (Node callee : callees) {
+        nodeSuccessors[index++] = callee;
+      }
+      for (Node writer : writers) {
+        nodeSuccessors[index++] = writer;
+      }
+      successors.add(nodeSuccessors);
+      edgeSequenceNumbers.add(new int[nodeSuccessors.length]);
+      lowlinks.add(id);
+      components.add(ON_STACK);
+      return id;
     }
 
-    boolean isIterator() {
-      return false;
+    List<Node> getCyclicComponentEntries() {
+      return cyclicComponentEntries;
     }
 
-    IteratorWorkItem asIterator() {
-      return null;
+    int getComponent(Node node) {
+      return components.getInt(ids.getInt(node));
+    }
+
+    int getEdgeSequenceNumber(Node callerOrReader, Node calleeOrWriter) {
+      int id = ids.getInt(callerOrReader);
+      Node[] nodeSuccessors = successors.get(id);
+      for (int i = 0; i < nodeSuccessors.length; i++) {
+        if (nodeSuccessors[i] == calleeOrWriter) {
+          return edgeSequenceNumbers.get(id)[i];
+        }
+      }
+      throw new IllegalStateException();
+    }
+
+    Node[] getSuccessors(Node node) {
+      return successors.get(ids.getInt(node));
     }
   }
 
-  private static class NodeWorkItem extends WorkItem {
+  private static class RevisitEntry {
+
+    private final int edgeSequenceNumber;
     private final Node node;
 
-    NodeWorkItem(Node node) {
+    RevisitEntry(int edgeSequenceNumber, Node node) {
+      this.edgeSequenceNumber = edgeSequenceNumber;
       this.node = node;
     }
+  }
 
-    @Override
-    boolean isNode() {
-      return true;
-    }
+  /** Breaks the cycles of a single strongly connected component. */
+  private static class ComponentCycleEliminator {
 
-    @Override
-    NodeWorkItem asNode() {
-      return this;
-    }
-  }
+    private final TraversalGraph graph;
+    private final Node entry;
+    private final int component;
+
+    // DFS stack.
+    private final Deque<Node> stack = new ArrayDeque<>();
+
+    // Nodes on the DFS stack.
+    private final Map<Node, StackEntryInfo> stackEntryInfo = new IdentityHashMap<>();
+
+    // Subset of the DFS stack, where the nodes on the stack are class initializers.
+    //
+    // This stack is used to efficiently compute if there is a class initializer on the stack.
+    private final Deque<Node> clinitCallStack = new ArrayDeque<>();
+
+    // Subset of the DFS stack, where the nodes on the stack satisfy that the edge from the
+    // predecessor to the node itself is a field read edge.
+    //
+    // This stack is used to efficiently compute if there is a field read edge inside a cycle when
+    // a cycle is found.
+    private final Deque<Node> writerStack = new ArrayDeque<>();
+
+    // Set of nodes that have been visited entirely.
+    private final Set<Node> marked = Sets.newIdentityHashSet();
+
+    // Call edges that should be removed when the caller has been processed. These are not removed
+    // directly since that would lead to ConcurrentModificationExceptions.
+    private final Map<Node, Set<Node>> calleesToBeRemoved = new IdentityHashMap<>();
+
+    // Field read edges that should be removed when the reader has been processed. These are not
+    // removed directly since that would lead to ConcurrentModificationExceptions.
+    private final Map<Node, Set<Node>> writersToBeRemoved = new IdentityHashMap<>();
+
+    // Mapping from callee to the set of callers that were removed from the callee.
+    private final Map<DexEncodedMethod, ProgramMethodSet> removedCallEdges =
+        new IdentityHashMap<>();
+
+    // Nodes from which cycle elimination must be rerun to ensure that all cycles will be removed,
+    // along with the sequence number of the edge that caused the node to be added.
+    private final List<RevisitEntry> revisit = new ArrayList<>();
 
-  private static class IteratorWorkItem extends WorkItem {
-    private final Node callerOrReader;
-    private final Iterator<Node> calleesAndWriters;
+    // The sequence number of the edge that is currently being processed.
+    private int currentEdgeSequenceNumber;
 
-    IteratorWorkItem(Node callerOrReader, Iterator<Node> calleesAndWriters) {
-      this.callerOrReader = callerOrReader;
-      this.calleesAndWriters = calleesAndWriters;
+    ComponentCycleEliminator(TraversalGraph graph, Node entry) {
+      this.graph = graph;
+      this.entry = entry;
+      this.component = graph.getComponent(entry);
     }
 
-    @Override
-    boolean isIterator() {
-      return true;
+    void run() {
+      traverse();
+      assert calleesToBeRemoved.isEmpty();
+      assert clinitCallStack.isEmpty();
+      assert stack.isEmpty();
+      assert stackEntryInfo.isEmpty();
+      assert writersToBeRemoved.isEmpty();
+      assert writerStack.isEmpty();
     }
 
-    @Override
-    IteratorWorkItem asIterator() {
-      return this;
+    private boolean isInComponent(Node node) {
+      return graph.getComponent(node) == component;
     }
-  }
 
-  private void traverse(Collection<Node> roots) {
-    Deque<WorkItem> workItems = new ArrayDeque<>(roots.size());
-    for (Node node : roots) {
-      workItems.addLast(new NodeWorkItem(node));
+    private void addToRevisit(Node node) {
+      revisit.add(new RevisitEntry(currentEdgeSequenceNumber, node));
     }
-    while (!workItems.isEmpty()) {
-      WorkItem workItem = workItems.removeFirst();
-      if (workItem.isNode()) {
-        Node node = workItem.asNode().node;
-        if (marked.contains(node)) {
-          // Already visited all nodes that can be reached from this node.
-          continue;
-        }
 
-        Node predecessor = stack.isEmpty() ? null : stack.peek();
-        push(node, predecessor);
-
-        // The callees and writers must be sorted before calling traverse recursively.
-        // This ensures that cycles are broken the same way across multiple compilations.
-        Iterator<Node> calleesAndWriterIterator =
-            Iterators.concat(
-                node.getCalleesWithDeterministicOrder().iterator(),
-                node.getWritersWithDeterministicOrder().iterator());
-        workItems.addFirst(new IteratorWorkItem(node, calleesAndWriterIterator));
-      } else {
-        assert workItem.isIterator();
-        IteratorWorkItem iteratorWorkItem = workItem.asIterator();
-        Node newCallerOrReader =
-            iterateCalleesAndWriters(
-                iteratorWorkItem.calleesAndWriters, iteratorWorkItem.callerOrReader);
-        if (newCallerOrReader != null) {
-          // We did not finish the work on this iterator, so add it again.
-          workItems.addFirst(iteratorWorkItem);
-          workItems.addFirst(new NodeWorkItem(newCallerOrReader));
-        } else {
-          assert !iteratorWorkItem.calleesAndWriters.hasNext();
-          pop(iteratorWorkItem.callerOrReader);
-          marked.add(iteratorWorkItem.callerOrReader);
-
-          Collection<Node> calleesToBeRemovedFromCaller =
-              calleesToBeRemoved.remove(iteratorWorkItem.callerOrReader);
-          if (calleesToBeRemovedFromCaller != null) {
-            calleesToBeRemovedFromCaller.forEach(
-                callee -> {
-                  callee.removeCaller(iteratorWorkItem.callerOrReader);
-                  recordCallEdgeRemoval(iteratorWorkItem.callerOrReader, callee);
-                });
-          }
+    private static class WorkItem {
+      boolean isNode() {
+        return false;
+      }
 
-          Collection<Node> writersToBeRemovedFromReader =
-              writersToBeRemoved.remove(iteratorWorkItem.callerOrReader);
-          if (writersToBeRemovedFromReader != null) {
-            writersToBeRemovedFromReader.forEach(
-                writer -> writer.removeReader(iteratorWorkItem.callerOrReader));
-          }
-        }
+      NodeWorkItem asNode() {
+        return null;
       }
-    }
-  }
 
-  private Node iterateCalleesAndWriters(
-      Iterator<Node> calleeOrWriterIterator, Node callerOrReader) {
-    while (calleeOrWriterIterator.hasNext()) {
-      Node calleeOrWriter = calleeOrWriterIterator.next();
-      StackEntryInfo calleeOrWriterStackEntryInfo = stackEntryInfo.get(calleeOrWriter);
-      boolean foundCycle = calleeOrWriterStackEntryInfo != null;
-      if (!foundCycle) {
-        return calleeOrWriter;
+      boolean isIterator() {
+        return false;
       }
 
-      // Found a cycle that needs to be eliminated. If it is a field read edge, then remove it
-      // right away.
-      boolean isFieldReadEdge = calleeOrWriter.hasReader(callerOrReader);
-      if (isFieldReadEdge) {
-        removeFieldReadEdge(callerOrReader, calleeOrWriter);
-        continue;
+      IteratorWorkItem asIterator() {
+        return null;
       }
+    }
 
-      // Otherwise, it is a call edge. Check if there is a field read edge in the cycle, and if
-      // so, remove that edge.
-      if (!writerStack.isEmpty()
-          && removeIncomingEdgeOnStack(
-              writerStack.peek(),
-              calleeOrWriter,
-              calleeOrWriterStackEntryInfo,
-              this::removeFieldReadEdge)) {
-        continue;
+    private static class NodeWorkItem extends WorkItem {
+      private final Node node;
+
+      NodeWorkItem(Node node) {
+        this.node = node;
+      }
+
+      @Override
+      boolean isNode() {
+        return true;
       }
 
-      // It is a call edge and the cycle does not contain any field read edges.
-      // If it is a call edge to a <clinit>, then remove it.
-      if (calleeOrWriter.getMethod().isClassInitializer()) {
-        // Calls to class initializers are always safe to remove.
-        assert callEdgeRemovalIsSafe(callerOrReader, calleeOrWriter);
-        removeCallEdge(callerOrReader, calleeOrWriter);
-        continue;
+      @Override
+      NodeWorkItem asNode() {
+        return this;
       }
+    }
 
-      // Otherwise, check if there is a call edge to a <clinit> method in the cycle, and if so,
-      // remove that edge.
-      if (!clinitCallStack.isEmpty()
-          && removeIncomingEdgeOnStack(
-              clinitCallStack.peek(),
-              calleeOrWriter,
-              calleeOrWriterStackEntryInfo,
-              this::removeCallEdge)) {
-        continue;
+    private static class IteratorWorkItem extends WorkItem {
+      private final Node callerOrReader;
+      private final Iterator<Node> calleesAndWriters;
+
+      IteratorWorkItem(Node callerOrReader, Iterator<Node> calleesAndWriters) {
+        this.callerOrReader = callerOrReader;
+        this.calleesAndWriters = calleesAndWriters;
       }
 
-      // Otherwise, we remove the call edge if it is safe according to force inlining.
-      if (callEdgeRemovalIsSafe(callerOrReader, calleeOrWriter)) {
-        // Break the cycle by removing the edge node->calleeOrWriter.
-        // Need to remove `calleeOrWriter` from `node.callees` using the iterator to prevent a
-        // ConcurrentModificationException.
-        removeCallEdge(callerOrReader, calleeOrWriter);
-        continue;
+      @Override
+      boolean isIterator() {
+        return true;
       }
 
-      // The call edge cannot be removed due to force inlining. Find another call edge in the
-      // cycle that can safely be removed instead.
-      LinkedList<Node> cycle = extractCycle(calleeOrWriter);
+      @Override
+      IteratorWorkItem asIterator() {
+        return this;
+      }
+    }
 
-      // Break the cycle by finding an edge that can be removed without breaking force
-      // inlining. If that is not possible, this call fails with a compilation error.
-      CallEdge edge = findCallEdgeForRemoval(cycle);
+    private void traverse() {
+      Deque<WorkItem> workItems = new ArrayDeque<>();
+      workItems.addLast(new NodeWorkItem(entry));
+      while (!workItems.isEmpty()) {
+        WorkItem workItem = workItems.removeFirst();
+        if (workItem.isNode()) {
+          Node node = workItem.asNode().node;
+          if (marked.contains(node)) {
+            // Already visited all nodes that can be reached from this node.
+            continue;
+          }
 
-      // The edge will be null if this cycle has already been eliminated as a result of
-      // another cycle elimination.
-      if (edge != null) {
-        assert callEdgeRemovalIsSafe(edge.caller, edge.callee);
+          Node predecessor = stack.isEmpty() ? null : stack.peek();
+          push(node, predecessor);
 
-        // Break the cycle by removing the edge caller->callee.
-        removeCallEdge(edge.caller, edge.callee);
-        revisit.add(edge.callee);
+          // The callees and writers are visited in the deterministic order of the traversal graph.
+          // This ensures that cycles are broken the same way across multiple compilations. Edges
+          // that leave the component cannot be part of a cycle, and are therefore not visited.
+          Iterator<Node> calleesAndWriterIterator =
+              Iterators.filter(
+                  Iterators.forArray(graph.getSuccessors(node)), this::isInComponent);
+          workItems.addFirst(new IteratorWorkItem(node, calleesAndWriterIterator));
+        } else {
+          assert workItem.isIterator();
+          IteratorWorkItem iteratorWorkItem = workItem.asIterator();
+          Node newCallerOrReader =
+              iterateCalleesAndWriters(
+                  iteratorWorkItem.calleesAndWriters, iteratorWorkItem.callerOrReader);
+          if (newCallerOrReader != null) {
+            // We did not finish the work on this iterator, so add it again.
+            workItems.addFirst(iteratorWorkItem);
+            workItems.addFirst(new NodeWorkItem(newCallerOrReader));
+          } else {
+            assert !iteratorWorkItem.calleesAndWriters.hasNext();
+            pop(iteratorWorkItem.callerOrReader);
+            marked.add(iteratorWorkItem.callerOrReader);
+
+            Collection<Node> calleesToBeRemovedFromCaller =
+                calleesToBeRemoved.remove(iteratorWorkItem.callerOrReader);
+            if (calleesToBeRemovedFromCaller != null) {
+              calleesToBeRemovedFromCaller.forEach(
+                  callee -> {
+                    callee.removeCaller(iteratorWorkItem.callerOrReader);
+                    recordCallEdgeRemoval(iteratorWorkItem.callerOrReader, callee);
+                  });
+            }
+
+            Collection<Node> writersToBeRemovedFromReader =
+                writersToBeRemoved.remove(iteratorWorkItem.callerOrReader);
+            if (writersToBeRemovedFromReader != null) {
+              writersToBeRemovedFromReader.forEach(
+                  writer -> writer.removeReader(iteratorWorkItem.callerOrReader));
+            }
+          }
+        }
       }
+    }
 
-      // Recover the stack.
-      recoverStack(cycle);
+    private Node iterateCalleesAndWriters(
+        Iterator<Node> calleeOrWriterIterator, Node callerOrReader) {
+      while (calleeOrWriterIterator.hasNext()) {
+        Node calleeOrWriter = calleeOrWriterIterator.next();
+        StackEntryInfo calleeOrWriterStackEntryInfo = stackEntryInfo.get(calleeOrWriter);
+        boolean foundCycle = calleeOrWriterStackEntryInfo != null;
+        if (!foundCycle) {
+          return calleeOrWriter;
+        }
+
+        currentEdgeSequenceNumber = graph.getEdgeSequenceNumber(callerOrReader, calleeOrWriter);
+
+        // Found a cycle that needs to be eliminated. If it is a field read edge, then remove it
+        // right away.
+        boolean isFieldReadEdge = calleeOrWriter.hasReader(callerOrReader);
+        if (isFieldReadEdge) {
+          removeFieldReadEdge(callerOrReader, calleeOrWriter);
+          continue;
+        }
+
+        // Otherwise, it is a call edge. Check if there is a field read edge in the cycle, and if
+        // so, remove that edge.
+        if (!writerStack.isEmpty()
+            && removeIncomingEdgeOnStack(
+                writerStack.peek(),
+                calleeOrWriter,
+                calleeOrWriterStackEntryInfo,
+                this::removeFieldReadEdge)) {
+          continue;
+        }
+
+        // It is a call edge and the cycle does not contain any field read edges.
+        // If it is a call edge to a <clinit>, then remove it.
+        if (calleeOrWriter.getMethod().isClassInitializer()) {
+          // Calls to class initializers are always safe to remove.
+          assert callEdgeRemovalIsSafe(callerOrReader, calleeOrWriter);
+          removeCallEdge(callerOrReader, calleeOrWriter);
+          continue;
+        }
+
+        // Otherwise, check if there is a call edge to a <clinit> method in the cycle, and if so,
+        // remove that edge.
+        if (!clinitCallStack.isEmpty()
+            && removeIncomingEdgeOnStack(
+                clinitCallStack.peek(),
+                calleeOrWriter,
+                calleeOrWriterStackEntryInfo,
+                this::removeCallEdge)) {
+          continue;
+        }
+
+        // Otherwise, we remove the call edge if it is safe according to force inlining.
+        if (callEdgeRemovalIsSafe(callerOrReader, calleeOrWriter)) {
+          // Break the cycle by removing the edge node->calleeOrWriter.
+          // Need to remove `calleeOrWriter` from `node.callees` using the iterator to prevent a
+          // ConcurrentModificationException.
+          removeCallEdge(callerOrReader, calleeOrWriter);
+          continue;
+        }
+
+        // The call edge cannot be removed due to force inlining. Find another call edge in the
+        // cycle that can safely be removed instead.
+        LinkedList<Node> cycle = extractCycle(calleeOrWriter);
+
+        // Break the cycle by finding an edge that can be removed without breaking force
+        // inlining. If that is not possible, this call fails with a compilation error.
+        CallEdge edge = findCallEdgeForRemoval(cycle);
+
+        // The edge will be null if this cycle has already been eliminated as a result of
+        // another cycle elimination.
+        if (edge != null) {
+          assert callEdgeRemovalIsSafe(edge.caller, edge.callee);
+
+          // Break the cycle by removing the edge caller->callee.
+          removeCallEdge(edge.caller, edge.callee);
+          addToRevisit(edge.callee);
+        }
+
+        // Recover the stack.
+        recoverStack(cycle);
+      }
+      return null;
     }
-    return null;
-  }
 
-  private void push(Node node, Node predecessor) {
-    stack.push(node);
-    assert !stackEntryInfo.containsKey(node);
-    stackEntryInfo.put(node, new StackEntryInfo(stack.size() - 1, predecessor));
-    if (predecessor != null) {
-      if (node.getMethod().isClassInitializer() && node.hasCaller(predecessor)) {
-        clinitCallStack.push(node);
-      } else if (predecessor.getWritersWithDeterministicOrder().contains(node)) {
-        writerStack.push(node);
+    private void push(Node node, Node predecessor) {
+      stack.push(node);
+      assert !stackEntryInfo.containsKey(node);
+      stackEntryInfo.put(node, new StackEntryInfo(stack.size() - 1, predecessor));
+      if (predecessor != null) {
+        if (node.getMethod().isClassInitializer() && node.hasCaller(predecessor)) {
+          clinitCallStack.push(node);
+        } else if (predecessor.getWritersWithDeterministicOrder().contains(node)) {
+          writerStack.push(node);
+        }
       }
     }
-  }
 
-  private void pop(Node node) {
-    Node popped = stack.pop();
-    assert popped == node;
-    assert stackEntryInfo.containsKey(node);
-    stackEntryInfo.remove(node);
-    if (clinitCallStack.peek() == popped) {
-      assert writerStack.peek() != popped;
-      clinitCallStack.pop();
-    } else if (writerStack.peek() == popped) {
-      writerStack.pop();
+    private void pop(Node node) {
+      Node popped = stack.pop();
+      assert popped == node;
+      assert stackEntryInfo.containsKey(node);
+      stackEntryInfo.remove(node);
+      if (clinitCallStack.peek() == popped) {
+        assert writerStack.peek() != popped;
+        clinitCallStack.pop();
+      } else if (writerStack.peek() == popped) {
+        writerStack.pop();
+      }
     }
-  }
 
-  private void removeCallEdge(Node caller, Node callee) {
-    calleesToBeRemoved.computeIfAbsent(caller, ignore -> Sets.newIdentityHashSet()).add(callee);
-  }
+    private void removeCallEdge(Node caller, Node callee) {
+      calleesToBeRemoved.computeIfAbsent(caller, ignore -> Sets.newIdentityHashSet()).add(callee);
+    }
 
-  private void removeFieldReadEdge(Node reader, Node writer) {
-    writersToBeRemoved.computeIfAbsent(reader, ignore -> Sets.newIdentityHashSet()).add(writer);
-  }
+    private void removeFieldReadEdge(Node reader, Node writer) {
+      writersToBeRemoved.computeIfAbsent(reader, ignore -> Sets.newIdentityHashSet()).add(writer);
+    }
 
-  private boolean removeIncomingEdgeOnStack(
-      Node target,
-      Node currentCalleeOrWriter,
-      StackEntryInfo currentCalleeOrWriterStackEntryInfo,
-      BiConsumer<Node, Node> edgeRemover) {
-    StackEntryInfo targetStackEntryInfo = stackEntryInfo.get(target);
-    boolean cycleContainsTarget =
-        targetStackEntryInfo.index > currentCalleeOrWriterStackEntryInfo.index;
-    if (cycleContainsTarget) {
-      assert verifyCycleSatisfies(
-          currentCalleeOrWriter,
-          cycle -> cycle.contains(target) && cycle.contains(targetStackEntryInfo.predecessor));
-      if (!targetStackEntryInfo.processed) {
-        edgeRemover.accept(targetStackEntryInfo.predecessor, target);
-        revisit.add(target);
-        targetStackEntryInfo.processed = true;
+    private boolean removeIncomingEdgeOnStack(
+        Node target,
+        Node currentCalleeOrWriter,
+        StackEntryInfo currentCalleeOrWriterStackEntryInfo,
+        BiConsumer<Node, Node> edgeRemover) {
+      StackEntryInfo targetStackEntryInfo = stackEntryInfo.get(target);
+      boolean cycleContainsTarget =
+          targetStackEntryInfo.index > currentCalleeOrWriterStackEntryInfo.index;
+      if (cycleContainsTarget) {
+        assert verifyCycleSatisfies(
+            currentCalleeOrWriter,
+            cycle -> cycle.contains(target) && cycle.contains(targetStackEntryInfo.predecessor));
+        if (!targetStackEntryInfo.processed) {
+          edgeRemover.accept(targetStackEntryInfo.predecessor, target);
+          addToRevisit(target);
+          targetStackEntryInfo.processed = true;
+        }
+        return true;
       }
-      return true;
+      return false;
     }
-    return false;
-  }
 
-  // TODO(b/270398965): Replace LinkedList.
-  @SuppressWarnings("JdkObsolete")
-  private LinkedList<Node> extractCycle(Node entry) {
-    LinkedList<Node> cycle = new LinkedList<>();
-    do {
-      assert !stack.isEmpty();
-      cycle.add(stack.pop());
-    } while (cycle.getLast() != entry);
-    return cycle;
-  }
+    // TODO(b/270398965): Replace LinkedList.
+    @SuppressWarnings("JdkObsolete")
+    private LinkedList<Node> extractCycle(Node entry) {
+      LinkedList<Node> cycle = new LinkedList<>();
+      do {
+        assert !stack.isEmpty();
+        cycle.add(stack.pop());
+      } while (cycle.getLast() != entry);
+      return cycle;
+    }
 
-  private boolean verifyCycleSatisfies(Node entry, Predicate<LinkedList<Node>> predicate) {
-    LinkedList<Node> cycle = extractCycle(entry);
-    assert predicate.test(cycle);
-    recoverStack(cycle);
-    return true;
-  }
+    private boolean verifyCycleSatisfies(Node entry, Predicate<LinkedList<Node>> predicate) {
+      LinkedList<Node> cycle = extractCycle(entry);
+      assert predicate.test(cycle);
+      recoverStack(cycle);
+      return true;
+    }
 
-  private CallEdge findCallEdgeForRemoval(LinkedList<Node> extractedCycle) {
-    Node callee = extractedCycle.getLast();
-    for (Node caller : extractedCycle) {
-      if (caller.hasWriter(callee)) {
-        // Not a call edge.
-        assert !caller.hasCallee(callee);
-        assert !callee.hasCaller(caller);
+    private CallEdge findCallEdgeForRemoval(LinkedList<Node> extractedCycle) {
+      Node callee = extractedCycle.getLast();
+      for (Node caller : extractedCycle) {
+        if (caller.hasWriter(callee)) {
+          // Not a call edge.
+          assert !caller.hasCallee(callee);
+          assert !callee.hasCaller(caller);
+          callee = caller;
+          continue;
+        }
+        if (!caller.hasCallee(callee)) {
+          // No need to break any edges since this cycle has already been broken previously.
+          assert !callee.hasCaller(caller);
+          return null;
+        }
+        if (callEdgeRemovalIsSafe(caller, callee)) {
+          return new CallEdge(caller, callee);
+        }
         callee = caller;
-        continue;
       }
-      if (!caller.hasCallee(callee)) {
-        // No need to break any edges since this cycle has already been broken previously.
-        assert !callee.hasCaller(caller);
-        return null;
-      }
-      if (callEdgeRemovalIsSafe(caller, callee)) {
-        return new CallEdge(caller, callee);
-      }
-      callee = caller;
+      throw new CompilationError(CYCLIC_FORCE_INLINING_MESSAGE);
     }
-    throw new CompilationError(CYCLIC_FORCE_INLINING_MESSAGE);
-  }
-
-  private static boolean callEdgeRemovalIsSafe(Node callerOrReader, Node calleeOrWriter) {
-    // All call edges where the callee is a method that should be force inlined must be kept,
-    // to guarantee that the IR converter will process the callee before the caller.
-    assert calleeOrWriter.hasCaller(callerOrReader);
-    return !calleeOrWriter.getMethod().getOptimizationInfo().forceInline();
-  }
 
-  private void recordCallEdgeRemoval(Node caller, Node callee) {
-    removedCallEdges
-        .computeIfAbsent(callee.getMethod(), ignore -> ProgramMethodSet.create(2))
-        .add(caller.getProgramMethod());
-  }
+    private void recordCallEdgeRemoval(Node caller, Node callee) {
+      removedCallEdges
+          .computeIfAbsent(callee.getMethod(), ignore -> ProgramMethodSet.create(2))
+          .add(caller.getProgramMethod());
+    }
 
-  private void recoverStack(LinkedList<Node> extractedCycle) {
-    Iterator<Node> descendingIt = extractedCycle.descendingIterator();
-    while (descendingIt.hasNext()) {
-      stack.push(descendingIt.next());
+    private void recoverStack(LinkedList<Node> extractedCycle) {
+      Iterator<Node> descendingIt = extractedCycle.descendingIterator();
+      while (descendingIt.hasNext()) {
+        stack.push(descendingIt.next());
+      }
     }
   }
 }
@@ -4,6 +4,7 @@
 package com.android.tools.r8.ir.conversion.callgraph;
 
 import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.ProgramMemberIndex;
 import com.android.tools.r8.graph.ProgramMethod;
 import com.android.tools.r8.shaking.AppInfoWithLiveness;
 import com.android.tools.r8.utils.Timing;
@@ -18,6 +19,11 @@ abstract class IRProcessingCallGraphBuilderBase extends CallGraphBuilderBase<Nod
     super(appView);
   }
 
+  IRProcessingCallGraphBuilderBase(
+      AppView<AppInfoWithLiveness> appView, ProgramMemberIndex index) {
+    super(appView, index);
+  }
+
   public CallGraph build(ExecutorService executorService, Timing timing) throws ExecutionException {
     timing.begin("Build IR processing order constraints");
     timing.begin("Build call graph");
@@ -33,7 +39,8 @@ abstract class IRProcessingCallGraphBuilderBase extends CallGraphBuilderBase<Nod
     // Sort the nodes for deterministic cycle elimination.
     Set<Node> nodesWithDeterministicOrder = Sets.newTreeSet(nodes.values());
     CycleEliminator cycleEliminator = new CycleEliminator();
-    cycleEliminator.breakCycles(nodesWithDeterministicOrder);
+    cycleEliminator.breakCycles(
+        nodesWithDeterministicOrder, appView.options().getThreadingModule(), executorService);
     timing.end();
     timing.end();
     assert cycleEliminator.breakCycles(nodesWithDeterministicOrder).numberOfRemovedCallEdges()
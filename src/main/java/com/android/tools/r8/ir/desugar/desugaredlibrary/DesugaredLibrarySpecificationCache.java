@@ -0,0 +1,262 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir.desugar.desugaredlibrary;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.android.tools.r8.Version;
+import com.android.tools.r8.graph.DexApplication;
+import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.ir.desugar.desugaredlibrary.machinespecification.MachineDesugaredLibrarySpecification;
+import com.android.tools.r8.ir.desugar.desugaredlibrary.machinespecification.MachineDesugaredLibrarySpecificationParser;
+import com.android.tools.r8.ir.desugar.desugaredlibrary.machinespecification.MultiAPILevelMachineDesugaredLibrarySpecification;
+import com.android.tools.r8.ir.desugar.desugaredlibrary.machinespecification.MultiAPILevelMachineDesugaredLibrarySpecificationJsonExporter;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.origin.PathOrigin;
+import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.Box;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.StringDiagnostic;
+import com.android.tools.r8.utils.Timing;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process wide cache of desugared library specifications.
+ *
+ * <p>The JSON of a specification is parsed once per process. Each compilation using the
+ * specification receives its own copy of the parsed JSON, which is cheaper to create than parsing
+ * the JSON again.
+ *
+ * <p>The conversion of a human or legacy specification to a machine specification resolves the
+ * specification against the library, and is done once per process for a given specification,
+ * library and min API level. A machine specification refers to the items of the dex item factory
+ * of a single compilation, so the result of the conversion is kept as a precompiled machine
+ * specification in the machine JSON format, which other compilations parse instead of converting
+ * the specification again. When a cache directory is set, the precompiled machine specifications
+ * are also stored as JSON files in that directory, which are read and parsed by other processes.
+ */
+public class DesugaredLibrarySpecificationCache {
+
+  private static final int FORMAT_VERSION = 1;
+  private static final int MAX_NUMBER_OF_ENTRIES = 16;
+  private static final String ENTRY_FILE_EXTENSION = ".json";
+
+  private static final Map<String, JsonObject> parsedSpecifications = new ConcurrentHashMap<>();
+  private static final Map<HashCode, PrecompiledSpecification> precompiledSpecifications =
+      new ConcurrentHashMap<>();
+
+  /** Parses the JSON of a specification. The result is a copy that may be modified. */
+  public static JsonObject parseJson(String jsonConfigString) {
+    JsonObject jsonConfig = parsedSpecifications.get(jsonConfigString);
+    if (jsonConfig == null) {
+      jsonConfig = new JsonParser().parse(jsonConfigString).getAsJsonObject();
+      if (parsedSpecifications.size() >= MAX_NUMBER_OF_ENTRIES) {
+        parsedSpecifications.clear();
+      }
+      parsedSpecifications.putIfAbsent(jsonConfigString, jsonConfig);
+    }
+    return jsonConfig.deepCopy();
+  }
+
+  /**
+   * Converts the specification to a machine specification, or loads the precompiled machine
+   * specification of a previous conversion.
+   *
+   * <p>The input app identifies the library of the compilation. If the input app is null, or the
+   * library is not given as archives, the specification is always converted.
+   */
+  public static MachineDesugaredLibrarySpecification toMachineSpecification(
+      DesugaredLibrarySpecification specification,
+      DexApplication app,
+      AndroidApp inputApp,
+      Timing timing)
+      throws IOException {
+    InternalOptions options = app.options;
+    HashCode key = computeKey(specification, inputApp, options);
+    if (key == null) {
+      return specification.toMachineSpecification(app, timing);
+    }
+    PrecompiledSpecification precompiledSpecification = lookup(key, options);
+    if (precompiledSpecification != null) {
+      timing.begin("Parse precompiled machine specification");
+      MachineDesugaredLibrarySpecification machineSpecification =
+          new MachineDesugaredLibrarySpecificationParser(
+                  options.dexItemFactory(),
+                  options.reporter,
+                  false,
+                  options.getMinApiLevel().getLevel())
+              .parse(
+                  precompiledSpecification.origin,
+                  precompiledSpecification.json,
+                  precompiledSpecification.jsonConfig.deepCopy());
+      timing.end();
+      return machineSpecification.toMachineSpecification(app, timing);
+    }
+    int numberOfReportedDiagnostics = options.reporter.getNumberOfReportedDiagnostics();
+    MachineDesugaredLibrarySpecification machineSpecification =
+        specification.toMachineSpecification(app, timing);
+    // A conversion that reports diagnostics is not cached, such that every compilation reports
+    // the diagnostics.
+    if (options.reporter.getNumberOfReportedDiagnostics() == numberOfReportedDiagnostics) {
+      timing.begin("Store precompiled machine specification");
+      store(key, export(machineSpecification, options), options);
+      timing.end();
+    }
+    return machineSpecification;
+  }
+
+  private static HashCode computeKey(
+      DesugaredLibrarySpecification specification, AndroidApp inputApp, InternalOptions options)
+      throws IOException {
+    if (inputApp == null || specification.isLibraryCompilation()) {
+      return null;
+    }
+    if (!specification.isHuman() && !specification.isLegacy()) {
+      // Machine specifications are not converted.
+      return null;
+    }
+    List<Path> libraryArchives = inputApp.getLibraryArchivesOrNull();
+    if (libraryArchives == null) {
+      return null;
+    }
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(FORMAT_VERSION);
+    hasher.putString(Version.LABEL, UTF_8);
+    hasher.putBoolean(specification.isHuman());
+    hasher.putString(String.valueOf(specification.getIdentifier()), UTF_8);
+    hasher.putString(String.valueOf(specification.getJsonSource()), UTF_8);
+    hasher.putString(specification.getSynthesizedLibraryClassesPackagePrefix(), UTF_8);
+    hasher.putInt(specification.getRequiredCompilationApiLevel().getLevel());
+    for (String extraKeepRule : specification.getExtraKeepRules()) {
+      hasher.putString(extraKeepRule, UTF_8);
+    }
+    hasher.putInt(options.getMinApiLevel().getLevel());
+    for (Path archive : libraryArchives) {
+      hasher.putString(archive.toAbsolutePath().toString(), UTF_8);
+      hasher.putLong(Files.size(archive));
+      hasher.putLong(Files.getLastModifiedTime(archive).toMillis());
+    }
+    return hasher.hash();
+  }
+
+  private static PrecompiledSpecification lookup(HashCode key, InternalOptions options) {
+    PrecompiledSpecification precompiledSpecification = precompiledSpecifications.get(key);
+    Path directory = options.desugaredLibrarySpecificationCacheDirectory;
+    if (directory == null) {
+      return precompiledSpecification;
+    }
+    Path file = getEntryFile(key, directory);
+    if (precompiledSpecification != null) {
+      // Share the specification converted by this process with other processes.
+      if (!Files.exists(file)) {
+        write(file, precompiledSpecification.json, options);
+      }
+      return precompiledSpecification;
+    }
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try {
+      String json = new String(Files.readAllBytes(file), UTF_8);
+      precompiledSpecification = new PrecompiledSpecification(new PathOrigin(file), json);
+    } catch (IOException | JsonParseException | IllegalStateException e) {
+      // An unreadable entry is treated as missing and replaced by the conversion.
+      return null;
+    }
+    put(key, precompiledSpecification);
+    return precompiledSpecification;
+  }
+
+  private static String export(
+      MachineDesugaredLibrarySpecification machineSpecification, InternalOptions options) {
+    // The machine specification is specific to the min API level of the compilation, which is
+    // part of the key, so all flags are exported as common flags for that API level.
+    MultiAPILevelMachineDesugaredLibrarySpecification multiLevelSpecification =
+        new MultiAPILevelMachineDesugaredLibrarySpecification(
+            Origin.unknown(),
+            machineSpecification.getTopLevelFlags(),
+            ImmutableMap.of(
+                new ApiLevelRange(options.getMinApiLevel().getLevel()),
+                machineSpecification.getRewritingFlags()),
+            ImmutableMap.of(),
+            ImmutableMap.of());
+    Box<String> json = new Box<>();
+    DexItemFactory factory = options.dexItemFactory();
+    MultiAPILevelMachineDesugaredLibrarySpecificationJsonExporter.export(
+        multiLevelSpecification, (string, handler) -> json.set(string), factory);
+    return json.get();
+  }
+
+  private static void store(HashCode key, String json, InternalOptions options) {
+    put(key, new PrecompiledSpecification(Origin.unknown(), json));
+    Path directory = options.desugaredLibrarySpecificationCacheDirectory;
+    if (directory != null) {
+      write(getEntryFile(key, directory), json, options);
+    }
+  }
+
+  private static void write(Path file, String json, InternalOptions options) {
+    Path directory = file.getParent();
+    try {
+      Files.createDirectories(directory);
+      Path temporaryFile = Files.createTempFile(directory, "specification", ".tmp");
+      try {
+        Files.write(temporaryFile, json.getBytes(UTF_8));
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(temporaryFile);
+      }
+    } catch (IOException e) {
+      options.reporter.warning(
+          new StringDiagnostic(
+              "Failed to store precompiled desugared library specification in "
+                  + directory
+                  + ": "
+                  + e.getMessage()));
+    }
+  }
+
+  private static void put(HashCode key, PrecompiledSpecification precompiledSpecification) {
+    if (precompiledSpecifications.size() >= MAX_NUMBER_OF_ENTRIES) {
+      precompiledSpecifications.clear();
+    }
+    precompiledSpecifications.putIfAbsent(key, precompiledSpecification);
+  }
+
+  public static void clearForTesting() {
+    parsedSpecifications.clear();
+    precompiledSpecifications.clear();
+  }
+
+  private static Path getEntryFile(HashCode key, Path directory) {
+    return directory.resolve(key + ENTRY_FILE_EXTENSION);
+  }
+
+  private static class PrecompiledSpecification {
+
+    private final Origin origin;
+    private final String json;
+    private final JsonObject jsonConfig;
+
+    private PrecompiledSpecification(Origin origin, String json) {
+      this.origin = origin;
+      this.json = json;
+      this.jsonConfig = new JsonParser().parse(json).getAsJsonObject();
+    }
+  }
+}
@@ -14,7 +14,6 @@ import com.android.tools.r8.utils.ExceptionDiagnostic;
 import com.android.tools.r8.utils.Reporter;
 import com.android.tools.r8.utils.StringDiagnostic;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import java.util.function.Consumer;
 
 public class DesugaredLibrarySpecificationParser {
@@ -46,8 +45,7 @@ public class DesugaredLibrarySpecificationParser {
     JsonObject jsonConfig;
     try {
       jsonConfigString = stringResource.getString();
-      JsonParser parser = new JsonParser();
-      jsonConfig = parser.parse(jsonConfigString).getAsJsonObject();
+      jsonConfig = DesugaredLibrarySpecificationCache.parseJson(jsonConfigString);
     } catch (Exception e) {
       throw reporter.fatalError(new ExceptionDiagnostic(e, origin));
     }
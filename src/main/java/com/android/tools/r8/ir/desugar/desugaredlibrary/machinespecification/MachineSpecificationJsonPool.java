@@ -35,6 +35,7 @@ public class MachineSpecificationJsonPool {
   static final String WRAPPER_KEY = "wrapper";
   static final String LEGACY_BACKPORT_KEY = "legacy_backport";
   static final String DONT_RETARGET_KEY = "dont_retarget";
+  static final String NEVER_OUTLINE_API_KEY = "never_outline_api";
   static final String CUSTOM_CONVERSION_KEY = "custom_conversion";
   static final String AMEND_LIBRARY_METHOD_KEY = "amend_library_method";
   static final String AMEND_LIBRARY_FIELD_KEY = "amend_library_field";
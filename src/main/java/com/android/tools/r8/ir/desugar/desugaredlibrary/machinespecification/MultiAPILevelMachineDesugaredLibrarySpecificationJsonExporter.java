@@ -21,6 +21,7 @@ import static com.android.tools.r8.ir.desugar.desugaredlibrary.machinespecificat
 import static com.android.tools.r8.ir.desugar.desugaredlibrary.machinespecification.MachineSpecificationJsonPool.LEGACY_BACKPORT_KEY;
 import static com.android.tools.r8.ir.desugar.desugaredlibrary.machinespecification.MachineSpecificationJsonPool.LIBRARY_FLAGS_KEY;
 import static com.android.tools.r8.ir.desugar.desugaredlibrary.machinespecification.MachineSpecificationJsonPool.MAINTAIN_TYPE_KEY;
+import static com.android.tools.r8.ir.desugar.desugaredlibrary.machinespecification.MachineSpecificationJsonPool.NEVER_OUTLINE_API_KEY;
 import static com.android.tools.r8.ir.desugar.desugaredlibrary.machinespecification.MachineSpecificationJsonPool.NON_EMULATED_VIRTUAL_RETARGET_KEY;
 import static com.android.tools.r8.ir.desugar.desugaredlibrary.machinespecification.MachineSpecificationJsonPool.PACKAGE_MAP_KEY;
 import static com.android.tools.r8.ir.desugar.desugaredlibrary.machinespecification.MachineSpecificationJsonPool.PROGRAM_FLAGS_KEY;
@@ -199,6 +200,7 @@ public class MultiAPILevelMachineDesugaredLibrarySpecificationJsonExporter {
     writeFlagLinkedHashMapToSpecificationDescriptor(WRAPPER_KEY, flags.getWrappers(), toJson);
     writeFlagMap(LEGACY_BACKPORT_KEY, flags.getLegacyBackport(), toJson);
     writeFlagCollection(DONT_RETARGET_KEY, flags.getDontRetarget(), toJson);
+    writeFlagCollection(NEVER_OUTLINE_API_KEY, flags.getNeverOutlineApi(), toJson);
     writeFlagMapToSpecificationDescriptor(
         CUSTOM_CONVERSION_KEY, flags.getCustomConversions(), toJson);
     writeMembersWithFlags(AMEND_LIBRARY_METHOD_KEY, flags.getAmendLibraryMethod(), toJson);
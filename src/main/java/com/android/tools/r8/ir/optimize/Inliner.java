@@ -53,6 +53,7 @@ import com.android.tools.r8.ir.optimize.SimpleDominatingEffectAnalysis.SimpleEff
 import com.android.tools.r8.ir.optimize.info.OptimizationFeedback;
 import com.android.tools.r8.ir.optimize.info.OptimizationFeedbackIgnore;
 import com.android.tools.r8.ir.optimize.inliner.DefaultInliningReasonStrategy;
+import com.android.tools.r8.ir.optimize.inliner.InlineeTemplateCache;
 import com.android.tools.r8.ir.optimize.inliner.InliningIRProvider;
 import com.android.tools.r8.ir.optimize.inliner.InliningReasonStrategy;
 import com.android.tools.r8.ir.optimize.inliner.NopWhyAreYouNotInliningReporter;
@@ -106,6 +107,8 @@ public class Inliner {
 
   private final AvailableApiExceptions availableApiExceptions;
 
+  private final InlineeTemplateCache inlineeTemplateCache;
+
   public Inliner(
       AppView<AppInfoWithLiveness> appView,
       IRConverter converter,
@@ -121,12 +124,17 @@ public class Inliner {
         appView.options().canHaveDalvikCatchHandlerVerificationBug()
             ? new AvailableApiExceptions(appView.options())
             : null;
+    this.inlineeTemplateCache = new InlineeTemplateCache(appView, lensCodeRewriter);
   }
 
   public LensCodeRewriter getLensCodeRewriter() {
     return lensCodeRewriter;
   }
 
+  public InlineeTemplateCache getInlineeTemplateCache() {
+    return inlineeTemplateCache;
+  }
+
   @SuppressWarnings("ReferenceEquality")
   private ConstraintWithTarget instructionAllowedForInlining(
       Instruction instruction, InliningConstraints inliningConstraints, ProgramMethod context) {
@@ -942,7 +950,8 @@ public class Inliner {
             options.inliningInstructionAllowance - numberOfInstructions(code),
             inliningReasonStrategy);
     InliningIRProvider inliningIRProvider =
-        new InliningIRProvider(appView, method, code, lensCodeRewriter, methodProcessor);
+        new InliningIRProvider(
+            appView, method, code, lensCodeRewriter, methodProcessor, inlineeTemplateCache);
     assert inliningIRProvider.verifyIRCacheIsEmpty();
     performInliningImpl(
         oracle, oracle, method, code, feedback, inliningIRProvider, methodProcessor, timing);
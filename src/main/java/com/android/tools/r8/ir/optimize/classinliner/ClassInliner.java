@@ -181,7 +181,12 @@ public final class ClassInliner {
         // Is inlining allowed.
         InliningIRProvider inliningIRProvider =
             new InliningIRProvider(
-                appView, method, code, inliner.getLensCodeRewriter(), methodProcessor);
+                appView,
+                method,
+                code,
+                inliner.getLensCodeRewriter(),
+                methodProcessor,
+                inliner.getInlineeTemplateCache());
         ClassInlinerCostAnalysis costAnalysis =
             new ClassInlinerCostAnalysis(appView, inliningIRProvider, processor.getReceivers());
         if (costAnalysis.willExceedInstructionBudget(
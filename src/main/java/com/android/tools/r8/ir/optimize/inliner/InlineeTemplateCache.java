@@ -0,0 +1,245 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir.optimize.inliner;
+
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.Code;
+import com.android.tools.r8.graph.DexMethod;
+import com.android.tools.r8.graph.ProgramMethod;
+import com.android.tools.r8.graph.bytecodemetadata.BytecodeMetadataProvider;
+import com.android.tools.r8.graph.lens.GraphLens;
+import com.android.tools.r8.graph.proto.RewrittenPrototypeDescription;
+import com.android.tools.r8.ir.code.IRCode;
+import com.android.tools.r8.ir.code.Instruction;
+import com.android.tools.r8.ir.code.NumberGenerator;
+import com.android.tools.r8.ir.code.Position;
+import com.android.tools.r8.ir.conversion.LensCodeRewriter;
+import com.android.tools.r8.ir.conversion.MethodConversionOptions;
+import com.android.tools.r8.ir.conversion.MethodProcessor;
+import com.android.tools.r8.ir.optimize.info.MethodOptimizationInfo;
+import com.android.tools.r8.lightir.IR2LirConverter;
+import com.android.tools.r8.lightir.Lir2IRConverter;
+import com.android.tools.r8.lightir.LirCode;
+import com.android.tools.r8.lightir.LirStrategy;
+import com.android.tools.r8.utils.InternalOptions.InlinerOptions;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of inlinee templates for small callees that have not yet been processed.
+ *
+ * <p>The code of a callee that has not been processed must be rewritten by the unapplied graph
+ * lenses each time it is inlined. A template is the lens rewritten code of such a callee, encoded
+ * as LIR, such that the lens code rewriting is performed once per callee instead of once per call
+ * site. The template is only used as long as the callee has the same code and optimization info,
+ * and the graph lens is unchanged.
+ *
+ * <p>A callee whose lens rewritten code cannot be encoded as LIR is recorded with an ineligible
+ * template, such that its IR is not built again for each call site. The cache is split into shards
+ * that are each guarded by their own lock, and each shard evicts its least recently used template
+ * when it is full.
+ */
+public class InlineeTemplateCache {
+
+  private static final int NUMBER_OF_SHARDS = 16;
+
+  private final AppView<?> appView;
+  private final LensCodeRewriter lensCodeRewriter;
+  private final boolean enabled;
+  private final int instructionLimit;
+  private final Shard[] shards;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder templateBuildNanos = new LongAdder();
+
+  public InlineeTemplateCache(AppView<?> appView, LensCodeRewriter lensCodeRewriter) {
+    InlinerOptions inlinerOptions = appView.options().inlinerOptions();
+    this.appView = appView;
+    this.lensCodeRewriter = lensCodeRewriter;
+    this.enabled = inlinerOptions.enableInlineeTemplates && lensCodeRewriter != null;
+    this.instructionLimit = inlinerOptions.inlineeTemplateInstructionLimit;
+    int capacity = inlinerOptions.inlineeTemplateCacheSize;
+    int numberOfShards = capacity < NUMBER_OF_SHARDS ? 1 : NUMBER_OF_SHARDS;
+    this.shards = new Shard[numberOfShards];
+    for (int i = 0; i < numberOfShards; i++) {
+      shards[i] = new Shard(Math.max(1, capacity / numberOfShards));
+    }
+  }
+
+  /**
+   * Returns the lens rewritten inlining IR of the given method, or null if the method is not
+   * eligible for using a template.
+   */
+  IRCode getInliningIR(
+      ProgramMethod method,
+      NumberGenerator valueNumberGenerator,
+      Position callerPosition,
+      MethodProcessor methodProcessor) {
+    if (!enabled) {
+      return null;
+    }
+    Code code = method.getDefinition().getCode();
+    if (!code.isLirCode() || code.asLirCode().getInstructionCount() > instructionLimit) {
+      return null;
+    }
+    Shard shard = getShard(method.getReference());
+    InlineeTemplate template;
+    synchronized (shard) {
+      template = shard.get(method.getReference());
+    }
+    if (template != null
+        && template.isValidFor(code, method.getOptimizationInfo(), appView.graphLens())) {
+      hits.increment();
+    } else {
+      misses.increment();
+      template = createTemplate(method, code, methodProcessor);
+      synchronized (shard) {
+        shard.put(method.getReference(), template);
+      }
+    }
+    return template.isEligible()
+        ? template.instantiate(method, appView, valueNumberGenerator, callerPosition)
+        : null;
+  }
+
+  private InlineeTemplate createTemplate(
+      ProgramMethod method, Code code, MethodProcessor methodProcessor) {
+    long start = System.nanoTime();
+    IRCode irCode = method.buildIR(appView, MethodConversionOptions.nonConverting());
+    lensCodeRewriter.rewrite(irCode, method, methodProcessor);
+    templateBuildNanos.add(System.nanoTime() - start);
+    // Extra unused arguments have no LIR representation.
+    for (Instruction instruction : irCode.entryBlock().getInstructions()) {
+      if (instruction.isUnusedArgument()) {
+        return new InlineeTemplate(code, method.getOptimizationInfo(), appView.graphLens(), null);
+      }
+    }
+    LirCode<Integer> lirCode =
+        IR2LirConverter.translate(
+            irCode,
+            BytecodeMetadataProvider.empty(),
+            LirStrategy.getDefaultStrategy().getEncodingStrategy(),
+            appView.options());
+    return new InlineeTemplate(code, method.getOptimizationInfo(), appView.graphLens(), lirCode);
+  }
+
+  public void clear() {
+    for (Shard shard : shards) {
+      synchronized (shard) {
+        shard.clear();
+      }
+    }
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns an estimate of the time saved by using templates, based on the average time it takes to
+   * build and lens rewrite the IR of a callee.
+   */
+  public long getEstimatedNanosSaved() {
+    long misses = getMisses();
+    return misses == 0 ? 0 : templateBuildNanos.sum() / misses * getHits();
+  }
+
+  public void printStatistics() {
+    System.out.println(
+        "Inlinee templates: "
+            + getHits()
+            + " hits, "
+            + getMisses()
+            + " misses, estimated "
+            + TimeUnit.NANOSECONDS.toMillis(getEstimatedNanosSaved())
+            + "ms saved");
+  }
+
+  int size() {
+    int size = 0;
+    for (Shard shard : shards) {
+      synchronized (shard) {
+        size += shard.size();
+      }
+    }
+    return size;
+  }
+
+  private Shard getShard(DexMethod method) {
+    int hash = method.hashCode();
+    return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+  }
+
+  private static class Shard extends LinkedHashMap<DexMethod, InlineeTemplate> {
+
+    private final int capacity;
+
+    private Shard(int capacity) {
+      super(capacity, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<DexMethod, InlineeTemplate> eldest) {
+      return size() > capacity;
+    }
+  }
+
+  private static class InlineeTemplate {
+
+    private final Code source;
+    private final MethodOptimizationInfo optimizationInfo;
+    private final GraphLens graphLens;
+    // Null if the code of the callee cannot be encoded as a template.
+    private final LirCode<Integer> code;
+
+    InlineeTemplate(
+        Code source,
+        MethodOptimizationInfo optimizationInfo,
+        GraphLens graphLens,
+        LirCode<Integer> code) {
+      this.source = source;
+      this.optimizationInfo = optimizationInfo;
+      this.graphLens = graphLens;
+      this.code = code;
+    }
+
+    // The code of a callee is replaced when the callee is reprocessed, and its optimization info is
+    // replaced when the optimization feedback for the callee is applied.
+    @SuppressWarnings("ReferenceEquality")
+    boolean isValidFor(Code source, MethodOptimizationInfo optimizationInfo, GraphLens graphLens) {
+      return this.source == source
+          && this.optimizationInfo == optimizationInfo
+          && this.graphLens == graphLens;
+    }
+
+    boolean isEligible() {
+      return code != null;
+    }
+
+    IRCode instantiate(
+        ProgramMethod method,
+        AppView<?> appView,
+        NumberGenerator valueNumberGenerator,
+        Position callerPosition) {
+      // The template is already rewritten to the current lens, thus there are no prototype changes.
+      return Lir2IRConverter.translate(
+          method,
+          code,
+          LirStrategy.getDefaultStrategy().getDecodingStrategy(code, valueNumberGenerator),
+          appView,
+          callerPosition,
+          RewrittenPrototypeDescription.none(),
+          MethodConversionOptions.nonConverting());
+    }
+  }
+}
@@ -24,6 +24,7 @@ public class InliningIRProvider {
   private final LensCodeRewriter lensCodeRewriter;
   private final NumberGenerator valueNumberGenerator;
   private final MethodProcessor methodProcessor;
+  private final InlineeTemplateCache inlineeTemplateCache;
 
   private final Map<InvokeMethod, IRCode> cache = new IdentityHashMap<>();
 
@@ -33,6 +34,7 @@ public class InliningIRProvider {
     this.lensCodeRewriter = null;
     this.valueNumberGenerator = null;
     this.methodProcessor = null;
+    this.inlineeTemplateCache = null;
   }
 
   public InliningIRProvider(
@@ -40,12 +42,14 @@ public class InliningIRProvider {
       ProgramMethod context,
       IRCode code,
       LensCodeRewriter lensCodeRewriter,
-      MethodProcessor methodProcessor) {
+      MethodProcessor methodProcessor,
+      InlineeTemplateCache inlineeTemplateCache) {
     this.appView = appView;
     this.context = context;
     this.lensCodeRewriter = lensCodeRewriter;
     this.valueNumberGenerator = code.valueNumberGenerator;
     this.methodProcessor = methodProcessor;
+    this.inlineeTemplateCache = inlineeTemplateCache;
   }
 
   public static InliningIRProvider getThrowingInstance() {
@@ -82,16 +86,22 @@ public class InliningIRProvider {
     if (cached != null) {
       return cached;
     }
+    Position callerPosition = Position.getPositionForInlining(invoke, context);
+    boolean shouldApplyCodeRewritings =
+        lensCodeRewriter != null && methodProcessor.shouldApplyCodeRewritings(method);
+    if (shouldApplyCodeRewritings) {
+      IRCode code =
+          inlineeTemplateCache.getInliningIR(
+              method, valueNumberGenerator, callerPosition, methodProcessor);
+      if (code != null) {
+        return code;
+      }
+    }
     Origin origin = method.getOrigin();
     IRCode code =
         method.buildInliningIR(
-            context,
-            appView,
-            valueNumberGenerator,
-            Position.getPositionForInlining(invoke, context),
-            origin,
-            methodProcessor);
-    if (lensCodeRewriter != null && methodProcessor.shouldApplyCodeRewritings(method)) {
+            context, appView, valueNumberGenerator, callerPosition, origin, methodProcessor);
+    if (shouldApplyCodeRewritings) {
       lensCodeRewriter.rewrite(code, method, methodProcessor);
     }
     return code;
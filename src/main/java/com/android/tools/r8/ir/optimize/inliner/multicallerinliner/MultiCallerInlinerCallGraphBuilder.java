@@ -18,7 +18,7 @@ public class MultiCallerInlinerCallGraphBuilder
     extends CallGraphBuilderBase<MultiCallerInlinerNode> {
 
   MultiCallerInlinerCallGraphBuilder(AppView<AppInfoWithLiveness> appView) {
-    super(appView);
+    super(appView, appView.programMemberIndex());
   }
 
   @Override
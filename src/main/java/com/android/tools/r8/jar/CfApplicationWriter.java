@@ -59,6 +59,8 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Predicate;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.ClassReader;
@@ -105,15 +107,17 @@ public class CfApplicationWriter {
     return appView.getNamingLens();
   }
 
-  public void write(ClassFileConsumer consumer) {
+  public void write(ClassFileConsumer consumer) throws ExecutionException {
     assert options.mapConsumer == null;
-    write(consumer, null);
+    write(consumer, null, null);
   }
 
-  public void write(ClassFileConsumer consumer, AndroidApp inputApp) {
+  public void write(
+      ClassFileConsumer consumer, AndroidApp inputApp, ExecutorService executorService)
+      throws ExecutionException {
     timing.begin("CfApplicationWriter.write");
     try {
-      writeApplication(inputApp, consumer);
+      writeApplication(inputApp, consumer, executorService);
     } finally {
       timing.end();
     }
@@ -130,7 +134,9 @@ public class CfApplicationWriter {
     return true;
   }
 
-  private void writeApplication(AndroidApp inputApp, ClassFileConsumer consumer) {
+  private void writeApplication(
+      AndroidApp inputApp, ClassFileConsumer consumer, ExecutorService executorService)
+      throws ExecutionException {
     ProguardMapId proguardMapId = null;
     if (options.mapConsumer != null) {
       assert marker.isPresent();
@@ -140,7 +146,8 @@ public class CfApplicationWriter {
               appView,
               timing,
               OriginalSourceFiles.fromClasses(),
-              DebugRepresentation.none(options));
+              DebugRepresentation.none(options),
+              executorService);
       marker.get().setPgMapId(proguardMapId.getId());
     }
     Optional<String> markerString = marker.filter(this::includeMarker).map(Marker::toString);
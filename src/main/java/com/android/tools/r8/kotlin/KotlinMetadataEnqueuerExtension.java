@@ -26,8 +26,11 @@ import com.android.tools.r8.ir.optimize.info.OptimizationFeedbackSimple;
 import com.android.tools.r8.shaking.Enqueuer;
 import com.android.tools.r8.shaking.Enqueuer.EnqueuerDefinitionSupplier;
 import com.android.tools.r8.shaking.KeepClassInfo;
-import com.google.common.collect.Sets;
+import com.android.tools.r8.utils.Timing;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class KotlinMetadataEnqueuerExtension extends EnqueuerAnalysis {
@@ -54,7 +57,8 @@ public class KotlinMetadataEnqueuerExtension extends EnqueuerAnalysis {
 
   @Override
   @SuppressWarnings("ReferenceEquality")
-  public void done(Enqueuer enqueuer) {
+  public void done(Enqueuer enqueuer, ExecutorService executorService, Timing timing)
+      throws ExecutionException {
     // In the first round of tree shaking build up all metadata such that it can be traced later.
     boolean keepKotlinMetadata =
         KeepClassInfo.isKotlinMetadataClassKept(
@@ -64,9 +68,12 @@ public class KotlinMetadataEnqueuerExtension extends EnqueuerAnalysis {
             enqueuer::getKeepInfo);
     // In the first round of tree shaking build up all metadata such that it can be traced later.
     if (enqueuer.getMode().isInitialTreeShaking()) {
-      Set<DexMethod> keepByteCodeFunctions = Sets.newIdentityHashSet();
-      Set<DexProgramClass> localOrAnonymousClasses = Sets.newIdentityHashSet();
-      enqueuer.forAllLiveClasses(
+      Set<DexMethod> keepByteCodeFunctions = ConcurrentHashMap.newKeySet();
+      Set<DexProgramClass> localOrAnonymousClasses = ConcurrentHashMap.newKeySet();
+      // Parsing the kotlin.Metadata of a class only depends on the class itself and the final keep
+      // info, so all live classes can be processed concurrently.
+      timing.begin("Read kotlin metadata");
+      enqueuer.forAllLiveClassesConcurrently(
           clazz -> {
             assert clazz.getKotlinInfo().isNoKotlinInformation();
             if (enqueuer
@@ -94,7 +101,9 @@ public class KotlinMetadataEnqueuerExtension extends EnqueuerAnalysis {
                 localOrAnonymousClasses.add(clazz);
               }
             }
-          });
+          },
+          executorService);
+      timing.end();
       for (DexProgramClass localOrAnonymousClass : localOrAnonymousClasses) {
         EnclosingMethodAttribute enclosingAttribute =
             localOrAnonymousClass.getEnclosingMethodAttribute();
@@ -118,7 +127,8 @@ public class KotlinMetadataEnqueuerExtension extends EnqueuerAnalysis {
       }
     } else {
       assert enqueuer.getMode().isFinalTreeShaking();
-      enqueuer.forAllLiveClasses(
+      timing.begin("Strip kotlin metadata");
+      enqueuer.forAllLiveClassesConcurrently(
           clazz -> {
             if (enqueuer
                 .getKeepInfo(clazz)
@@ -138,9 +148,13 @@ public class KotlinMetadataEnqueuerExtension extends EnqueuerAnalysis {
                       + " "
                       + (clazz.getKotlinInfo() == getNoKotlinInfo() ? "no info" : "has info");
             }
-          });
+          },
+          executorService);
+      timing.end();
     }
-    // Trace through the modeled kotlin metadata.
+    // Trace through the modeled kotlin metadata. This looks up definitions through the Enqueuer and
+    // must therefore be done on a single thread.
+    timing.begin("Trace kotlin metadata");
     enqueuer.forAllLiveClasses(
         clazz -> {
           clazz.getKotlinInfo().trace(definitionsForContext(clazz));
@@ -148,6 +162,7 @@ public class KotlinMetadataEnqueuerExtension extends EnqueuerAnalysis {
               member ->
                   member.getDefinition().getKotlinInfo().trace(definitionsForContext(member)));
         });
+    timing.end();
   }
 
   public class KotlinMetadataDefinitionSupplier implements DexDefinitionSupplier {
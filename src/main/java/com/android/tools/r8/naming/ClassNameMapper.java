@@ -16,10 +16,12 @@ import com.android.tools.r8.naming.MemberNaming.MethodSignature;
 import com.android.tools.r8.naming.MemberNaming.Signature;
 import com.android.tools.r8.naming.mappinginformation.MapVersionMappingInformation;
 import com.android.tools.r8.position.Position;
+import com.android.tools.r8.threading.ThreadingModule;
 import com.android.tools.r8.utils.BiMapContainer;
 import com.android.tools.r8.utils.ChainableStringConsumer;
 import com.android.tools.r8.utils.DescriptorUtils;
 import com.android.tools.r8.utils.Reporter;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableMap;
@@ -30,6 +32,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -41,10 +44,15 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
 public class ClassNameMapper implements ProguardMap {
 
+  private static final int WRITE_CHUNK_SIZE = 256;
+  private static final int WRITE_CHUNKS_PER_WINDOW = 16;
+
   public enum MissingFileAction {
     MISSING_FILE_IS_EMPTY_MAP,
     MISSING_FILE_IS_ERROR
@@ -59,15 +67,21 @@ public class ClassNameMapper implements ProguardMap {
     private final LinkedHashSet<MapVersionMappingInformation> mapVersions = new LinkedHashSet<>();
     private final Map<String, String> originalSourceFiles = new HashMap<>();
 
+    // Class naming builders can be created and populated concurrently, see
+    // MappedPositionToClassNameMapperBuilder.
     @Override
-    public ClassNamingForNameMapper.Builder classNamingBuilder(
+    public synchronized ClassNamingForNameMapper.Builder classNamingBuilder(
         String renamedName, String originalName, Position position) {
       ClassNamingForNameMapper.Builder classNamingBuilder =
-          ClassNamingForNameMapper.builder(renamedName, originalName, originalSourceFiles::put);
+          ClassNamingForNameMapper.builder(renamedName, originalName, this::addOriginalSourceFile);
       mapping.put(renamedName, classNamingBuilder);
       return classNamingBuilder;
     }
 
+    private synchronized void addOriginalSourceFile(String originalName, String fileName) {
+      originalSourceFiles.put(originalName, fileName);
+    }
+
     public Builder setBuildPreamble(boolean buildPreamble) {
       this.buildPreamble = buildPreamble;
       return this;
@@ -85,12 +99,12 @@ public class ClassNameMapper implements ProguardMap {
       }
     }
 
-    public boolean hasMapping(String obfuscatedName) {
+    public synchronized boolean hasMapping(String obfuscatedName) {
       return mapping.containsKey(obfuscatedName);
     }
 
     @Override
-    public ClassNameMapper build() {
+    public synchronized ClassNameMapper build() {
       return new ClassNameMapper(
           buildClassNameMappings(), mapVersions, originalSourceFiles, preamble);
     }
@@ -113,7 +127,7 @@ public class ClassNameMapper implements ProguardMap {
 
     @Override
     ProguardMap.Builder addFileName(String originalName, String fileName) {
-      originalSourceFiles.put(originalName, fileName);
+      addOriginalSourceFile(originalName, fileName);
       return this;
     }
   }
@@ -402,6 +416,50 @@ public class ClassNameMapper implements ProguardMap {
     }
   }
 
+  /**
+   * Writes the same content as {@link #write(ChainableStringConsumer)}, rendering chunks of class
+   * namings in parallel.
+   *
+   * <p>The chunks are rendered a bounded window at a time and passed to the consumer in order, such
+   * that the full map is never held in memory.
+   */
+  public void write(
+      ChainableStringConsumer consumer,
+      ThreadingModule threadingModule,
+      ExecutorService executorService)
+      throws ExecutionException {
+    if (executorService == null || classNameMappings.size() <= WRITE_CHUNK_SIZE) {
+      write(consumer);
+      return;
+    }
+    assert verifyIsSorted();
+    List<ClassNamingForNameMapper> namings = new ArrayList<>(classNameMappings.values());
+    int windowSize = WRITE_CHUNK_SIZE * WRITE_CHUNKS_PER_WINDOW;
+    for (int windowStart = 0; windowStart < namings.size(); windowStart += windowSize) {
+      int windowEnd = Math.min(windowStart + windowSize, namings.size());
+      List<Integer> chunkStarts = new ArrayList<>(WRITE_CHUNKS_PER_WINDOW);
+      for (int start = windowStart; start < windowEnd; start += WRITE_CHUNK_SIZE) {
+        chunkStarts.add(start);
+      }
+      Collection<String> chunks =
+          ThreadUtils.processItemsWithResults(
+              chunkStarts,
+              start -> {
+                StringBuilder builder = new StringBuilder();
+                ChainableStringConsumer chunkConsumer =
+                    ChainableStringConsumer.wrap(builder::append);
+                int end = Math.min(start + WRITE_CHUNK_SIZE, windowEnd);
+                for (int i = start; i < end; i++) {
+                  namings.get(i).write(chunkConsumer);
+                }
+                return builder.toString();
+              },
+              threadingModule,
+              executorService);
+      chunks.forEach(consumer::accept);
+    }
+  }
+
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder();
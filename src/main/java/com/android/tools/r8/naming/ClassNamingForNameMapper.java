@@ -29,6 +29,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -603,10 +604,11 @@ public class ClassNamingForNameMapper implements ClassNaming {
    */
   public static class MappedRange implements MappingWithResidualInfo {
 
-    private static int nextSequenceNumber = 0;
+    // Mapped ranges of different classes are created concurrently by the line number optimizer.
+    private static final AtomicInteger nextSequenceNumber = new AtomicInteger();
 
-    private synchronized int getNextSequenceNumber() {
-      return nextSequenceNumber++;
+    private static int getNextSequenceNumber() {
+      return nextSequenceNumber.getAndIncrement();
     }
 
     public final Range minifiedRange; // Can be null, if so then originalRange must also be null.
@@ -19,14 +19,17 @@ import com.android.tools.r8.graph.TopDownClassHierarchyTraversal;
 import com.android.tools.r8.shaking.AppInfoWithLiveness;
 import com.android.tools.r8.utils.ConsumerUtils;
 import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.ListUtils;
 import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
+import com.android.tools.r8.utils.Timing.TimingMerger;
 import com.android.tools.r8.utils.WorkList;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -215,7 +218,7 @@ class MethodNameMinifier {
     timing.end();
     // Phase 4: Assign names top-down by traversing the subtype hierarchy.
     timing.begin("Phase 4");
-    assignNamesToClassesMethods();
+    assignNamesToClassesMethods(executorService, timing);
     renameMethodsInUnrelatedClasspathClasses();
     timing.end();
     timing.begin("Phase 5: non-rebound references");
@@ -225,7 +228,42 @@ class MethodNameMinifier {
     return new MethodRenaming(renaming);
   }
 
-  private void assignNamesToClassesMethods() {
+  private void assignNamesToClassesMethods(ExecutorService executorService, Timing timing)
+      throws ExecutionException {
+    Collection<MethodNamingComponent> components = computeMethodNamingComponents();
+    TimingMerger merger = timing.beginMerger("Assign names to components", executorService);
+    Collection<MethodNamingComponent> results =
+        ThreadUtils.processItemsWithResults(
+            components,
+            component -> {
+              component.assignNames(appView.options());
+              return component;
+            },
+            appView.options().getThreadingModule(),
+            executorService);
+    for (MethodNamingComponent component : results) {
+      renaming.putAll(component.renaming);
+    }
+    merger.add(ListUtils.map(results, component -> component.timing));
+    merger.end();
+  }
+
+  /**
+   * Allocates the naming states of all program classes top-down and partitions the classes into
+   * components that can be named independently.
+   *
+   * <p>The naming of the methods of a class only updates the naming state of the class, but it reads
+   * the naming states of all its supertypes. A class is therefore placed in the same component as
+   * the closest supertype whose methods are renamed in this phase. The classes whose methods are not
+   * renamed, such as library classes, are not part of any component. Their naming states are shared
+   * by the components and are not updated, except for the lazy creation of their internal states.
+   * The classes of a component are named in top-down order, thus the computed names are the same as
+   * when all classes are named on a single thread.
+   */
+  private Collection<MethodNamingComponent> computeMethodNamingComponents() {
+    Map<MethodNamingState<?>, MethodNamingComponent> componentForNamingState =
+        new IdentityHashMap<>();
+    List<MethodNamingComponent> components = new ArrayList<>();
     TopDownClassHierarchyTraversal.forAllClasses(appView)
         .excludeInterfaces()
         .visit(
@@ -243,12 +281,56 @@ class MethodNameMinifier {
                           namingStates
                               .getOrDefault(clazz.superType, rootNamingState)
                               .createChild(reservationState));
-              if (strategy.allowMemberRenaming(clazz)) {
-                for (DexEncodedMethod method : clazz.allMethodsSorted()) {
-                  assignNameToMethod(clazz, method, namingState);
-                }
+              if (!strategy.allowMemberRenaming(clazz)) {
+                // The naming state is shared by the components of the subclasses and only read.
+                return;
               }
+              MethodNamingComponent component = null;
+              for (MethodNamingState<?> parentNamingState = namingState.getParentNamingState();
+                  parentNamingState != null && component == null;
+                  parentNamingState = parentNamingState.getParentNamingState()) {
+                component = componentForNamingState.get(parentNamingState);
+              }
+              if (component == null) {
+                component = new MethodNamingComponent(clazz);
+                components.add(component);
+              }
+              component.add(clazz, namingState);
+              componentForNamingState.put(namingState, component);
             });
+    return components;
+  }
+
+  private class MethodNamingComponent {
+
+    private final DexClass root;
+    private final List<DexClass> classes = new ArrayList<>();
+    private final List<MethodNamingState<?>> classNamingStates = new ArrayList<>();
+    private final Map<DexMethod, DexString> renaming = new IdentityHashMap<>();
+
+    private Timing timing;
+
+    MethodNamingComponent(DexClass root) {
+      this.root = root;
+    }
+
+    void add(DexClass clazz, MethodNamingState<?> namingState) {
+      classes.add(clazz);
+      classNamingStates.add(namingState);
+    }
+
+    void assignNames(InternalOptions options) {
+      timing = Timing.create("Component " + root.getTypeName(), options);
+      for (int i = 0; i < classes.size(); i++) {
+        DexClass clazz = classes.get(i);
+        if (strategy.allowMemberRenaming(clazz)) {
+          for (DexEncodedMethod method : clazz.allMethodsSorted()) {
+            assignNameToMethod(clazz, method, classNamingStates.get(i), renaming);
+          }
+        }
+      }
+      timing.end();
+    }
   }
 
   @SuppressWarnings("ReferenceEquality")
@@ -270,7 +352,10 @@ class MethodNameMinifier {
 
   @SuppressWarnings("ReferenceEquality")
   private void assignNameToMethod(
-      DexClass holder, DexEncodedMethod method, MethodNamingState<?> state) {
+      DexClass holder,
+      DexEncodedMethod method,
+      MethodNamingState<?> state,
+      Map<DexMethod, DexString> renaming) {
     if (method.isInitializer()) {
       return;
     }
@@ -45,6 +45,10 @@ class MethodNamingState<KeyType> extends MethodNamingStateBase<KeyType, Internal
         this, this.keyTransform, this.namingStrategy, frontierReservationState);
   }
 
+  MethodNamingState<KeyType> getParentNamingState() {
+    return parentNamingState;
+  }
+
   DexString newOrReservedNameFor(DexEncodedMethod method) {
     return newOrReservedNameFor(method, this::isAvailable);
   }
@@ -5,28 +5,37 @@
 package com.android.tools.r8.naming;
 
 import com.android.tools.r8.graph.DexMethod;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 abstract class MethodNamingStateBase<KeyType, InternalState> {
 
-  final Map<KeyType, InternalState> internalStates;
+  // Key used for methods whose key transform is null, as concurrent maps do not allow null keys.
+  private static final Object NULL_KEY = new Object();
+
+  // The internal states are concurrent as the states of shared supertypes are created lazily when
+  // methods of independent subtypes are named in parallel.
+  final Map<Object, InternalState> internalStates;
   final Function<DexMethod, KeyType> keyTransform;
 
   MethodNamingStateBase(Function<DexMethod, KeyType> keyTransform) {
     this.keyTransform = keyTransform;
-    this.internalStates = new HashMap<>();
+    this.internalStates = new ConcurrentHashMap<>();
   }
 
   final InternalState getInternalState(DexMethod method) {
-    KeyType internalStateKey = keyTransform.apply(method);
-    return internalStates.get(internalStateKey);
+    return internalStates.get(getInternalStateKey(method));
   }
 
   final InternalState getOrCreateInternalState(DexMethod method) {
+    return internalStates.computeIfAbsent(
+        getInternalStateKey(method), key -> createInternalState(method));
+  }
+
+  private Object getInternalStateKey(DexMethod method) {
     KeyType internalStateKey = keyTransform.apply(method);
-    return internalStates.computeIfAbsent(internalStateKey, key -> createInternalState(method));
+    return internalStateKey != null ? internalStateKey : NULL_KEY;
   }
 
   abstract InternalState createInternalState(DexMethod method);
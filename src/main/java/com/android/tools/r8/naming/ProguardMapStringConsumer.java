@@ -6,8 +6,11 @@ package com.android.tools.r8.naming;
 
 import com.android.tools.r8.DiagnosticsHandler;
 import com.android.tools.r8.StringConsumer;
+import com.android.tools.r8.threading.ThreadingModule;
 import com.android.tools.r8.utils.ChainableStringConsumer;
 import com.android.tools.r8.utils.StringUtils;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 /***
  * Default implementation of a MapConsumer that wraps around a string consumer for streamed string
@@ -34,6 +37,20 @@ public class ProguardMapStringConsumer implements MapConsumer, ChainableStringCo
     classNameMapper.write(this);
   }
 
+  /** Writes the same content as the accept method above, rendering the map in parallel. */
+  void accept(
+      DiagnosticsHandler diagnosticsHandler,
+      ProguardMapMarkerInfo markerInfo,
+      ClassNameMapper classNameMapper,
+      ThreadingModule threadingModule,
+      ExecutorService executorService)
+      throws ExecutionException {
+    this.diagnosticsHandler = diagnosticsHandler;
+    accept(markerInfo.serializeToString());
+    accept(StringUtils.unixLines(classNameMapper.getPreamble()));
+    classNameMapper.write(this, threadingModule, executorService);
+  }
+
   @Override
   public ChainableStringConsumer accept(String string) {
     assert diagnosticsHandler != null;
@@ -13,6 +13,8 @@ import com.android.tools.r8.utils.Reporter;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 public class ProguardMapSupplier {
 
@@ -46,8 +48,13 @@ public class ProguardMapSupplier {
   private final MapConsumer consumer;
   private final Reporter reporter;
   private final Tool compiler;
+  private final ExecutorService executorService;
 
-  private ProguardMapSupplier(ClassNameMapper classNameMapper, Tool tool, InternalOptions options) {
+  private ProguardMapSupplier(
+      ClassNameMapper classNameMapper,
+      Tool tool,
+      InternalOptions options,
+      ExecutorService executorService) {
     assert classNameMapper != null;
     this.classNameMapper = classNameMapper.sorted();
     // TODO(b/217111432): Validate Proguard using ProguardMapChecker without building the entire
@@ -56,33 +63,48 @@ public class ProguardMapSupplier {
     this.options = options;
     this.reporter = options.reporter;
     this.compiler = tool;
+    this.executorService = executorService;
   }
 
   public static ProguardMapSupplier create(
       ClassNameMapper classNameMapper, InternalOptions options) {
+    return create(classNameMapper, options, null);
+  }
+
+  /**
+   * Creates a supplier that renders the map in parallel on the given executor, if the executor is
+   * non-null.
+   */
+  public static ProguardMapSupplier create(
+      ClassNameMapper classNameMapper, InternalOptions options, ExecutorService executorService) {
     assert options.tool != null;
-    return new ProguardMapSupplier(classNameMapper, options.tool, options);
+    return new ProguardMapSupplier(classNameMapper, options.tool, options, executorService);
   }
 
-  public ProguardMapId writeProguardMap() {
+  public ProguardMapId writeProguardMap() throws ExecutionException {
     ProguardMapId proguardMapId = computeProguardMapId();
-    consumer.accept(
-        reporter,
+    ProguardMapMarkerInfo markerInfo =
         ProguardMapMarkerInfo.builder()
             .setCompilerName(compiler.name())
             .setProguardMapId(proguardMapId)
             .setGeneratingDex(options.isGeneratingDex())
             .setApiLevel(options.getMinApiLevel())
             .setMapVersion(options.getMapFileVersion())
-            .build(),
-        classNameMapper);
+            .build();
+    if (consumer instanceof ProguardMapStringConsumer) {
+      ((ProguardMapStringConsumer) consumer)
+          .accept(
+              reporter, markerInfo, classNameMapper, options.getThreadingModule(), executorService);
+    } else {
+      consumer.accept(reporter, markerInfo, classNameMapper);
+    }
     ExceptionUtils.withConsumeResourceHandler(reporter, this.consumer::finished);
     return proguardMapId;
   }
 
-  private ProguardMapId computeProguardMapId() {
+  private ProguardMapId computeProguardMapId() throws ExecutionException {
     ProguardMapIdBuilder builder = new ProguardMapIdBuilder();
-    classNameMapper.write(builder);
+    classNameMapper.write(builder, options.getThreadingModule(), executorService);
     return builder.build(options.mapIdProvider);
   }
 
@@ -11,25 +11,31 @@ import com.android.tools.r8.references.ClassReference;
 import com.android.tools.r8.references.MethodReference;
 import com.android.tools.r8.references.Reference;
 import com.android.tools.r8.references.TypeReference;
-import com.android.tools.r8.utils.Action;
 import com.android.tools.r8.utils.DescriptorUtils;
-import com.android.tools.r8.utils.MethodReferenceUtils;
 import com.android.tools.r8.utils.Reporter;
-import it.unimi.dsi.fastutil.chars.CharArraySet;
-import it.unimi.dsi.fastutil.chars.CharSet;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 public class HumanReadableArtProfileParser {
 
+  private static final int FLAG_HOT = 1;
+  private static final int FLAG_STARTUP = 2;
+  private static final int FLAG_POST_STARTUP = 4;
+
   private final Consumer<HumanReadableArtProfileParserErrorDiagnostic> diagnosticConsumer;
   private final ArtProfileBuilder profileBuilder;
   private final ArtProfileRulePredicate rulePredicate;
   private final Reporter reporter;
 
+  private final Map<String, TypeReference> typeReferenceCache = new HashMap<>();
+
   HumanReadableArtProfileParser(
       Consumer<HumanReadableArtProfileParserErrorDiagnostic> diagnosticConsumer,
       ArtProfileBuilder profileBuilder,
@@ -52,8 +58,8 @@ public class HumanReadableArtProfileParser {
                   textInputStream.getInputStream(), textInputStream.getCharset());
           BufferedReader bufferedReader = new BufferedReader(inputStreamReader)) {
         int lineNumber = 1;
-        while (bufferedReader.ready()) {
-          String line = bufferedReader.readLine();
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
           String lineWithoutComment = removeCommentFromLine(line);
           if (isWhitespace(lineWithoutComment)) {
             // Skip.
@@ -62,6 +68,9 @@ public class HumanReadableArtProfileParser {
           }
           lineNumber++;
         }
+      } finally {
+        // The type references are only shared within a single profile.
+        typeReferenceCache.clear();
       }
       if (reporter != null) {
         reporter.failIfPendingErrors();
@@ -100,23 +109,42 @@ public class HumanReadableArtProfileParser {
 
   private static String parseFlags(
       String rule, ArtProfileMethodRuleInfoImpl.Builder methodRuleInfoBuilder) {
-    CharSet seenFlags = new CharArraySet(3);
-    String previousRule;
-    do {
-      previousRule = rule;
-      rule = parseFlagIfNotSeen(rule, 'H', methodRuleInfoBuilder::setIsHot, seenFlags);
-      rule = parseFlagIfNotSeen(rule, 'S', methodRuleInfoBuilder::setIsStartup, seenFlags);
-      rule = parseFlagIfNotSeen(rule, 'P', methodRuleInfoBuilder::setIsPostStartup, seenFlags);
-    } while (!rule.equals(previousRule));
-    return rule;
+    // Each flag may occur at most once, in any order, at the start of the rule.
+    int seenFlags = 0;
+    int index = 0;
+    for (; index < rule.length(); index++) {
+      int flag = getFlag(rule.charAt(index));
+      if (flag == 0 || (seenFlags & flag) != 0) {
+        break;
+      }
+      seenFlags |= flag;
+    }
+    if (seenFlags == 0) {
+      return rule;
+    }
+    if ((seenFlags & FLAG_HOT) != 0) {
+      methodRuleInfoBuilder.setIsHot();
+    }
+    if ((seenFlags & FLAG_STARTUP) != 0) {
+      methodRuleInfoBuilder.setIsStartup();
+    }
+    if ((seenFlags & FLAG_POST_STARTUP) != 0) {
+      methodRuleInfoBuilder.setIsPostStartup();
+    }
+    return rule.substring(index);
   }
 
-  private static String parseFlagIfNotSeen(String rule, char c, Action action, CharSet seenFlags) {
-    if (!rule.isEmpty() && rule.charAt(0) == c && seenFlags.add(c)) {
-      action.execute();
-      return rule.substring(1);
+  private static int getFlag(char c) {
+    switch (c) {
+      case 'H':
+        return FLAG_HOT;
+      case 'S':
+        return FLAG_STARTUP;
+      case 'P':
+        return FLAG_POST_STARTUP;
+      default:
+        return 0;
     }
-    return rule;
   }
 
   private boolean parseClassOrMethodRule(String rule, ArtProfileMethodRuleInfoImpl methodRuleInfo) {
@@ -149,24 +177,11 @@ public class HumanReadableArtProfileParser {
   private boolean parseMethodRule(
       String rule, ArtProfileMethodRuleInfoImpl methodRuleInfo, int arrowStartIndex) {
     int inlineCacheStartIndex = rule.indexOf('+', arrowStartIndex + 2);
-    String descriptor = inlineCacheStartIndex > 0 ? rule.substring(0, inlineCacheStartIndex) : rule;
-    MethodReference methodReference =
-        MethodReferenceUtils.parseSmaliString(descriptor, arrowStartIndex);
+    int endIndex = inlineCacheStartIndex > 0 ? inlineCacheStartIndex : rule.length();
+    MethodReference methodReference = parseMethodReference(rule, arrowStartIndex, endIndex);
     if (methodReference == null) {
       return false;
     }
-    if (!DescriptorUtils.isValidClassDescriptor(methodReference.getHolderClass().getDescriptor())) {
-      return false;
-    }
-    for (TypeReference formalType : methodReference.getFormalTypes()) {
-      if (!DescriptorUtils.isValidDescriptor(formalType.getDescriptor())) {
-        return false;
-      }
-    }
-    if (methodReference.getReturnType() != null
-        && !DescriptorUtils.isValidDescriptor(methodReference.getReturnType().getDescriptor())) {
-      return false;
-    }
     if (rulePredicate.testMethodRule(methodReference, methodRuleInfo)) {
       profileBuilder.addMethodRule(
           methodRuleBuilder ->
@@ -182,6 +197,72 @@ public class HumanReadableArtProfileParser {
     return true;
   }
 
+  // Parses the method in rule[0:endIndex] without materializing the proto descriptor. Type
+  // references are shared between the rules of the profile, since most rules refer to the same
+  // (few) holders and parameter types.
+  private MethodReference parseMethodReference(String rule, int arrowStartIndex, int endIndex) {
+    TypeReference holder = parseTypeReference(rule, 0, arrowStartIndex);
+    if (holder == null || !holder.isClass()) {
+      return null;
+    }
+    int methodNameStartIndex = arrowStartIndex + 2;
+    int protoStartIndex = rule.indexOf('(', methodNameStartIndex);
+    if (protoStartIndex <= methodNameStartIndex || protoStartIndex >= endIndex) {
+      return null;
+    }
+    String methodName = rule.substring(methodNameStartIndex, protoStartIndex);
+    List<TypeReference> formalTypes = new ArrayList<>();
+    int index = protoStartIndex + 1;
+    while (index < endIndex && rule.charAt(index) != ')') {
+      int typeEndIndex = index;
+      while (typeEndIndex < endIndex && rule.charAt(typeEndIndex) == '[') {
+        typeEndIndex++;
+      }
+      if (typeEndIndex < endIndex && rule.charAt(typeEndIndex) == 'L') {
+        typeEndIndex = rule.indexOf(';', typeEndIndex);
+        if (typeEndIndex < 0 || typeEndIndex >= endIndex) {
+          return null;
+        }
+      }
+      typeEndIndex++;
+      TypeReference formalType = parseTypeReference(rule, index, typeEndIndex);
+      if (formalType == null) {
+        return null;
+      }
+      formalTypes.add(formalType);
+      index = typeEndIndex;
+    }
+    if (index >= endIndex) {
+      return null;
+    }
+    TypeReference returnType;
+    if (endIndex - index == 2 && rule.charAt(index + 1) == 'V') {
+      returnType = null;
+    } else {
+      returnType = parseTypeReference(rule, index + 1, endIndex);
+      if (returnType == null) {
+        return null;
+      }
+    }
+    return Reference.method(holder.asClass(), methodName, formalTypes, returnType);
+  }
+
+  private TypeReference parseTypeReference(String rule, int startIndex, int endIndex) {
+    if (startIndex >= endIndex || endIndex > rule.length()) {
+      return null;
+    }
+    String descriptor = rule.substring(startIndex, endIndex);
+    TypeReference typeReference = typeReferenceCache.get(descriptor);
+    if (typeReference == null) {
+      if (!DescriptorUtils.isValidDescriptor(descriptor)) {
+        return null;
+      }
+      typeReference = Reference.typeFromDescriptor(descriptor);
+      typeReferenceCache.put(descriptor, typeReference);
+    }
+    return typeReference;
+  }
+
   private static String removeCommentFromLine(String line) {
     int commentStartIndex = line.indexOf('#');
     if (commentStartIndex >= 0) {
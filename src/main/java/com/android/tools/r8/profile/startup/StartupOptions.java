@@ -49,6 +49,13 @@ public class StartupOptions {
   private boolean enableStartupLayoutOptimizations =
       parseSystemPropertyOrDefault("com.android.tools.r8.startup.layout", true);
 
+  /**
+   * When enabled, the number of pages touched by startup items is reported for each dex file that
+   * is written using the startup layout, along with an estimate for the default layout.
+   */
+  private boolean enableStartupLayoutPageReport =
+      parseSystemPropertyOrDefault("com.android.tools.r8.startup.layout.pagereport", false);
+
   private String multiStartupDexDistributionStrategyName =
       getSystemPropertyOrDefault("com.android.tools.r8.startup.multistartupdexdistribution", null);
 
@@ -88,6 +95,21 @@ public class StartupOptions {
     return enableStartupLayoutOptimizations;
   }
 
+  public StartupOptions setEnableStartupLayoutOptimizations(
+      boolean enableStartupLayoutOptimizations) {
+    this.enableStartupLayoutOptimizations = enableStartupLayoutOptimizations;
+    return this;
+  }
+
+  public boolean isStartupLayoutPageReportEnabled() {
+    return enableStartupLayoutPageReport;
+  }
+
+  public StartupOptions setEnableStartupLayoutPageReport(boolean enableStartupLayoutPageReport) {
+    this.enableStartupLayoutPageReport = enableStartupLayoutPageReport;
+    return this;
+  }
+
   public boolean isStartupCompletenessCheckForTestingEnabled() {
     return enableStartupCompletenessCheckForTesting;
   }
@@ -74,6 +74,13 @@ public class Relocator {
       throws IOException {
     Timing timing = Timing.create("Relocator", options);
     try {
+      if (command.isStreaming()) {
+        timing.begin("Streaming relocation");
+        StreamingRelocator.run(command, options, executor);
+        timing.end();
+        options.printWarnings();
+        return;
+      }
       DexApplication app = new ApplicationReader(inputApp, options, timing).read(executor);
       AppInfo appInfo =
           AppInfo.createInitialAppInfo(app, GlobalSyntheticsStrategy.forNonSynthesizing());
@@ -87,7 +94,11 @@ public class Relocator {
       throw unwrapExecutionException(e);
     } finally {
       inputApp.signalFinishedToProviders(options.reporter);
-      options.signalFinishedToConsumers();
+      // In streaming mode the output is written directly to the output path and the program
+      // consumer, which would otherwise overwrite it, is unused.
+      if (!command.isStreaming()) {
+        options.signalFinishedToConsumers();
+      }
       // Dump timings.
       if (options.printTimes) {
         timing.report();
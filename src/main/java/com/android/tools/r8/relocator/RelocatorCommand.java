@@ -39,6 +39,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 @KeepForApi
@@ -61,6 +62,8 @@ public class RelocatorCommand {
                   "  --output <file>         # Output result in <outfile>.",
                   "  --map <from->to>        # Registers a mapping.",
                   "  --thread-count <number> # A specified number of threads to run with.",
+                  "  --streaming             # Relocate archive entries one by one without",
+                  "                          # loading the entire input.",
                   "  --version               # Print the version of d8.",
                   "  --help                  # Print this message.")));
 
@@ -72,6 +75,9 @@ public class RelocatorCommand {
   private final AndroidApp app;
   private final RelocatorMapping mapping;
   private final int threadCount;
+  private final boolean streaming;
+  private final List<Path> programFiles;
+  private final Path outputPath;
 
   private RelocatorCommand(boolean printHelp, boolean printVersion) {
     this.printHelp = printHelp;
@@ -82,6 +88,9 @@ public class RelocatorCommand {
     app = null;
     mapping = null;
     threadCount = ThreadUtils.NOT_SPECIFIED;
+    streaming = false;
+    programFiles = null;
+    outputPath = null;
   }
 
   private RelocatorCommand(
@@ -90,7 +99,10 @@ public class RelocatorCommand {
       Reporter reporter,
       DexItemFactory factory,
       ClassFileConsumer consumer,
-      int threadCount) {
+      int threadCount,
+      boolean streaming,
+      List<Path> programFiles,
+      Path outputPath) {
     this.printHelp = false;
     this.printVersion = false;
     this.mapping = mapping;
@@ -99,6 +111,9 @@ public class RelocatorCommand {
     this.factory = factory;
     this.consumer = consumer;
     this.threadCount = threadCount;
+    this.streaming = streaming;
+    this.programFiles = programFiles;
+    this.outputPath = outputPath;
   }
 
   public static Builder builder() {
@@ -133,6 +148,18 @@ public class RelocatorCommand {
     return app;
   }
 
+  public boolean isStreaming() {
+    return streaming;
+  }
+
+  List<Path> getProgramFiles() {
+    return programFiles;
+  }
+
+  Path getOutputPath() {
+    return outputPath;
+  }
+
   public boolean isPrintHelp() {
     return printHelp;
   }
@@ -178,8 +205,11 @@ public class RelocatorCommand {
         ImmutableMap.builder();
     private final ImmutableMap.Builder<PackageReference, PackageReference> subPackageMapping =
         ImmutableMap.builder();
+    private final ImmutableList.Builder<Path> programFiles = ImmutableList.builder();
     private ClassFileConsumer consumer = null;
+    private Path outputPath = null;
     private int threadCount = ThreadUtils.NOT_SPECIFIED;
+    private boolean streaming = false;
     private boolean printVersion;
     private boolean printHelp;
 
@@ -206,6 +236,7 @@ public class RelocatorCommand {
      *     consumer / output.
      */
     public Builder setOutputPath(Path outputPath) {
+      this.outputPath = outputPath;
       if (outputPath == null) {
         this.consumer = null;
         return this;
@@ -214,6 +245,18 @@ public class RelocatorCommand {
       return this;
     }
 
+    /**
+     * Enable or disable streaming relocation.
+     *
+     * <p>In streaming mode the entries of each input are relocated one by one and written to the
+     * output archive in their original order, without loading the entire input into memory. This
+     * requires the output to be set using {@link #setOutputPath(Path)}.
+     */
+    public Builder setStreaming(boolean streaming) {
+      this.streaming = streaming;
+      return this;
+    }
+
     public Builder setPrintHelp(boolean printHelp) {
       this.printHelp = printHelp;
       return this;
@@ -251,6 +294,7 @@ public class RelocatorCommand {
             for (Path path : files) {
               try {
                 app.addProgramFile(path);
+                programFiles.add(path);
               } catch (CompilationError e) {
                 error(new PathOrigin(path), e);
               }
@@ -265,6 +309,7 @@ public class RelocatorCommand {
           () -> {
             try {
               app.addProgramFile(file);
+              programFiles.add(file);
             } catch (CompilationError e) {
               error(new PathOrigin(file), e);
             }
@@ -299,12 +344,15 @@ public class RelocatorCommand {
     public Builder setConsumer(ClassFileConsumer consumer) {
       // Setting an explicit program consumer resets any output-path/mode setup.
       this.consumer = consumer;
+      this.outputPath = null;
       return this;
     }
 
     private void validate() {
       if (consumer == null) {
         reporter.error(new StringDiagnostic("No output path or consumer has been specified"));
+      } else if (streaming && outputPath == null) {
+        reporter.error(new StringDiagnostic("Streaming relocation requires an output path"));
       }
     }
 
@@ -329,7 +377,10 @@ public class RelocatorCommand {
                     reporter,
                     factory,
                     consumer,
-                    threadCount));
+                    threadCount,
+                    streaming,
+                    programFiles.build(),
+                    outputPath));
           });
       return result.get();
     }
@@ -402,6 +453,9 @@ public class RelocatorCommand {
           case "--version":
             builder.setPrintVersion(true);
             break;
+          case "--streaming":
+            builder.setStreaming(true);
+            break;
           case "--output":
             assert nextArg != null;
             if (outputPath != null) {
@@ -35,6 +35,8 @@ public class RelocatorMapping {
 
   private final ConcurrentHashMap<String, PackageReference> stringToPackageReferenceCache =
       new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, String> relocatedBinaryNameCache =
+      new ConcurrentHashMap<>();
 
   private RelocatorMapping(
       ImmutableMap<PackageReference, PackageReference> packageMappings,
@@ -81,6 +83,80 @@ public class RelocatorMapping {
     return new RelocatorNamingLens(typeMappings, packageMappingForResourceRewriting, factory);
   }
 
+  /**
+   * Returns the relocated binary name of the class with the given binary name, or the binary name
+   * itself if the class is not relocated.
+   */
+  public String relocateBinaryName(String binaryName) {
+    return relocatedBinaryNameCache.computeIfAbsent(binaryName, this::computeRelocatedBinaryName);
+  }
+
+  private String computeRelocatedBinaryName(String binaryName) {
+    ClassReference directClassMapping =
+        classMappings.get(Reference.classFromBinaryName(binaryName));
+    if (directClassMapping != null) {
+      return directClassMapping.getBinaryName();
+    }
+    int lastIndexOfSeparator = binaryName.lastIndexOf(DescriptorUtils.DESCRIPTOR_PACKAGE_SEPARATOR);
+    if (lastIndexOfSeparator == -1) {
+      return binaryName;
+    }
+    String packageBinaryName = binaryName.substring(0, lastIndexOfSeparator);
+    String relocatedPackageBinaryName = relocatePackageBinaryName(packageBinaryName);
+    if (relocatedPackageBinaryName.equals(packageBinaryName)) {
+      return binaryName;
+    }
+    return relocatedPackageBinaryName.isEmpty()
+        ? binaryName.substring(lastIndexOfSeparator + 1)
+        : relocatedPackageBinaryName + binaryName.substring(lastIndexOfSeparator);
+  }
+
+  /**
+   * Returns the relocated binary name of the package with the given binary name, or the binary
+   * name itself if the package is not relocated.
+   */
+  public String relocatePackageBinaryName(String packageBinaryName) {
+    if (packageBinaryName.isEmpty()) {
+      return packageBinaryName;
+    }
+    PackageReference packageReference =
+        packageMappings.get(getPackageReference(binaryToPackageName(packageBinaryName)));
+    if (packageReference != null) {
+      return packageReference.getPackageBinaryName();
+    }
+    if (subPackageMappings.isEmpty()) {
+      return packageBinaryName;
+    }
+    // Find the closest enclosing package that has a sub-package mapping.
+    String currentPackageBinaryName = packageBinaryName;
+    while (true) {
+      PackageReference subPackageReference =
+          subPackageMappings.get(getPackageReference(binaryToPackageName(currentPackageBinaryName)));
+      if (subPackageReference != null) {
+        String suffix = packageBinaryName.substring(currentPackageBinaryName.length());
+        String target = subPackageReference.getPackageBinaryName();
+        if (target.isEmpty()) {
+          return suffix.isEmpty() ? suffix : suffix.substring(1);
+        }
+        return target + suffix;
+      }
+      if (currentPackageBinaryName.isEmpty()) {
+        return packageBinaryName;
+      }
+      int lastIndexOfSeparator =
+          currentPackageBinaryName.lastIndexOf(DescriptorUtils.DESCRIPTOR_PACKAGE_SEPARATOR);
+      currentPackageBinaryName =
+          lastIndexOfSeparator == -1
+              ? ""
+              : currentPackageBinaryName.substring(0, lastIndexOfSeparator);
+    }
+  }
+
+  private static String binaryToPackageName(String packageBinaryName) {
+    return packageBinaryName.replace(
+        DescriptorUtils.DESCRIPTOR_PACKAGE_SEPARATOR, DescriptorUtils.JAVA_PACKAGE_SEPARATOR);
+  }
+
   private PackageReference getPackageReference(String packageName) {
     return stringToPackageReferenceCache.computeIfAbsent(packageName, Reference::packageFromString);
   }
@@ -0,0 +1,249 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.relocator;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.DataResource;
+import com.android.tools.r8.errors.CompilationError;
+import com.android.tools.r8.graph.AppServices;
+import com.android.tools.r8.origin.ArchiveEntryOrigin;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.origin.PathOrigin;
+import com.android.tools.r8.utils.ArchiveBuilder;
+import com.android.tools.r8.utils.DescriptorUtils;
+import com.android.tools.r8.utils.ExceptionUtils;
+import com.android.tools.r8.utils.FileUtils;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.StringUtils;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.android.tools.r8.utils.ZipUtils;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.Remapper;
+
+/**
+ * Relocator that rewrites the entries of the input archives one by one using ASM.
+ *
+ * <p>Contrary to the {@link Relocator} this does not build an application, so memory use is bounded
+ * by the number of entries that are relocated concurrently. The entries are written to the output
+ * archive in the order they appear in the inputs.
+ */
+class StreamingRelocator {
+
+  // The number of entries that are read and relocated concurrently per thread before the result is
+  // written to the output.
+  private static final int ENTRIES_PER_THREAD_IN_WINDOW = 64;
+
+  private final RelocatorMapping mapping;
+  private final InternalOptions options;
+  private final ArchiveBuilder outputBuilder;
+  private final Remapper remapper;
+  private final int windowSize;
+
+  private int nextOutputIndex = 0;
+
+  private StreamingRelocator(
+      RelocatorMapping mapping,
+      InternalOptions options,
+      ArchiveBuilder outputBuilder,
+      ExecutorService executorService) {
+    this.mapping = mapping;
+    this.options = options;
+    this.outputBuilder = outputBuilder;
+    this.remapper = new RelocatorRemapper(mapping);
+    this.windowSize =
+        Math.max(1, ThreadUtils.getNumberOfThreads(executorService)) * ENTRIES_PER_THREAD_IN_WINDOW;
+  }
+
+  static void run(
+      RelocatorCommand command, InternalOptions options, ExecutorService executorService)
+      throws IOException, ExecutionException {
+    assert command.getOutputPath() != null;
+    ArchiveBuilder outputBuilder = new ArchiveBuilder(command.getOutputPath());
+    outputBuilder.open();
+    try {
+      StreamingRelocator relocator =
+          new StreamingRelocator(command.getMapping(), options, outputBuilder, executorService);
+      for (Path programFile : command.getProgramFiles()) {
+        relocator.relocate(programFile, executorService);
+      }
+    } finally {
+      outputBuilder.close(options.reporter);
+    }
+  }
+
+  private void relocate(Path programFile, ExecutorService executorService)
+      throws IOException, ExecutionException {
+    Origin origin = new PathOrigin(programFile);
+    if (FileUtils.isClassFile(programFile)) {
+      byte[] bytes = Files.readAllBytes(programFile);
+      processWindow(ImmutableList.of(new Entry(null, bytes, origin)), executorService);
+      return;
+    }
+    if (!FileUtils.isArchive(programFile)) {
+      throw new CompilationError("Unsupported input for streaming relocation", origin);
+    }
+    try (ZipFile zipFile = FileUtils.createZipFile(programFile.toFile(), StandardCharsets.UTF_8)) {
+      List<Entry> window = new ArrayList<>(windowSize);
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry zipEntry = entries.nextElement();
+        // Directories are not kept, as the Relocator does not keep directories.
+        if (zipEntry.isDirectory()) {
+          continue;
+        }
+        byte[] bytes;
+        try (InputStream stream = zipFile.getInputStream(zipEntry)) {
+          bytes = ByteStreams.toByteArray(stream);
+        }
+        window.add(
+            new Entry(zipEntry.getName(), bytes, new ArchiveEntryOrigin(zipEntry.getName(), origin)));
+        if (window.size() == windowSize) {
+          processWindow(window, executorService);
+          window.clear();
+        }
+      }
+      processWindow(window, executorService);
+    }
+  }
+
+  private void processWindow(List<Entry> window, ExecutorService executorService)
+      throws ExecutionException {
+    if (window.isEmpty()) {
+      return;
+    }
+    for (Entry entry :
+        ThreadUtils.processItemsWithResults(
+            window, this::relocateEntry, options.getThreadingModule(), executorService)) {
+      outputBuilder.addIndexedClassFile(
+          nextOutputIndex++,
+          entry.name,
+          ByteDataView.of(entry.bytes),
+          options.reporter);
+    }
+  }
+
+  private Entry relocateEntry(Entry entry) {
+    if (entry.name == null || ZipUtils.isClassFile(entry.name)) {
+      return ExceptionUtils.withOriginAttachmentHandler(
+          entry.origin, () -> relocateClassFile(entry));
+    }
+    if (entry.name.startsWith(AppServices.SERVICE_DIRECTORY_NAME)) {
+      return new Entry(
+          relocateResourceName(entry.name), relocateServiceFile(entry.bytes), entry.origin);
+    }
+    return entry.withName(relocateResourceName(entry.name));
+  }
+
+  // Rewrites the implementations listed in a META-INF/services file. As when writing the services
+  // from AppServices, comments and blank lines are not retained.
+  private byte[] relocateServiceFile(byte[] bytes) {
+    List<String> implementations = new ArrayList<>();
+    for (String line : StringUtils.splitLines(new String(bytes, StandardCharsets.UTF_8))) {
+      int commentIndex = line.indexOf('#');
+      String implementation = (commentIndex == -1 ? line : line.substring(0, commentIndex)).trim();
+      if (implementation.isEmpty()) {
+        continue;
+      }
+      if (DescriptorUtils.isValidJavaType(implementation)) {
+        implementation =
+            DescriptorUtils.getJavaTypeFromBinaryName(
+                mapping.relocateBinaryName(
+                    DescriptorUtils.getBinaryNameFromJavaType(implementation)));
+      }
+      implementations.add(implementation);
+    }
+    return StringUtils.lines(implementations).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private Entry relocateClassFile(Entry entry) {
+    ClassReader reader = new ClassReader(entry.bytes);
+    ClassWriter writer = new ClassWriter(0);
+    reader.accept(new ClassRemapper(writer, remapper), 0);
+    String name = remapper.map(reader.getClassName()) + FileUtils.CLASS_EXTENSION;
+    if (entry.name != null) {
+      // Retain any prefix of the entry name, such as META-INF/versions/<n>/.
+      String originalName = reader.getClassName() + FileUtils.CLASS_EXTENSION;
+      if (entry.name.endsWith(originalName)) {
+        name = entry.name.substring(0, entry.name.length() - originalName.length()) + name;
+      } else {
+        name = entry.name;
+      }
+    }
+    return new Entry(name, writer.toByteArray(), entry.origin);
+  }
+
+  // Adapts the name of a resource in the same way as -adaptresourcefilenames, such that resources
+  // that are named after a relocated class or package are moved along with it.
+  private String relocateResourceName(String name) {
+    if (name.startsWith(AppServices.SERVICE_DIRECTORY_NAME)) {
+      String serviceName = name.substring(AppServices.SERVICE_DIRECTORY_NAME.length());
+      if (DescriptorUtils.isValidJavaType(serviceName)) {
+        return AppServices.SERVICE_DIRECTORY_NAME
+            + DescriptorUtils.getJavaTypeFromBinaryName(
+                mapping.relocateBinaryName(DescriptorUtils.getBinaryNameFromJavaType(serviceName)));
+      }
+      return name;
+    }
+    int lastIndexOfSeparator = name.lastIndexOf(DataResource.SEPARATOR);
+    int extensionIndex = name.indexOf('.', lastIndexOfSeparator + 1);
+    String binaryName = extensionIndex == -1 ? name : name.substring(0, extensionIndex);
+    String relocatedBinaryName = mapping.relocateBinaryName(binaryName);
+    return relocatedBinaryName.equals(binaryName)
+        ? name
+        : relocatedBinaryName + name.substring(binaryName.length());
+  }
+
+  private static class Entry {
+
+    // The name of the entry in the archive, or null if the input is a single class file.
+    private final String name;
+    private final byte[] bytes;
+    private final Origin origin;
+
+    private Entry(String name, byte[] bytes, Origin origin) {
+      this.name = name;
+      this.bytes = bytes;
+      this.origin = origin;
+    }
+
+    Entry withName(String name) {
+      return name.equals(this.name) ? this : new Entry(name, bytes, origin);
+    }
+  }
+
+  private static class RelocatorRemapper extends Remapper {
+
+    private final RelocatorMapping mapping;
+
+    private RelocatorRemapper(RelocatorMapping mapping) {
+      this.mapping = mapping;
+    }
+
+    @Override
+    public String map(String internalName) {
+      return mapping.relocateBinaryName(internalName);
+    }
+
+    @Override
+    public String mapPackageName(String name) {
+      return mapping.relocatePackageBinaryName(name);
+    }
+  }
+}
@@ -15,8 +15,10 @@ import com.android.tools.r8.Version;
 import com.android.tools.r8.keepanno.annotations.KeepForApi;
 import com.android.tools.r8.retrace.internal.RetraceAbortException;
 import com.android.tools.r8.retrace.internal.RetraceBase;
+import com.android.tools.r8.retrace.internal.RetraceStackFrameCache;
 import com.android.tools.r8.retrace.internal.StackTraceElementStringProxy;
 import com.android.tools.r8.retrace.internal.StackTraceRegularExpressionParser;
+import com.android.tools.r8.threading.ThreadingModule;
 import com.android.tools.r8.utils.ExceptionDiagnostic;
 import com.android.tools.r8.utils.OptionsParsing;
 import com.android.tools.r8.utils.OptionsParsing.ParseContext;
@@ -37,6 +39,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 /**
  * A retrace tool for obfuscated stack traces.
@@ -228,6 +232,25 @@ public class Retrace<T, ST extends StackTraceElementProxy<T, ST>> extends Retrac
         mappingSupplier.createRetracer(diagnosticsHandler), stackTrace, context);
   }
 
+  List<RetraceStackTraceResult<T>> retraceStackTracesParsed(
+      List<List<T>> stackTraces,
+      List<List<ST>> parsedStackTraces,
+      RetraceStackFrameCache<T> cache,
+      ThreadingModule threadingModule,
+      ExecutorService executorService)
+      throws ExecutionException {
+    // Register all uses before creating the retracer, such that the mapping is only read once for
+    // all the stack traces. The mapping supplier is not thread safe, so this is done sequentially.
+    parsedStackTraces.forEach(this::registerUses);
+    return retraceStackTracesParsedWithRetracer(
+        mappingSupplier.createRetracer(diagnosticsHandler),
+        stackTraces,
+        parsedStackTraces,
+        cache,
+        threadingModule,
+        executorService);
+  }
+
   /**
    * Retraces a stack trace frame with support for splitting up ambiguous results.
    *
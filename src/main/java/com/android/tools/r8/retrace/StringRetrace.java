@@ -6,14 +6,19 @@ package com.android.tools.r8.retrace;
 
 import com.android.tools.r8.DiagnosticsHandler;
 import com.android.tools.r8.keepanno.annotations.KeepForApi;
+import com.android.tools.r8.retrace.internal.RetraceStackFrameCache;
 import com.android.tools.r8.retrace.internal.RetraceStackFrameResultWithContextImpl;
 import com.android.tools.r8.retrace.internal.StackTraceElementStringProxy;
+import com.android.tools.r8.threading.ThreadingModule;
+import com.android.tools.r8.utils.ListUtils;
 import com.android.tools.r8.utils.StringUtils;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
 /**
@@ -23,6 +28,14 @@ import java.util.function.Consumer;
 @KeepForApi
 public class StringRetrace extends Retrace<String, StackTraceElementStringProxy> {
 
+  // The maximal number of distinct stack trace lines for which the retraced result is cached when
+  // retracing batches of stack traces.
+  private static final int STACK_FRAME_CACHE_SIZE = 1 << 16;
+
+  private final RetraceStackFrameCache<String> stackFrameCache =
+      RetraceStackFrameCache.create(STACK_FRAME_CACHE_SIZE);
+  private ThreadingModule lazyThreadingModule = null;
+
   StringRetrace(
       StackTraceLineParser<String, StackTraceElementStringProxy> stackTraceLineParser,
       MappingSupplier<?> mappingSupplier,
@@ -113,6 +126,41 @@ public class StringRetrace extends Retrace<String, StackTraceElementStringProxy>
         listRetraceStackTraceResult.getContext());
   }
 
+  /**
+   * Retraces a batch of stack traces and returns the retraced stack traces in the same order. Each
+   * stack trace is retraced starting from the empty context. Ambiguous and inline frames will be
+   * appended automatically to the retraced strings.
+   *
+   * <p>The mapping is only read once for the batch and the stack traces are parsed and retraced in
+   * parallel using the given executor service. Identical lines that are retraced in the empty
+   * context are only retraced once, also across batches retraced with this StringRetrace.
+   *
+   * @param stackTraces the incoming stack traces
+   * @param executorService the executor service used for parsing and retracing
+   * @return the retraced stack traces
+   */
+  public List<RetraceStackFrameResultWithContext<String>> retraceStackTraces(
+      List<List<String>> stackTraces, ExecutorService executorService) throws ExecutionException {
+    ThreadingModule threadingModule = getThreadingModule();
+    List<List<StackTraceElementStringProxy>> parsedStackTraces =
+        parseStackTraces(stackTraces, threadingModule, executorService);
+    List<RetraceStackTraceResult<String>> results =
+        retraceStackTracesParsed(
+            stackTraces, parsedStackTraces, stackFrameCache, threadingModule, executorService);
+    return ListUtils.map(
+        results,
+        result ->
+            RetraceStackFrameResultWithContextImpl.create(
+                joinAmbiguousLines(result.getResult()), result.getContext()));
+  }
+
+  private synchronized ThreadingModule getThreadingModule() {
+    if (lazyThreadingModule == null) {
+      lazyThreadingModule = ThreadingModule.Loader.load().create();
+    }
+    return lazyThreadingModule;
+  }
+
   /**
    * Processes supplied strings and calls lineConsumer with retraced strings in a streaming way
    *
@@ -22,9 +22,11 @@ import com.android.tools.r8.retrace.Retracer;
 import com.android.tools.r8.retrace.StackTraceElementProxy;
 import com.android.tools.r8.retrace.StackTraceElementProxyRetracer;
 import com.android.tools.r8.retrace.StackTraceLineParser;
+import com.android.tools.r8.threading.ThreadingModule;
 import com.android.tools.r8.utils.Box;
 import com.android.tools.r8.utils.ListUtils;
 import com.android.tools.r8.utils.Pair;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.google.common.base.Equivalence;
 import com.google.common.base.Equivalence.Wrapper;
 import java.util.ArrayList;
@@ -35,6 +37,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -83,56 +87,149 @@ public class RetraceBase<T, ST extends StackTraceElementProxy<T, ST>> {
 
   protected RetraceStackTraceResult<T> retraceStackTraceParsedWithRetracer(
       Retracer retracer, List<ST> stackTrace, RetraceStackTraceContext context) {
-    RetraceStackTraceElementProxyEquivalence<T, ST> equivalence =
-        new RetraceStackTraceElementProxyEquivalence<>(isVerbose);
-    StackTraceElementProxyRetracer<T, ST> proxyRetracer =
-        StackTraceElementProxyRetracer.createDefault(retracer);
-    List<RetraceStackFrameAmbiguousResult<T>> finalResult = new ArrayList<>();
-    RetraceStackTraceContext finalContext =
-        ListUtils.fold(
-            stackTrace,
-            context,
-            (newContext, stackTraceLine) -> {
-              List<Pair<RetraceStackTraceElementProxy<T, ST>, RetraceStackFrameResult<T>>>
-                  resultsForLine = new ArrayList<>();
-              Box<List<T>> currentList = new Box<>();
-              Set<Wrapper<RetraceStackTraceElementProxy<T, ST>>> seen = new HashSet<>();
-              List<RetraceStackTraceContext> contexts = new ArrayList<>();
-              RetraceStackTraceElementProxyResult<T, ST> retraceResult =
-                  proxyRetracer.retrace(stackTraceLine, newContext);
-              retraceResult.stream()
-                  .forEach(
-                      retracedElement -> {
-                        if (retracedElement.isTopFrame() || !retracedElement.hasRetracedClass()) {
-                          if (seen.add(equivalence.wrap(retracedElement))) {
-                            currentList.set(new ArrayList<>());
-                            resultsForLine.add(
-                                Pair.create(
-                                    retracedElement,
-                                    RetraceStackFrameResultWithContextImpl.create(
-                                        currentList.get(), RetraceStackTraceContext.empty())));
-                            contexts.add(retracedElement.getContext());
-                          } else {
-                            currentList.clear();
-                          }
-                        }
-                        if (currentList.isSet()) {
-                          currentList
-                              .get()
-                              .add(stackTraceLine.toRetracedItem(retracedElement, isVerbose));
-                        }
-                      });
-              resultsForLine.sort(Comparator.comparing(Pair::getFirst));
-              finalResult.add(
-                  RetraceStackFrameAmbiguousResultWithContextImpl.create(
-                      ListUtils.map(resultsForLine, Pair::getSecond),
-                      RetraceStackTraceContext.empty()));
-              if (contexts.isEmpty()) {
-                return retraceResult.getResultContext();
+    return retraceStackTraceParsedWithRetracer(
+        StackTraceElementProxyRetracer.createDefault(retracer),
+        new RetraceStackTraceElementProxyEquivalence<>(isVerbose),
+        stackTrace,
+        context,
+        null,
+        null);
+  }
+
+  private RetraceStackTraceResult<T> retraceStackTraceParsedWithRetracer(
+      StackTraceElementProxyRetracer<T, ST> proxyRetracer,
+      RetraceStackTraceElementProxyEquivalence<T, ST> equivalence,
+      List<ST> stackTrace,
+      RetraceStackTraceContext context,
+      RetraceStackFrameCache<T> cache,
+      List<T> originalStackTrace) {
+    assert cache == null || originalStackTrace.size() == stackTrace.size();
+    List<RetraceStackFrameAmbiguousResult<T>> finalResult = new ArrayList<>(stackTrace.size());
+    for (int i = 0; i < stackTrace.size(); i++) {
+      ST stackTraceLine = stackTrace.get(i);
+      RetraceStackFrameAmbiguousResultWithContext<T> resultForLine;
+      if (cache != null && isEmptyContext(context)) {
+        RetraceStackTraceContext lineContext = context;
+        resultForLine =
+            cache.computeIfAbsent(
+                originalStackTrace.get(i),
+                () ->
+                    retraceStackTraceLineWithRetracer(
+                        proxyRetracer, equivalence, stackTraceLine, lineContext));
+      } else {
+        resultForLine =
+            retraceStackTraceLineWithRetracer(proxyRetracer, equivalence, stackTraceLine, context);
+      }
+      finalResult.add(
+          RetraceStackFrameAmbiguousResultWithContextImpl.create(
+              resultForLine.getAmbiguousResult(), RetraceStackTraceContext.empty()));
+      context = resultForLine.getContext();
+    }
+    return RetraceStackTraceResultImpl.create(finalResult, context);
+  }
+
+  // Retraces a single line of a stack trace. The context of the returned result is the context for
+  // retracing the next line of the stack trace.
+  private RetraceStackFrameAmbiguousResultWithContext<T> retraceStackTraceLineWithRetracer(
+      StackTraceElementProxyRetracer<T, ST> proxyRetracer,
+      RetraceStackTraceElementProxyEquivalence<T, ST> equivalence,
+      ST stackTraceLine,
+      RetraceStackTraceContext context) {
+    List<Pair<RetraceStackTraceElementProxy<T, ST>, RetraceStackFrameResult<T>>> resultsForLine =
+        new ArrayList<>();
+    Box<List<T>> currentList = new Box<>();
+    Set<Wrapper<RetraceStackTraceElementProxy<T, ST>>> seen = new HashSet<>();
+    List<RetraceStackTraceContext> contexts = new ArrayList<>();
+    RetraceStackTraceElementProxyResult<T, ST> retraceResult =
+        proxyRetracer.retrace(stackTraceLine, context);
+    retraceResult.stream()
+        .forEach(
+            retracedElement -> {
+              if (retracedElement.isTopFrame() || !retracedElement.hasRetracedClass()) {
+                if (seen.add(equivalence.wrap(retracedElement))) {
+                  currentList.set(new ArrayList<>());
+                  resultsForLine.add(
+                      Pair.create(
+                          retracedElement,
+                          RetraceStackFrameResultWithContextImpl.create(
+                              currentList.get(), RetraceStackTraceContext.empty())));
+                  contexts.add(retracedElement.getContext());
+                } else {
+                  currentList.clear();
+                }
+              }
+              if (currentList.isSet()) {
+                currentList.get().add(stackTraceLine.toRetracedItem(retracedElement, isVerbose));
               }
-              return contexts.size() == 1 ? contexts.get(0) : RetraceStackTraceContext.empty();
             });
-    return RetraceStackTraceResultImpl.create(finalResult, finalContext);
+    resultsForLine.sort(Comparator.comparing(Pair::getFirst));
+    RetraceStackTraceContext nextContext;
+    if (contexts.isEmpty()) {
+      nextContext = retraceResult.getResultContext();
+    } else {
+      nextContext = contexts.size() == 1 ? contexts.get(0) : RetraceStackTraceContext.empty();
+    }
+    return RetraceStackFrameAmbiguousResultWithContextImpl.create(
+        ListUtils.map(resultsForLine, Pair::getSecond), nextContext);
+  }
+
+  /**
+   * Retraces the given parsed stack traces in parallel, each starting from the empty context. Lines
+   * that are retraced in the empty context are looked up in the given cache, which is keyed on the
+   * corresponding line of the original stack traces.
+   */
+  protected List<RetraceStackTraceResult<T>> retraceStackTracesParsedWithRetracer(
+      Retracer retracer,
+      List<List<T>> stackTraces,
+      List<List<ST>> parsedStackTraces,
+      RetraceStackFrameCache<T> cache,
+      ThreadingModule threadingModule,
+      ExecutorService executorService)
+      throws ExecutionException {
+    assert stackTraces.size() == parsedStackTraces.size();
+    StackTraceElementProxyRetracer<T, ST> proxyRetracer =
+        StackTraceElementProxyRetracer.createDefault(retracer);
+    RetraceStackTraceElementProxyEquivalence<T, ST> equivalence =
+        new RetraceStackTraceElementProxyEquivalence<>(isVerbose);
+    return new ArrayList<>(
+        ThreadUtils.processItemsWithResults(
+            parsedStackTraces,
+            (parsedStackTrace, index) ->
+                retraceStackTraceParsedWithRetracer(
+                    proxyRetracer,
+                    equivalence,
+                    parsedStackTrace,
+                    RetraceStackTraceContext.empty(),
+                    cache,
+                    stackTraces.get(index)),
+            threadingModule,
+            executorService));
+  }
+
+  protected List<List<ST>> parseStackTraces(
+      List<List<T>> stackTraces, ThreadingModule threadingModule, ExecutorService executorService)
+      throws ExecutionException {
+    int lineNumber = 0;
+    for (List<T> stackTrace : stackTraces) {
+      for (T line : stackTrace) {
+        if (line == null) {
+          diagnosticsHandler.error(RetraceInvalidStackTraceLineDiagnostics.createNull(lineNumber));
+          throw new RetraceAbortException();
+        }
+        lineNumber++;
+      }
+    }
+    return new ArrayList<>(
+        ThreadUtils.processItemsWithResults(
+            stackTraces,
+            stackTrace -> ListUtils.map(stackTrace, stackTraceLineParser::parse),
+            threadingModule,
+            executorService));
+  }
+
+  private static boolean isEmptyContext(RetraceStackTraceContext context) {
+    return context instanceof RetraceStackTraceContextImpl
+        && ((RetraceStackTraceContextImpl) context).isEmpty();
   }
 
   protected RetraceStackFrameAmbiguousResultWithContext<T> retraceFrameWithRetracer(
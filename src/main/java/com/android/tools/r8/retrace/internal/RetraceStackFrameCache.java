@@ -0,0 +1,56 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace.internal;
+
+import com.android.tools.r8.retrace.RetraceStackFrameAmbiguousResultWithContext;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A bounded least-recently-used cache from obfuscated stack trace lines to their retraced result,
+ * when retraced in the empty context.
+ *
+ * <p>The retraced result of a line only depends on the mapping, so a cache must not be shared
+ * between retracers with different mapping suppliers.
+ */
+public class RetraceStackFrameCache<T> {
+
+  private static final float LOAD_FACTOR = 0.75f;
+
+  private final Map<T, RetraceStackFrameAmbiguousResultWithContext<T>> cache;
+
+  private RetraceStackFrameCache(int capacity) {
+    this.cache =
+        new LinkedHashMap<T, RetraceStackFrameAmbiguousResultWithContext<T>>(
+            capacity, LOAD_FACTOR, true) {
+          @Override
+          protected boolean removeEldestEntry(
+              Map.Entry<T, RetraceStackFrameAmbiguousResultWithContext<T>> eldest) {
+            return size() > capacity;
+          }
+        };
+  }
+
+  public static <T> RetraceStackFrameCache<T> create(int capacity) {
+    return new RetraceStackFrameCache<>(capacity);
+  }
+
+  public RetraceStackFrameAmbiguousResultWithContext<T> computeIfAbsent(
+      T stackTraceLine, Supplier<RetraceStackFrameAmbiguousResultWithContext<T>> supplier) {
+    RetraceStackFrameAmbiguousResultWithContext<T> result;
+    synchronized (cache) {
+      result = cache.get(stackTraceLine);
+    }
+    if (result == null) {
+      // Retrace outside the lock. Concurrent retracing of the same line yields equal results.
+      result = supplier.get();
+      synchronized (cache) {
+        cache.put(stackTraceLine, result);
+      }
+    }
+    return result;
+  }
+}
@@ -28,6 +28,10 @@ public class RetraceStackTraceContextImpl implements RetraceStackTraceContext {
     return thrownException;
   }
 
+  public boolean isEmpty() {
+    return thrownException == null && !rewritePosition.isPresent();
+  }
+
   RetraceStackTraceCurrentEvaluationInformation computeRewriteFrameInformation(
       List<MappedRange> mappedRanges) {
     if (mappedRanges == null || mappedRanges.isEmpty()) {
@@ -24,6 +24,7 @@ public class StackTraceRegularExpressionParser
           + "|(?:(?:(?:%c|.*)?[:\"]\\s+)?%c(?:(:|]).*)?)";
 
   private final Pattern compiledPattern;
+  private final boolean isDefaultRegularExpression;
 
   private static final int NO_MATCH = -1;
 
@@ -52,12 +53,16 @@ public class StackTraceRegularExpressionParser
     registerGroups(
         regularExpression, refinedRegularExpressionBuilder, handlers, FIRST_CAPTURE_GROUP_INDEX);
     compiledPattern = Pattern.compile(refinedRegularExpressionBuilder.toString());
+    isDefaultRegularExpression = regularExpression.equals(DEFAULT_REGULAR_EXPRESSION);
   }
 
   @Override
   public StackTraceElementStringProxy parse(String stackTraceLine) {
     StackTraceElementStringProxyBuilder proxyBuilder =
         StackTraceElementStringProxy.builder(stackTraceLine);
+    if (isDefaultRegularExpression && parseDefaultFrame(stackTraceLine, proxyBuilder)) {
+      return proxyBuilder.build();
+    }
     Matcher matcher = compiledPattern.matcher(stackTraceLine);
     if (matcher.matches()) {
       boolean seenMatchedClassHandler = false;
@@ -73,6 +78,129 @@ public class StackTraceRegularExpressionParser
     return proxyBuilder.build();
   }
 
+  /**
+   * Parses lines of the form {@code <whitespace>at <class>.<method>(<source-file>)} without running
+   * the default regular expression. The registered groups are the same as the groups registered
+   * when matching the first alternative of the default regular expression. Returns false if the
+   * line is not of this form, or if the class name is not a sequence of identifiers separated by
+   * '.', in which case nothing is registered.
+   */
+  private static boolean parseDefaultFrame(
+      String line, StackTraceElementStringProxyBuilder proxyBuilder) {
+    int length = line.length();
+    if (length == 0 || line.charAt(length - 1) != ')') {
+      return false;
+    }
+    int index = 0;
+    while (index < length && isSpaceOrTab(line.charAt(index))) {
+      index++;
+    }
+    if (!line.startsWith("at", index)
+        || index + 2 >= length
+        || !isSpaceOrTab(line.charAt(index + 2))) {
+      return false;
+    }
+    index += 2;
+    while (index < length && isSpaceOrTab(line.charAt(index))) {
+      index++;
+    }
+    int classStart = index;
+    int sourceFileStart = line.indexOf('(', classStart);
+    if (sourceFileStart < 0) {
+      return false;
+    }
+    int methodStart = line.lastIndexOf('.', sourceFileStart) + 1;
+    if (methodStart <= classStart + 1
+        || !isQualifiedName(line, classStart, methodStart - 1)
+        || !isMethodName(line, methodStart, sourceFileStart)) {
+      return false;
+    }
+    for (int i = sourceFileStart + 1; i < length; i++) {
+      if (isLineTerminator(line.charAt(i))) {
+        return false;
+      }
+    }
+    String typeName = line.substring(classStart, methodStart - 1);
+    if (typeName.equals("Suppressed")) {
+      return false;
+    }
+    proxyBuilder.registerClassName(classStart, methodStart - 1, ClassNameType.TYPENAME);
+    proxyBuilder.registerMethodName(methodStart, sourceFileStart);
+    SourceFileLineNumberGroup.register(proxyBuilder, line, sourceFileStart + 1, length - 1);
+    return true;
+  }
+
+  private static boolean isMethodName(String line, int start, int end) {
+    return isIdentifier(line, start, end)
+        || line.startsWith("<init>", start) && end - start == 6
+        || line.startsWith("<clinit>", start) && end - start == 8;
+  }
+
+  // Checks that line[start:end] is a sequence of identifiers separated by '.'. Class names that are
+  // prefixed by a class loader and/or a module and version, such as
+  // java.base@11.0.2/java.lang.Thread, are left to the regular expression.
+  private static boolean isQualifiedName(String line, int start, int end) {
+    int segmentStart = start;
+    for (int i = start; i < end; i++) {
+      if (line.charAt(i) == '.') {
+        if (!isIdentifier(line, segmentStart, i)) {
+          return false;
+        }
+        segmentStart = i + 1;
+      }
+    }
+    return isIdentifier(line, segmentStart, end);
+  }
+
+  // Checks that line[start:end] matches identifierSegment and does not contain '.', '/' or '@'.
+  private static boolean isIdentifier(String line, int start, int end) {
+    if (start >= end || isDigit(line.charAt(start))) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      char c = line.charAt(i);
+      if (c == '.' || c == '/' || c == '@' || isNotAllowedCharacter(c)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isDigit(char c) {
+    return '0' <= c && c <= '9';
+  }
+
+  private static boolean isSpaceOrTab(char c) {
+    return c == ' ' || c == '\t';
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  // Keep in sync with notAllowedCharacters.
+  private static boolean isNotAllowedCharacter(char c) {
+    switch (c) {
+      case ' ':
+      case '\t':
+      case '\n':
+      case '\u000B':
+      case '\f':
+      case '\r':
+      case '[':
+      case ']':
+      case ';':
+      case ':':
+      case '(':
+      case ')':
+      case '<':
+      case '>':
+        return true;
+      default:
+        return isLineTerminator(c);
+    }
+  }
+
   @SuppressWarnings("UnnecessaryParentheses")
   private int registerGroups(
       String regularExpression,
@@ -333,19 +461,23 @@ public class StackTraceRegularExpressionParser
         if (startOfGroup == NO_MATCH) {
           return false;
         }
-        int endOfSourceFileInGroup = findEndOfSourceFile(matcher.group(captureGroup));
-        int sourceFileEnd = startOfGroup + endOfSourceFileInGroup;
-        builder.registerSourceFile(startOfGroup, sourceFileEnd);
-        int endOfMatch = matcher.end(captureGroup);
-        // We need to include ':' in the group since we may want to rewrite '(SourceFile:0)` into
-        // (SourceFile) and not (SourceFile:). We fix this by setting the start of the linenumber
-        // group to the end of the SourceFile group and then force inserting ':'.
-        builder.registerLineNumber(Integer.min(sourceFileEnd, endOfMatch), endOfMatch, true);
+        register(builder, builder.getLine(), startOfGroup, matcher.end(captureGroup));
         return true;
       };
     }
 
-    private int findEndOfSourceFile(String group) {
+    static void register(
+        StackTraceElementStringProxyBuilder builder, String line, int start, int end) {
+      int endOfSourceFileInGroup = findEndOfSourceFile(line.substring(start, end));
+      int sourceFileEnd = start + endOfSourceFileInGroup;
+      builder.registerSourceFile(start, sourceFileEnd);
+      // We need to include ':' in the group since we may want to rewrite '(SourceFile:0)` into
+      // (SourceFile) and not (SourceFile:). We fix this by setting the start of the linenumber
+      // group to the end of the SourceFile group and then force inserting ':'.
+      builder.registerLineNumber(Integer.min(sourceFileEnd, end), end, true);
+    }
+
+    private static int findEndOfSourceFile(String group) {
       int index = group.length();
       while (index > 0) {
         char currentChar = group.charAt(index - 1);
@@ -3346,6 +3346,13 @@ public class Enqueuer {
     liveTypes.getItems().forEach(consumer);
   }
 
+  public void forAllLiveClassesConcurrently(
+      Consumer<DexProgramClass> consumer, ExecutorService executorService)
+      throws ExecutionException {
+    ThreadUtils.processItems(
+        liveTypes.getItems(), consumer, options.getThreadingModule(), executorService);
+  }
+
   private void markVirtualMethodAsReachable(
       DexMethod method, boolean interfaceInvoke, ProgramMethod context, KeepReason reason) {
     if (method.holder.isArrayType()) {
@@ -3614,7 +3621,7 @@ public class Enqueuer {
       assert appView.appInfo().getMainDexInfo().isTracedMethodRootsCleared()
           || mode.isGenerateMainDexList();
     }
-    new MainDexListBuilder(appView, builder.getRoots(), builder).run();
+    new MainDexListBuilder(appView, builder.getRoots(), builder).run(executorService);
     MainDexInfo previousMainDexInfo = appInfo.getMainDexInfo();
     return builder.build(previousMainDexInfo);
   }
@@ -3676,7 +3683,9 @@ public class Enqueuer {
     finalizeLibraryMethodOverrideInformation();
     timing.end();
     timing.begin("Finish analysis");
-    analyses.forEach(analyses -> analyses.done(this));
+    for (EnqueuerAnalysis analysis : analyses) {
+      analysis.done(this, executorService, timing);
+    }
     fieldAccessAnalyses.forEach(fieldAccessAnalyses -> fieldAccessAnalyses.done(this));
     timing.end();
     assert verifyKeptGraph();
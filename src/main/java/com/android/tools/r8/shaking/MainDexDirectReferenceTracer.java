@@ -26,7 +26,13 @@ import com.android.tools.r8.graph.ProgramMethod;
 import com.android.tools.r8.graph.UseRegistry;
 import com.android.tools.r8.synthesis.SyntheticItems;
 import com.android.tools.r8.utils.Box;
+import com.android.tools.r8.utils.ThreadUtils;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -47,28 +53,46 @@ public class MainDexDirectReferenceTracer {
     return appView;
   }
 
-  public void run(Set<DexType> roots) {
+  /**
+   * Traces the roots concurrently. The references of each root are collected by the thread that
+   * traces the root, and are passed to the consumer on the calling thread in the order of the
+   * roots, such that the consumer sees the references in the same order as when tracing the roots
+   * sequentially.
+   */
+  public void run(Set<DexType> roots, ExecutorService executorService) throws ExecutionException {
+    Collection<List<DexType>> referencesPerRoot =
+        ThreadUtils.processItemsWithResults(
+            roots,
+            root -> {
+              List<DexType> references = new ArrayList<>();
+              new MainDexDirectReferenceTracer(appView, references::add).runOnRoot(root);
+              return references;
+            },
+            appView.options().getThreadingModule(),
+            executorService);
+    referencesPerRoot.forEach(references -> references.forEach(consumer));
+  }
+
+  private void runOnRoot(DexType type) {
+    DexProgramClass clazz = asProgramClassOrNull(appView.definitionFor(type));
+    // Should only happen for library classes, which are filtered out.
+    assert clazz != null;
+    consumer.accept(type);
+    // Super and interfaces are live, no need to add them.
     SyntheticItems syntheticItems = appView.getSyntheticItems();
     DexItemFactory factory = appView.dexItemFactory();
     AndroidApiLevelCompute apiLevelCompute = appView.apiLevelCompute();
-    for (DexType type : roots) {
-      DexProgramClass clazz = asProgramClassOrNull(appView.definitionFor(type));
-      // Should only happen for library classes, which are filtered out.
-      assert clazz != null;
-      consumer.accept(type);
-      // Super and interfaces are live, no need to add them.
-      if (!DexAnnotation.hasSynthesizedClassAnnotation(
-          clazz.annotations(), factory, syntheticItems, apiLevelCompute)) {
-        traceAnnotationsDirectDependencies(clazz.annotations());
-      }
-      clazz.forEachField(field -> consumer.accept(field.getReference().type));
-      clazz.forEachProgramMethodMatching(
-          definition -> {
-            traceMethodDirectDependencies(definition.getReference(), consumer);
-            return definition.hasCode();
-          },
-          this::runOnCode);
+    if (!DexAnnotation.hasSynthesizedClassAnnotation(
+        clazz.annotations(), factory, syntheticItems, apiLevelCompute)) {
+      traceAnnotationsDirectDependencies(clazz.annotations());
     }
+    clazz.forEachField(field -> consumer.accept(field.getReference().type));
+    clazz.forEachProgramMethodMatching(
+        definition -> {
+          traceMethodDirectDependencies(definition.getReference(), consumer);
+          return definition.hasCode();
+        },
+        this::runOnCode);
   }
 
   public void runOnCode(ProgramMethod method) {
@@ -249,6 +249,14 @@ public class MainDexInfo {
     tracedDependencies.forEach(ConsumerUtils.acceptIfNotSeen(fn, seen));
   }
 
+  public void forEachTracedRoot(Consumer<DexType> fn) {
+    tracedRoots.forEach(fn);
+  }
+
+  public void forEachTracedDependency(Consumer<DexType> fn) {
+    tracedDependencies.forEach(fn);
+  }
+
   public MainDexInfo withoutPrunedItems(PrunedItems prunedItems) {
     if (prunedItems.isEmpty()) {
       return this;
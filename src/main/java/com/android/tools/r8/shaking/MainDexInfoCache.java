@@ -0,0 +1,245 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.shaking;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.android.tools.r8.AssertionsConfiguration;
+import com.android.tools.r8.Version;
+import com.android.tools.r8.graph.AppInfoWithClassHierarchy;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexClass;
+import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.InternalOptions.ApiModelTestingOptions;
+import com.android.tools.r8.utils.StringDiagnostic;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process wide cache of the main-dex classes traced for legacy multidex.
+ *
+ * <p>The variants of an app are often compiled from the same inputs with the same main-dex rules.
+ * The traced roots and dependencies of a compilation are cached, keyed by the main-dex rules, the
+ * options that affect the tracing, and the path, size and modification time of each input archive,
+ * such that the compilations of the other variants do not trace the main-dex classes again. When a
+ * cache directory is set, the traced classes are also stored on disk, where they are shared with
+ * other processes.
+ *
+ * <p>D8 traces the main-dex classes after desugaring, thus the key also includes the options that
+ * change which classes are synthesized or referenced by the compiled code: the compilation mode,
+ * the intermediate mode, the desugar state, the outlining and stubbing of library APIs, and the
+ * assertions configuration. The other options, such as the program consumer, the threading and the
+ * reporting of diagnostics, are assumed not to change the traced classes.
+ */
+public class MainDexInfoCache {
+
+  private static final int FORMAT_VERSION = 1;
+  private static final int MAX_NUMBER_OF_ENTRIES = 16;
+  private static final String ENTRY_FILE_EXTENSION = ".txt";
+  private static final String ROOT_PREFIX = "root ";
+  private static final String DEPENDENCY_PREFIX = "dependency ";
+
+  private static final Map<HashCode, List<String>> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the key of the main-dex tracing of the given inputs, or null if the result of the
+   * tracing cannot be cached.
+   *
+   * <p>The result is not cached if the inputs are not all given as archives, or if the main-dex
+   * rules have other effects than keeping classes, such as reporting why classes are kept, or if a
+   * main-dex list is given, or if the inputs cannot be accessed.
+   *
+   * @param kind Identifies the code that is traced, which differs between tools.
+   */
+  public static HashCode computeKey(AndroidApp inputApp, String kind, InternalOptions options) {
+    if (inputApp == null
+        || inputApp.hasMainDexList()
+        || options.mainDexKeptGraphConsumer != null) {
+      return null;
+    }
+    if (!options.machineDesugaredLibrarySpecification.isEmpty()) {
+      return null;
+    }
+    for (ProguardConfigurationRule rule : options.mainDexKeepRules) {
+      if (!(rule instanceof ProguardKeepRule)) {
+        return null;
+      }
+    }
+    List<Path> programArchives = inputApp.getProgramArchivesOrNull();
+    List<Path> classpathArchives = inputApp.getClasspathArchivesOrNull();
+    List<Path> libraryArchives = inputApp.getLibraryArchivesOrNull();
+    if (programArchives == null || classpathArchives == null || libraryArchives == null) {
+      return null;
+    }
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(FORMAT_VERSION);
+    hasher.putString(Version.LABEL, UTF_8);
+    hasher.putString(kind, UTF_8);
+    for (ProguardConfigurationRule rule : options.mainDexKeepRules) {
+      hasher.putString(rule.toString(), UTF_8);
+    }
+    hasher.putInt(options.getMinApiLevel().getLevel());
+    hasher.putString(options.desugarState.name(), UTF_8);
+    hasher.putBoolean(options.ignoreBootClasspathEnumsForMaindexTracing);
+    hasher.putBoolean(options.debug);
+    hasher.putBoolean(options.intermediate);
+    ApiModelTestingOptions apiModelingOptions = options.apiModelingOptions();
+    hasher.putBoolean(apiModelingOptions.isApiLibraryModelingEnabled());
+    hasher.putBoolean(apiModelingOptions.enableOutliningOfMethods);
+    hasher.putBoolean(apiModelingOptions.enableStubbingOfClasses);
+    if (options.assertionsConfiguration != null) {
+      putAssertionsConfiguration(hasher, options.assertionsConfiguration.defaultConfiguration);
+      for (AssertionsConfiguration assertionsConfiguration :
+          options.assertionsConfiguration.assertionsConfigurations) {
+        putAssertionsConfiguration(hasher, assertionsConfiguration);
+      }
+    }
+    try {
+      for (List<Path> archives :
+          ImmutableList.of(programArchives, classpathArchives, libraryArchives)) {
+        hasher.putInt(archives.size());
+        for (Path archive : archives) {
+          hasher.putString(archive.toAbsolutePath().toString(), UTF_8);
+          hasher.putLong(Files.size(archive));
+          hasher.putLong(Files.getLastModifiedTime(archive).toMillis());
+        }
+      }
+    } catch (IOException e) {
+      // The reading of the inputs reports the archives that cannot be accessed.
+      return null;
+    }
+    return hasher.hash();
+  }
+
+  private static void putAssertionsConfiguration(
+      Hasher hasher, AssertionsConfiguration assertionsConfiguration) {
+    hasher.putBoolean(assertionsConfiguration.isCompileTimeEnabled());
+    hasher.putBoolean(assertionsConfiguration.isCompileTimeDisabled());
+    hasher.putBoolean(assertionsConfiguration.isPassthrough());
+    hasher.putString(String.valueOf(assertionsConfiguration.getAssertionHandler()), UTF_8);
+    hasher.putString(assertionsConfiguration.getScope().name(), UTF_8);
+    hasher.putString(String.valueOf(assertionsConfiguration.getValue()), UTF_8);
+  }
+
+  /**
+   * Returns the main-dex info of the cached roots and dependencies, or null if there is no entry
+   * for the key, or the entry refers to classes that are not program classes of the application.
+   */
+  public static MainDexInfo lookup(
+      HashCode key, AppView<? extends AppInfoWithClassHierarchy> appView) {
+    List<String> entry = lookupEntry(key, appView.options());
+    if (entry == null) {
+      return null;
+    }
+    DexItemFactory factory = appView.dexItemFactory();
+    MainDexInfo previousMainDexInfo = appView.appInfo().getMainDexInfo();
+    MainDexInfo.Builder builder = previousMainDexInfo.builder();
+    for (String line : entry) {
+      boolean isRoot = line.startsWith(ROOT_PREFIX);
+      if (!isRoot && !line.startsWith(DEPENDENCY_PREFIX)) {
+        return null;
+      }
+      String descriptor =
+          line.substring(isRoot ? ROOT_PREFIX.length() : DEPENDENCY_PREFIX.length());
+      DexType type = factory.createType(descriptor);
+      DexClass clazz = appView.definitionFor(type);
+      if (clazz == null || !clazz.isProgramClass()) {
+        return null;
+      }
+      if (isRoot) {
+        builder.addRoot(type);
+      } else {
+        builder.addDependency(type);
+      }
+    }
+    return builder.build(previousMainDexInfo);
+  }
+
+  private static List<String> lookupEntry(HashCode key, InternalOptions options) {
+    List<String> entry = entries.get(key);
+    Path directory = options.mainDexInfoCacheDirectory;
+    if (directory == null) {
+      return entry;
+    }
+    Path file = getEntryFile(key, directory);
+    if (entry != null) {
+      // Share the classes traced by this process with other processes.
+      if (!Files.exists(file)) {
+        write(file, entry, options);
+      }
+      return entry;
+    }
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try {
+      entry = Files.readAllLines(file, UTF_8);
+    } catch (IOException e) {
+      // An unreadable entry is treated as missing and replaced by the tracing.
+      return null;
+    }
+    put(key, entry);
+    return entry;
+  }
+
+  public static void store(HashCode key, MainDexInfo mainDexInfo, InternalOptions options) {
+    List<String> entry = new ArrayList<>(mainDexInfo.size());
+    mainDexInfo.forEachTracedRoot(type -> entry.add(ROOT_PREFIX + type.toDescriptorString()));
+    mainDexInfo.forEachTracedDependency(
+        type -> entry.add(DEPENDENCY_PREFIX + type.toDescriptorString()));
+    entry.sort(String::compareTo);
+    put(key, entry);
+    Path directory = options.mainDexInfoCacheDirectory;
+    if (directory != null) {
+      write(getEntryFile(key, directory), entry, options);
+    }
+  }
+
+  private static void write(Path file, List<String> entry, InternalOptions options) {
+    Path directory = file.getParent();
+    try {
+      Files.createDirectories(directory);
+      Path temporaryFile = Files.createTempFile(directory, "maindex", ".tmp");
+      try {
+        Files.write(temporaryFile, entry, UTF_8);
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(temporaryFile);
+      }
+    } catch (IOException e) {
+      options.reporter.warning(
+          new StringDiagnostic(
+              "Failed to store traced main-dex classes in " + directory + ": " + e.getMessage()));
+    }
+  }
+
+  private static void put(HashCode key, List<String> entry) {
+    if (entries.size() >= MAX_NUMBER_OF_ENTRIES) {
+      entries.clear();
+    }
+    entries.putIfAbsent(key, entry);
+  }
+
+  public static void clearForTesting() {
+    entries.clear();
+  }
+
+  private static Path getEntryFile(HashCode key, Path directory) {
+    return directory.resolve(key + ENTRY_FILE_EXTENSION);
+  }
+}
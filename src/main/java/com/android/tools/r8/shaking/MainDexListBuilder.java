@@ -16,6 +16,8 @@ import com.android.tools.r8.graph.DexType;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Calculate the list of classes required in the main dex to allow legacy multidex loading.
@@ -64,8 +66,8 @@ public class MainDexListBuilder {
     return appView.appInfo();
   }
 
-  public void run() {
-    traceMainDexDirectDependencies();
+  public void run(ExecutorService executorService) throws ExecutionException {
+    traceMainDexDirectDependencies(executorService);
     traceRuntimeAnnotationsWithEnumForMainDex();
   }
 
@@ -157,8 +159,10 @@ public class MainDexListBuilder {
     return appInfo().isSubtype(valueType, appView.dexItemFactory().annotationType);
   }
 
-  private void traceMainDexDirectDependencies() {
-    new MainDexDirectReferenceTracer(appView, this::addDirectDependency).run(roots);
+  private void traceMainDexDirectDependencies(ExecutorService executorService)
+      throws ExecutionException {
+    new MainDexDirectReferenceTracer(appView, this::addDirectDependency)
+        .run(roots, executorService);
   }
 
   private void addAnnotationsWithEnum(DexProgramClass clazz) {
@@ -349,6 +349,52 @@ public class AndroidApp {
     return libraryResourceProviders;
   }
 
+  /**
+   * Get the archives of the library resource providers, or null if some library resource provider
+   * is not an archive.
+   */
+  public List<Path> getLibraryArchivesOrNull() {
+    return getArchivesOrNull(libraryResourceProviders);
+  }
+
+  /**
+   * Get the archives of the classpath resource providers, or null if some classpath resource
+   * provider is not an archive.
+   */
+  public List<Path> getClasspathArchivesOrNull() {
+    return getArchivesOrNull(classpathResourceProviders);
+  }
+
+  private static List<Path> getArchivesOrNull(List<ClassFileResourceProvider> providers) {
+    List<Path> archives = new ArrayList<>(providers.size());
+    for (ClassFileResourceProvider provider : providers) {
+      if (!(provider instanceof InternalArchiveClassFileProvider)) {
+        return null;
+      }
+      archives.add(((InternalArchiveClassFileProvider) provider).getPath());
+    }
+    return archives;
+  }
+
+  /**
+   * Get the archives of the program resource providers, or null if some program resource provider
+   * is not an unfiltered archive.
+   */
+  public List<Path> getProgramArchivesOrNull() {
+    List<Path> archives = new ArrayList<>(programResourceProviders.size());
+    for (ProgramResourceProvider provider : programResourceProviders) {
+      if (!(provider instanceof ArchiveResourceProvider)) {
+        return null;
+      }
+      FilteredClassPath archive = ((ArchiveResourceProvider) provider).getArchive();
+      if (!archive.isUnfiltered()) {
+        return null;
+      }
+      archives.add(archive.getPath());
+    }
+    return archives;
+  }
+
   private List<ProgramResource> filter(List<ProgramResourceProvider> providers, Kind kind)
       throws ResourceException {
     List<ProgramResource> out = new ArrayList<>();
@@ -419,6 +465,22 @@ public class AndroidApp {
         ImmutableList.of());
   }
 
+  /** Returns a copy of this AndroidApp with the given program and classpath providers. */
+  public AndroidApp withProgramAndClasspathResourceProviders(
+      List<ProgramResourceProvider> programResourceProviders,
+      List<ClassFileResourceProvider> classpathResourceProviders) {
+    return new AndroidApp(
+        ImmutableList.copyOf(programResourceProviders),
+        programResourcesMainDescriptor,
+        ImmutableList.copyOf(classpathResourceProviders),
+        libraryResourceProviders,
+        archiveProvidersToClose,
+        proguardMapOutputData,
+        proguardMapInputData,
+        mainDexListResources,
+        mainDexClasses);
+  }
+
   /** Write the dex program resources and proguard resource to @code{output}. */
   public void writeForTesting(Path output, OutputMode outputMode) throws IOException {
     if (isArchive(output)) {
@@ -6,12 +6,12 @@ package com.android.tools.r8.utils;
 
 import com.android.tools.r8.ByteDataView;
 import com.android.tools.r8.DataEntryResource;
-import com.android.tools.r8.DataResource;
 import com.android.tools.r8.DiagnosticsHandler;
 import com.android.tools.r8.ResourceException;
 import com.android.tools.r8.androidapi.AndroidApiDataAccess;
 import com.android.tools.r8.origin.Origin;
 import com.android.tools.r8.origin.PathOrigin;
+import com.android.tools.r8.utils.ZipArchiveWriter.Entry;
 import com.google.common.io.ByteStreams;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
@@ -23,18 +23,24 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
-import java.util.zip.ZipOutputStream;
 
+/**
+ * Output builder that writes the output to a zip archive.
+ *
+ * <p>The entries are prepared on the thread that adds them, so that the compression of entries is
+ * done in parallel when entries are added concurrently. Only the writing of the prepared entries to
+ * the archive is serialized. The entries are written in a deterministic order: indexed class files
+ * in the order of their index, followed by the remaining entries sorted by name.
+ */
 public class ArchiveBuilder implements OutputBuilder {
   private final Path archive;
   private final Origin origin;
-  private ZipOutputStream stream = null;
+  private ZipArchiveWriter writer = null;
   private boolean closed = false;
   private int openCount = 0;
   private int classesFileIndex = 0;
-  private Map<Integer, DelayedData> delayedClassesDexFiles = new HashMap<>();
+  private Map<Integer, Entry> delayedClassesDexFiles = new HashMap<>();
   private SortedSet<DelayedData> delayedWrites = new TreeSet<>();
 
   public ArchiveBuilder(Path archive) {
@@ -56,8 +62,8 @@ public class ArchiveBuilder implements OutputBuilder {
       writeDelayed(handler);
       closed = true;
       try {
-        getStreamRaw().close();
-        stream = null;
+        getWriterRaw().close();
+        writer = null;
       } catch (IOException e) {
         handler.error(new ExceptionDiagnostic(e, origin));
       }
@@ -68,32 +74,26 @@ public class ArchiveBuilder implements OutputBuilder {
     // We should never have any indexed files at this point
     assert delayedClassesDexFiles.isEmpty();
     for (DelayedData data : delayedWrites) {
-      if (data.isDirectory) {
-        assert data.content == null;
-        writeDirectoryNow(data.name, handler);
-      } else {
-        assert data.content != null;
-        writeFileNow(data.name, data.content, handler, data.storeCompressed);
-      }
+      writeEntryNow(data.entry, handler);
     }
   }
 
-  private ZipOutputStream getStreamRaw() throws IOException {
-    if (stream != null) {
-      return stream;
+  private ZipArchiveWriter getWriterRaw() throws IOException {
+    if (writer != null) {
+      return writer;
     }
-    stream =
-        new ZipOutputStream(
+    writer =
+        new ZipArchiveWriter(
             new BufferedOutputStream(
                 Files.newOutputStream(
                     archive, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)));
-    return stream;
+    return writer;
   }
 
-  /** Get or open the zip output stream. */
-  private synchronized ZipOutputStream getStream() throws IOException {
+  /** Get or open the zip archive writer. */
+  private synchronized ZipArchiveWriter getWriter() throws IOException {
     assert !closed;
-    return getStreamRaw();
+    return getWriterRaw();
   }
 
   private void handleIOException(IOException e, DiagnosticsHandler handler) {
@@ -109,35 +109,23 @@ public class ArchiveBuilder implements OutputBuilder {
 
   @Override
   public synchronized void addDirectory(String name, DiagnosticsHandler handler) {
-    delayedWrites.add(DelayedData.createDirectory(name));
-  }
-
-  private void writeDirectoryNow(String name, DiagnosticsHandler handler) {
-    if (name.charAt(name.length() - 1) != DataResource.SEPARATOR) {
-      name += DataResource.SEPARATOR;
-    }
-    ZipEntry entry = new ZipEntry(name);
-    entry.setTime(0);
-    synchronized (this) {
-      try {
-        ZipOutputStream zip = getStream();
-        zip.putNextEntry(entry);
-        zip.closeEntry();
-      } catch (IOException e) {
-        handleIOException(e, handler);
-      }
-    }
+    delayedWrites.add(new DelayedData(name, Entry.directory(name)));
   }
 
   @Override
   public void addFile(String name, DataEntryResource content, DiagnosticsHandler handler) {
     try (InputStream in = content.getByteStream()) {
       ByteDataView view = ByteDataView.of(ByteStreams.toByteArray(in));
-      synchronized (this) {
-        if (AndroidApiDataAccess.isApiDatabaseEntry(name)) {
-          writeFileNow(name, view, handler, true);
-        } else {
-          delayedWrites.add(DelayedData.createFile(name, view, true));
+      if (AndroidApiDataAccess.isApiDatabaseEntry(name)) {
+        // The content is not shared, thus it can be written without taking a copy.
+        Entry entry = Entry.stored(name, view);
+        synchronized (this) {
+          writeEntryNow(entry, handler);
+        }
+      } else {
+        Entry entry = Entry.deflated(name, view);
+        synchronized (this) {
+          delayedWrites.add(new DelayedData(name, entry));
         }
       }
     } catch (IOException e) {
@@ -149,52 +137,60 @@ public class ArchiveBuilder implements OutputBuilder {
   }
 
   @Override
-  public synchronized void addFile(String name, ByteDataView content, DiagnosticsHandler handler) {
+  public void addFile(String name, ByteDataView content, DiagnosticsHandler handler) {
     addFile(name, content, handler, true);
   }
 
-  public synchronized void addFile(
+  /**
+   * Adds a file that is written when the builder is closed.
+   *
+   * <p>The content may be released by the caller when this returns. A compressed entry has its own
+   * buffer, but an uncompressed entry takes a copy of the content, since it is only written at
+   * close. Only content that the builder owns, such as the API database, is stored without a copy.
+   */
+  public void addFile(
       String name, ByteDataView content, DiagnosticsHandler handler, boolean storeCompressed) {
-    delayedWrites.add(
-        DelayedData.createFile(name, ByteDataView.of(content.copyByteData()), storeCompressed));
+    Entry entry =
+        storeCompressed && !AndroidApiDataAccess.isApiDatabaseEntry(name)
+            ? Entry.deflated(name, content)
+            : Entry.stored(name, ByteDataView.of(content.copyByteData()));
+    synchronized (this) {
+      delayedWrites.add(new DelayedData(name, entry));
+    }
   }
 
-  private void writeFileNow(
-      String name, ByteDataView content, DiagnosticsHandler handler, boolean compressed) {
+  private void writeEntryNow(Entry entry, DiagnosticsHandler handler) {
     try {
-      ZipUtils.writeToZipStream(
-          getStream(),
-          name,
-          content,
-          AndroidApiDataAccess.isApiDatabaseEntry(name) || !compressed
-              ? ZipEntry.STORED
-              : ZipEntry.DEFLATED);
+      getWriter().write(entry);
     } catch (IOException e) {
       handleIOException(e, handler);
     }
   }
 
   private void writeNextIfAvailable(DiagnosticsHandler handler) {
-    DelayedData data = delayedClassesDexFiles.remove(classesFileIndex);
-    while (data != null) {
-      writeFileNow(data.name, data.content, handler, data.storeCompressed);
+    Entry entry = delayedClassesDexFiles.remove(classesFileIndex);
+    while (entry != null) {
+      writeEntryNow(entry, handler);
       classesFileIndex++;
-      data = delayedClassesDexFiles.remove(classesFileIndex);
+      entry = delayedClassesDexFiles.remove(classesFileIndex);
     }
   }
 
   @Override
-  public synchronized void addIndexedClassFile(
+  public void addIndexedClassFile(
       int index, String name, ByteDataView content, DiagnosticsHandler handler) {
-    if (index == classesFileIndex) {
-      // Fast case, we got the file in order (or we only had one).
-      writeFileNow(name, content, handler, true);
-      classesFileIndex++;
-      writeNextIfAvailable(handler);
-    } else {
-      // Data is released in the application writer, take a copy.
-      delayedClassesDexFiles.put(
-          index, new DelayedData(name, ByteDataView.of(content.copyByteData()), false, true));
+    // Compress on the calling thread. This also takes a copy of the data, which is released in
+    // the application writer.
+    Entry entry = Entry.deflated(name, content);
+    synchronized (this) {
+      if (index == classesFileIndex) {
+        // Fast case, we got the file in order (or we only had one).
+        writeEntryNow(entry, handler);
+        classesFileIndex++;
+        writeNextIfAvailable(handler);
+      } else {
+        delayedClassesDexFiles.put(index, entry);
+      }
     }
   }
 
@@ -210,25 +206,11 @@ public class ArchiveBuilder implements OutputBuilder {
 
   private static class DelayedData implements Comparable<DelayedData> {
     public final String name;
-    public final ByteDataView content;
-    public final boolean isDirectory;
-    public final boolean storeCompressed;
-
-    public static DelayedData createFile(
-        String name, ByteDataView content, boolean storeCompressed) {
-      return new DelayedData(name, content, false, storeCompressed);
-    }
-
-    public static DelayedData createDirectory(String name) {
-      return new DelayedData(name, null, true, true);
-    }
+    public final Entry entry;
 
-    private DelayedData(
-        String name, ByteDataView content, boolean isDirectory, boolean storeCompressed) {
+    private DelayedData(String name, Entry entry) {
       this.name = name;
-      this.content = content;
-      this.isDirectory = isDirectory;
-      this.storeCompressed = storeCompressed;
+      this.entry = entry;
     }
 
     @Override
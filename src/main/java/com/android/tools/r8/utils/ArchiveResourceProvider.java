@@ -55,6 +55,10 @@ public class ArchiveResourceProvider implements ProgramResourceProvider, DataRes
     return origin;
   }
 
+  FilteredClassPath getArchive() {
+    return archive;
+  }
+
   private List<ProgramResource> readArchive() throws IOException {
     List<ProgramResource> dexResources = new ArrayList<>();
     List<ProgramResource> classResources = new ArrayList<>();
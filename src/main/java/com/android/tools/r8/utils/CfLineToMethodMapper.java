@@ -8,10 +8,17 @@ import com.android.tools.r8.ProgramResource;
 import com.android.tools.r8.ProgramResource.Kind;
 import com.android.tools.r8.ProgramResourceProvider;
 import com.android.tools.r8.ResourceException;
+import com.android.tools.r8.threading.ThreadingModule;
 import it.unimi.dsi.fastutil.ints.Int2ReferenceOpenHashMap;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
@@ -26,18 +33,60 @@ public class CfLineToMethodMapper {
     this.inputApp = inputApp;
   }
 
+  /**
+   * Reads the line numbers of all class files up front, parsing the class files in parallel.
+   *
+   * <p>This must be called before the mapper is used from multiple threads, since the line
+   * numbers are otherwise read on the first lookup.
+   */
+  public void load(ThreadingModule threadingModule, ExecutorService executorService)
+      throws ExecutionException {
+    List<byte[]> classFiles = new ArrayList<>();
+    try {
+      readClassFiles(classFiles::add);
+    } catch (ResourceException e) {
+      // Intentionally left empty because the addition of inline info for kotlin inline
+      // functions is a best effort.
+    }
+    Collection<Map<String, Int2ReferenceOpenHashMap<String>>> lineNumbersPerClassFile =
+        ThreadUtils.processItemsWithResults(
+            classFiles,
+            classFile -> {
+              Map<String, Int2ReferenceOpenHashMap<String>> lineNumbers = new HashMap<>();
+              readLineNumbers(classFile, lineNumbers);
+              return lineNumbers;
+            },
+            threadingModule,
+            executorService);
+    // Merge in the order of the class files such that the result is the same as when the class
+    // files are read sequentially.
+    Map<String, Int2ReferenceOpenHashMap<String>> mapping = new HashMap<>();
+    for (Map<String, Int2ReferenceOpenHashMap<String>> lineNumbers : lineNumbersPerClassFile) {
+      lineNumbers.forEach(
+          (name, lineMappings) ->
+              mapping
+                  .computeIfAbsent(name, ignored -> new Int2ReferenceOpenHashMap<>())
+                  .putAll(lineMappings));
+    }
+    sourceMethodMapping = mapping;
+  }
+
   public String lookupNameAndDescriptor(String binaryName, int lineNumber)
       throws ResourceException {
     if (sourceMethodMapping == null) {
       sourceMethodMapping = new HashMap<>();
-      readLineNumbersFromClassFiles();
+      readClassFiles(classFile -> readLineNumbers(classFile, sourceMethodMapping));
     }
     Int2ReferenceOpenHashMap<String> lineMappings = sourceMethodMapping.get(binaryName);
     return lineMappings == null ? null : lineMappings.get(lineNumber);
   }
 
-  private void readLineNumbersFromClassFiles() throws ResourceException {
-    ClassVisitor classVisitor = new ClassVisitor();
+  private static void readLineNumbers(
+      byte[] classFile, Map<String, Int2ReferenceOpenHashMap<String>> lineNumbers) {
+    new ClassReader(classFile).accept(new ClassVisitor(lineNumbers), ClassReader.SKIP_FRAMES);
+  }
+
+  private void readClassFiles(Consumer<byte[]> consumer) throws ResourceException {
     for (ProgramResourceProvider resourceProvider : inputApp.getProgramResourceProviders()) {
       if (resourceProvider instanceof ArchiveResourceProvider) {
         ArchiveResourceProvider provider = (ArchiveResourceProvider) resourceProvider;
@@ -47,8 +96,8 @@ public class CfLineToMethodMapper {
                 return;
               }
               try {
-                new ClassReader(StreamUtils.streamToByteArrayClose(programResource.getByteStream()))
-                    .accept(classVisitor, ClassReader.SKIP_FRAMES);
+                consumer.accept(
+                    StreamUtils.streamToByteArrayClose(programResource.getByteStream()));
               } catch (IOException | ResourceException e) {
                 // Intentionally left empty because the addition of inline info for kotlin inline
                 // functions is a best effort.
@@ -58,8 +107,7 @@ public class CfLineToMethodMapper {
         for (ProgramResource programResource : resourceProvider.getProgramResources()) {
           if (programResource.getKind() == Kind.CF) {
             try {
-              new ClassReader(StreamUtils.streamToByteArrayClose(programResource.getByteStream()))
-                  .accept(classVisitor, ClassReader.SKIP_FRAMES);
+              consumer.accept(StreamUtils.streamToByteArrayClose(programResource.getByteStream()));
             } catch (IOException e) {
               // Intentionally left empty because the addition of inline info for kotlin inline
               // functions is a best effort.
@@ -82,12 +130,14 @@ public class CfLineToMethodMapper {
     return nameAndDescriptor.substring(index + NAME_DESCRIPTOR_SEPARATOR.length());
   }
 
-  private class ClassVisitor extends org.objectweb.asm.ClassVisitor {
+  private static class ClassVisitor extends org.objectweb.asm.ClassVisitor {
 
+    private final Map<String, Int2ReferenceOpenHashMap<String>> sourceMethodMapping;
     private Int2ReferenceOpenHashMap<String> currentLineNumberMapping = null;
 
-    private ClassVisitor() {
+    private ClassVisitor(Map<String, Int2ReferenceOpenHashMap<String>> sourceMethodMapping) {
       super(InternalOptions.ASM_VERSION);
+      this.sourceMethodMapping = sourceMethodMapping;
     }
 
     @Override
@@ -9,13 +9,17 @@ import com.android.tools.r8.ResourceException;
 import com.android.tools.r8.errors.CompilationError;
 import com.android.tools.r8.graph.ClassKind;
 import com.android.tools.r8.graph.DexClass;
+import com.android.tools.r8.graph.DexLibraryClass;
 import com.android.tools.r8.graph.DexType;
 import com.android.tools.r8.graph.JarApplicationReader;
 import com.android.tools.r8.graph.JarClassFileReader;
+import com.android.tools.r8.origin.PathOrigin;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -56,8 +60,24 @@ public abstract class ClassProvider<T extends DexClass> {
   public abstract Collection<DexType> collectTypes();
 
   /** Create class provider for java class resource provider. */
+  @SuppressWarnings("unchecked")
   public static <T extends DexClass> ClassProvider<T> forClassFileResources(
       ClassKind<T> classKind, ClassFileResourceProvider provider, JarApplicationReader reader) {
+    InternalOptions options = reader.options;
+    if (classKind == ClassKind.LIBRARY
+        && options.libraryStubIndexDirectory != null
+        && provider instanceof InternalArchiveClassFileProvider) {
+      Path archive = ((InternalArchiveClassFileProvider) provider).getPath();
+      try {
+        LibraryStubIndex index =
+            LibraryStubIndex.getOrCreate(archive, options.libraryStubIndexDirectory);
+        return (ClassProvider<T>) new LibraryStubIndexReader(index, reader);
+      } catch (IOException e) {
+        options.reporter.warning(
+            new StringDiagnostic(
+                "Failed to use library stub index: " + e.getMessage(), new PathOrigin(archive)));
+      }
+    }
     return new ClassFileResourceReader<>(classKind, provider, reader);
   }
 
@@ -71,6 +91,11 @@ public abstract class ClassProvider<T extends DexClass> {
     return new PreloadedClassProvider<>(classKind, builder.build());
   }
 
+  /** Create class provider that records the classes it creates in the given statistics. */
+  public ClassProvider<T> recordingLoads(LibraryClassLoadingStatistics statistics) {
+    return new RecordingClassProvider<>(classKind, this, statistics);
+  }
+
   public FilteringClassProvider<T> without(Set<DexType> filteredTypes) {
     return new FilteringClassProvider<>(classKind, this, filteredTypes);
   }
@@ -124,6 +149,75 @@ public abstract class ClassProvider<T extends DexClass> {
     }
   }
 
+  private static class LibraryStubIndexReader extends ClassProvider<DexLibraryClass> {
+    private final LibraryStubIndex index;
+    private final JarApplicationReader reader;
+
+    private LibraryStubIndexReader(LibraryStubIndex index, JarApplicationReader reader) {
+      super(ClassKind.LIBRARY);
+      this.index = index;
+      this.reader = reader;
+    }
+
+    @Override
+    public void collectClass(DexType type, Consumer<DexLibraryClass> classConsumer) {
+      DexLibraryClass clazz = index.createClass(type.toDescriptorString(), reader);
+      if (clazz != null) {
+        classConsumer.accept(clazz);
+      }
+    }
+
+    @Override
+    public Collection<DexType> collectTypes() {
+      List<DexType> types = new ArrayList<>();
+      for (String descriptor : index.getClassDescriptors()) {
+        types.add(reader.options.itemFactory.createType(descriptor));
+      }
+      return types;
+    }
+
+    @Override
+    public String toString() {
+      return index.toString();
+    }
+  }
+
+  /** Class provider which records the classes created by another provider. */
+  private static class RecordingClassProvider<T extends DexClass> extends ClassProvider<T> {
+    private final ClassProvider<T> provider;
+    private final LibraryClassLoadingStatistics statistics;
+
+    RecordingClassProvider(
+        ClassKind<T> classKind,
+        ClassProvider<T> provider,
+        LibraryClassLoadingStatistics statistics) {
+      super(classKind);
+      this.provider = provider;
+      this.statistics = statistics;
+      statistics.recordAvailableClasses(provider.collectTypes().size());
+    }
+
+    @Override
+    public void collectClass(DexType type, Consumer<T> classConsumer) {
+      provider.collectClass(
+          type,
+          clazz -> {
+            statistics.recordLoad(type);
+            classConsumer.accept(clazz);
+          });
+    }
+
+    @Override
+    public Collection<DexType> collectTypes() {
+      return provider.collectTypes();
+    }
+
+    @Override
+    public String toString() {
+      return "recording(" + provider + ")";
+    }
+  }
+
   private static class PreloadedClassProvider<T extends DexClass> extends ClassProvider<T> {
     private final Multimap<DexType, T> classes;
 
@@ -0,0 +1,749 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.android.tools.r8.AssertionsConfiguration;
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.ClassFileResourceProvider;
+import com.android.tools.r8.DataResourceProvider;
+import com.android.tools.r8.DesugarGraphConsumer;
+import com.android.tools.r8.DexFilePerClassFileConsumer;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.GlobalSyntheticsConsumer;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.ProgramResource.Kind;
+import com.android.tools.r8.ProgramResourceProvider;
+import com.android.tools.r8.ResourceException;
+import com.android.tools.r8.errors.CompilationError;
+import com.android.tools.r8.ir.desugar.desugaredlibrary.DesugaredLibrarySpecification;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.references.ClassReference;
+import com.android.tools.r8.references.Reference;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+
+/**
+ * Persistent cache of the output of class file inputs in D8 intermediate per-class compilations.
+ *
+ * <p>An entry of the cache is keyed by the content of a class file and the configuration of the
+ * compilation. It holds the DEX output of the class including its synthetics, the global synthetics
+ * needed by the class, and the content of each class that the desugaring of the class depended on,
+ * as reported to the {@link DesugarGraphConsumer}. An entry is only used when all of these
+ * dependencies are unchanged.
+ *
+ * <p>Classes with a valid entry are not compiled. Their output and dependency edges are replayed to
+ * the consumers of the compilation, and the classes are moved to the classpath such that the
+ * remaining program classes are desugared against them as before. Classes in nests are never
+ * cached, as nest based access desugaring may add members to all classes in the nest.
+ */
+public class DesugaringCache {
+
+  private static final int MAGIC = 0x52384443;
+  private static final int FORMAT_VERSION = 1;
+  private static final String ENTRY_FILE_EXTENSION = ".r8dc";
+
+  private final InternalOptions options;
+  private final Path cacheDirectory;
+  private final HashCode configurationKey;
+
+  // The class file inputs of the program.
+  private final Map<String, ProgramClass> programClasses = new HashMap<>();
+  private final Map<Origin, ProgramClass> programClassesByOrigin = new HashMap<>();
+
+  // The classpath classes used for validating entries and the descriptors of the classpath classes
+  // read by the compilation.
+  private List<ClassFileResourceProvider> classpathProviders = Collections.emptyList();
+  private final Map<String, ClasspathClass> classpathClasses = new ConcurrentHashMap<>();
+  private final Map<Origin, String> classpathDescriptors = new ConcurrentHashMap<>();
+
+  // The output and dependencies of the compiled classes.
+  private final Map<String, DexOutput> dexOutputs = new ConcurrentHashMap<>();
+  private final Map<String, byte[]> globalSynthetics = new ConcurrentHashMap<>();
+  private final Map<Origin, Set<Origin>> dependencies = new ConcurrentHashMap<>();
+
+  private boolean enabled = true;
+  private int numberOfCachedClasses = 0;
+
+  private DesugaringCache(InternalOptions options, HashCode configurationKey) {
+    this.options = options;
+    this.cacheDirectory = options.desugaringCacheDirectory;
+    this.configurationKey = configurationKey;
+  }
+
+  /**
+   * Returns the cache for the compilation if a cache directory is configured and the output of the
+   * compilation can be composed from the output of the individual classes, otherwise null.
+   */
+  public static DesugaringCache createIfEnabled(AndroidApp app, InternalOptions options)
+      throws IOException {
+    if (options.desugaringCacheDirectory == null || !isCacheableCompilation(app, options)) {
+      return null;
+    }
+    return new DesugaringCache(options, computeConfigurationKey(app, options));
+  }
+
+  private static boolean isCacheableCompilation(AndroidApp app, InternalOptions options) {
+    return options.intermediate
+        && options.isGeneratingDexFilePerClassFile()
+        && options.getDexFilePerClassFileConsumer().combineSyntheticClassesWithPrimaryClass()
+        && options.hasGlobalSyntheticsConsumer()
+        && options.getSyntheticInfoConsumer() == null
+        && options.desugaredLibraryKeepRuleConsumer == null
+        && options.getArtProfileOptions().getArtProfilesForRewriting().isEmpty()
+        && !options.getStartupOptions().hasStartupProfileProviders()
+        && options.mainDexKeepRules.isEmpty()
+        && !app.hasMainDexList()
+        && !options.hasMethodsFilter()
+        && options.outputInspections.isEmpty()
+        && (options.assertionsConfiguration == null
+            || options.assertionsConfiguration.assertionsConfigurations.isEmpty());
+  }
+
+  // The configuration key identifies the compiler and all options that affect the output of a
+  // class, including the content of the library classes that the class is compiled against.
+  private static HashCode computeConfigurationKey(AndroidApp app, InternalOptions options)
+      throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(FORMAT_VERSION);
+    hasher.putString(options.getMarker().toString(), UTF_8);
+    hasher.putString(options.desugarState.name(), UTF_8);
+    if (options.assertionsConfiguration != null) {
+      AssertionsConfiguration assertionsConfiguration =
+          options.assertionsConfiguration.defaultConfiguration;
+      hasher.putBoolean(assertionsConfiguration.isCompileTimeEnabled());
+      hasher.putBoolean(assertionsConfiguration.isCompileTimeDisabled());
+    }
+    DesugaredLibrarySpecification desugaredLibrarySpecification =
+        options.getDesugaredLibrarySpecification();
+    if (desugaredLibrarySpecification != null) {
+      hasher.putString(String.valueOf(desugaredLibrarySpecification.getIdentifier()), UTF_8);
+      hasher.putString(String.valueOf(desugaredLibrarySpecification.getJsonSource()), UTF_8);
+    }
+    hasher.putString(options.synthesizedClassPrefix, UTF_8);
+    for (ClassFileResourceProvider provider : app.getLibraryResourceProviders()) {
+      if (provider instanceof InternalArchiveClassFileProvider) {
+        ((InternalArchiveClassFileProvider) provider).hashClassFiles(hasher);
+      } else {
+        for (String descriptor : new TreeSet<>(provider.getClassDescriptors())) {
+          hasher.putString(descriptor, UTF_8);
+          hashClassFile(provider, descriptor, hasher);
+        }
+      }
+    }
+    return hasher.hash();
+  }
+
+  private static void hashClassFile(
+      ClassFileResourceProvider provider, String descriptor, Hasher hasher) {
+    ProgramResource resource = provider.getProgramResource(descriptor);
+    if (resource == null) {
+      return;
+    }
+    try {
+      hasher.putBytes(readBytes(resource));
+    } catch (IOException | ResourceException e) {
+      throw new CompilationError(e.getMessage(), e, resource.getOrigin());
+    }
+  }
+
+  public int getNumberOfCachedClasses() {
+    return numberOfCachedClasses;
+  }
+
+  /**
+   * Looks up the class file inputs of the app in the cache, replays the output of the cached
+   * classes and returns the app of the classes to compile.
+   *
+   * <p>The consumers of the compilation are replaced by consumers that record the output and
+   * dependencies of the compiled classes, to be stored by {@link #store}.
+   */
+  public AndroidApp prepare(AndroidApp app, ExecutorService executorService, Timing timing)
+      throws ExecutionException {
+    timing.begin("Desugaring cache lookup");
+    try {
+      return internalPrepare(app, executorService);
+    } catch (ResourceException e) {
+      throw options.reporter.fatalError(new StringDiagnostic(e.getMessage(), e.getOrigin()));
+    } finally {
+      timing.end();
+    }
+  }
+
+  private AndroidApp internalPrepare(AndroidApp app, ExecutorService executorService)
+      throws ExecutionException, ResourceException {
+    Map<ProgramResourceProvider, Collection<ProgramResource>> programResources =
+        new HashMap<>();
+    List<ProgramResource> classFileResources = new ArrayList<>();
+    for (ProgramResourceProvider provider : app.getProgramResourceProviders()) {
+      Collection<ProgramResource> resources = provider.getProgramResources();
+      programResources.put(provider, resources);
+      for (ProgramResource resource : resources) {
+        if (resource.getKind() == Kind.CF) {
+          classFileResources.add(resource);
+        }
+      }
+    }
+    Collection<ProgramClass> classes =
+        ThreadUtils.processItemsWithResults(
+            classFileResources,
+            this::readProgramClass,
+            options.getThreadingModule(),
+            executorService);
+    Map<ProgramResource, ProgramClass> classesByResource = new IdentityHashMap<>();
+    Iterator<ProgramClass> classIterator = classes.iterator();
+    for (ProgramResource resource : classFileResources) {
+      classesByResource.put(resource, classIterator.next());
+    }
+    for (ProgramClass clazz : classes) {
+      if (programClasses.put(clazz.descriptor, clazz) != null) {
+        // The compilation fails on the duplicate definition, thus do not use any entries.
+        enabled = false;
+        return app;
+      }
+      programClassesByOrigin.put(clazz.getOrigin(), clazz);
+    }
+    classpathProviders = app.getClasspathResourceProviders();
+
+    // Find the classes with a valid entry.
+    ThreadUtils.processItems(
+        classes,
+        clazz -> {
+          if (clazz.isCacheable) {
+            CacheEntry entry = readEntry(clazz);
+            if (entry != null && isValid(entry)) {
+              clazz.entry = entry;
+            }
+          }
+        },
+        options.getThreadingModule(),
+        executorService);
+
+    // Replay the cached classes and move them to the classpath.
+    Map<String, ProgramResource> cachedResources = new HashMap<>();
+    for (ProgramClass clazz : classes) {
+      if (clazz.entry != null) {
+        replay(clazz);
+        cachedResources.put(clazz.descriptor, clazz.resource);
+      }
+    }
+    numberOfCachedClasses = cachedResources.size();
+    List<ProgramResourceProvider> newProgramProviders = new ArrayList<>();
+    for (ProgramResourceProvider provider : app.getProgramResourceProviders()) {
+      List<ProgramResource> resources = new ArrayList<>();
+      for (ProgramResource resource : programResources.get(provider)) {
+        if (resource.getKind() != Kind.CF) {
+          resources.add(resource);
+          continue;
+        }
+        ProgramClass clazz = classesByResource.get(resource);
+        if (clazz.entry == null) {
+          resources.add(clazz.resource);
+        }
+      }
+      newProgramProviders.add(new FilteredProgramResourceProvider(provider, resources));
+    }
+    List<ClassFileResourceProvider> newClasspathProviders = new ArrayList<>();
+    if (!cachedResources.isEmpty()) {
+      newClasspathProviders.add(new CachedClassesProvider(cachedResources));
+    }
+    for (ClassFileResourceProvider provider : classpathProviders) {
+      newClasspathProviders.add(new RecordingClasspathProvider(provider));
+    }
+    installRecordingConsumers();
+    return app.withProgramAndClasspathResourceProviders(
+        newProgramProviders, newClasspathProviders);
+  }
+
+  private ProgramClass readProgramClass(ProgramResource resource) {
+    byte[] bytes;
+    try {
+      bytes = readBytes(resource);
+    } catch (IOException | ResourceException e) {
+      throw new CompilationError(e.getMessage(), e, resource.getOrigin());
+    }
+    NestVisitor visitor = new NestVisitor();
+    new ClassReader(bytes)
+        .accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+    // Program resources may only be read once, thus the class is read from the bytes read here.
+    return new ProgramClass(
+        ProgramResource.fromBytes(
+            resource.getOrigin(), Kind.CF, bytes, resource.getClassDescriptors()),
+        DescriptorUtils.getDescriptorFromClassBinaryName(visitor.name),
+        Hashing.sha256().hashBytes(bytes),
+        !visitor.isInNest);
+  }
+
+  private static byte[] readBytes(ProgramResource resource)
+      throws IOException, ResourceException {
+    try (InputStream stream = resource.getByteStream()) {
+      return ByteStreams.toByteArray(stream);
+    }
+  }
+
+  private boolean isValid(CacheEntry entry) {
+    for (Map.Entry<String, HashCode> dependency : entry.dependencies.entrySet()) {
+      if (!dependency.getValue().equals(getContentHash(dependency.getKey()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private HashCode getContentHash(String descriptor) {
+    ProgramClass programClass = programClasses.get(descriptor);
+    if (programClass != null) {
+      return programClass.contentHash;
+    }
+    ClasspathClass classpathClass = getClasspathClass(descriptor);
+    return classpathClass != null ? classpathClass.contentHash : null;
+  }
+
+  private Origin getOrigin(String descriptor) {
+    ProgramClass programClass = programClasses.get(descriptor);
+    return programClass != null
+        ? programClass.getOrigin()
+        : getClasspathClass(descriptor).origin;
+  }
+
+  private ClasspathClass getClasspathClass(String descriptor) {
+    ClasspathClass clazz = classpathClasses.get(descriptor);
+    if (clazz != null) {
+      return clazz;
+    }
+    for (ClassFileResourceProvider provider : classpathProviders) {
+      ProgramResource resource = provider.getProgramResource(descriptor);
+      if (resource != null) {
+        try {
+          clazz =
+              new ClasspathClass(
+                  resource.getOrigin(), Hashing.sha256().hashBytes(readBytes(resource)));
+        } catch (IOException | ResourceException e) {
+          throw new CompilationError(e.getMessage(), e, resource.getOrigin());
+        }
+        classpathClasses.put(descriptor, clazz);
+        return clazz;
+      }
+    }
+    return null;
+  }
+
+  private void replay(ProgramClass clazz) {
+    CacheEntry entry = clazz.entry;
+    DesugarGraphConsumer desugarGraphConsumer = options.desugarGraphConsumer;
+    if (desugarGraphConsumer != null) {
+      desugarGraphConsumer.acceptProgramNode(clazz.getOrigin());
+      for (String dependency : entry.dependencies.keySet()) {
+        desugarGraphConsumer.accept(clazz.getOrigin(), getOrigin(dependency));
+      }
+    }
+    options
+        .getDexFilePerClassFileConsumer()
+        .accept(clazz.descriptor, ByteDataView.of(entry.dex), entry.descriptors, options.reporter);
+    if (entry.globalSynthetics != null) {
+      options
+          .getGlobalSyntheticsConsumer()
+          .accept(
+              ByteDataView.of(entry.globalSynthetics),
+              Reference.classFromDescriptor(clazz.descriptor),
+              options.reporter);
+    }
+  }
+
+  private void installRecordingConsumers() {
+    options.programConsumer =
+        new DexFilePerClassFileConsumer.ForwardingConsumer(
+            options.getDexFilePerClassFileConsumer()) {
+          @Override
+          public void accept(
+              String primaryClassDescriptor,
+              ByteDataView data,
+              Set<String> descriptors,
+              DiagnosticsHandler handler) {
+            dexOutputs.put(
+                primaryClassDescriptor, new DexOutput(data.copyByteData(), descriptors));
+            super.accept(primaryClassDescriptor, data, descriptors, handler);
+          }
+        };
+    GlobalSyntheticsConsumer globalSyntheticsConsumer = options.getGlobalSyntheticsConsumer();
+    options.setGlobalSyntheticsConsumer(
+        new GlobalSyntheticsConsumer() {
+          @Override
+          public void accept(
+              ByteDataView data, ClassReference context, DiagnosticsHandler handler) {
+            if (context != null) {
+              globalSynthetics.put(context.getDescriptor(), data.copyByteData());
+            }
+            globalSyntheticsConsumer.accept(data, context, handler);
+          }
+
+          @Override
+          public void finished(DiagnosticsHandler handler) {
+            globalSyntheticsConsumer.finished(handler);
+          }
+        });
+    DesugarGraphConsumer desugarGraphConsumer = options.desugarGraphConsumer;
+    options.desugarGraphConsumer =
+        new DesugarGraphConsumer() {
+          @Override
+          public void acceptProgramNode(Origin node) {
+            if (desugarGraphConsumer != null) {
+              desugarGraphConsumer.acceptProgramNode(node);
+            }
+          }
+
+          @Override
+          public void accept(Origin dependent, Origin dependency) {
+            dependencies
+                .computeIfAbsent(dependent, ignore -> Sets.newConcurrentHashSet())
+                .add(dependency);
+            if (desugarGraphConsumer != null) {
+              desugarGraphConsumer.accept(dependent, dependency);
+            }
+          }
+
+          @Override
+          public void finished() {
+            if (desugarGraphConsumer != null) {
+              desugarGraphConsumer.finished();
+            }
+          }
+        };
+  }
+
+  /** Stores the output of the compiled classes in the cache. */
+  public void store(ExecutorService executorService, Timing timing) throws ExecutionException {
+    if (!enabled) {
+      return;
+    }
+    timing.begin("Desugaring cache store");
+    List<ProgramClass> compiledClasses = new ArrayList<>();
+    programClasses.forEach(
+        (descriptor, clazz) -> {
+          if (clazz.isCacheable && clazz.entry == null && dexOutputs.containsKey(descriptor)) {
+            compiledClasses.add(clazz);
+          }
+        });
+    AtomicBoolean reportedFailure = new AtomicBoolean();
+    ThreadUtils.processItems(
+        compiledClasses,
+        clazz -> {
+          try {
+            writeEntry(clazz);
+          } catch (IOException e) {
+            if (!reportedFailure.getAndSet(true)) {
+              options.reporter.warning(
+                  new StringDiagnostic(
+                      "Failed to update the desugaring cache: " + e.getMessage(),
+                      clazz.getOrigin()));
+            }
+          }
+        },
+        options.getThreadingModule(),
+        executorService);
+    timing.end();
+  }
+
+  private Path getEntryFile(ProgramClass clazz) {
+    String key =
+        Hashing.sha256()
+            .newHasher()
+            .putBytes(configurationKey.asBytes())
+            .putBytes(clazz.contentHash.asBytes())
+            .hash()
+            .toString();
+    // Entries are spread over subdirectories by the first two characters of their key.
+    return cacheDirectory
+        .resolve(key.substring(0, 2))
+        .resolve(key.substring(2) + ENTRY_FILE_EXTENSION);
+  }
+
+  private CacheEntry readEntry(ProgramClass clazz) {
+    Path entryFile = getEntryFile(clazz);
+    if (!Files.exists(entryFile)) {
+      return null;
+    }
+    try (DataInputStream input =
+        new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(entryFile)))) {
+      if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+        return null;
+      }
+      Map<String, HashCode> dependencies = new TreeMap<>();
+      int numberOfDependencies = input.readInt();
+      for (int i = 0; i < numberOfDependencies; i++) {
+        dependencies.put(input.readUTF(), HashCode.fromBytes(readByteArray(input)));
+      }
+      byte[] dex = readByteArray(input);
+      int numberOfDescriptors = input.readInt();
+      Set<String> descriptors = new HashSet<>(numberOfDescriptors);
+      for (int i = 0; i < numberOfDescriptors; i++) {
+        descriptors.add(input.readUTF());
+      }
+      byte[] globalSynthetics = input.readBoolean() ? readByteArray(input) : null;
+      return new CacheEntry(dependencies, dex, descriptors, globalSynthetics);
+    } catch (IOException e) {
+      // A truncated or otherwise unreadable entry is treated as absent and recomputed.
+      return null;
+    }
+  }
+
+  private static byte[] readByteArray(DataInputStream input) throws IOException {
+    byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  private void writeEntry(ProgramClass clazz) throws IOException {
+    Map<String, HashCode> dependencyHashes = new TreeMap<>();
+    for (Origin dependency :
+        dependencies.getOrDefault(clazz.getOrigin(), Collections.emptySet())) {
+      ProgramClass programDependency = programClassesByOrigin.get(dependency);
+      String descriptor =
+          programDependency != null
+              ? programDependency.descriptor
+              : classpathDescriptors.get(dependency);
+      HashCode contentHash = descriptor != null ? getContentHash(descriptor) : null;
+      if (contentHash == null) {
+        // The dependency cannot be validated by later compilations.
+        return;
+      }
+      dependencyHashes.put(descriptor, contentHash);
+    }
+    DexOutput dexOutput = dexOutputs.get(clazz.descriptor);
+    byte[] globalSyntheticsData = globalSynthetics.get(clazz.descriptor);
+    Path entryFile = getEntryFile(clazz);
+    Files.createDirectories(entryFile.getParent());
+    Path temporaryFile = Files.createTempFile(entryFile.getParent(), "entry", ".tmp");
+    try {
+      try (DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(dependencyHashes.size());
+        for (Map.Entry<String, HashCode> dependency : dependencyHashes.entrySet()) {
+          output.writeUTF(dependency.getKey());
+          writeByteArray(output, dependency.getValue().asBytes());
+        }
+        writeByteArray(output, dexOutput.data);
+        output.writeInt(dexOutput.descriptors.size());
+        for (String descriptor : dexOutput.descriptors) {
+          output.writeUTF(descriptor);
+        }
+        output.writeBoolean(globalSyntheticsData != null);
+        if (globalSyntheticsData != null) {
+          writeByteArray(output, globalSyntheticsData);
+        }
+      }
+      Files.move(temporaryFile, entryFile, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  private static void writeByteArray(DataOutputStream output, byte[] bytes) throws IOException {
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static class ProgramClass {
+
+    private final ProgramResource resource;
+    private final String descriptor;
+    private final HashCode contentHash;
+    private final boolean isCacheable;
+
+    // The valid cache entry of the class, or null if the class is compiled.
+    private CacheEntry entry;
+
+    ProgramClass(
+        ProgramResource resource, String descriptor, HashCode contentHash, boolean isCacheable) {
+      this.resource = resource;
+      this.descriptor = descriptor;
+      this.contentHash = contentHash;
+      this.isCacheable = isCacheable;
+    }
+
+    Origin getOrigin() {
+      return resource.getOrigin();
+    }
+  }
+
+  private static class ClasspathClass {
+
+    private final Origin origin;
+    private final HashCode contentHash;
+
+    ClasspathClass(Origin origin, HashCode contentHash) {
+      this.origin = origin;
+      this.contentHash = contentHash;
+    }
+  }
+
+  private static class DexOutput {
+
+    private final byte[] data;
+    private final Set<String> descriptors;
+
+    DexOutput(byte[] data, Set<String> descriptors) {
+      this.data = data;
+      this.descriptors = descriptors;
+    }
+  }
+
+  private static class CacheEntry {
+
+    private final Map<String, HashCode> dependencies;
+    private final byte[] dex;
+    private final Set<String> descriptors;
+    private final byte[] globalSynthetics;
+
+    CacheEntry(
+        Map<String, HashCode> dependencies,
+        byte[] dex,
+        Set<String> descriptors,
+        byte[] globalSynthetics) {
+      this.dependencies = dependencies;
+      this.dex = dex;
+      this.descriptors = descriptors;
+      this.globalSynthetics = globalSynthetics;
+    }
+  }
+
+  private static class NestVisitor extends ClassVisitor {
+
+    private String name;
+    private boolean isInNest = false;
+
+    NestVisitor() {
+      super(InternalOptions.ASM_VERSION);
+    }
+
+    @Override
+    public void visit(
+        int version,
+        int access,
+        String name,
+        String signature,
+        String superName,
+        String[] interfaces) {
+      this.name = name;
+    }
+
+    @Override
+    public void visitNestHost(String nestHost) {
+      isInNest = true;
+    }
+
+    @Override
+    public void visitNestMember(String nestMember) {
+      isInNest = true;
+    }
+  }
+
+  private static class FilteredProgramResourceProvider implements ProgramResourceProvider {
+
+    private final ProgramResourceProvider provider;
+    private final Collection<ProgramResource> resources;
+
+    FilteredProgramResourceProvider(
+        ProgramResourceProvider provider, Collection<ProgramResource> resources) {
+      this.provider = provider;
+      this.resources = resources;
+    }
+
+    @Override
+    public Collection<ProgramResource> getProgramResources() {
+      return resources;
+    }
+
+    @Override
+    public DataResourceProvider getDataResourceProvider() {
+      return provider.getDataResourceProvider();
+    }
+
+    @Override
+    public void finished(DiagnosticsHandler handler) throws IOException {
+      provider.finished(handler);
+    }
+  }
+
+  private static class CachedClassesProvider implements ClassFileResourceProvider {
+
+    private final Map<String, ProgramResource> resources;
+
+    CachedClassesProvider(Map<String, ProgramResource> resources) {
+      this.resources = resources;
+    }
+
+    @Override
+    public Set<String> getClassDescriptors() {
+      return resources.keySet();
+    }
+
+    @Override
+    public ProgramResource getProgramResource(String descriptor) {
+      return resources.get(descriptor);
+    }
+  }
+
+  private class RecordingClasspathProvider implements ClassFileResourceProvider {
+
+    private final ClassFileResourceProvider provider;
+
+    RecordingClasspathProvider(ClassFileResourceProvider provider) {
+      this.provider = provider;
+    }
+
+    @Override
+    public Set<String> getClassDescriptors() {
+      return provider.getClassDescriptors();
+    }
+
+    @Override
+    public ProgramResource getProgramResource(String descriptor) {
+      ProgramResource resource = provider.getProgramResource(descriptor);
+      if (resource != null) {
+        classpathDescriptors.put(resource.getOrigin(), descriptor);
+      }
+      return resource;
+    }
+
+    @Override
+    public void finished(DiagnosticsHandler handler) throws IOException {
+      provider.finished(handler);
+    }
+  }
+}
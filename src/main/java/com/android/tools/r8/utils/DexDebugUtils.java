@@ -6,24 +6,24 @@ package com.android.tools.r8.utils;
 
 import com.android.tools.r8.graph.DexDebugEvent;
 import com.android.tools.r8.graph.DexDebugEvent.SetPositionFrame;
+import com.android.tools.r8.graph.DexDebugEvents;
 import com.android.tools.r8.graph.DexDebugInfo;
 import com.android.tools.r8.graph.DexDebugInfo.EventBasedDebugInfo;
 import com.android.tools.r8.graph.DexDebugPositionState;
 import com.android.tools.r8.graph.DexMethod;
 import com.android.tools.r8.ir.code.Position;
 import com.android.tools.r8.utils.DexDebugUtils.PositionInfo.PositionInfoBuilder;
-import java.util.List;
 
 public class DexDebugUtils {
 
   public static boolean verifySetPositionFramesFollowedByDefaultEvent(DexDebugInfo debugInfo) {
     return debugInfo == null
         || debugInfo.isPcBasedInfo()
-        || verifySetPositionFramesFollowedByDefaultEvent(debugInfo.asEventBasedInfo().events);
+        || verifySetPositionFramesFollowedByDefaultEvent(debugInfo.asEventBasedInfo().getEvents());
   }
 
-  public static boolean verifySetPositionFramesFollowedByDefaultEvent(List<DexDebugEvent> events) {
-    return verifySetPositionFramesFollowedByDefaultEvent(events.toArray(DexDebugEvent.EMPTY_ARRAY));
+  public static boolean verifySetPositionFramesFollowedByDefaultEvent(DexDebugEvents events) {
+    return verifySetPositionFramesFollowedByDefaultEvent(events.toArray());
   }
 
   public static boolean verifySetPositionFramesFollowedByDefaultEvent(DexDebugEvent... events) {
@@ -51,7 +51,7 @@ public class DexDebugUtils {
           }
         };
     PositionInfoBuilder builder = PositionInfo.builder();
-    for (DexDebugEvent event : debugInfo.events) {
+    for (DexDebugEvent event : debugInfo.getEvents()) {
       event.accept(visitor);
       if (visitor.getCurrentPc() > 0) {
         break;
@@ -14,6 +14,7 @@ import com.android.tools.r8.errors.CompilationError;
 import com.android.tools.r8.origin.ArchiveEntryOrigin;
 import com.android.tools.r8.origin.Origin;
 import com.android.tools.r8.origin.PathOrigin;
+import com.google.common.hash.Hasher;
 import com.google.common.io.ByteStreams;
 import java.io.IOException;
 import java.io.InputStream;
@@ -25,6 +26,7 @@ import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Predicate;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -74,6 +76,23 @@ class InternalArchiveClassFileProvider implements ClassFileResourceProvider, Aut
     }
   }
 
+  Path getPath() {
+    return path;
+  }
+
+  /**
+   * Adds the name, size and CRC-32 of the provided class files to the given hasher. These are read
+   * from the central directory of the archive, thus the class files are not decompressed.
+   */
+  void hashClassFiles(Hasher hasher) throws IOException {
+    for (String descriptor : new TreeSet<>(descriptors)) {
+      ZipEntry zipEntry = getZipEntryFromDescriptor(descriptor);
+      hasher.putString(zipEntry.getName(), StandardCharsets.UTF_8);
+      hasher.putLong(zipEntry.getSize());
+      hasher.putLong(zipEntry.getCrc());
+    }
+  }
+
   @Override
   public Set<String> getClassDescriptors() {
     return Collections.unmodifiableSet(descriptors);
@@ -65,14 +65,17 @@ import com.android.tools.r8.graph.bytecodemetadata.BytecodeMetadataProvider;
 import com.android.tools.r8.horizontalclassmerging.HorizontalClassMerger;
 import com.android.tools.r8.horizontalclassmerging.HorizontallyMergedClasses;
 import com.android.tools.r8.horizontalclassmerging.Policy;
+import com.android.tools.r8.horizontalclassmerging.PolicyStatistics;
 import com.android.tools.r8.inspector.internal.InspectorImpl;
 import com.android.tools.r8.ir.analysis.proto.ProtoReferences;
 import com.android.tools.r8.ir.analysis.type.TypeElement;
 import com.android.tools.r8.ir.code.IRCode;
+import com.android.tools.r8.ir.conversion.IRPassProfiler;
 import com.android.tools.r8.ir.conversion.MethodConversionOptions;
 import com.android.tools.r8.ir.desugar.TypeRewriter;
 import com.android.tools.r8.ir.desugar.TypeRewriter.MachineTypeRewriter;
 import com.android.tools.r8.ir.desugar.desugaredlibrary.DesugaredLibrarySpecification;
+import com.android.tools.r8.ir.desugar.desugaredlibrary.DesugaredLibrarySpecificationCache;
 import com.android.tools.r8.ir.desugar.desugaredlibrary.machinespecification.MachineDesugaredLibrarySpecification;
 import com.android.tools.r8.ir.desugar.nest.Nest;
 import com.android.tools.r8.ir.optimize.Inliner;
@@ -119,6 +122,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -354,6 +358,38 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
   public boolean printTimes = System.getProperty("com.android.tools.r8.printtimes") != null;
   // To print memory one also have to enable printtimes.
   public boolean printMemory = System.getProperty("com.android.tools.r8.printmemory") != null;
+  // Print which library classes are materialized and from where they are first requested.
+  public boolean printLibraryClassLoading =
+      System.getProperty("com.android.tools.r8.printLibraryClassLoading") != null;
+  // Print the most expensive IR optimization passes and methods, see IRPassProfiler.
+  public boolean printIRPassProfile =
+      System.getProperty("com.android.tools.r8.printIRPassProfile") != null;
+  // Directory of library stub indices. When set, library classes of archives are created from a
+  // precomputed stub index of the archive instead of parsing their class files.
+  public Path libraryStubIndexDirectory =
+      SystemPropertyUtils.applySystemProperty(
+          "com.android.tools.r8.libraryStubIndexDirectory", Paths::get, () -> null);
+  // Directory of the desugaring cache. When set, D8 intermediate per-class compilations reuse the
+  // output of unchanged class files from previous compilations, see DesugaringCache.
+  public Path desugaringCacheDirectory =
+      SystemPropertyUtils.applySystemProperty(
+          "com.android.tools.r8.desugaringCacheDirectory", Paths::get, () -> null);
+  // Directory of precompiled machine desugared library specifications. When set, the conversion of
+  // a desugared library specification is shared with other processes, see
+  // DesugaredLibrarySpecificationCache.
+  public Path desugaredLibrarySpecificationCacheDirectory =
+      SystemPropertyUtils.applySystemProperty(
+          "com.android.tools.r8.desugaredLibrarySpecificationCacheDirectory",
+          Paths::get,
+          () -> null);
+  // Directory of traced main-dex classes. When set, the main-dex classes traced for legacy multidex
+  // are shared with other processes compiling the same inputs, see MainDexInfoCache.
+  public Path mainDexInfoCacheDirectory =
+      SystemPropertyUtils.applySystemProperty(
+          "com.android.tools.r8.mainDexInfoCacheDirectory", Paths::get, () -> null);
+
+  private LibraryClassLoadingStatistics libraryClassLoadingStatistics;
+  private IRPassProfiler irPassProfiler;
 
   // Flag to toggle if DEX code objects should pass-through without IR processing.
   public boolean passthroughDexCode = false;
@@ -454,6 +490,11 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
   // TODO(b/237567012): Remove when resolved.
   public boolean enableCheckAllInstructionsDuringStackMapVerification = false;
 
+  // Trust the stack map frames of the input without verifying them. Invalid input frames are not
+  // detected and may result in invalid output, thus the use of the option is reported.
+  public boolean trustInputStackMaps =
+      System.getProperty("com.android.tools.r8.trustInputStackMaps") != null;
+
   public String synthesizedClassPrefix = "";
 
   // Number of threads to use while processing the dex files.
@@ -479,6 +520,12 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
   // Boolean value indicating that byte code pass through may be enabled.
   public boolean enableCfByteCodePassThrough = false;
 
+  // Flag to parse the code of all methods in a program class file when the class is read instead
+  // of when the code of one of its methods is first used. This avoids retaining the class file
+  // content when the code of all program methods is needed, such as in D8.
+  public boolean parseCfCodeEagerly =
+      System.getProperty("com.android.tools.r8.parseCfCodeEagerly") != null;
+
   // Flag to control the representation of stateless lambdas.
   // See b/222081665 for context.
   public boolean createSingletonsForStatelessLambdas =
@@ -1014,6 +1061,31 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
     return redundantBridgeRemovalOptions;
   }
 
+  public boolean isRecordingLibraryClassLoading() {
+    return printLibraryClassLoading || libraryClassLoadingStatistics != null;
+  }
+
+  public synchronized LibraryClassLoadingStatistics getLibraryClassLoadingStatistics() {
+    assert isRecordingLibraryClassLoading();
+    if (libraryClassLoadingStatistics == null) {
+      libraryClassLoadingStatistics = new LibraryClassLoadingStatistics();
+    }
+    return libraryClassLoadingStatistics;
+  }
+
+  public synchronized void setLibraryClassLoadingStatisticsForTesting(
+      LibraryClassLoadingStatistics libraryClassLoadingStatistics) {
+    this.libraryClassLoadingStatistics = libraryClassLoadingStatistics;
+  }
+
+  public synchronized IRPassProfiler getIRPassProfiler() {
+    assert printIRPassProfile;
+    if (irPassProfiler == null) {
+      irPassProfiler = new IRPassProfiler();
+    }
+    return irPassProfiler;
+  }
+
   public DumpInputFlags getDumpInputFlags() {
     return dumpInputFlags;
   }
@@ -1161,7 +1233,8 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
   public StringConsumer configurationConsumer = null;
 
   public void resetDesugaredLibrarySpecificationForTesting() {
-    loadMachineDesugaredLibrarySpecification = null;
+    desugaredLibrarySpecification = null;
+    desugaredLibraryPostPrefix = null;
     machineDesugaredLibrarySpecification = MachineDesugaredLibrarySpecification.empty();
   }
 
@@ -1189,27 +1262,38 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
     if (specification.isEmpty()) {
       return;
     }
-    loadMachineDesugaredLibrarySpecification =
-        (timing, app) -> {
-          MachineDesugaredLibrarySpecification machineSpec =
-              specification.toMachineSpecification(app, timing);
-          machineDesugaredLibrarySpecification =
-              postPrefix != null
-                  ? machineSpec.withPostPrefix(dexItemFactory(), postPrefix)
-                  : machineSpec;
-        };
+    desugaredLibrarySpecification = specification;
+    desugaredLibraryPostPrefix = postPrefix;
   }
 
-  private ThrowingBiConsumer<Timing, DexApplication, IOException>
-      loadMachineDesugaredLibrarySpecification = null;
+  // The desugared library specification as configured, prior to loading the machine specification.
+  private DesugaredLibrarySpecification desugaredLibrarySpecification = null;
+  private String desugaredLibraryPostPrefix = null;
+
+  public DesugaredLibrarySpecification getDesugaredLibrarySpecification() {
+    return desugaredLibrarySpecification;
+  }
 
   public void loadMachineDesugaredLibrarySpecification(Timing timing, DexApplication app)
       throws IOException {
-    if (loadMachineDesugaredLibrarySpecification == null) {
+    loadMachineDesugaredLibrarySpecification(timing, app, null);
+  }
+
+  // The input app, if given, allows sharing the machine specification with other compilations
+  // against the same library, see DesugaredLibrarySpecificationCache.
+  public void loadMachineDesugaredLibrarySpecification(
+      Timing timing, DexApplication app, AndroidApp inputApp) throws IOException {
+    if (desugaredLibrarySpecification == null) {
       return;
     }
     timing.begin("Load machine specification");
-    loadMachineDesugaredLibrarySpecification.accept(timing, app);
+    MachineDesugaredLibrarySpecification machineSpec =
+        DesugaredLibrarySpecificationCache.toMachineSpecification(
+            desugaredLibrarySpecification, app, inputApp, timing);
+    machineDesugaredLibrarySpecification =
+        desugaredLibraryPostPrefix != null
+            ? machineSpec.withPostPrefix(dexItemFactory(), desugaredLibraryPostPrefix)
+            : machineSpec;
     timing.end();
   }
 
@@ -1266,6 +1350,7 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
   private final AtomicBoolean reportedErrorReadingKotlinMetadataReflectively =
       new AtomicBoolean(false);
   private final Set<DexItem> invalidLibraryClasses = SetUtils.newConcurrentHashSet();
+  private final AtomicBoolean reportedTrustedInputStackMaps = new AtomicBoolean(false);
 
   public RuntimeException errorMissingNestHost(DexClass clazz) {
     throw reporter.fatalError(
@@ -1363,6 +1448,15 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
     }
   }
 
+  public void infoTrustedInputStackMaps() {
+    if (reportedTrustedInputStackMaps.compareAndSet(false, true)) {
+      reporter.info(
+          new StringDiagnostic(
+              "The stack map frames of the input are trusted and not verified. Invalid input"
+                  + " frames are not reported and may result in invalid output."));
+    }
+  }
+
   public void warningInvalidLibrarySuperclassForDesugar(
       Origin origin,
       DexType libraryType,
@@ -1745,6 +1839,13 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
     // This defines how many instructions of inlinees we can inlinee overall.
     public int inliningInstructionAllowance = 1500;
 
+    // Small inlinees that require lens code rewriting are rewritten once and cached as templates.
+    public boolean enableInlineeTemplates =
+        !parseSystemPropertyForDevelopmentOrDefault(
+            "com.android.tools.r8.disableInlineeTemplates", false);
+    public int inlineeTemplateInstructionLimit = 32;
+    public int inlineeTemplateCacheSize = 4096;
+
     // Maximum number of distinct values in a method that may be used in a monitor-enter
     // instruction.
     public int inliningMonitorEnterValuesAllowance = 4;
@@ -1824,6 +1925,8 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
     private boolean ignoreRuntimeTypeChecksForTesting = false;
     private boolean restrictToSynthetics = false;
 
+    private final PolicyStatistics policyStatistics = new PolicyStatistics();
+
     public void disable() {
       enable = false;
     }
@@ -1844,6 +1947,10 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
       this.enable = enable;
     }
 
+    public PolicyStatistics getPolicyStatistics() {
+      return policyStatistics;
+    }
+
     public int getMaxClassGroupSizeInR8() {
       return 30;
     }
@@ -2405,6 +2512,10 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
     public boolean invertConditionals = false;
     public boolean placeExceptionalBlocksLast = false;
     public boolean forceJumboStringProcessing = false;
+    // Number of items per chunk when sorting an index table of a dex file in parallel.
+    public int dexWriterSortChunkSize = 8192;
+    // Number of code items per chunk when encoding the code items of a dex file concurrently.
+    public int dexWriterCodeItemChunkSize = 1024;
     public boolean forcePcBasedEncoding = false;
     public int pcBasedDebugEncodingOverheadThreshold =
         System.getProperty("com.android.tools.r8.pc2pcOverheadThreshold") != null
@@ -0,0 +1,109 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.utils;
+
+import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.graph.JarClassFileReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records which library classes are materialized during a compilation and the code that first
+ * requested each of them.
+ *
+ * <p>The requesting code is the first frame on the stack that is not part of the class lookup or
+ * class reading itself, such as {@link ClassMap} or the {@code definitionFor} methods of the
+ * application and the app info.
+ */
+public class LibraryClassLoadingStatistics {
+
+  private static final int NUMBER_OF_REASONS_TO_PRINT = 25;
+
+  private final Map<DexType, String> reasons = new ConcurrentHashMap<>();
+  private final AtomicInteger numberOfAvailableClasses = new AtomicInteger();
+
+  void recordAvailableClasses(int numberOfClasses) {
+    numberOfAvailableClasses.addAndGet(numberOfClasses);
+  }
+
+  void recordLoad(DexType type) {
+    if (!reasons.containsKey(type)) {
+      reasons.putIfAbsent(type, computeReason(new Throwable().getStackTrace()));
+    }
+  }
+
+  private static String computeReason(StackTraceElement[] stackTrace) {
+    for (StackTraceElement element : stackTrace) {
+      if (!isClassLookupFrame(element)) {
+        String className = element.getClassName();
+        return className.substring(className.lastIndexOf('.') + 1)
+            + "."
+            + element.getMethodName();
+      }
+    }
+    return "<unknown>";
+  }
+
+  private static boolean isClassLookupFrame(StackTraceElement element) {
+    String className = element.getClassName();
+    String methodName = element.getMethodName();
+    return className.startsWith("java.")
+        || className.startsWith(ClassMap.class.getName())
+        || className.startsWith(ClassProvider.class.getName())
+        || className.startsWith(LibraryClassCollection.class.getName())
+        || className.startsWith(LibraryStubIndex.class.getName())
+        || className.startsWith(JarClassFileReader.class.getName())
+        || className.equals(ExceptionUtils.class.getName())
+        || className.startsWith("org.objectweb.asm.")
+        || className.equals(LibraryClassLoadingStatistics.class.getName())
+        || className.endsWith("Application")
+        || className.startsWith("com.android.tools.r8.graph.AppInfo")
+        || className.equals("com.android.tools.r8.graph.AppView")
+        || methodName.contains("efinitionFor");
+  }
+
+  public int getNumberOfAvailableClasses() {
+    return numberOfAvailableClasses.get();
+  }
+
+  public int getNumberOfLoadedClasses() {
+    return reasons.size();
+  }
+
+  public Collection<DexType> getLoadedClasses() {
+    return reasons.keySet();
+  }
+
+  public Map<String, Integer> getNumberOfLoadedClassesPerReason() {
+    Map<String, Integer> result = new HashMap<>();
+    reasons.values().forEach(reason -> result.merge(reason, 1, Integer::sum));
+    return result;
+  }
+
+  public void print() {
+    System.out.println(
+        "Library classes materialized: "
+            + getNumberOfLoadedClasses()
+            + " of "
+            + getNumberOfAvailableClasses());
+    List<Entry<String, Integer>> entries =
+        new ArrayList<>(getNumberOfLoadedClassesPerReason().entrySet());
+    entries.sort(
+        (x, y) -> {
+          int diff = y.getValue() - x.getValue();
+          return diff != 0 ? diff : x.getKey().compareTo(y.getKey());
+        });
+    for (int i = 0; i < Math.min(entries.size(), NUMBER_OF_REASONS_TO_PRINT); i++) {
+      Entry<String, Integer> entry = entries.get(i);
+      System.out.println("  " + entry.getValue() + " " + entry.getKey());
+    }
+  }
+}
@@ -0,0 +1,478 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.utils;
+
+import static java.util.Collections.emptyList;
+import static org.objectweb.asm.ClassReader.SKIP_CODE;
+import static org.objectweb.asm.ClassReader.SKIP_DEBUG;
+import static org.objectweb.asm.ClassReader.SKIP_FRAMES;
+
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.cf.CfVersion;
+import com.android.tools.r8.errors.CompilationError;
+import com.android.tools.r8.graph.ClassKind;
+import com.android.tools.r8.graph.DexAnnotationSet;
+import com.android.tools.r8.graph.DexEncodedField;
+import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.graph.DexField;
+import com.android.tools.r8.graph.DexLibraryClass;
+import com.android.tools.r8.graph.DexMethod;
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.graph.FieldAccessFlags;
+import com.android.tools.r8.graph.GenericSignature;
+import com.android.tools.r8.graph.GenericSignature.ClassSignature;
+import com.android.tools.r8.graph.GenericSignature.FieldTypeSignature;
+import com.android.tools.r8.graph.GenericSignature.MethodTypeSignature;
+import com.android.tools.r8.graph.JarApplicationReader;
+import com.android.tools.r8.graph.JarClassFileReader;
+import com.android.tools.r8.graph.MethodAccessFlags;
+import com.android.tools.r8.graph.ParameterAnnotationsList;
+import com.android.tools.r8.origin.ArchiveEntryOrigin;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.origin.PathOrigin;
+import com.google.common.io.ByteStreams;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * A precomputed summary of the classes of a library archive, such as android.jar.
+ *
+ * <p>The index holds the names, flags, supertypes, generic signatures and member signatures of the
+ * classes of the archive. Library classes created from the index answer hierarchy and resolution
+ * queries, but they do not have annotations or inner class attributes. The index is generated once
+ * per archive into the index directory, and is memory mapped when used, such that a compilation
+ * only decodes the classes it looks up.
+ *
+ * <p>The index file consists of a header with the number of classes, a table of the offsets of the
+ * class records sorted by descriptor, and the class records.
+ */
+public class LibraryStubIndex {
+
+  private static final int MAGIC = 0x52385349;
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_SIZE = 12;
+  private static final String INDEX_FILE_EXTENSION = ".r8stubs";
+
+  private final Path archive;
+  private final Origin origin;
+  private final ByteBuffer buffer;
+  private final int numberOfClasses;
+
+  private LibraryStubIndex(Path archive, ByteBuffer buffer) throws IOException {
+    this.archive = archive;
+    this.origin = new PathOrigin(archive);
+    this.buffer = buffer;
+    if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+      throw new IOException("Invalid library stub index for " + archive);
+    }
+    this.numberOfClasses = buffer.getInt(8);
+  }
+
+  /** Returns the index of the archive, and creates it in the index directory if not present. */
+  public static LibraryStubIndex getOrCreate(Path archive, Path indexDirectory)
+      throws IOException {
+    Path indexFile = indexDirectory.resolve(getIndexFileName(archive));
+    if (!Files.exists(indexFile)) {
+      Files.createDirectories(indexDirectory);
+      Path temporaryFile = Files.createTempFile(indexDirectory, "index", ".tmp");
+      try {
+        write(archive, temporaryFile);
+        Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(temporaryFile);
+      }
+    }
+    try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+      return new LibraryStubIndex(archive, channel.map(MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  // The name of the index identifies the archive by its path, size and modification time, such
+  // that a changed archive gets a new index.
+  private static String getIndexFileName(Path archive) throws IOException {
+    Path absolutePath = archive.toAbsolutePath();
+    long key = absolutePath.toString().hashCode();
+    key = key * 31 + Files.size(archive);
+    key = key * 31 + Files.getLastModifiedTime(archive).toMillis();
+    return archive.getFileName() + "-" + Long.toHexString(key) + INDEX_FILE_EXTENSION;
+  }
+
+  public int getNumberOfClasses() {
+    return numberOfClasses;
+  }
+
+  public List<String> getClassDescriptors() {
+    List<String> descriptors = new ArrayList<>(numberOfClasses);
+    for (int i = 0; i < numberOfClasses; i++) {
+      descriptors.add(new Reader(getClassOffset(i)).readString());
+    }
+    return descriptors;
+  }
+
+  public boolean hasClass(String descriptor) {
+    return findClassOffset(descriptor) >= 0;
+  }
+
+  /** Returns the library class for the descriptor, or null if the archive has no such class. */
+  public DexLibraryClass createClass(String descriptor, JarApplicationReader application) {
+    int offset = findClassOffset(descriptor);
+    if (offset < 0) {
+      return null;
+    }
+    Reader reader = new Reader(offset);
+    String entryDescriptor = reader.readString();
+    assert entryDescriptor.equals(descriptor);
+    Origin classOrigin =
+        new ArchiveEntryOrigin(
+            DescriptorUtils.getPathFromDescriptor(entryDescriptor), this.origin);
+    CfVersion version = CfVersion.fromRaw(reader.readInt());
+    if (InternalOptions.SUPPORTED_CF_VERSION.isLessThan(version)) {
+      throw new CompilationError("Unsupported class file version: " + version, classOrigin);
+    }
+    int access = reader.readInt();
+    String name = reader.readString();
+    String superName = reader.readString();
+    String signature = reader.readString();
+    String[] interfaces = new String[reader.readInt()];
+    for (int i = 0; i < interfaces.length; i++) {
+      interfaces[i] = reader.readString();
+    }
+    InternalOptions options = application.options;
+    DexType type = application.getTypeFromName(name);
+    ClassSignature classSignature =
+        options.parseSignatureAttribute()
+            ? GenericSignature.parseClassSignature(
+                name, signature, classOrigin, application.getFactory(), options.reporter)
+            : ClassSignature.noSignature();
+
+    List<DexEncodedField> staticFields = new ArrayList<>();
+    List<DexEncodedField> instanceFields = new ArrayList<>();
+    Set<DexField> fields = new HashSet<>();
+    int numberOfFields = reader.readInt();
+    for (int i = 0; i < numberOfFields; i++) {
+      int fieldAccess = reader.readInt();
+      String fieldName = reader.readString();
+      String fieldDescriptor = reader.readString();
+      String fieldSignature = reader.readString();
+      DexField field = application.getField(type, fieldName, fieldDescriptor);
+      if (!fields.add(field)) {
+        continue;
+      }
+      FieldAccessFlags flags = JarClassFileReader.createFieldAccessFlags(fieldAccess);
+      DexEncodedField definition =
+          DexEncodedField.builder()
+              .setField(field)
+              .setAccessFlags(flags)
+              .setGenericSignature(
+                  options.parseSignatureAttribute()
+                      ? GenericSignature.parseFieldTypeSignature(
+                          fieldName,
+                          fieldSignature,
+                          classOrigin,
+                          application.getFactory(),
+                          options.reporter)
+                      : FieldTypeSignature.noSignature())
+              .setAnnotations(DexAnnotationSet.empty())
+              .setDeprecated(AsmUtils.isDeprecated(fieldAccess))
+              .disableAndroidApiLevelCheck()
+              .build();
+      (flags.isStatic() ? staticFields : instanceFields).add(definition);
+    }
+
+    List<DexEncodedMethod> directMethods = new ArrayList<>();
+    List<DexEncodedMethod> virtualMethods = new ArrayList<>();
+    Set<DexMethod> methods = new HashSet<>();
+    int numberOfMethods = reader.readInt();
+    for (int i = 0; i < numberOfMethods; i++) {
+      int methodAccess = reader.readInt();
+      String methodName = reader.readString();
+      String methodDescriptor = reader.readString();
+      String methodSignature = reader.readString();
+      DexMethod method = application.getMethod(type, methodName, methodDescriptor);
+      if (!methods.add(method)) {
+        continue;
+      }
+      MethodAccessFlags flags = JarClassFileReader.createMethodAccessFlags(methodName, methodAccess);
+      DexEncodedMethod definition =
+          DexEncodedMethod.builder()
+              .setMethod(method)
+              .setAccessFlags(flags)
+              .setGenericSignature(
+                  options.parseSignatureAttribute()
+                      ? GenericSignature.parseMethodSignature(
+                          methodName,
+                          methodSignature,
+                          classOrigin,
+                          application.getFactory(),
+                          options.reporter)
+                      : MethodTypeSignature.noSignature())
+              .setAnnotations(DexAnnotationSet.empty())
+              .setParameterAnnotations(ParameterAnnotationsList.empty())
+              .setClassFileVersion(version)
+              .setDeprecated(AsmUtils.isDeprecated(methodAccess))
+              .disableParameterAnnotationListCheck()
+              .disableAndroidApiLevelCheck()
+              .build();
+      if (flags.isStatic() || flags.isConstructor() || flags.isPrivate()) {
+        directMethods.add(definition);
+      } else {
+        virtualMethods.add(definition);
+      }
+    }
+
+    return ClassKind.LIBRARY.create(
+        type,
+        ProgramResource.Kind.CF,
+        classOrigin,
+        JarClassFileReader.createClassAccessFlags(access),
+        superName == null ? null : application.getTypeFromName(superName),
+        application.getTypeListFromNames(interfaces),
+        null,
+        null,
+        emptyList(),
+        emptyList(),
+        emptyList(),
+        null,
+        emptyList(),
+        classSignature,
+        DexAnnotationSet.empty(),
+        staticFields.toArray(DexEncodedField.EMPTY_ARRAY),
+        instanceFields.toArray(DexEncodedField.EMPTY_ARRAY),
+        directMethods.toArray(DexEncodedMethod.EMPTY_ARRAY),
+        virtualMethods.toArray(DexEncodedMethod.EMPTY_ARRAY),
+        application.getFactory().getSkipNameValidationForTesting(),
+        DexProgramClass::invalidChecksumRequest,
+        null);
+  }
+
+  private int getClassOffset(int index) {
+    return buffer.getInt(HEADER_SIZE + 4 * index);
+  }
+
+  private int findClassOffset(String descriptor) {
+    int low = 0;
+    int high = numberOfClasses - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int offset = getClassOffset(middle);
+      int diff = new Reader(offset).readString().compareTo(descriptor);
+      if (diff < 0) {
+        low = middle + 1;
+      } else if (diff > 0) {
+        high = middle - 1;
+      } else {
+        return offset;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public String toString() {
+    return "library-stub-index(" + archive + ")";
+  }
+
+  // Reads the values of a record using absolute positions, such that the index can be read
+  // concurrently.
+  private class Reader {
+
+    private int position;
+
+    Reader(int position) {
+      this.position = position;
+    }
+
+    int readInt() {
+      int value = buffer.getInt(position);
+      position += 4;
+      return value;
+    }
+
+    String readString() {
+      int length = readInt();
+      if (length < 0) {
+        return null;
+      }
+      byte[] bytes = new byte[length];
+      for (int i = 0; i < length; i++) {
+        bytes[i] = buffer.get(position + i);
+      }
+      position += length;
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  }
+
+  private static void write(Path archive, Path indexFile) throws IOException {
+    // Records of the classes in the archive sorted by descriptor.
+    TreeMap<String, byte[]> records = new TreeMap<>();
+    try (ZipFile zipFile = FileUtils.createZipFile(archive.toFile(), StandardCharsets.UTF_8)) {
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        String name = entry.getName();
+        if (!ZipUtils.isClassFile(name)) {
+          continue;
+        }
+        String descriptor = DescriptorUtils.guessTypeDescriptor(name);
+        if (records.containsKey(descriptor)) {
+          continue;
+        }
+        try (InputStream inputStream = zipFile.getInputStream(entry)) {
+          records.put(descriptor, createRecord(descriptor, ByteStreams.toByteArray(inputStream)));
+        }
+      }
+    }
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(records.size());
+      int offset = HEADER_SIZE + 4 * records.size();
+      for (byte[] record : records.values()) {
+        out.writeInt(offset);
+        offset += record.length;
+      }
+      for (byte[] record : records.values()) {
+        out.write(record);
+      }
+    }
+  }
+
+  private static byte[] createRecord(String descriptor, byte[] classFile) throws IOException {
+    RecordWriter writer = new RecordWriter(descriptor);
+    new ClassReader(classFile).accept(writer, SKIP_CODE | SKIP_DEBUG | SKIP_FRAMES);
+    return writer.toByteArray();
+  }
+
+  // Writes the record of a class with the same members as the class file reader creates for a
+  // library class, that is, without private members and class initializers.
+  private static class RecordWriter extends ClassVisitor {
+
+    private final String descriptor;
+    private final RecordOutput header = new RecordOutput();
+    private final RecordOutput fields = new RecordOutput();
+    private final RecordOutput methods = new RecordOutput();
+    private int numberOfFields = 0;
+    private int numberOfMethods = 0;
+
+    RecordWriter(String descriptor) {
+      super(InternalOptions.ASM_VERSION);
+      this.descriptor = descriptor;
+    }
+
+    @Override
+    public void visit(
+        int version,
+        int access,
+        String name,
+        String signature,
+        String superName,
+        String[] interfaces) {
+      header.writeString(descriptor);
+      header.writeInt(version);
+      header.writeInt(access);
+      header.writeString(name);
+      header.writeString(superName);
+      header.writeString(signature);
+      header.writeInt(interfaces == null ? 0 : interfaces.length);
+      if (interfaces != null) {
+        for (String itf : interfaces) {
+          header.writeString(itf);
+        }
+      }
+    }
+
+    @Override
+    public FieldVisitor visitField(
+        int access, String name, String desc, String signature, Object value) {
+      if (!JarClassFileReader.createFieldAccessFlags(access).isPrivate()) {
+        numberOfFields++;
+        fields.writeInt(access);
+        fields.writeString(name);
+        fields.writeString(desc);
+        fields.writeString(signature);
+      }
+      return null;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(
+        int access, String name, String desc, String signature, String[] exceptions) {
+      MethodAccessFlags flags = JarClassFileReader.createMethodAccessFlags(name, access);
+      if (!flags.isPrivate() && !(flags.isStatic() && flags.isConstructor())) {
+        numberOfMethods++;
+        methods.writeInt(access);
+        methods.writeString(name);
+        methods.writeString(desc);
+        methods.writeString(signature);
+      }
+      return null;
+    }
+
+    byte[] toByteArray() {
+      header.writeInt(numberOfFields);
+      header.append(fields);
+      header.writeInt(numberOfMethods);
+      header.append(methods);
+      return header.toByteArray();
+    }
+  }
+
+  private static class RecordOutput {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    void writeInt(int value) {
+      bytes.write(value >>> 24);
+      bytes.write(value >>> 16);
+      bytes.write(value >>> 8);
+      bytes.write(value);
+    }
+
+    // Absent strings are written with the length -1.
+    void writeString(String value) {
+      if (value == null) {
+        writeInt(-1);
+        return;
+      }
+      byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+      writeInt(encoded.length);
+      bytes.write(encoded, 0, encoded.length);
+    }
+
+    void append(RecordOutput other) {
+      byte[] encoded = other.toByteArray();
+      bytes.write(encoded, 0, encoded.length);
+    }
+
+    byte[] toByteArray() {
+      return bytes.toByteArray();
+    }
+  }
+}
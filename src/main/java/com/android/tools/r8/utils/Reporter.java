@@ -51,6 +51,7 @@ public class Reporter implements DiagnosticsHandler {
   private final DiagnosticsHandler clientHandler;
   private final List<DiagnosticsLevelMapping> diagnosticsLevelMapping = new ArrayList<>();
   private AbortException abort = null;
+  private int numberOfReportedDiagnostics = 0;
 
   public Reporter() {
     this(new DiagnosticsHandler() {});
@@ -61,6 +62,7 @@ public class Reporter implements DiagnosticsHandler {
   }
 
   private void handleDiagnostic(DiagnosticsLevel level, Diagnostic diagnostic) {
+    numberOfReportedDiagnostics++;
     // To avoid having an entry for fatal error in the public  API enum use null to signal
     // fatal error internally.
     if (level != null) {
@@ -130,6 +132,11 @@ public class Reporter implements DiagnosticsHandler {
     throw abort;
   }
 
+  /** Returns the number of diagnostics reported so far, independently of their level. */
+  public synchronized int getNumberOfReportedDiagnostics() {
+    return numberOfReportedDiagnostics;
+  }
+
   /** @throws AbortException if any error was reported. */
   public synchronized void failIfPendingErrors() {
     if (abort != null) {
@@ -69,7 +69,7 @@ public class Timing {
     return Timing.EMPTY;
   }
 
-  private abstract static class TimingDelegateBase extends Timing {
+  public abstract static class TimingDelegateBase extends Timing {
     private final Timing timing;
 
     public TimingDelegateBase(String title, Timing timing) {
@@ -0,0 +1,353 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.utils;
+
+import com.android.tools.r8.ByteDataView;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Minimal zip writer for entries that are prepared ahead of writing.
+ *
+ * <p>Unlike {@link java.util.zip.ZipOutputStream}, the compression and checksum of an entry are
+ * computed when the {@link Entry} is created, which can happen concurrently on any thread. Writing
+ * an entry only copies its prepared bytes to the output. Stored entries refer to the given data
+ * without copying it, and their data is 4-byte aligned in the archive.
+ *
+ * <p>All entries are written with the same fixed modification time, such that the output only
+ * depends on the entries and the order in which they are written. As for a {@link ZipEntry} with
+ * time 0 written by {@link java.util.zip.ZipOutputStream}, the time is the start of the Unix epoch,
+ * given as an extended timestamp, and the MS-DOS time is its earliest representable time.
+ */
+public class ZipArchiveWriter implements AutoCloseable {
+
+  private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+  private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+
+  private static final int LOCAL_FILE_HEADER_SIZE = 30;
+  private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+  private static final int EXTENDED_TIMESTAMP_EXTRA_FIELD_ID = 0x5455;
+  private static final int EXTENDED_TIMESTAMP_EXTRA_FIELD_SIZE = 9;
+  private static final int EXTENDED_TIMESTAMP_FLAG_MODIFICATION_TIME = 0x1;
+  // Extra field used by Android's zipalign to pad the local file header.
+  private static final int ALIGNMENT_EXTRA_FIELD_ID = 0xd935;
+  private static final int ALIGNMENT_EXTRA_FIELD_SIZE = 6;
+  private static final int STORED_DATA_ALIGNMENT = 4;
+
+  private static final int VERSION_STORED = 10;
+  private static final int VERSION_DEFLATED = 20;
+  private static final int VERSION_ZIP64 = 45;
+  private static final int FLAG_UTF8 = 0x800;
+
+  // MS-DOS time and date of 1980-01-01 00:00, the earliest time that can be represented.
+  private static final int DOS_TIME = 0;
+  private static final int DOS_DATE = (1 << 5) | 1;
+
+  private static final long ZIP64_MAGIC = 0xffffffffL;
+  private static final int ZIP64_MAGIC_COUNT = 0xffff;
+
+  private final OutputStream out;
+  private final List<WrittenEntry> writtenEntries = new ArrayList<>();
+  private final Set<String> names = new HashSet<>();
+  private final byte[] scratch = new byte[8];
+  private long position = 0;
+  private boolean closed = false;
+
+  public ZipArchiveWriter(OutputStream out) {
+    this.out = out;
+  }
+
+  /** Writes the given entry, which must have a name that is not already in the archive. */
+  public void write(Entry entry) throws IOException {
+    assert !closed;
+    if (!names.add(entry.name)) {
+      throw new ZipException("duplicate entry: " + entry.name);
+    }
+    long offset = position;
+    int alignmentExtraLength = 0;
+    if (entry.method == ZipEntry.STORED && entry.length > 0) {
+      long dataStart =
+          offset
+              + LOCAL_FILE_HEADER_SIZE
+              + entry.nameBytes.length
+              + EXTENDED_TIMESTAMP_EXTRA_FIELD_SIZE
+              + ALIGNMENT_EXTRA_FIELD_SIZE;
+      int padding = (int) (-dataStart & (STORED_DATA_ALIGNMENT - 1));
+      alignmentExtraLength = ALIGNMENT_EXTRA_FIELD_SIZE + padding;
+    }
+    writeInt(LOCAL_FILE_HEADER_SIGNATURE);
+    writeShort(entry.getVersion());
+    writeShort(entry.getFlags());
+    writeShort(entry.method);
+    writeShort(DOS_TIME);
+    writeShort(DOS_DATE);
+    writeInt((int) entry.crc);
+    writeInt(entry.length);
+    writeInt(entry.uncompressedSize);
+    writeShort(entry.nameBytes.length);
+    writeShort(EXTENDED_TIMESTAMP_EXTRA_FIELD_SIZE + alignmentExtraLength);
+    writeBytes(entry.nameBytes, 0, entry.nameBytes.length);
+    writeExtendedTimestampExtraField();
+    writeAlignmentExtraField(alignmentExtraLength);
+    writeBytes(entry.data, entry.offset, entry.length);
+    writtenEntries.add(new WrittenEntry(entry, offset, alignmentExtraLength));
+  }
+
+  private void writeExtendedTimestampExtraField() throws IOException {
+    writeShort(EXTENDED_TIMESTAMP_EXTRA_FIELD_ID);
+    writeShort(EXTENDED_TIMESTAMP_EXTRA_FIELD_SIZE - 4);
+    writeByte(EXTENDED_TIMESTAMP_FLAG_MODIFICATION_TIME);
+    writeInt(0);
+  }
+
+  private void writeAlignmentExtraField(int alignmentExtraLength) throws IOException {
+    if (alignmentExtraLength == 0) {
+      return;
+    }
+    writeShort(ALIGNMENT_EXTRA_FIELD_ID);
+    writeShort(alignmentExtraLength - 4);
+    writeShort(STORED_DATA_ALIGNMENT);
+    for (int i = ALIGNMENT_EXTRA_FIELD_SIZE; i < alignmentExtraLength; i++) {
+      writeByte(0);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    long centralDirectoryOffset = position;
+    for (WrittenEntry writtenEntry : writtenEntries) {
+      writeCentralDirectoryHeader(writtenEntry);
+    }
+    long centralDirectorySize = position - centralDirectoryOffset;
+    int numberOfEntries = writtenEntries.size();
+    boolean needsZip64 =
+        numberOfEntries >= ZIP64_MAGIC_COUNT
+            || centralDirectoryOffset >= ZIP64_MAGIC
+            || centralDirectorySize >= ZIP64_MAGIC;
+    if (needsZip64) {
+      long zip64EndOfCentralDirectoryOffset = position;
+      writeInt(ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+      writeLong(44);
+      writeShort(VERSION_ZIP64);
+      writeShort(VERSION_ZIP64);
+      writeInt(0);
+      writeInt(0);
+      writeLong(numberOfEntries);
+      writeLong(numberOfEntries);
+      writeLong(centralDirectorySize);
+      writeLong(centralDirectoryOffset);
+      writeInt(ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE);
+      writeInt(0);
+      writeLong(zip64EndOfCentralDirectoryOffset);
+      writeInt(1);
+    }
+    writeInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+    writeShort(0);
+    writeShort(0);
+    writeShort(Math.min(numberOfEntries, ZIP64_MAGIC_COUNT));
+    writeShort(Math.min(numberOfEntries, ZIP64_MAGIC_COUNT));
+    writeInt((int) Math.min(centralDirectorySize, ZIP64_MAGIC));
+    writeInt((int) Math.min(centralDirectoryOffset, ZIP64_MAGIC));
+    writeShort(0);
+    out.close();
+  }
+
+  private void writeCentralDirectoryHeader(WrittenEntry writtenEntry) throws IOException {
+    Entry entry = writtenEntry.entry;
+    boolean needsZip64 = writtenEntry.offset >= ZIP64_MAGIC;
+    int version = needsZip64 ? VERSION_ZIP64 : entry.getVersion();
+    writeInt(CENTRAL_DIRECTORY_HEADER_SIGNATURE);
+    writeShort(version);
+    writeShort(version);
+    writeShort(entry.getFlags());
+    writeShort(entry.method);
+    writeShort(DOS_TIME);
+    writeShort(DOS_DATE);
+    writeInt((int) entry.crc);
+    writeInt(entry.length);
+    writeInt(entry.uncompressedSize);
+    writeShort(entry.nameBytes.length);
+    // The central directory has the same extra fields as the local file header.
+    writeShort(
+        EXTENDED_TIMESTAMP_EXTRA_FIELD_SIZE
+            + writtenEntry.alignmentExtraLength
+            + (needsZip64 ? 12 : 0));
+    writeShort(0);
+    writeShort(0);
+    writeShort(0);
+    writeInt(0);
+    writeInt((int) Math.min(writtenEntry.offset, ZIP64_MAGIC));
+    writeBytes(entry.nameBytes, 0, entry.nameBytes.length);
+    writeExtendedTimestampExtraField();
+    writeAlignmentExtraField(writtenEntry.alignmentExtraLength);
+    if (needsZip64) {
+      writeShort(ZIP64_EXTRA_FIELD_ID);
+      writeShort(8);
+      writeLong(writtenEntry.offset);
+    }
+  }
+
+  private void writeByte(int value) throws IOException {
+    out.write(value);
+    position++;
+  }
+
+  private void writeShort(int value) throws IOException {
+    scratch[0] = (byte) value;
+    scratch[1] = (byte) (value >>> 8);
+    writeBytes(scratch, 0, 2);
+  }
+
+  private void writeInt(int value) throws IOException {
+    scratch[0] = (byte) value;
+    scratch[1] = (byte) (value >>> 8);
+    scratch[2] = (byte) (value >>> 16);
+    scratch[3] = (byte) (value >>> 24);
+    writeBytes(scratch, 0, 4);
+  }
+
+  private void writeLong(long value) throws IOException {
+    writeInt((int) value);
+    writeInt((int) (value >>> 32));
+  }
+
+  private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+    out.write(bytes, offset, length);
+    position += length;
+  }
+
+  /** A zip entry with its data in the form it is written to the archive. */
+  public static class Entry {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final String name;
+    private final byte[] nameBytes;
+    private final int method;
+    private final long crc;
+    private final int uncompressedSize;
+    private final byte[] data;
+    private final int offset;
+    private final int length;
+
+    private Entry(
+        String name,
+        int method,
+        long crc,
+        int uncompressedSize,
+        byte[] data,
+        int offset,
+        int length) {
+      this.name = name;
+      this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+      this.method = method;
+      this.crc = crc;
+      this.uncompressedSize = uncompressedSize;
+      this.data = data;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    /** Creates a directory entry. A trailing separator is added to the name if missing. */
+    public static Entry directory(String name) {
+      if (name.isEmpty() || name.charAt(name.length() - 1) != '/') {
+        name += '/';
+      }
+      return new Entry(name, ZipEntry.STORED, 0, 0, EMPTY, 0, 0);
+    }
+
+    /**
+     * Creates a stored entry. The entry refers to the given content, which must not change until
+     * the entry has been written.
+     */
+    public static Entry stored(String name, ByteDataView content) {
+      CRC32 crc = new CRC32();
+      crc.update(content.getBuffer(), content.getOffset(), content.getLength());
+      return new Entry(
+          name,
+          ZipEntry.STORED,
+          crc.getValue(),
+          content.getLength(),
+          content.getBuffer(),
+          content.getOffset(),
+          content.getLength());
+    }
+
+    /** Creates a deflated entry. The content is compressed on the calling thread. */
+    public static Entry deflated(String name, ByteDataView content) {
+      byte[] buffer = content.getBuffer();
+      int offset = content.getOffset();
+      int length = content.getLength();
+      CRC32 crc = new CRC32();
+      crc.update(buffer, offset, length);
+      Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+      try {
+        deflater.setInput(buffer, offset, length);
+        deflater.finish();
+        byte[] compressed = new byte[Math.max(64, length / 2)];
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+          if (compressedLength == compressed.length) {
+            byte[] newCompressed = new byte[compressed.length * 2];
+            System.arraycopy(compressed, 0, newCompressed, 0, compressedLength);
+            compressed = newCompressed;
+          }
+          compressedLength +=
+              deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+        return new Entry(
+            name, ZipEntry.DEFLATED, crc.getValue(), length, compressed, 0, compressedLength);
+      } finally {
+        deflater.end();
+      }
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    private int getVersion() {
+      return method == ZipEntry.DEFLATED ? VERSION_DEFLATED : VERSION_STORED;
+    }
+
+    private int getFlags() {
+      for (byte b : nameBytes) {
+        if (b < 0) {
+          return FLAG_UTF8;
+        }
+      }
+      return 0;
+    }
+  }
+
+  private static class WrittenEntry {
+
+    private final Entry entry;
+    private final long offset;
+    private final int alignmentExtraLength;
+
+    private WrittenEntry(Entry entry, long offset, int alignmentExtraLength) {
+      this.entry = entry;
+      this.offset = offset;
+      this.alignmentExtraLength = alignmentExtraLength;
+    }
+  }
+}
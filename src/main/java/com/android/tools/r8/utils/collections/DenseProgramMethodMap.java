@@ -0,0 +1,59 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.utils.collections;
+
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.ProgramMemberIndex;
+import com.android.tools.r8.graph.ProgramMethod;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A thread-safe map from program methods to values, which is backed by an array over the ids of a
+ * {@link ProgramMemberIndex}.
+ *
+ * <p>Only methods that are numbered by the index can be used as keys, see {@link #isIndexed}.
+ */
+public class DenseProgramMethodMap<V> {
+
+  private final ProgramMemberIndex index;
+  private final AtomicReferenceArray<V> values;
+
+  private DenseProgramMethodMap(ProgramMemberIndex index) {
+    this.index = index;
+    this.values = new AtomicReferenceArray<>(index.numberOfMethods());
+  }
+
+  public static <V> DenseProgramMethodMap<V> create(AppView<?> appView) {
+    return create(appView.programMemberIndex());
+  }
+
+  public static <V> DenseProgramMethodMap<V> create(ProgramMemberIndex index) {
+    return new DenseProgramMethodMap<>(index);
+  }
+
+  public boolean isIndexed(ProgramMethod method) {
+    return index.getId(method) != ProgramMemberIndex.NO_ID;
+  }
+
+  public V get(ProgramMethod method) {
+    return values.get(getId(method));
+  }
+
+  /**
+   * Associates the given value with the given method, unless the method already has a value.
+   *
+   * @return the previous value of the method, or null if the given value was associated with it.
+   */
+  public V putIfAbsent(ProgramMethod method, V value) {
+    int id = getId(method);
+    return values.compareAndSet(id, null, value) ? null : values.get(id);
+  }
+
+  private int getId(ProgramMethod method) {
+    int id = index.getId(method);
+    assert id != ProgramMemberIndex.NO_ID;
+    return id;
+  }
+}
@@ -5,10 +5,8 @@
 package com.android.tools.r8.utils.positions;
 
 import com.android.tools.r8.graph.AppView;
-import com.android.tools.r8.graph.DexApplication;
 import com.android.tools.r8.graph.DexCode;
 import com.android.tools.r8.graph.DexDebugEvent;
-import com.android.tools.r8.graph.DexDebugEvent.AdvancePC;
 import com.android.tools.r8.graph.DexDebugEvent.Default;
 import com.android.tools.r8.graph.DexDebugEvent.EndLocal;
 import com.android.tools.r8.graph.DexDebugEvent.RestartLocal;
@@ -17,6 +15,7 @@ import com.android.tools.r8.graph.DexDebugEvent.SetFile;
 import com.android.tools.r8.graph.DexDebugEvent.SetPrologueEnd;
 import com.android.tools.r8.graph.DexDebugEvent.StartLocal;
 import com.android.tools.r8.graph.DexDebugEventBuilder;
+import com.android.tools.r8.graph.DexDebugEvents;
 import com.android.tools.r8.graph.DexDebugInfo;
 import com.android.tools.r8.graph.DexDebugInfo.EventBasedDebugInfo;
 import com.android.tools.r8.graph.DexDebugPositionState;
@@ -34,16 +33,13 @@ public class DexPositionToNoPcMappedRangeMapper {
   // PositionEventEmitter is a stateful function which converts a Position into series of
   // position-related DexDebugEvents and puts them into a processedEvents list.
   private static class PositionEventEmitter {
-    private final DexItemFactory dexItemFactory;
     private int startLine = -1;
     private final DexMethod method;
     private int previousPc = 0;
     private Position previousPosition = null;
-    private final List<DexDebugEvent> processedEvents;
+    private final DexDebugEvents.Builder processedEvents;
 
-    private PositionEventEmitter(
-        DexItemFactory dexItemFactory, DexMethod method, List<DexDebugEvent> processedEvents) {
-      this.dexItemFactory = dexItemFactory;
+    private PositionEventEmitter(DexMethod method, DexDebugEvents.Builder processedEvents) {
       this.method = method;
       this.processedEvents = processedEvents;
     }
@@ -53,7 +49,7 @@ public class DexPositionToNoPcMappedRangeMapper {
     }
 
     private void emitAdvancePc(int pc) {
-      processedEvents.add(new AdvancePC(pc - previousPc));
+      processedEvents.addAdvancePC(pc - previousPc);
       previousPc = pc;
     }
 
@@ -68,7 +64,6 @@ public class DexPositionToNoPcMappedRangeMapper {
           currentPc,
           currentPosition,
           processedEvents,
-          dexItemFactory,
           true);
       previousPc = currentPc;
       previousPosition = currentPosition;
@@ -85,7 +80,7 @@ public class DexPositionToNoPcMappedRangeMapper {
     private final PositionEventEmitter positionEventEmitter;
     private final List<MappedPosition> mappedPositions;
     private final PositionRemapper positionRemapper;
-    private final List<DexDebugEvent> processedEvents;
+    private final DexDebugEvents.Builder processedEvents;
 
     // Keep track of what PC has been emitted.
     private int emittedPc = 0;
@@ -96,7 +91,7 @@ public class DexPositionToNoPcMappedRangeMapper {
         PositionEventEmitter positionEventEmitter,
         List<MappedPosition> mappedPositions,
         PositionRemapper positionRemapper,
-        List<DexDebugEvent> processedEvents,
+        DexDebugEvents.Builder processedEvents,
         DexItemFactory factory,
         int startLine,
         DexMethod method,
@@ -184,15 +179,13 @@ public class DexPositionToNoPcMappedRangeMapper {
       ProgramMethod method, PositionRemapper positionRemapper) {
     List<MappedPosition> mappedPositions = new ArrayList<>();
     // Do the actual processing for each method.
-    DexApplication application = appView.appInfo().app();
     DexCode dexCode = method.getDefinition().getCode().asDexCode();
     EventBasedDebugInfo debugInfo =
         getEventBasedDebugInfo(method.getDefinition(), dexCode, appView);
 
-    List<DexDebugEvent> processedEvents = new ArrayList<>();
+    DexDebugEvents.Builder processedEvents = DexDebugEvents.builder();
     PositionEventEmitter positionEventEmitter =
-        new PositionEventEmitter(
-            application.dexItemFactory, method.getReference(), processedEvents);
+        new PositionEventEmitter(method.getReference(), processedEvents);
 
     DexDebugPositionStateVisitor visitor =
         new DexDebugPositionStateVisitor(
@@ -205,16 +198,13 @@ public class DexPositionToNoPcMappedRangeMapper {
             method.getReference(),
             method.getDefinition().isD8R8Synthesized());
 
-    DexDebugEvent[] events = debugInfo.events;
-    for (DexDebugEvent event : events) {
-      event.accept(visitor);
-    }
+    debugInfo.getEvents().accept(visitor);
 
     EventBasedDebugInfo optimizedDebugInfo =
         new EventBasedDebugInfo(
             positionEventEmitter.didEmitLineEvents() ? positionEventEmitter.getStartLine() : 0,
             debugInfo.parameters,
-            processedEvents.toArray(DexDebugEvent.EMPTY_ARRAY));
+            processedEvents.build());
 
     assert !isIdentityMapping
         || visitor.inlinedOriginalPosition
@@ -248,9 +238,11 @@ public class DexPositionToNoPcMappedRangeMapper {
       return true;
     }
     assert optimizedDebugInfo.startLine == originalDebugInfo.startLine;
-    assert optimizedDebugInfo.events.length == originalDebugInfo.events.length;
-    for (int i = 0; i < originalDebugInfo.events.length; ++i) {
-      assert optimizedDebugInfo.events[i].equals(originalDebugInfo.events[i]);
+    DexDebugEvent[] originalEvents = originalDebugInfo.getEvents().toArray();
+    DexDebugEvent[] optimizedEvents = optimizedDebugInfo.getEvents().toArray();
+    assert optimizedEvents.length == originalEvents.length;
+    for (int i = 0; i < originalEvents.length; ++i) {
+      assert optimizedEvents[i].equals(originalEvents[i]);
     }
     return true;
   }
@@ -262,7 +254,7 @@ public class DexPositionToNoPcMappedRangeMapper {
     }
     // A synthetic method may have different debug info but still be trivial if it holds that all
     // the frames are just trivial frames for the synthetic method itself.
-    for (DexDebugEvent event : originalDebugInfo.events) {
+    for (DexDebugEvent event : originalDebugInfo.getEvents()) {
       if (event.isPositionFrame()) {
         Position position = event.asSetPositionFrame().getPosition();
         if (!method.getReference().isIdenticalTo(position.getMethod())
@@ -7,7 +7,6 @@ package com.android.tools.r8.utils.positions;
 import com.android.tools.r8.debuginfo.DebugRepresentation;
 import com.android.tools.r8.graph.AppView;
 import com.android.tools.r8.graph.DexCode;
-import com.android.tools.r8.graph.DexDebugEvent;
 import com.android.tools.r8.graph.DexDebugEvent.Default;
 import com.android.tools.r8.graph.DexDebugEventVisitor;
 import com.android.tools.r8.graph.DexDebugInfo;
@@ -69,9 +68,7 @@ public class DexPositionToPcMappedRangeMapper {
           }
         };
 
-    for (DexDebugEvent event : debugInfo.events) {
-      event.accept(visitor);
-    }
+    debugInfo.getEvents().accept(visitor);
 
     int lastInstructionPc = DebugRepresentation.getLastExecutableInstruction(dexCode).getOffset();
     if (lastPosition.getSecond() != null) {
@@ -31,12 +31,15 @@ import com.android.tools.r8.shaking.KeepInfoCollection;
 import com.android.tools.r8.utils.AndroidApp;
 import com.android.tools.r8.utils.CfLineToMethodMapper;
 import com.android.tools.r8.utils.OriginalSourceFiles;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
 import com.android.tools.r8.utils.positions.MappedPositionToClassNameMapperBuilder.MappedPositionToClassNamingBuilder;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 public class LineNumberOptimizer {
 
@@ -45,13 +48,16 @@ public class LineNumberOptimizer {
       AppView<?> appView,
       Timing timing,
       OriginalSourceFiles originalSourceFiles,
-      DebugRepresentationPredicate representation) {
+      DebugRepresentationPredicate representation,
+      ExecutorService executorService)
+      throws ExecutionException {
     assert appView.options().mapConsumer != null;
     if (shouldEmitOriginalMappingFile(appView)) {
       appView.options().reporter.warning(new NotSupportedMapVersionForMappingComposeDiagnostic());
       timing.begin("Write proguard map");
       ProguardMapId proguardMapId =
-          ProguardMapSupplier.create(appView.appInfo().app().getProguardMap(), appView.options())
+          ProguardMapSupplier.create(
+                  appView.appInfo().app().getProguardMap(), appView.options(), executorService)
               .writeProguardMap();
       timing.end();
       return proguardMapId;
@@ -60,7 +66,8 @@ public class LineNumberOptimizer {
     // used. We still run the line number optimizer to collect line numbers and inline frame
     // information for the mapping file.
     timing.begin("Line number remapping");
-    ClassNameMapper mapper = run(appView, inputApp, originalSourceFiles, representation);
+    ClassNameMapper mapper =
+        run(appView, inputApp, originalSourceFiles, representation, executorService);
     timing.end();
     if (appView.options().mappingComposeOptions().generatedClassNameMapperConsumer != null) {
       appView.options().mappingComposeOptions().generatedClassNameMapperConsumer.accept(mapper);
@@ -79,7 +86,8 @@ public class LineNumberOptimizer {
       timing.end();
     }
     timing.begin("Write proguard map");
-    ProguardMapId mapId = ProguardMapSupplier.create(mapper, appView.options()).writeProguardMap();
+    ProguardMapId mapId =
+        ProguardMapSupplier.create(mapper, appView.options(), executorService).writeProguardMap();
     timing.end();
     return mapId;
   }
@@ -99,17 +107,21 @@ public class LineNumberOptimizer {
         || newMapVersion.isUnknown();
   }
 
-  @SuppressWarnings("ReferenceEquality")
   public static ClassNameMapper run(
       AppView<?> appView,
       AndroidApp inputApp,
       OriginalSourceFiles originalSourceFiles,
-      DebugRepresentationPredicate representation) {
+      DebugRepresentationPredicate representation,
+      ExecutorService executorService)
+      throws ExecutionException {
     // For finding methods in kotlin files based on SourceDebugExtensions, we use a line method map.
-    // We create it here to ensure it is only reading class files once.
-    // TODO(b/220999985): Make this threaded per virtual file. Possibly pull the kotlin line mapping
-    //  onto main thread before threading.
+    // We create it here to ensure it is only reading class files once. When the classes are
+    // processed in parallel the map is loaded up front, since it is needed by all Kotlin classes
+    // with inline functions.
     CfLineToMethodMapper cfLineToMethodMapper = new CfLineToMethodMapper(inputApp);
+    if (executorService != null && appView.hasSourceDebugExtensions()) {
+      cfLineToMethodMapper.load(appView.options().getThreadingModule(), executorService);
+    }
 
     PositionToMappedRangeMapper positionToMappedRangeMapper =
         PositionToMappedRangeMapper.create(appView);
@@ -118,66 +130,100 @@ public class LineNumberOptimizer {
         MappedPositionToClassNameMapperBuilder.builder(appView, originalSourceFiles);
 
     // Collect which files contain which classes that need to have their line numbers optimized.
-    for (DexProgramClass clazz : appView.appInfo().classes()) {
-      IdentityHashMap<DexString, List<ProgramMethod>> methodsByRenamedName =
-          groupMethodsByRenamedName(appView, clazz);
+    // The classes are independent and the class namings are sorted when the map is written, so
+    // the classes can be processed in any order.
+    if (executorService == null) {
+      for (DexProgramClass clazz : appView.appInfo().classes()) {
+        processClass(
+            appView,
+            clazz,
+            builder,
+            positionToMappedRangeMapper,
+            cfLineToMethodMapper,
+            representation);
+      }
+    } else {
+      ThreadUtils.processItems(
+          appView.appInfo().classes(),
+          clazz ->
+              processClass(
+                  appView,
+                  clazz,
+                  builder,
+                  positionToMappedRangeMapper,
+                  cfLineToMethodMapper,
+                  representation),
+          appView.options().getThreadingModule(),
+          executorService);
+    }
 
-      MappedPositionToClassNamingBuilder classNamingBuilder = builder.addClassNaming(clazz);
+    // Update all the debug-info objects.
+    positionToMappedRangeMapper.updateDebugInfoInCodeObjects();
 
-      // Process methods ordered by renamed name.
-      List<DexString> renamedMethodNames = new ArrayList<>(methodsByRenamedName.keySet());
-      renamedMethodNames.sort(DexString::compareTo);
-      for (DexString methodName : renamedMethodNames) {
-        List<ProgramMethod> methods = methodsByRenamedName.get(methodName);
-        if (methods.size() > 1) {
-          // If there are multiple methods with the same name (overloaded) then sort them for
-          // deterministic behaviour: the algorithm will assign new line numbers in this order.
-          // Methods with different names can share the same line numbers, that's why they don't
-          // need to be sorted.
-          // If we are compiling to DEX we will try to not generate overloaded names. This saves
-          // space by allowing more debug-information to be canonicalized. If we have overloaded
-          // methods, we either did not rename them, we renamed them according to a supplied map or
-          // they may be bridges for interface methods with covariant return types.
-          sortMethods(methods);
-          assert verifyMethodsAreKeptDirectlyOrIndirectly(appView, methods);
-        }
+    return builder.build();
+  }
 
-        PositionRemapper positionRemapper =
-            PositionRemapper.getPositionRemapper(appView, cfLineToMethodMapper);
+  @SuppressWarnings("ReferenceEquality")
+  private static void processClass(
+      AppView<?> appView,
+      DexProgramClass clazz,
+      MappedPositionToClassNameMapperBuilder builder,
+      PositionToMappedRangeMapper positionToMappedRangeMapper,
+      CfLineToMethodMapper cfLineToMethodMapper,
+      DebugRepresentationPredicate representation) {
+    IdentityHashMap<DexString, List<ProgramMethod>> methodsByRenamedName =
+        groupMethodsByRenamedName(appView, clazz);
 
-        for (ProgramMethod method : methods) {
-          DexEncodedMethod definition = method.getDefinition();
-          if (methodName == method.getName()
-              && !mustHaveResidualDebugInfo(appView.options(), definition)
-              && !definition.isD8R8Synthesized()
-              && methods.size() <= 1) {
-            continue;
-          }
-          positionRemapper.setCurrentMethod(definition);
-          List<MappedPosition> mappedPositions;
-          int pcEncodingCutoff =
-              methods.size() == 1 ? representation.getDexPcEncodingCutoff(method) : -1;
-          boolean canUseDexPc = pcEncodingCutoff > 0;
-          if (definition.getCode() != null
-              && (definition.getCode().isCfCode() || definition.getCode().isDexCode())
-              && !appView.isCfByteCodePassThrough(definition)) {
-            mappedPositions =
-                positionToMappedRangeMapper.getMappedPositions(
-                    method, positionRemapper, methods.size() > 1, canUseDexPc, pcEncodingCutoff);
-          } else {
-            mappedPositions = new ArrayList<>();
-          }
+    MappedPositionToClassNamingBuilder classNamingBuilder = builder.addClassNaming(clazz);
 
-          classNamingBuilder.addMappedPositions(
-              method, mappedPositions, positionRemapper, canUseDexPc);
-        } // for each method of the group
-      } // for each method group, grouped by name
-    } // for each class
+    // Process methods ordered by renamed name.
+    List<DexString> renamedMethodNames = new ArrayList<>(methodsByRenamedName.keySet());
+    renamedMethodNames.sort(DexString::compareTo);
+    for (DexString methodName : renamedMethodNames) {
+      List<ProgramMethod> methods = methodsByRenamedName.get(methodName);
+      if (methods.size() > 1) {
+        // If there are multiple methods with the same name (overloaded) then sort them for
+        // deterministic behaviour: the algorithm will assign new line numbers in this order.
+        // Methods with different names can share the same line numbers, that's why they don't
+        // need to be sorted.
+        // If we are compiling to DEX we will try to not generate overloaded names. This saves
+        // space by allowing more debug-information to be canonicalized. If we have overloaded
+        // methods, we either did not rename them, we renamed them according to a supplied map or
+        // they may be bridges for interface methods with covariant return types.
+        sortMethods(methods);
+        assert verifyMethodsAreKeptDirectlyOrIndirectly(appView, methods);
+      }
 
-    // Update all the debug-info objects.
-    positionToMappedRangeMapper.updateDebugInfoInCodeObjects();
+      PositionRemapper positionRemapper =
+          PositionRemapper.getPositionRemapper(appView, cfLineToMethodMapper);
 
-    return builder.build();
+      for (ProgramMethod method : methods) {
+        DexEncodedMethod definition = method.getDefinition();
+        if (methodName == method.getName()
+            && !mustHaveResidualDebugInfo(appView.options(), definition)
+            && !definition.isD8R8Synthesized()
+            && methods.size() <= 1) {
+          continue;
+        }
+        positionRemapper.setCurrentMethod(definition);
+        List<MappedPosition> mappedPositions;
+        int pcEncodingCutoff =
+            methods.size() == 1 ? representation.getDexPcEncodingCutoff(method) : -1;
+        boolean canUseDexPc = pcEncodingCutoff > 0;
+        if (definition.getCode() != null
+            && (definition.getCode().isCfCode() || definition.getCode().isDexCode())
+            && !appView.isCfByteCodePassThrough(definition)) {
+          mappedPositions =
+              positionToMappedRangeMapper.getMappedPositions(
+                  method, positionRemapper, methods.size() > 1, canUseDexPc, pcEncodingCutoff);
+        } else {
+          mappedPositions = new ArrayList<>();
+        }
+
+        classNamingBuilder.addMappedPositions(
+            method, mappedPositions, positionRemapper, canUseDexPc);
+      } // for each method of the group
+    } // for each method group, grouped by name
   }
 
   @SuppressWarnings("ComplexBooleanConstant")
@@ -63,6 +63,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 public class MappedPositionToClassNameMapperBuilder {
@@ -73,9 +74,11 @@ public class MappedPositionToClassNameMapperBuilder {
   private final OriginalSourceFiles originalSourceFiles;
   private final AppView<?> appView;
 
+  // Class namings are added concurrently when the classes are processed in parallel. The builder
+  // of each class naming is only accessed by the thread processing the class.
   private final ClassNameMapper.Builder classNameMapperBuilder;
-  private final Map<DexMethod, OutlineFixupBuilder> outlinesToFix = new IdentityHashMap<>();
-  private final Map<DexType, String> prunedInlinedClasses = new IdentityHashMap<>();
+  private final Map<DexMethod, OutlineFixupBuilder> outlinesToFix = new ConcurrentHashMap<>();
+  private final Map<DexType, String> prunedInlinedClasses = new ConcurrentHashMap<>();
 
   private final CardinalPositionRangeAllocator cardinalRangeCache =
       PositionRangeAllocator.createCardinalPositionRangeAllocator();
@@ -669,11 +672,12 @@ public class MappedPositionToClassNameMapperBuilder {
       this.outlineMethod = outlineMethod;
     }
 
-    public void setMappedPositionsOutline(List<MappedPosition> mappedPositionsOutline) {
+    public synchronized void setMappedPositionsOutline(
+        List<MappedPosition> mappedPositionsOutline) {
       this.mappedOutlinePositions = mappedPositionsOutline;
     }
 
-    public void addMappedRangeForOutlineCallee(
+    public synchronized void addMappedRangeForOutlineCallee(
         MappedRange mappedRangeForOutline, Int2IntMap calleePositions) {
       mappedOutlineCalleePositions.add(Pair.create(mappedRangeForOutline, calleePositions));
     }
@@ -9,11 +9,12 @@ import com.android.tools.r8.graph.AppView;
 import com.android.tools.r8.graph.DexCode;
 import com.android.tools.r8.graph.DexDebugInfo;
 import com.android.tools.r8.graph.ProgramMethod;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public interface PositionToMappedRangeMapper {
 
@@ -110,7 +111,9 @@ public interface PositionToMappedRangeMapper {
       }
     }
 
-    private final List<UpdateInfo> codesToUpdate = new ArrayList<>();
+    // Methods are recorded concurrently when the line number optimizer processes classes in
+    // parallel.
+    private final Queue<UpdateInfo> codesToUpdate = new ConcurrentLinkedQueue<>();
 
     @Override
     public int getPcEncoding(int pc) {
@@ -55,7 +55,7 @@ public class PositionUtils {
     if (debugInfo.isPcBasedInfo()) {
       return true;
     }
-    for (DexDebugEvent event : debugInfo.asEventBasedInfo().events) {
+    for (DexDebugEvent event : debugInfo.asEventBasedInfo().getEvents()) {
       if (event instanceof DexDebugEvent.Default) {
         return true;
       }
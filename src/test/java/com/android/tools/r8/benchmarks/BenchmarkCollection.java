@@ -6,6 +6,10 @@ package com.android.tools.r8.benchmarks;
 import static java.util.Collections.emptyList;
 
 import com.android.tools.r8.benchmarks.appdumps.TiviBenchmarks;
+import com.android.tools.r8.benchmarks.classfile.CfToCfBenchmark;
+import com.android.tools.r8.benchmarks.classfile.ClassFileReadingBenchmark;
+import com.android.tools.r8.benchmarks.dexitemfactory.TypeCreationBenchmark;
+import com.android.tools.r8.benchmarks.desugaredlib.DesugaredLibrarySpecificationBenchmark;
 import com.android.tools.r8.benchmarks.desugaredlib.L8Benchmark;
 import com.android.tools.r8.benchmarks.desugaredlib.LegacyDesugaredLibraryBenchmark;
 import com.android.tools.r8.benchmarks.helloworld.HelloWorldBenchmark;
@@ -49,8 +53,12 @@ public class BenchmarkCollection {
     HelloWorldBenchmark.configs().forEach(collection::addBenchmark);
     LegacyDesugaredLibraryBenchmark.configs().forEach(collection::addBenchmark);
     L8Benchmark.configs().forEach(collection::addBenchmark);
+    DesugaredLibrarySpecificationBenchmark.configs().forEach(collection::addBenchmark);
     TiviBenchmarks.configs().forEach(collection::addBenchmark);
     RetraceStackTraceBenchmark.configs().forEach(collection::addBenchmark);
+    ClassFileReadingBenchmark.configs().forEach(collection::addBenchmark);
+    CfToCfBenchmark.configs().forEach(collection::addBenchmark);
+    TypeCreationBenchmark.configs().forEach(collection::addBenchmark);
     return collection;
   }
 
@@ -0,0 +1,109 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.benchmarks.classfile;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestBase.Backend;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.benchmarks.BenchmarkBase;
+import com.android.tools.r8.benchmarks.BenchmarkConfig;
+import com.android.tools.r8.benchmarks.BenchmarkDependency;
+import com.android.tools.r8.benchmarks.BenchmarkEnvironment;
+import com.android.tools.r8.benchmarks.BenchmarkMethod;
+import com.android.tools.r8.benchmarks.BenchmarkMetric;
+import com.android.tools.r8.benchmarks.BenchmarkResults;
+import com.android.tools.r8.benchmarks.BenchmarkSuite;
+import com.android.tools.r8.benchmarks.BenchmarkTarget;
+import com.android.tools.r8.dump.CompilerDump;
+import com.android.tools.r8.dump.DumpOptions;
+import com.google.common.collect.ImmutableList;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Benchmark of compiling class files to class files with R8, which includes the verification of the
+ * input stack map frames and the computation of the output stack map frames.
+ */
+@RunWith(Parameterized.class)
+public class CfToCfBenchmark extends BenchmarkBase {
+
+  private static final String NAME = "TiviCfToCf";
+  private static final String VERIFIED = NAME + "VerifiedFrames";
+  private static final String TRUSTED = NAME + "TrustedFrames";
+
+  private static final BenchmarkDependency dumpDependency =
+      new BenchmarkDependency(
+          "appdump", "tivi", Paths.get(ToolHelper.THIRD_PARTY_DIR, "opensource-apps"));
+
+  @Parameters(name = "{0}")
+  public static List<Object[]> data() {
+    return parametersFromConfigs(configs());
+  }
+
+  public CfToCfBenchmark(BenchmarkConfig config, TestParameters parameters) {
+    super(config, parameters);
+  }
+
+  public static List<BenchmarkConfig> configs() {
+    return ImmutableList.of(
+        BenchmarkConfig.builder()
+            .setName(NAME)
+            .setTarget(BenchmarkTarget.R8_NON_COMPAT)
+            .setSuite(BenchmarkSuite.OPENSOURCE_BENCHMARKS)
+            .setMethod(benchmarkCfToCf())
+            .setFromRevision(12370)
+            .addDependency(dumpDependency)
+            .addSubBenchmark(VERIFIED, BenchmarkMetric.RunTimeRaw)
+            .addSubBenchmark(TRUSTED, BenchmarkMetric.RunTimeRaw)
+            .setTimeout(10, TimeUnit.MINUTES)
+            .build());
+  }
+
+  public static BenchmarkMethod benchmarkCfToCf() {
+    return environment ->
+        runner(environment.getConfig())
+            .setWarmupIterations(1)
+            .setBenchmarkIterations(4)
+            .reportResultSum()
+            .run(
+                results -> {
+                  CompilerDump dump =
+                      CompilerDump.fromArchive(
+                          dumpDependency.getRoot(environment).resolve("dump_app.zip"),
+                          environment.getTemp().newFolder().toPath());
+                  compile(environment, dump, false, results.getSubResults(VERIFIED));
+                  compile(environment, dump, true, results.getSubResults(TRUSTED));
+                });
+  }
+
+  private static void compile(
+      BenchmarkEnvironment environment,
+      CompilerDump dump,
+      boolean trustInputStackMaps,
+      BenchmarkResults results)
+      throws Exception {
+    DumpOptions dumpProperties = dump.getBuildProperties();
+    TestBase.testForR8(environment.getTemp(), Backend.CF)
+        .addProgramFiles(dump.getProgramArchive())
+        .addClasspathFiles(dump.getClasspathArchive())
+        .addLibraryFiles(dump.getLibraryArchive())
+        .addKeepRuleFiles(dump.getProguardConfigFile())
+        .setMinApi(dumpProperties.getMinApi())
+        .allowUnnecessaryDontWarnWildcards()
+        .allowUnusedDontWarnPatterns()
+        .allowUnusedProguardConfigurationRules()
+        .allowDiagnosticMessages()
+        .addOptionsModification(
+            options -> {
+              options.getOpenClosedInterfacesOptions().suppressAllOpenInterfaces();
+              options.trustInputStackMaps = trustInputStackMaps;
+            })
+        .benchmarkCompile(results);
+  }
+}
@@ -0,0 +1,114 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.benchmarks.classfile;
+
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.benchmarks.BenchmarkBase;
+import com.android.tools.r8.benchmarks.BenchmarkConfig;
+import com.android.tools.r8.benchmarks.BenchmarkDependency;
+import com.android.tools.r8.benchmarks.BenchmarkMethod;
+import com.android.tools.r8.benchmarks.BenchmarkMetric;
+import com.android.tools.r8.benchmarks.BenchmarkSuite;
+import com.android.tools.r8.benchmarks.BenchmarkTarget;
+import com.android.tools.r8.dex.ApplicationReader;
+import com.android.tools.r8.dump.CompilerDump;
+import com.android.tools.r8.graph.DexApplication;
+import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.android.tools.r8.utils.Timing;
+import com.google.common.collect.ImmutableList;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/** Benchmark of reading class files and materializing the code of all program methods. */
+@RunWith(Parameterized.class)
+public class ClassFileReadingBenchmark extends BenchmarkBase {
+
+  private static final String NAME = "TiviClassFileReading";
+  private static final String LAZY = NAME + "Lazy";
+  private static final String EAGER = NAME + "Eager";
+
+  private static final BenchmarkDependency dumpDependency =
+      new BenchmarkDependency(
+          "appdump", "tivi", Paths.get(ToolHelper.THIRD_PARTY_DIR, "opensource-apps"));
+
+  @Parameters(name = "{0}")
+  public static List<Object[]> data() {
+    return parametersFromConfigs(configs());
+  }
+
+  public ClassFileReadingBenchmark(BenchmarkConfig config, TestParameters parameters) {
+    super(config, parameters);
+  }
+
+  public static List<BenchmarkConfig> configs() {
+    return ImmutableList.of(
+        BenchmarkConfig.builder()
+            .setName(NAME)
+            .setTarget(BenchmarkTarget.D8)
+            .setSuite(BenchmarkSuite.OPENSOURCE_BENCHMARKS)
+            .setMethod(benchmarkClassFileReading())
+            .setFromRevision(12370)
+            .addDependency(dumpDependency)
+            .addSubBenchmark(LAZY, BenchmarkMetric.RunTimeRaw)
+            .addSubBenchmark(EAGER, BenchmarkMetric.RunTimeRaw)
+            .setTimeout(10, TimeUnit.MINUTES)
+            .build());
+  }
+
+  public static BenchmarkMethod benchmarkClassFileReading() {
+    return environment ->
+        runner(environment.getConfig())
+            .setWarmupIterations(1)
+            .setBenchmarkIterations(4)
+            .reportResultSum()
+            .run(
+                results -> {
+                  CompilerDump dump =
+                      CompilerDump.fromArchive(
+                          dumpDependency.getRoot(environment).resolve("dump_app.zip"),
+                          environment.getTemp().newFolder().toPath());
+                  Path programArchive = dump.getProgramArchive();
+                  results
+                      .getSubResults(LAZY)
+                      .addRuntimeResult(readAndMaterializeCode(programArchive, false));
+                  results
+                      .getSubResults(EAGER)
+                      .addRuntimeResult(readAndMaterializeCode(programArchive, true));
+                });
+  }
+
+  private static long readAndMaterializeCode(Path programArchive, boolean parseCfCodeEagerly)
+      throws Exception {
+    InternalOptions options = new InternalOptions();
+    options.parseCfCodeEagerly = parseCfCodeEagerly;
+    ExecutorService executorService = ThreadUtils.getExecutorService(options);
+    try {
+      long start = System.nanoTime();
+      DexApplication application =
+          new ApplicationReader(
+                  AndroidApp.builder().addProgramFiles(programArchive).build(),
+                  options,
+                  Timing.empty())
+              .read(executorService);
+      for (DexProgramClass clazz : application.classes()) {
+        clazz.forEachProgramMethodMatching(
+            DexEncodedMethod::hasCode, method -> method.getDefinition().getCode().asCfCode());
+      }
+      return System.nanoTime() - start;
+    } finally {
+      executorService.shutdown();
+    }
+  }
+}
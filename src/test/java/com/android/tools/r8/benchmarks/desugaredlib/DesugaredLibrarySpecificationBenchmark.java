@@ -0,0 +1,82 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.benchmarks.desugaredlib;
+
+import com.android.tools.r8.StringResource;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.benchmarks.BenchmarkBase;
+import com.android.tools.r8.benchmarks.BenchmarkConfig;
+import com.android.tools.r8.benchmarks.BenchmarkDependency;
+import com.android.tools.r8.benchmarks.BenchmarkEnvironment;
+import com.android.tools.r8.benchmarks.BenchmarkTarget;
+import com.android.tools.r8.desugar.desugaredlibrary.test.LibraryDesugaringSpecification;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.google.common.collect.ImmutableList;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Repeated small D8 compilations using the human desugared library specification. All but the
+ * first compilation use the machine specification precompiled by the first compilation.
+ */
+@RunWith(Parameterized.class)
+public class DesugaredLibrarySpecificationBenchmark extends BenchmarkBase {
+
+  private static final BenchmarkDependency ANDROID_JAR = BenchmarkDependency.getAndroidJar30();
+
+  public DesugaredLibrarySpecificationBenchmark(
+      BenchmarkConfig config, TestParameters parameters) {
+    super(config, parameters);
+  }
+
+  @Parameters(name = "{0}")
+  public static List<Object[]> data() {
+    return parametersFromConfigs(configs());
+  }
+
+  public static List<BenchmarkConfig> configs() {
+    return ImmutableList.of(
+        BenchmarkConfig.builder()
+            .setName("DesugaredLibrarySpecification")
+            .setTarget(BenchmarkTarget.D8)
+            .setFromRevision(13500)
+            .setMethod(DesugaredLibrarySpecificationBenchmark::run)
+            .addDependency(ANDROID_JAR)
+            .measureRunTime()
+            .build());
+  }
+
+  public static void run(BenchmarkEnvironment environment) throws Exception {
+    runner(environment.getConfig())
+        .setWarmupIterations(1)
+        .setBenchmarkIterations(50)
+        .reportResultSum()
+        .run(
+            results ->
+                testForD8(environment.getTemp(), Backend.DEX)
+                    .setMinApi(AndroidApiLevel.B)
+                    .addLibraryFiles(ANDROID_JAR.getRoot(environment).resolve("android.jar"))
+                    .addProgramClasses(TestClass.class)
+                    .apply(
+                        b ->
+                            b.getBuilder()
+                                .addDesugaredLibraryConfiguration(
+                                    StringResource.fromFile(
+                                        LibraryDesugaringSpecification.JDK11.getSpecification())))
+                    .benchmarkCompile(results));
+  }
+
+  static class TestClass {
+
+    public static void main(String[] args) {
+      System.out.println(Stream.of("Hello", "world!").collect(Collectors.joining(" ")));
+      System.out.println(LocalDate.of(2023, 1, 1).getDayOfWeek());
+    }
+  }
+}
@@ -0,0 +1,119 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.benchmarks.dexitemfactory;
+
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.benchmarks.BenchmarkBase;
+import com.android.tools.r8.benchmarks.BenchmarkConfig;
+import com.android.tools.r8.benchmarks.BenchmarkMethod;
+import com.android.tools.r8.benchmarks.BenchmarkMetric;
+import com.android.tools.r8.benchmarks.BenchmarkSuite;
+import com.android.tools.r8.benchmarks.BenchmarkTarget;
+import com.android.tools.r8.graph.DexItemFactory;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Stress benchmark of concurrent type creation in the {@link DexItemFactory}.
+ *
+ * <p>Each thread creates the same set of class and array types, such that both the creation of new
+ * types and the lookup of existing types are contended. The sub benchmarks report the time for a
+ * fixed amount of work per thread, so with perfect scaling the time is the same for all thread
+ * counts.
+ */
+@RunWith(Parameterized.class)
+public class TypeCreationBenchmark extends BenchmarkBase {
+
+  private static final String NAME = "DexItemFactoryTypeCreation";
+  private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+  private static final int NUMBER_OF_TYPES = 100_000;
+  private static final int NUMBER_OF_ROUNDS = 4;
+
+  @Parameters(name = "{0}")
+  public static List<Object[]> data() {
+    return parametersFromConfigs(configs());
+  }
+
+  public TypeCreationBenchmark(BenchmarkConfig config, TestParameters parameters) {
+    super(config, parameters);
+  }
+
+  private static String getSubBenchmarkName(int threads) {
+    return NAME + "Threads" + threads;
+  }
+
+  public static List<BenchmarkConfig> configs() {
+    BenchmarkConfig.Builder builder =
+        BenchmarkConfig.builder()
+            .setName(NAME)
+            .setTarget(BenchmarkTarget.D8)
+            .setSuite(BenchmarkSuite.R8_BENCHMARKS)
+            .setMethod(benchmarkTypeCreation())
+            .setFromRevision(12370);
+    for (int threads : THREAD_COUNTS) {
+      builder.addSubBenchmark(getSubBenchmarkName(threads), BenchmarkMetric.RunTimeRaw);
+    }
+    return ImmutableList.of(builder.build());
+  }
+
+  public static BenchmarkMethod benchmarkTypeCreation() {
+    return environment ->
+        runner(environment.getConfig())
+            .setWarmupIterations(1)
+            .setBenchmarkIterations(5)
+            .reportResultSum()
+            .run(
+                results -> {
+                  List<String> descriptors = createDescriptors();
+                  for (int threads : THREAD_COUNTS) {
+                    results
+                        .getSubResults(getSubBenchmarkName(threads))
+                        .addRuntimeResult(createTypes(descriptors, threads));
+                  }
+                });
+  }
+
+  private static List<String> createDescriptors() {
+    List<String> descriptors = new ArrayList<>(NUMBER_OF_TYPES);
+    for (int i = 0; i < NUMBER_OF_TYPES; i++) {
+      String descriptor = "Lcom/example/p" + (i % 100) + "/C" + i + ";";
+      descriptors.add(i % 4 == 0 ? "[" + descriptor : descriptor);
+    }
+    return descriptors;
+  }
+
+  private static long createTypes(List<String> descriptors, int threads) throws Exception {
+    DexItemFactory factory = new DexItemFactory();
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    try {
+      long start = System.nanoTime();
+      List<Future<?>> futures = new ArrayList<>(threads);
+      for (int thread = 0; thread < threads; thread++) {
+        int offset = thread * (descriptors.size() / threads);
+        futures.add(
+            executorService.submit(
+                () -> {
+                  for (int round = 0; round < NUMBER_OF_ROUNDS; round++) {
+                    for (int i = 0; i < descriptors.size(); i++) {
+                      factory.createType(descriptors.get((offset + i) % descriptors.size()));
+                    }
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      return System.nanoTime() - start;
+    } finally {
+      executorService.shutdown();
+    }
+  }
+}
@@ -14,12 +14,17 @@ import com.android.tools.r8.retrace.ProguardMapProducer;
 import com.android.tools.r8.retrace.ProguardMappingSupplier;
 import com.android.tools.r8.retrace.Retrace;
 import com.android.tools.r8.retrace.RetraceCommand;
+import com.android.tools.r8.retrace.RetraceOptions;
+import com.android.tools.r8.retrace.RetraceStackFrameResultWithContext;
+import com.android.tools.r8.retrace.StringRetrace;
 import com.google.common.collect.ImmutableList;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
@@ -28,6 +33,8 @@ import org.junit.runners.Parameterized.Parameters;
 @RunWith(Parameterized.class)
 public class RetraceStackTraceBenchmark extends BenchmarkBase {
 
+  private static final int BATCH_REPETITIONS = 100;
+
   private static final BenchmarkDependency benchmarkDependency =
       new BenchmarkDependency(
           "retraceBenchmark", "retrace_benchmark", Paths.get(ToolHelper.THIRD_PARTY_DIR));
@@ -54,6 +61,16 @@ public class RetraceStackTraceBenchmark extends BenchmarkBase {
                 .measureWarmup()
                 .addDependency(benchmarkDependency)
                 .build())
+        .add(
+            BenchmarkConfig.builder()
+                .setName("RetraceStackTraceBatchWithProguardMap")
+                .setTarget(BenchmarkTarget.R8_NON_COMPAT)
+                .measureRunTime()
+                .setMethod(benchmarkRetraceBatch())
+                .setFromRevision(12266)
+                .measureWarmup()
+                .addDependency(benchmarkDependency)
+                .build())
         .build();
   }
 
@@ -91,4 +108,67 @@ public class RetraceStackTraceBenchmark extends BenchmarkBase {
                   results.addRuntimeResult(end - start);
                 });
   }
+
+  public static BenchmarkMethod benchmarkRetraceBatch() {
+    return environment ->
+        runner(environment.getConfig())
+            .setWarmupIterations(1)
+            .setBenchmarkIterations(4)
+            .reportResultSum()
+            .run(
+                results -> {
+                  Path dependencyRoot = benchmarkDependency.getRoot(environment);
+                  List<List<String>> stackTraces =
+                      splitIntoStackTraces(
+                          Files.readAllLines(dependencyRoot.resolve("stacktrace.txt")));
+                  // Simulate a batch of crash reports by retracing each stack trace several times.
+                  List<List<String>> batch = new ArrayList<>();
+                  for (int i = 0; i < BATCH_REPETITIONS; i++) {
+                    batch.addAll(stackTraces);
+                  }
+                  ExecutorService executorService = Executors.newWorkStealingPool();
+                  try {
+                    long start = System.nanoTime();
+                    StringRetrace stringRetrace =
+                        StringRetrace.create(
+                            RetraceOptions.builder()
+                                .setMappingSupplier(
+                                    ProguardMappingSupplier.builder()
+                                        .setProguardMapProducer(
+                                            ProguardMapProducer.fromPath(
+                                                dependencyRoot.resolve("r8lib.jar.map")))
+                                        .setLoadAllDefinitions(false)
+                                        .build())
+                                .build());
+                    List<RetraceStackFrameResultWithContext<String>> retraced =
+                        stringRetrace.retraceStackTraces(batch, executorService);
+                    long end = System.nanoTime();
+                    // Add a simple check to ensure that we do not, in case of invalid retracing,
+                    // record an optimal benchmark result.
+                    for (int i = 0; i < batch.size(); i++) {
+                      if (retraced.get(i).getResult().size() < batch.get(i).size()) {
+                        throw new RuntimeException("Unexpected missing lines in retraced result");
+                      }
+                    }
+                    results.addRuntimeResult(end - start);
+                  } finally {
+                    executorService.shutdown();
+                  }
+                });
+  }
+
+  // Splits the lines into stack traces, where each stack trace starts with a line that is not
+  // indented.
+  private static List<List<String>> splitIntoStackTraces(List<String> lines) {
+    List<List<String>> stackTraces = new ArrayList<>();
+    List<String> current = null;
+    for (String line : lines) {
+      if (current == null || (!line.isEmpty() && !Character.isWhitespace(line.charAt(0)))) {
+        current = new ArrayList<>();
+        stackTraces.add(current);
+      }
+      current.add(line);
+    }
+    return stackTraces;
+  }
 }
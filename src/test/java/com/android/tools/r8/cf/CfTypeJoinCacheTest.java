@@ -0,0 +1,100 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.cf;
+
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.graph.AppInfoWithClassHierarchy;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.ir.analysis.type.Nullability;
+import com.android.tools.r8.ir.analysis.type.TypeElement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class CfTypeJoinCacheTest extends TestBase {
+
+  private final TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public CfTypeJoinCacheTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void test() throws Exception {
+    parameters.assertNoneRuntime();
+    AppView<AppInfoWithClassHierarchy> appView =
+        computeAppViewWithClassHierarchy(
+            buildClasses(I.class, A.class, B.class, C.class, D.class)
+                .addLibraryFile(ToolHelper.getMostRecentAndroidJar())
+                .build());
+    DexItemFactory factory = appView.dexItemFactory();
+    DexType a = toDexType(A.class, factory);
+    DexType b = toDexType(B.class, factory);
+    DexType c = toDexType(C.class, factory);
+    DexType d = toDexType(D.class, factory);
+
+    List<String> computedJoins = new ArrayList<>();
+    BiFunction<DexType, DexType, DexType> computeJoin =
+        (type1, type2) -> {
+          computedJoins.add(type1.getTypeName() + " " + type2.getTypeName());
+          return join(type1, type2, appView);
+        };
+    CfTypeJoinCache cache = new CfTypeJoinCache();
+
+    // The join of two subclasses is their common superclass, which is cached.
+    assertEquals(a, cache.join(b, c, appView, computeJoin));
+    assertEquals(a, cache.join(b, c, appView, computeJoin));
+    assertEquals(1, computedJoins.size());
+
+    // The join of two classes that only share an interface is represented by java.lang.Object, as
+    // when the join is computed without the cache.
+    assertEquals(factory.objectType, join(b, d, appView));
+    assertEquals(factory.objectType, cache.join(b, d, appView, computeJoin));
+    assertEquals(factory.objectType, cache.join(b, d, appView, computeJoin));
+    assertEquals(2, computedJoins.size());
+
+    // The cached joins are dropped when the app info changes.
+    appView.setAppInfo(appView.appInfo().rebuildWithClassHierarchy(Function.identity()));
+    assertEquals(a, cache.join(b, c, appView, computeJoin));
+    assertEquals(a, cache.join(b, c, appView, computeJoin));
+    assertEquals(3, computedJoins.size());
+  }
+
+  private static DexType join(
+      DexType type1, DexType type2, AppView<AppInfoWithClassHierarchy> appView) {
+    TypeElement join =
+        TypeElement.fromDexType(type1, Nullability.maybeNull(), appView)
+            .join(TypeElement.fromDexType(type2, Nullability.maybeNull(), appView), appView);
+    return join.asClassType().getClassType();
+  }
+
+  interface I {}
+
+  static class A {}
+
+  static class B extends A implements I {}
+
+  static class C extends A {}
+
+  static class D implements I {}
+}
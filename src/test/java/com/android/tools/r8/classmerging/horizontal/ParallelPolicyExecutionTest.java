@@ -0,0 +1,239 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.classmerging.horizontal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.horizontalclassmerging.MultiClassSameReferencePolicy;
+import com.android.tools.r8.horizontalclassmerging.Policy;
+import com.android.tools.r8.horizontalclassmerging.PolicyStatistics;
+import com.android.tools.r8.horizontalclassmerging.SingleClassPolicy;
+import com.android.tools.r8.horizontalclassmerging.policies.VerifySingleClassPolicyAlwaysSatisfied;
+import com.android.tools.r8.utils.Box;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class ParallelPolicyExecutionTest extends TestBase {
+
+  @Parameter(0)
+  public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection parameters() {
+    return getTestParameters().withAllRuntimesAndApiLevels().build();
+  }
+
+  @Test
+  public void test() throws Exception {
+    Box<PolicyStatistics> statistics = new Box<>();
+    testForR8(parameters.getBackend())
+        .addInnerClasses(getClass())
+        .addKeepMainRule(Main.class)
+        .addHorizontallyMergedClassesInspector(
+            inspector ->
+                inspector
+                    .assertIsCompleteMergeGroup(A1.class, A2.class)
+                    .assertIsCompleteMergeGroup(B1.class, B2.class)
+                    .assertClassesNotMerged(C1.class, C2.class)
+                    .assertNoOtherClassesMerged())
+        .addOptionsModification(
+            options -> {
+              statistics.set(options.horizontalClassMergerOptions().getPolicyStatistics());
+              options.testing.horizontalClassMergingPolicyRewriter =
+                  policies ->
+                      ImmutableList.<Policy>builder()
+                          .add(new NoClassesNamedC(), new SameSimpleNamePrefix())
+                          .addAll(policies)
+                          .build();
+            })
+        .setMinApi(parameters)
+        .compile()
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines("A1", "A2", "B1", "B2", "C1", "C2");
+    PolicyStatistics.Entry entry = statistics.get().getEntry(new NoClassesNamedC());
+    assertTrue(entry.getNumberOfRejectedClasses() >= 2);
+  }
+
+  @Test
+  public void testVerificationIsNotReordered() throws Exception {
+    testForR8(parameters.getBackend())
+        .addInnerClasses(getClass())
+        .addKeepMainRule(Main.class)
+        .addOptionsModification(
+            options ->
+                options.testing.horizontalClassMergingPolicyRewriter =
+                    policies -> {
+                      List<Policy> newPolicies =
+                          ImmutableList.<Policy>builder()
+                              .add(
+                                  new NoClassesNamedC(),
+                                  new VerifySingleClassPolicyAlwaysSatisfied(new NoClassesNamedC()))
+                              .addAll(policies)
+                              .build();
+                      // Measure the verification as the most selective policy, such that it would
+                      // be applied before NoClassesNamedC if it could be reordered.
+                      PolicyStatistics statistics =
+                          options.horizontalClassMergerOptions().getPolicyStatistics();
+                      for (Policy policy : newPolicies) {
+                        int numberOfRejectedClasses =
+                            policy instanceof VerifySingleClassPolicyAlwaysSatisfied ? 1 : 0;
+                        statistics.record(policy, 1, numberOfRejectedClasses, 1_000_000);
+                      }
+                      return newPolicies;
+                    })
+        .setMinApi(parameters)
+        .compile()
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines("A1", "A2", "B1", "B2", "C1", "C2");
+  }
+
+  @Test
+  public void testOrderBySelectivity() {
+    SingleClassPolicy slow = new NamedSingleClassPolicy("slow");
+    SingleClassPolicy fast = new NamedSingleClassPolicy("fast");
+    SingleClassPolicy unselective = new NamedSingleClassPolicy("unselective");
+    List<SingleClassPolicy> policies = ImmutableList.of(unselective, slow, fast);
+    PolicyStatistics statistics = new PolicyStatistics();
+    statistics.record(slow, 100, 10, 100_000);
+    statistics.record(fast, 100, 10, 1_000);
+    // The policies are not reordered before all of them have been measured.
+    assertEquals(policies, statistics.orderBySelectivity(policies));
+    statistics.record(unselective, 100, 0, 1_000);
+    assertEquals(
+        ImmutableList.of(fast, unselective, slow), statistics.orderBySelectivity(policies));
+  }
+
+  private static class NamedSingleClassPolicy extends SingleClassPolicy {
+
+    private final String name;
+
+    NamedSingleClassPolicy(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public boolean canMerge(DexProgramClass program) {
+      return true;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+  }
+
+  private static class NoClassesNamedC extends SingleClassPolicy {
+
+    @Override
+    public boolean canMerge(DexProgramClass program) {
+      return !program.getSimpleName().startsWith("C");
+    }
+
+    @Override
+    public boolean canApplyInParallel() {
+      return true;
+    }
+
+    @Override
+    public boolean canBeReordered() {
+      return true;
+    }
+
+    @Override
+    public String getName() {
+      return "NoClassesNamedC";
+    }
+  }
+
+  private static class SameSimpleNamePrefix extends MultiClassSameReferencePolicy<String> {
+
+    @Override
+    public String getMergeKey(DexProgramClass clazz) {
+      String simpleName = clazz.getSimpleName();
+      return simpleName.substring(0, simpleName.length() - 1);
+    }
+
+    @Override
+    public boolean canApplyInParallel() {
+      return true;
+    }
+
+    @Override
+    public String getName() {
+      return "SameSimpleNamePrefix";
+    }
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      System.out.println(new A1());
+      System.out.println(new A2());
+      System.out.println(new B1());
+      System.out.println(new B2());
+      System.out.println(new C1());
+      System.out.println(new C2());
+    }
+  }
+
+  static class A1 {
+
+    @Override
+    public String toString() {
+      return "A1";
+    }
+  }
+
+  static class A2 {
+
+    @Override
+    public String toString() {
+      return "A2";
+    }
+  }
+
+  static class B1 {
+
+    @Override
+    public String toString() {
+      return "B1";
+    }
+  }
+
+  static class B2 {
+
+    @Override
+    public String toString() {
+      return "B2";
+    }
+  }
+
+  static class C1 {
+
+    @Override
+    public String toString() {
+      return "C1";
+    }
+  }
+
+  static class C2 {
+
+    @Override
+    public String toString() {
+      return "C2";
+    }
+  }
+}
@@ -15,6 +15,7 @@ import com.android.tools.r8.TestParameters;
 import com.android.tools.r8.ToolHelper.DexVm.Version;
 import com.android.tools.r8.debug.DebugTestBase;
 import com.android.tools.r8.debug.DebugTestConfig;
+import com.android.tools.r8.graph.DexDebugEvent;
 import com.android.tools.r8.graph.DexDebugEvent.Default;
 import com.android.tools.r8.graph.DexDebugEvent.StartLocal;
 import com.android.tools.r8.graph.DexDebugInfo.EventBasedDebugInfo;
@@ -83,8 +84,9 @@ public class LocalVariableTableForParameterWithSignatureTest extends DebugTestBa
     assertEquals("value", debugInfo.parameters[0].toString());
     assertNull(debugInfo.parameters[1]);
     assertEquals(2, debugInfo.parameters.length);
-    Default defaultEvent = (Default) debugInfo.events[startBeforeDefault ? 1 : 0];
-    StartLocal startEvent = (StartLocal) debugInfo.events[startBeforeDefault ? 0 : 1];
+    DexDebugEvent[] events = debugInfo.getEvents().toArray();
+    Default defaultEvent = (Default) events[startBeforeDefault ? 1 : 0];
+    StartLocal startEvent = (StartLocal) events[startBeforeDefault ? 0 : 1];
     assertEquals(inspector.getFactory().zeroChangeDefaultEvent, defaultEvent);
   }
 
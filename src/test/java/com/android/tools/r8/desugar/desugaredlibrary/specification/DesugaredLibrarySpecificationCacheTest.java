@@ -0,0 +1,140 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.desugar.desugaredlibrary.specification;
+
+import static com.android.tools.r8.desugar.desugaredlibrary.test.LibraryDesugaringSpecification.JDK11;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.D8Command;
+import com.android.tools.r8.DexIndexedConsumer;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.StringResource;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.desugar.desugaredlibrary.DesugaredLibraryTestBase;
+import com.android.tools.r8.ir.desugar.desugaredlibrary.DesugaredLibrarySpecificationCache;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.android.tools.r8.utils.Box;
+import com.google.common.collect.Iterators;
+import com.google.gson.JsonObject;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class DesugaredLibrarySpecificationCacheTest extends DesugaredLibraryTestBase {
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public DesugaredLibrarySpecificationCacheTest(TestParameters parameters) {
+    assert parameters.isNoneRuntime();
+  }
+
+  @Test
+  public void test() throws Exception {
+    Path cacheDirectory = temp.newFolder().toPath();
+    DesugaredLibrarySpecificationCache.clearForTesting();
+    try {
+      byte[] expected = compile(null);
+      assertTrue(containsString(expected, "Lj$/util/stream/Stream;"));
+
+      // The specification converted by this process is shared with other processes.
+      assertArrayEquals(expected, compile(cacheDirectory));
+      Path entry = getOnlyEntry(cacheDirectory);
+
+      // Seed the entry on disk with a different package prefix and clear the entries of this
+      // process, such that the output can only use that prefix if the entry is taken from the disk.
+      String json = new String(Files.readAllBytes(entry), UTF_8);
+      Files.write(entry, json.replace("j$/", "k$/").replace("j$.", "k$.").getBytes(UTF_8));
+      DesugaredLibrarySpecificationCache.clearForTesting();
+      byte[] expectedFromEntry = compile(cacheDirectory);
+      assertTrue(containsString(expectedFromEntry, "Lk$/util/stream/Stream;"));
+      assertFalse(containsString(expectedFromEntry, "Lj$/util/stream/Stream;"));
+      assertEquals(entry, getOnlyEntry(cacheDirectory));
+
+      // The entry that was read from the disk is also used without the cache directory.
+      Files.delete(entry);
+      assertArrayEquals(expectedFromEntry, compile(null));
+    } finally {
+      DesugaredLibrarySpecificationCache.clearForTesting();
+    }
+  }
+
+  @Test
+  public void testParsedJsonIsNotShared() throws Exception {
+    String json = new String(Files.readAllBytes(JDK11.getSpecification()), UTF_8);
+    DesugaredLibrarySpecificationCache.clearForTesting();
+    try {
+      JsonObject jsonConfig = DesugaredLibrarySpecificationCache.parseJson(json);
+      String expected = jsonConfig.toString();
+      jsonConfig.remove("identifier");
+      jsonConfig.addProperty("extra", 42);
+      JsonObject otherJsonConfig = DesugaredLibrarySpecificationCache.parseJson(json);
+      assertNotSame(jsonConfig, otherJsonConfig);
+      assertEquals(expected, otherJsonConfig.toString());
+    } finally {
+      DesugaredLibrarySpecificationCache.clearForTesting();
+    }
+  }
+
+  private byte[] compile(Path cacheDirectory) throws Exception {
+    Box<byte[]> output = new Box<>();
+    ToolHelper.runD8(
+        D8Command.builder()
+            .addClassProgramData(ToolHelper.getClassAsBytes(Main.class), Origin.unknown())
+            .addLibraryFiles(ToolHelper.getAndroidJar(AndroidApiLevel.R))
+            .addDesugaredLibraryConfiguration(StringResource.fromFile(JDK11.getSpecification()))
+            .setMinApiLevel(AndroidApiLevel.B.getLevel())
+            .setProgramConsumer(
+                new DexIndexedConsumer.ForwardingConsumer(null) {
+                  @Override
+                  public void accept(
+                      int fileIndex,
+                      ByteDataView data,
+                      Set<String> descriptors,
+                      DiagnosticsHandler handler) {
+                    output.set(data.copyByteData());
+                  }
+                }),
+        options -> options.desugaredLibrarySpecificationCacheDirectory = cacheDirectory);
+    return output.get();
+  }
+
+  private static boolean containsString(byte[] dex, String string) {
+    return new String(dex, ISO_8859_1).contains(string);
+  }
+
+  private static Path getOnlyEntry(Path cacheDirectory) throws Exception {
+    try (Stream<Path> files = Files.list(cacheDirectory)) {
+      return Iterators.getOnlyElement(files.iterator());
+    }
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      System.out.println(Stream.of("Hello", "world!").collect(Collectors.joining(" ")));
+      System.out.println(LocalDate.of(2023, 1, 1).getDayOfWeek());
+    }
+  }
+}
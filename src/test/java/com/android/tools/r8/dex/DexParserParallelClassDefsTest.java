@@ -0,0 +1,165 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.dex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.graph.ApplicationReaderMap;
+import com.android.tools.r8.graph.ClassKind;
+import com.android.tools.r8.graph.DexEncodedField;
+import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.graph.DexTypeList;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.threading.TaskCollection;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.android.tools.r8.utils.InternalOptions;
+import com.google.common.io.ByteStreams;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Tests that reading the class definitions of a dex file in ranges concurrently gives the same
+ * classes as reading them sequentially, and that items referenced from several ranges are shared.
+ */
+@RunWith(Parameterized.class)
+public class DexParserParallelClassDefsTest extends TestBase implements Opcodes {
+
+  // More than two ranges of class definitions, where the last range is not full.
+  private static final int NUMBER_OF_CLASSES = 700;
+
+  @Parameter(0)
+  public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  @Test
+  public void test() throws Exception {
+    List<byte[]> programClassFileData = new ArrayList<>();
+    for (int i = 0; i < NUMBER_OF_CLASSES; i++) {
+      programClassFileData.add(createClass("com/example/C" + i, i));
+    }
+    byte[] dex;
+    try (InputStream inputStream =
+        testForD8()
+            .addProgramClassFileData(programClassFileData)
+            .debug()
+            .setMinApi(AndroidApiLevel.L)
+            .compile()
+            .getApp()
+            .getDexProgramResourcesForTesting()
+            .get(0)
+            .getByteStream()) {
+      dex = ByteStreams.toByteArray(inputStream);
+    }
+
+    List<DexProgramClass> expected = readClasses(dex, null);
+    assertEquals(NUMBER_OF_CLASSES, expected.size());
+    List<DexProgramClass> actual;
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      actual = readClasses(dex, executorService);
+    } finally {
+      executorService.shutdown();
+    }
+    // The classes of different ranges are added in the order in which the ranges are read.
+    actual.sort((x, y) -> x.getType().compareTo(y.getType()));
+    expected.sort((x, y) -> x.getType().compareTo(y.getType()));
+    assertEquals(describe(expected), describe(actual));
+    // The interface list is stored once in the dex file and read once for all ranges.
+    DexTypeList interfaces = actual.get(0).getInterfaces();
+    assertEquals(1, interfaces.size());
+    for (DexProgramClass clazz : actual) {
+      assertSame(interfaces, clazz.getInterfaces());
+    }
+  }
+
+  private static List<DexProgramClass> readClasses(byte[] dex, ExecutorService executorService)
+      throws Exception {
+    InternalOptions options = new InternalOptions();
+    DexParser<DexProgramClass> dexParser =
+        new DexParser<>(new DexReader(Origin.unknown(), dex), ClassKind.PROGRAM, options);
+    dexParser.populateIndexTables();
+    ApplicationReaderMap applicationReaderMap = ApplicationReaderMap.getInstance(options);
+    if (executorService == null) {
+      List<DexProgramClass> classes = new ArrayList<>();
+      dexParser.addClassDefsTo(classes::add, applicationReaderMap);
+      return classes;
+    }
+    Queue<DexProgramClass> classes = new ConcurrentLinkedQueue<>();
+    TaskCollection<?> tasks = new TaskCollection<>(options, executorService);
+    dexParser.addClassDefsTo(classes::add, applicationReaderMap, tasks);
+    tasks.await();
+    return new ArrayList<>(classes);
+  }
+
+  private static List<String> describe(List<DexProgramClass> classes) {
+    List<String> descriptions = new ArrayList<>(classes.size());
+    for (DexProgramClass clazz : classes) {
+      descriptions.add(describe(clazz));
+    }
+    return descriptions;
+  }
+
+  private static String describe(DexProgramClass clazz) {
+    StringBuilder builder = new StringBuilder(clazz.toSourceString());
+    for (DexEncodedField field : clazz.fields()) {
+      builder.append('\n').append(field.toSourceString());
+      if (field.hasExplicitStaticValue()) {
+        builder.append(" = ").append(field.getStaticValue());
+      }
+    }
+    for (DexEncodedMethod method : clazz.methods()) {
+      builder.append('\n').append(method.toSourceString()).append('\n').append(method.getCode());
+    }
+    return builder.toString();
+  }
+
+  private static byte[] createClass(String binaryName, int index) {
+    ClassWriter cw = new ClassWriter(0);
+    cw.visit(
+        V1_8,
+        ACC_PUBLIC | ACC_SUPER,
+        binaryName,
+        null,
+        "java/lang/Object",
+        new String[] {"java/lang/Runnable"});
+    cw.visitSource("C" + index + ".java", null);
+    cw.visitField(ACC_PUBLIC | ACC_STATIC | ACC_FINAL, "f", "I", null, index).visitEnd();
+    MethodVisitor mv =
+        cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "m", "()Ljava/lang/String;", null, null);
+    mv.visitCode();
+    Label label = new Label();
+    mv.visitLabel(label);
+    mv.visitLineNumber(index + 1, label);
+    mv.visitLdcInsn("m" + index);
+    mv.visitInsn(ARETURN);
+    mv.visitMaxs(1, 0);
+    mv.visitEnd();
+    cw.visitEnd();
+    return cw.toByteArray();
+  }
+}
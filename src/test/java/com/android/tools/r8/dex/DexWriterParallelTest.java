@@ -0,0 +1,138 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.dex;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.android.tools.r8.utils.InternalOptions;
+import com.google.common.io.ByteStreams;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Tests that sorting the index tables and encoding the code items of a dex file concurrently gives
+ * the same bytes as writing the dex file sequentially.
+ */
+@RunWith(Parameterized.class)
+public class DexWriterParallelTest extends TestBase implements Opcodes {
+
+  private static final int NUMBER_OF_CLASSES = 100;
+
+  @Parameter(0)
+  public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  @Test
+  public void testWithoutCanonicalizedCode() throws Exception {
+    test(AndroidApiLevel.L);
+  }
+
+  @Test
+  public void testWithCanonicalizedCode() throws Exception {
+    test(AndroidApiLevel.S);
+  }
+
+  private void test(AndroidApiLevel apiLevel) throws Exception {
+    List<byte[]> programClassFileData = new ArrayList<>();
+    for (int i = 0; i < NUMBER_OF_CLASSES; i++) {
+      programClassFileData.add(createClass("com/example/C" + i, i));
+    }
+    // The thresholds are far above the size of the input, so the dex file is written sequentially.
+    byte[] expected = compile(programClassFileData, apiLevel, options -> {});
+    // Use small chunks to sort the tables and encode the code items concurrently.
+    byte[] actual =
+        compile(
+            programClassFileData,
+            apiLevel,
+            options -> {
+              options.testing.dexWriterSortChunkSize = 7;
+              options.testing.dexWriterCodeItemChunkSize = 3;
+            });
+    assertArrayEquals(expected, actual);
+  }
+
+  private byte[] compile(
+      List<byte[]> programClassFileData,
+      AndroidApiLevel apiLevel,
+      Consumer<InternalOptions> optionsModification)
+      throws Exception {
+    try (InputStream inputStream =
+        testForD8()
+            .addProgramClassFileData(programClassFileData)
+            .addOptionsModification(optionsModification)
+            .release()
+            .setMinApi(apiLevel)
+            .compile()
+            .getApp()
+            .getDexProgramResourcesForTesting()
+            .get(0)
+            .getByteStream()) {
+      return ByteStreams.toByteArray(inputStream);
+    }
+  }
+
+  private static byte[] createClass(String binaryName, int index) {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    cw.visit(V1_8, ACC_PUBLIC | ACC_SUPER, binaryName, null, "java/lang/Object", null);
+    cw.visitSource("C" + index + ".java", null);
+    // A method with the same code in each class, which shares its code item when canonicalizing.
+    MethodVisitor mv = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "zero", "()I", null, null);
+    mv.visitCode();
+    mv.visitInsn(ICONST_0);
+    mv.visitInsn(IRETURN);
+    mv.visitMaxs(1, 0);
+    mv.visitEnd();
+    // A method with a string that is unique to the class.
+    mv = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "m", "()Ljava/lang/String;", null, null);
+    mv.visitCode();
+    Label label = new Label();
+    mv.visitLabel(label);
+    mv.visitLineNumber(index + 1, label);
+    mv.visitLdcInsn("m" + index);
+    mv.visitInsn(ARETURN);
+    mv.visitMaxs(1, 0);
+    mv.visitEnd();
+    // A method with a try-catch, such that code items of different sizes need to be aligned.
+    mv = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "parse", "(Ljava/lang/String;)I", null, null);
+    mv.visitCode();
+    Label tryStart = new Label();
+    Label tryEnd = new Label();
+    Label handler = new Label();
+    mv.visitTryCatchBlock(tryStart, tryEnd, handler, "java/lang/NumberFormatException");
+    mv.visitLabel(tryStart);
+    mv.visitVarInsn(ALOAD, 0);
+    mv.visitMethodInsn(
+        INVOKESTATIC, "java/lang/Integer", "parseInt", "(Ljava/lang/String;)I", false);
+    mv.visitLabel(tryEnd);
+    mv.visitInsn(IRETURN);
+    mv.visitLabel(handler);
+    mv.visitInsn(POP);
+    mv.visitIntInsn(SIPUSH, index);
+    mv.visitInsn(IRETURN);
+    mv.visitMaxs(2, 1);
+    mv.visitEnd();
+    cw.visitEnd();
+    return cw.toByteArray();
+  }
+}
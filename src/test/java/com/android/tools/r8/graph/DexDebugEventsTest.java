@@ -3,13 +3,20 @@
 // BSD-style license that can be found in the LICENSE file.
 package com.android.tools.r8.graph;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import com.android.tools.r8.graph.DexDebugEvent.AdvancePC;
 import com.android.tools.r8.graph.DexDebugEvent.Default;
+import com.android.tools.r8.graph.DexDebugEvent.StartLocal;
+import com.android.tools.r8.ir.code.Position;
 import com.android.tools.r8.ir.code.Position.SourcePosition;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Consumer;
 import org.junit.Test;
@@ -128,17 +135,85 @@ public class DexDebugEventsTest {
     });
   }
 
+  @Test
+  public void testEncoding() {
+    DexDebugEvent[] events = createEvents();
+    DexDebugEvents encoded = DexDebugEvents.create(events);
+    assertEquals(events.length, encoded.size());
+    assertArrayEquals(events, encoded.toArray());
+    List<DexDebugEvent> iterated = new ArrayList<>();
+    encoded.forEach(iterated::add);
+    assertEquals(Arrays.asList(events), iterated);
+
+    // Equal events have equal encodings.
+    DexDebugEvents copy = DexDebugEvents.builder().addAll(encoded).build();
+    assertEquals(encoded, copy);
+    assertEquals(encoded.hashCode(), copy.hashCode());
+    assertNotEquals(encoded, DexDebugEvents.builder().addAll(encoded).addEndLocal(1).build());
+
+    // The name and type of a local may be absent in the input.
+    StartLocal local =
+        (StartLocal)
+            DexDebugEvents.builder().addStartLocal(3, null, null, null).build().toArray()[0];
+    assertEquals(3, local.registerNum);
+    assertNull(local.name);
+    assertNull(local.type);
+    assertNull(local.signature);
+  }
+
+  @Test
+  public void testWithoutNonWritableEvents() {
+    DexDebugEvent[] events = createEvents();
+    DexDebugEvents writable = DexDebugEvents.create(events).withoutNonWritableEvents();
+    List<DexDebugEvent> expected = new ArrayList<>();
+    for (DexDebugEvent event : events) {
+      if (event.isWritableEvent()) {
+        expected.add(event);
+      }
+    }
+    assertEquals(expected, Arrays.asList(writable.toArray()));
+    assertEquals(writable.getEncodedSize(), writable.withoutNonWritableEvents().getEncodedSize());
+
+    DexDebugEvents empty = DexDebugEvents.builder().build();
+    assertSame(DexDebugEvent.EMPTY_ARRAY, empty.toArray());
+    assertEquals(0, empty.withoutNonWritableEvents().size());
+  }
+
+  private static DexDebugEvent[] createEvents() {
+    Position position = SourcePosition.builder().setLine(42).setMethod(method).build();
+    DexString name = factory.createString("x");
+    DexString signature = factory.createString("TT;");
+    return new DexDebugEvent[] {
+      new DexDebugEvent.SetPositionFrame(position),
+      factory.zeroChangeDefaultEvent,
+      new AdvancePC(0),
+      new AdvancePC(Integer.MAX_VALUE),
+      factory.createAdvanceLine(-1),
+      factory.createAdvanceLine(Integer.MIN_VALUE),
+      factory.createAdvanceLine(1 << 20),
+      new StartLocal(0, name, factory.objectType, null),
+      new StartLocal(128, name, factory.objectType, signature),
+      factory.createEndLocal(128),
+      factory.createRestartLocal(0),
+      factory.createSetPrologueEnd(),
+      factory.createSetEpilogueBegin(),
+      factory.createSetFile(factory.createString("A.java")),
+      new DexDebugEvent.SetPositionFrame(position),
+      Default.create(10, 15),
+      factory.oneChangeDefaultEvent
+    };
+  }
+
   private void testAdvancement(
       int pc, int nextPc, int line, int nextLine, Consumer<List<DexDebugEvent>> consumer) {
-    List<DexDebugEvent> events = new ArrayList<>();
+    DexDebugEvents.Builder events = DexDebugEvents.builder();
     DexDebugEventBuilder.emitAdvancementEvents(
         pc,
         SourcePosition.builder().setLine(line).setMethod(method).build(),
         nextPc,
         SourcePosition.builder().setLine(nextLine).setMethod(method).build(),
         events,
-        factory,
         false);
-    consumer.accept(events);
+    consumer.accept(Arrays.asList(events.build().toArray()));
   }
 }
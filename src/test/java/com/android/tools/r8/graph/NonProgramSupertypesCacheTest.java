@@ -0,0 +1,118 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ToolHelper;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests the subtype queries of {@link AppInfoWithClassHierarchy} that use the cached supertypes of
+ * library and classpath classes.
+ */
+@RunWith(Parameterized.class)
+public class NonProgramSupertypesCacheTest extends TestBase {
+
+  @Parameter(0)
+  public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  @Test
+  public void test() throws Exception {
+    AppView<AppInfoWithClassHierarchy> appView =
+        computeAppViewWithClassHierarchy(
+            buildClasses(
+                    ImmutableList.of(
+                        ProgramInterface.class, ProgramClass.class, OtherProgramClass.class),
+                    ImmutableList.of(
+                        ClasspathInterface.class,
+                        ClasspathInterfaceWithProgramSuperInterface.class),
+                    ImmutableList.of(
+                        LibraryInterface.class,
+                        LibraryClass.class,
+                        LibrarySuperInterface.class,
+                        LibrarySubInterface.class))
+                .addLibraryFile(ToolHelper.getMostRecentAndroidJar())
+                .build());
+    // Query twice, such that the second query uses the supertypes cached by the first query.
+    for (int i = 0; i < 2; i++) {
+      // The library interface extends an interface that is missing.
+      assertSubtype(appView, LibraryInterface.class, MissingInterface.class, true);
+      assertSubtype(appView, LibraryClass.class, MissingInterface.class, true);
+      assertSubtype(appView, ProgramClass.class, MissingInterface.class, true);
+      assertSubtype(appView, ProgramClass.class, LibraryInterface.class, true);
+      assertSubtype(appView, LibraryInterface.class, LibraryClass.class, false);
+      assertSubtype(appView, LibraryClass.class, LibrarySuperInterface.class, false);
+
+      // The classpath interface extends library interfaces.
+      assertSubtype(appView, ClasspathInterface.class, LibrarySubInterface.class, true);
+      assertSubtype(appView, ClasspathInterface.class, LibrarySuperInterface.class, true);
+      assertSubtype(appView, ProgramClass.class, LibrarySuperInterface.class, true);
+      assertSubtype(appView, LibrarySuperInterface.class, ClasspathInterface.class, false);
+      assertSubtype(appView, ClasspathInterface.class, LibraryInterface.class, false);
+
+      // The supertypes of a classpath interface that extends a program interface are not cached.
+      assertSubtype(
+          appView, ClasspathInterfaceWithProgramSuperInterface.class, ProgramInterface.class, true);
+      assertSubtype(appView, OtherProgramClass.class, ProgramInterface.class, true);
+      assertSubtype(appView, OtherProgramClass.class, MissingInterface.class, true);
+      assertSubtype(appView, OtherProgramClass.class, LibrarySuperInterface.class, false);
+
+      // A type is a subtype, but not a strict subtype, of itself.
+      assertSubtype(appView, LibraryInterface.class, LibraryInterface.class, true);
+      assertSubtype(appView, ClasspathInterface.class, ClasspathInterface.class, true);
+      assertSubtype(appView, Object.class, LibraryInterface.class, false);
+      assertSubtype(appView, LibraryInterface.class, Object.class, true);
+    }
+  }
+
+  private static void assertSubtype(
+      AppView<AppInfoWithClassHierarchy> appView,
+      Class<?> subclass,
+      Class<?> superclass,
+      boolean expected) {
+    DexType subtype = buildType(subclass, appView.dexItemFactory());
+    DexType supertype = buildType(superclass, appView.dexItemFactory());
+    assertEquals(expected, appView.appInfo().isSubtype(subtype, supertype));
+    assertEquals(
+        expected && subclass != superclass,
+        appView.appInfo().isStrictSubtypeOf(subtype, supertype));
+  }
+
+  // Not added to the application.
+  interface MissingInterface {}
+
+  interface LibraryInterface extends MissingInterface {}
+
+  static class LibraryClass implements LibraryInterface {}
+
+  interface LibrarySuperInterface {}
+
+  interface LibrarySubInterface extends LibrarySuperInterface {}
+
+  interface ClasspathInterface extends LibrarySubInterface {}
+
+  interface ProgramInterface {}
+
+  interface ClasspathInterfaceWithProgramSuperInterface extends ProgramInterface {}
+
+  static class ProgramClass extends LibraryClass implements ClasspathInterface {}
+
+  static class OtherProgramClass
+      implements ClasspathInterfaceWithProgramSuperInterface, LibraryInterface {}
+}
@@ -0,0 +1,114 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.shaking.AppInfoWithLiveness;
+import com.android.tools.r8.utils.collections.DenseProgramMethodMap;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class ProgramMemberIndexTest extends TestBase {
+
+  @Parameter(0)
+  public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  @Test
+  public void testNumbering() throws Exception {
+    AppView<AppInfoWithLiveness> appView =
+        computeAppViewWithLiveness(buildClasses(A.class, B.class).build());
+    ProgramMemberIndex index = appView.programMemberIndex();
+    assertSame(index, appView.programMemberIndex());
+
+    List<ProgramMethod> methods = new ArrayList<>();
+    List<ProgramField> fields = new ArrayList<>();
+    for (DexProgramClass clazz : appView.appInfo().classesWithDeterministicOrder()) {
+      clazz.forEachProgramMethod(methods::add);
+      clazz.forEachProgramField(fields::add);
+    }
+    assertEquals(methods.size(), index.numberOfMethods());
+    for (int i = 0; i < methods.size(); i++) {
+      assertEquals(i, index.getId(methods.get(i)));
+      assertEquals(methods.get(i), index.getMethod(i));
+    }
+    assertEquals(fields.size(), index.numberOfFields());
+    for (int i = 0; i < fields.size(); i++) {
+      assertEquals(i, index.getId(fields.get(i)));
+      assertEquals(fields.get(i), index.getField(i));
+    }
+
+    // A copy of a definition is not numbered by the index.
+    ProgramMethod method = methods.get(0);
+    ProgramMethod copy =
+        new ProgramMethod(
+            method.getHolder(), DexEncodedMethod.builder(method.getDefinition()).build());
+    assertEquals(ProgramMemberIndex.NO_ID, index.getId(copy));
+
+    // The index is recomputed when the app info changes.
+    appView.setAppInfo(appView.appInfo());
+    ProgramMemberIndex newIndex = appView.programMemberIndex();
+    assertNotSame(index, newIndex);
+    assertEquals(0, newIndex.getId(method));
+  }
+
+  @Test
+  public void testDenseProgramMethodMap() throws Exception {
+    AppView<AppInfoWithLiveness> appView =
+        computeAppViewWithLiveness(buildClasses(A.class, B.class).build());
+    DenseProgramMethodMap<String> map = DenseProgramMethodMap.create(appView);
+    ProgramMethod method =
+        appView.definitionFor(buildType(A.class, appView.dexItemFactory()))
+            .asProgramClass()
+            .getProgramDefaultInitializer();
+    assertTrue(map.isIndexed(method));
+    assertNull(map.get(method));
+    assertNull(map.putIfAbsent(method, "a"));
+    assertEquals("a", map.putIfAbsent(method, "b"));
+    assertEquals("a", map.get(method));
+
+    ProgramMethod copy =
+        new ProgramMethod(
+            method.getHolder(), DexEncodedMethod.builder(method.getDefinition()).build());
+    assertFalse(map.isIndexed(copy));
+  }
+
+  static class A {
+
+    int f;
+    Object g;
+
+    void m() {}
+
+    static void n() {}
+  }
+
+  static class B extends A {
+
+    static String h;
+
+    @Override
+    void m() {}
+  }
+}
@@ -0,0 +1,139 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir.analysis.type;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.graph.DexItemFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class LeastUpperBoundOfInterfacesCacheTest extends TestBase {
+
+  private static final String CAPACITY_PROPERTY =
+      "com.android.tools.r8.leastUpperBoundOfInterfacesCacheSize";
+
+  private final DexItemFactory factory = new DexItemFactory();
+
+  @Parameter(0)
+  public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  @Test
+  public void testSymmetricKeys() {
+    LeastUpperBoundOfInterfacesCache cache = LeastUpperBoundOfInterfacesCache.create(64);
+    InterfaceCollection a = createInterfaces(0);
+    InterfaceCollection b = createInterfaces(1);
+    InterfaceCollection lub = createInterfaces(2);
+    cache.put(a, b, lub);
+    assertSame(lub, cache.get(a, b));
+    assertSame(lub, cache.get(b, a));
+    assertNull(cache.get(a, lub));
+    assertEquals(1, cache.size());
+    assertEquals(2, cache.getHits());
+    assertEquals(1, cache.getMisses());
+
+    // The first result is kept when the swapped pair is added.
+    cache.put(b, a, createInterfaces(3));
+    assertSame(lub, cache.get(b, a));
+    assertEquals(1, cache.size());
+
+    // The counters are kept when the cache is cleared.
+    cache.clear();
+    assertTrue(cache.isEmpty());
+    assertNull(cache.get(a, b));
+    assertEquals(3, cache.getHits());
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  public void testEvictionPerShard() {
+    // Two entries per shard.
+    LeastUpperBoundOfInterfacesCache cache = LeastUpperBoundOfInterfacesCache.create(32);
+    InterfaceCollection other = createInterfaces(-1);
+    List<InterfaceCollection> sameShard = new ArrayList<>();
+    InterfaceCollection otherShard = null;
+    int shard = -1;
+    for (int i = 0; sameShard.size() < 3 || otherShard == null; i++) {
+      InterfaceCollection interfaces = createInterfaces(i);
+      int index = cache.getShardIndex(interfaces, other);
+      if (shard < 0) {
+        shard = index;
+      }
+      if (index == shard) {
+        if (sameShard.size() < 3) {
+          sameShard.add(interfaces);
+        }
+      } else if (otherShard == null) {
+        otherShard = interfaces;
+      }
+    }
+    assertNotEquals(shard, cache.getShardIndex(otherShard, other));
+
+    cache.put(sameShard.get(0), other, other);
+    cache.put(sameShard.get(1), other, other);
+    cache.put(otherShard, other, other);
+    // Accessing the first entry makes the second entry the least recently used entry of the shard.
+    assertNotNull(cache.get(sameShard.get(0), other));
+    cache.put(sameShard.get(2), other, other);
+    assertEquals(3, cache.size());
+    assertNotNull(cache.get(sameShard.get(0), other));
+    assertNull(cache.get(sameShard.get(1), other));
+    assertNotNull(cache.get(sameShard.get(2), other));
+    // The entry in the other shard is not evicted.
+    assertNotNull(cache.get(otherShard, other));
+  }
+
+  @Test
+  public void testCapacity() {
+    LeastUpperBoundOfInterfacesCache cache = LeastUpperBoundOfInterfacesCache.create(64);
+    assertEquals(64, cache.getCapacity());
+    InterfaceCollection other = createInterfaces(-1);
+    for (int i = 0; i < 1000; i++) {
+      cache.put(createInterfaces(i), other, other);
+      assertTrue(cache.size() <= 64);
+    }
+    // Each shard holds at least one entry.
+    assertEquals(16, LeastUpperBoundOfInterfacesCache.create(1).getCapacity());
+  }
+
+  @Test
+  public void testCapacityProperty() {
+    assertEquals(1024, LeastUpperBoundOfInterfacesCache.create().getCapacity());
+    String previous = System.getProperty(CAPACITY_PROPERTY);
+    System.setProperty(CAPACITY_PROPERTY, "256");
+    try {
+      assertEquals(256, LeastUpperBoundOfInterfacesCache.create().getCapacity());
+    } finally {
+      if (previous == null) {
+        System.clearProperty(CAPACITY_PROPERTY);
+      } else {
+        System.setProperty(CAPACITY_PROPERTY, previous);
+      }
+    }
+  }
+
+  private InterfaceCollection createInterfaces(int i) {
+    return InterfaceCollection.singleton(factory.createType("LI" + i + ";"));
+  }
+}
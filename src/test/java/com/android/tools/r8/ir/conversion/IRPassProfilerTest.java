@@ -0,0 +1,76 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir.conversion;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ir.conversion.IRPassProfiler.Entry;
+import com.android.tools.r8.ir.conversion.IRPassProfiler.PassStatistics;
+import com.android.tools.r8.utils.Box;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class IRPassProfilerTest extends TestBase {
+
+  private final TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withDexRuntimes().withMaximumApiLevel().build();
+  }
+
+  public IRPassProfilerTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void test() throws Exception {
+    Box<IRPassProfiler> profiler = new Box<>();
+    testForD8(parameters.getBackend())
+        .addInnerClasses(getClass())
+        .setMinApi(parameters)
+        .addOptionsModification(
+            options -> {
+              options.printIRPassProfile = true;
+              profiler.set(options.getIRPassProfiler());
+            })
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines("6");
+
+    List<PassStatistics> passes = profiler.get().getPassStatistics();
+    assertTrue(passes.stream().anyMatch(pass -> pass.getPass().equals("Finalize IR")));
+    for (int i = 1; i < passes.size(); i++) {
+      assertTrue(passes.get(i - 1).getNanos() >= passes.get(i).getNanos());
+    }
+    List<Entry> entries = profiler.get().getMostExpensiveEntries();
+    assertFalse(entries.isEmpty());
+    assertTrue(
+        entries.stream()
+            .anyMatch(entry -> entry.getMethod().getReference().getName().isEqualTo("sum")));
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      System.out.println(sum(new int[] {1, 2, 3}));
+    }
+
+    static int sum(int[] values) {
+      int result = 0;
+      for (int value : values) {
+        result += value;
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,253 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir.optimize.inliner;
+
+import static com.android.tools.r8.shaking.ProguardConfigurationSourceStrings.createConfigurationForTesting;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexMethod;
+import com.android.tools.r8.graph.ProgramMethod;
+import com.android.tools.r8.graph.bytecodemetadata.BytecodeMetadataProvider;
+import com.android.tools.r8.ir.code.IRCode;
+import com.android.tools.r8.ir.code.Instruction;
+import com.android.tools.r8.ir.code.NumberGenerator;
+import com.android.tools.r8.ir.code.Position;
+import com.android.tools.r8.ir.code.Position.SourcePosition;
+import com.android.tools.r8.ir.code.Value;
+import com.android.tools.r8.ir.conversion.IRConverter;
+import com.android.tools.r8.ir.conversion.MethodProcessor;
+import com.android.tools.r8.ir.conversion.MethodProcessorEventConsumer;
+import com.android.tools.r8.ir.conversion.OneTimeMethodProcessor;
+import com.android.tools.r8.ir.optimize.Inliner;
+import com.android.tools.r8.lightir.IR2LirConverter;
+import com.android.tools.r8.lightir.LirStrategy;
+import com.android.tools.r8.shaking.AppInfoWithLiveness;
+import com.android.tools.r8.shaking.ProguardConfigurationParser;
+import com.android.tools.r8.utils.Reporter;
+import com.android.tools.r8.utils.StringUtils;
+import com.google.common.collect.ImmutableList;
+import dalvik.annotation.optimization.ReachabilitySensitive;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class InlineeTemplateCacheTest extends TestBase {
+
+  private final TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public InlineeTemplateCacheTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void test() throws Exception {
+    parameters.assertNoneRuntime();
+    AppView<AppInfoWithLiveness> appView = computeAppView();
+    ProgramMethod caller = lookupMethod(Main.class.getDeclaredMethod("caller", int.class), appView);
+    ProgramMethod callee = lookupMethod(Main.class.getDeclaredMethod("callee", int.class), appView);
+    assertNotNull(caller);
+    assertNotNull(callee);
+
+    Inliner inliner = new IRConverter(appView).getInliner();
+    InlineeTemplateCache cache = inliner.getInlineeTemplateCache();
+    MethodProcessor methodProcessor =
+        OneTimeMethodProcessor.create(caller, MethodProcessorEventConsumer.empty(), appView);
+    Position callerPosition =
+        SourcePosition.builder().setLine(42).setMethod(caller.getReference()).build();
+
+    // The inlining IR that is instantiated from a template is the same as the inlining IR that is
+    // built without the cache, including the positions and the local variables.
+    IRCode uncached =
+        callee.buildInliningIR(
+            caller,
+            appView,
+            new NumberGenerator(),
+            callerPosition,
+            callee.getOrigin(),
+            methodProcessor);
+    inliner.getLensCodeRewriter().rewrite(uncached, callee, methodProcessor);
+    String expected = describe(uncached);
+    assertTrue(expected.contains(";42:caller"));
+    assertTrue(expected.contains("v4(result)"));
+
+    assertEquals(
+        expected,
+        describe(
+            cache.getInliningIR(callee, new NumberGenerator(), callerPosition, methodProcessor)));
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.getMisses());
+
+    assertEquals(
+        expected,
+        describe(
+            cache.getInliningIR(callee, new NumberGenerator(), callerPosition, methodProcessor)));
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+
+    // The template is not used when the callee has been reprocessed.
+    setLirCode(callee, appView);
+    assertEquals(
+        expected,
+        describe(
+            cache.getInliningIR(callee, new NumberGenerator(), callerPosition, methodProcessor)));
+    assertEquals(1, cache.getHits());
+    assertEquals(2, cache.getMisses());
+
+    // The template is not used when the optimization info of the callee has changed.
+    callee
+        .getDefinition()
+        .setOptimizationInfo(
+            callee.getOptimizationInfo().toMutableOptimizationInfo().mutableCopy());
+    assertEquals(
+        expected,
+        describe(
+            cache.getInliningIR(callee, new NumberGenerator(), callerPosition, methodProcessor)));
+    assertEquals(1, cache.getHits());
+    assertEquals(3, cache.getMisses());
+
+    cache.getInliningIR(callee, new NumberGenerator(), callerPosition, methodProcessor);
+    assertEquals(2, cache.getHits());
+    assertEquals(3, cache.getMisses());
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    parameters.assertNoneRuntime();
+    AppView<AppInfoWithLiveness> appView = computeAppView();
+    appView.options().inlinerOptions().inlineeTemplateCacheSize = 1;
+    ProgramMethod caller = lookupMethod(Main.class.getDeclaredMethod("caller", int.class), appView);
+    ProgramMethod callee = lookupMethod(Main.class.getDeclaredMethod("callee", int.class), appView);
+    ProgramMethod otherCallee =
+        lookupMethod(Main.class.getDeclaredMethod("otherCallee", int.class), appView);
+
+    InlineeTemplateCache cache = new IRConverter(appView).getInliner().getInlineeTemplateCache();
+    MethodProcessor methodProcessor =
+        OneTimeMethodProcessor.create(caller, MethodProcessorEventConsumer.empty(), appView);
+    Position callerPosition =
+        SourcePosition.builder().setLine(42).setMethod(caller.getReference()).build();
+
+    assertNotNull(
+        cache.getInliningIR(callee, new NumberGenerator(), callerPosition, methodProcessor));
+    assertEquals(1, cache.size());
+
+    // The template of the other callee replaces the least recently used template.
+    assertNotNull(
+        cache.getInliningIR(otherCallee, new NumberGenerator(), callerPosition, methodProcessor));
+    assertEquals(1, cache.size());
+    assertEquals(0, cache.getHits());
+    assertEquals(2, cache.getMisses());
+
+    assertNotNull(
+        cache.getInliningIR(otherCallee, new NumberGenerator(), callerPosition, methodProcessor));
+    assertEquals(1, cache.getHits());
+
+    assertNotNull(
+        cache.getInliningIR(callee, new NumberGenerator(), callerPosition, methodProcessor));
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getHits());
+    assertEquals(3, cache.getMisses());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+  private AppView<AppInfoWithLiveness> computeAppView() throws Exception {
+    AppView<AppInfoWithLiveness> appView =
+        computeAppViewWithLiveness(
+            buildClasses(Main.class, ReachabilitySensitive.class)
+                .addLibraryFile(ToolHelper.getMostRecentAndroidJar())
+                .build(),
+            factory -> {
+              ProguardConfigurationParser parser =
+                  new ProguardConfigurationParser(factory, new Reporter());
+              parser.parse(
+                  createConfigurationForTesting(
+                      ImmutableList.of(
+                          "-keep class * { *; }",
+                          "-keepattributes LineNumberTable,LocalVariableTable,"
+                              + "RuntimeVisibleAnnotations")));
+              return parser.getConfig();
+            });
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    appView.testing().enterLirSupportedPhase(appView, executorService);
+    executorService.shutdown();
+    return appView;
+  }
+
+  // The debug values of an instruction are unordered.
+  private static String describe(IRCode code) {
+    List<String> lines = new ArrayList<>();
+    for (Instruction instruction : code.instructions()) {
+      List<Value> debugValues = new ArrayList<>(instruction.getDebugValues());
+      debugValues.sort(Value::compareTo);
+      lines.add(instruction.getPositionAsString() + ": " + instruction + " " + debugValues);
+    }
+    return StringUtils.lines(lines);
+  }
+
+  private static ProgramMethod lookupMethod(Method method, AppView<?> appView) {
+    DexMethod reference = buildMethod(method, appView.dexItemFactory());
+    return appView
+        .definitionFor(reference.getHolderType())
+        .asProgramClass()
+        .lookupProgramMethod(reference);
+  }
+
+  private static void setLirCode(ProgramMethod method, AppView<?> appView) {
+    IRCode code = method.buildIR(appView);
+    method.setCode(
+        IR2LirConverter.translate(
+            code,
+            BytecodeMetadataProvider.empty(),
+            LirStrategy.getDefaultStrategy().getEncodingStrategy(),
+            appView.options()),
+        appView);
+  }
+
+  static class Main {
+
+    // Retains the local variables of the methods in this class.
+    @ReachabilitySensitive private final long field = 0;
+
+    public static void main(String[] args) {
+      System.out.println(caller(args.length));
+    }
+
+    static int caller(int x) {
+      return callee(x) + callee(x + 1) + otherCallee(x);
+    }
+
+    static int callee(int x) {
+      int result = x * 3;
+      System.out.println(result);
+      return result;
+    }
+
+    static int otherCallee(int x) {
+      int result = x * 5;
+      System.out.println(result);
+      return result;
+    }
+  }
+}
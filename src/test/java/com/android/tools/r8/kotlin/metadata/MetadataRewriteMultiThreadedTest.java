@@ -0,0 +1,97 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.kotlin.metadata;
+
+import static com.android.tools.r8.utils.codeinspector.Matchers.isPresent;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.KotlinCompilerTool.KotlinTargetVersion;
+import com.android.tools.r8.KotlinTestParameters;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.kotlin.KotlinMetadataAnnotationWrapper;
+import com.android.tools.r8.kotlin.KotlinMetadataWriter;
+import com.android.tools.r8.utils.codeinspector.ClassSubject;
+import com.android.tools.r8.utils.codeinspector.CodeInspector;
+import com.android.tools.r8.utils.codeinspector.FoundClassSubject;
+import java.util.Collection;
+import kotlinx.metadata.jvm.KotlinClassMetadata;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/**
+ * Tests that reading and rewriting the kotlin.Metadata of the Kotlin stdlib on multiple threads
+ * gives the same metadata as on a single thread.
+ */
+@RunWith(Parameterized.class)
+public class MetadataRewriteMultiThreadedTest extends KotlinMetadataTestBase {
+
+  @Parameterized.Parameters(name = "{0}, {1}")
+  public static Collection<Object[]> data() {
+    return buildParameters(
+        getTestParameters().withNoneRuntime().build(),
+        getKotlinTestParameters()
+            .withAllCompilers()
+            .withTargetVersion(KotlinTargetVersion.JAVA_8)
+            .build());
+  }
+
+  public MetadataRewriteMultiThreadedTest(
+      TestParameters parameters, KotlinTestParameters kotlinParameters) {
+    super(kotlinParameters);
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void test() throws Exception {
+    CodeInspector singleThreaded = compile(1);
+    CodeInspector multiThreaded = compile(8);
+    assertEquals(singleThreaded.allClasses().size(), multiThreaded.allClasses().size());
+    int classesWithMetadata = 0;
+    for (FoundClassSubject clazz : singleThreaded.allClasses()) {
+      ClassSubject otherClazz = multiThreaded.clazz(clazz.getFinalName());
+      assertThat(otherClazz, isPresent());
+      KotlinClassMetadata metadata = clazz.getKotlinClassMetadata();
+      KotlinClassMetadata otherMetadata = otherClazz.getKotlinClassMetadata();
+      if (metadata == null) {
+        assertNull(otherMetadata);
+        continue;
+      }
+      assertNotNull(otherMetadata);
+      classesWithMetadata++;
+      KotlinMetadataAnnotationWrapper header = KotlinMetadataAnnotationWrapper.wrap(metadata);
+      KotlinMetadataAnnotationWrapper otherHeader =
+          KotlinMetadataAnnotationWrapper.wrap(otherMetadata);
+      assertEquals(header.kind(), otherHeader.kind());
+      assertEquals(header.packageName(), otherHeader.packageName());
+      assertArrayEquals(header.data1(), otherHeader.data1());
+      assertArrayEquals(header.data2(), otherHeader.data2());
+      assertEquals(
+          KotlinMetadataWriter.kotlinMetadataToString("", metadata),
+          KotlinMetadataWriter.kotlinMetadataToString("", otherMetadata));
+    }
+    assertTrue(classesWithMetadata > 0);
+  }
+
+  private CodeInspector compile(int threadCount) throws Exception {
+    return testForR8(Backend.CF)
+        .addProgramFiles(kotlinc.getKotlinStdlibJar(), kotlinc.getKotlinAnnotationJar())
+        .addKeepKotlinMetadata()
+        // Keep the metadata of the collections, and rewrite the references to renamed classes.
+        .addKeepRules("-keep class kotlin.collections.** { *; }")
+        .addKeepRules("-keep,allowobfuscation class kotlin.text.** { *; }")
+        .addOptionsModification(options -> options.threadCount = threadCount)
+        .allowDiagnosticWarningMessages()
+        .compile()
+        .assertAllWarningMessagesMatch(equalTo("Resource 'META-INF/MANIFEST.MF' already exists."))
+        .inspector();
+  }
+}
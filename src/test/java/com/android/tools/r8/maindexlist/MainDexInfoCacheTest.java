@@ -0,0 +1,135 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.maindexlist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import com.android.tools.r8.D8Command;
+import com.android.tools.r8.DexIndexedConsumer;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.StringConsumer;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.shaking.MainDexInfoCache;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class MainDexInfoCacheTest extends TestBase {
+
+  private final TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public MainDexInfoCacheTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void test() throws Exception {
+    parameters.assertNoneRuntime();
+    Path cacheDirectory = temp.newFolder().toPath();
+    Path program = jarTestClasses(Main.class, A.class, B.class);
+    SortedSet<String> expected = compile(program, null);
+    assertEquals(
+        ImmutableList.of(binaryName(A.class), binaryName(Main.class)),
+        ImmutableList.copyOf(expected));
+
+    // The classes traced by this process are shared with other processes.
+    assertEquals(expected, compile(program, cacheDirectory));
+    Path entry = getOnlyEntry(cacheDirectory);
+
+    // Seed the entry on disk with a class that is not traced and clear the entries of this process,
+    // such that the main-dex classes can only contain that class if they are taken from the disk.
+    Files.write(
+        entry,
+        ImmutableList.of("dependency " + descriptor(B.class)),
+        StandardOpenOption.APPEND);
+    MainDexInfoCache.clearForTesting();
+    SortedSet<String> expectedWithB = new TreeSet<>(expected);
+    expectedWithB.add(binaryName(B.class));
+    assertEquals(expectedWithB, compile(program, cacheDirectory));
+
+    // The entry that was read from the disk is also used without the cache directory.
+    Files.delete(entry);
+    assertEquals(expectedWithB, compile(program, null));
+
+    // A change of the main-dex rules requires tracing the main-dex classes again.
+    assertEquals(
+        ImmutableList.of(binaryName(B.class)),
+        ImmutableList.copyOf(compile(program, cacheDirectory, B.class)));
+    assertNotEquals(entry, getOnlyEntry(cacheDirectory));
+  }
+
+  private SortedSet<String> compile(Path program, Path cacheDirectory) throws Exception {
+    return compile(program, cacheDirectory, Main.class);
+  }
+
+  private SortedSet<String> compile(Path program, Path cacheDirectory, Class<?> root)
+      throws Exception {
+    SortedSet<String> mainDexList = new TreeSet<>();
+    List<String> mainDexRules = ImmutableList.of("-keep class " + root.getTypeName());
+    ToolHelper.runD8(
+        D8Command.builder()
+            .addProgramFiles(program)
+            .addLibraryFiles(ToolHelper.getAndroidJar(AndroidApiLevel.K))
+            .setMinApiLevel(AndroidApiLevel.K.getLevel())
+            .addMainDexRules(mainDexRules, Origin.unknown())
+            .setMainDexListConsumer(
+                new StringConsumer() {
+                  @Override
+                  public void accept(String string, DiagnosticsHandler handler) {
+                    for (String line : string.split("\n")) {
+                      if (!line.isEmpty()) {
+                        mainDexList.add(line);
+                      }
+                    }
+                  }
+                })
+            .setProgramConsumer(DexIndexedConsumer.emptyConsumer()),
+        options -> options.mainDexInfoCacheDirectory = cacheDirectory);
+    return mainDexList;
+  }
+
+  private static String binaryName(Class<?> clazz) {
+    return clazz.getTypeName().replace('.', '/') + ".class";
+  }
+
+  private static Path getOnlyEntry(Path cacheDirectory) throws Exception {
+    try (Stream<Path> files = Files.list(cacheDirectory)) {
+      return Iterators.getOnlyElement(files.iterator());
+    }
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      System.out.println(new A());
+    }
+  }
+
+  static class A {}
+
+  static class B {}
+}
@@ -0,0 +1,128 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.naming;
+
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.StringConsumer;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.dex.Marker.Tool;
+import com.android.tools.r8.naming.ProguardMapSupplier.ProguardMapId;
+import com.android.tools.r8.naming.ProguardMapSupplier.ProguardMapIdBuilder;
+import com.android.tools.r8.utils.ChainableStringConsumer;
+import com.android.tools.r8.utils.InternalOptions;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests that rendering a mapping file in parallel gives the same text and map id as rendering it
+ * sequentially, for a map that spans more than one window of chunks.
+ */
+@RunWith(Parameterized.class)
+public class ClassNameMapperParallelWriteTest extends TestBase {
+
+  // More than one window of 16 chunks of 256 class namings, with a partial last chunk.
+  private static final int NUMBER_OF_CLASSES = 256 * 16 * 2 + 100;
+
+  @Parameter(0)
+  public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  @Test
+  public void testWrite() throws Exception {
+    ClassNameMapper mapper = createMapper();
+    StringBuilder expected = new StringBuilder();
+    mapper.write(ChainableStringConsumer.wrap(expected::append));
+
+    StringBuilder actual = new StringBuilder();
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      mapper.write(
+          ChainableStringConsumer.wrap(actual::append),
+          new InternalOptions().getThreadingModule(),
+          executorService);
+    } finally {
+      executorService.shutdown();
+    }
+    assertEquals(expected.toString(), actual.toString());
+    assertEquals(mapper.toString(), actual.toString());
+  }
+
+  @Test
+  public void testMapId() throws Exception {
+    ClassNameMapper mapper = createMapper();
+    ProguardMapIdBuilder builder = new ProguardMapIdBuilder();
+    mapper.write(builder);
+    ProguardMapId expected = builder.build(null);
+
+    StringBuilder sequentialMap = new StringBuilder();
+    ProguardMapId sequentialId =
+        ProguardMapSupplier.create(mapper, createOptions(sequentialMap), null).writeProguardMap();
+
+    StringBuilder parallelMap = new StringBuilder();
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    ProguardMapId parallelId;
+    try {
+      parallelId =
+          ProguardMapSupplier.create(mapper, createOptions(parallelMap), executorService)
+              .writeProguardMap();
+    } finally {
+      executorService.shutdown();
+    }
+
+    assertEquals(expected.getHash(), sequentialId.getHash());
+    assertEquals(expected.getHash(), parallelId.getHash());
+    assertEquals(expected.getId(), parallelId.getId());
+    assertEquals(sequentialMap.toString(), parallelMap.toString());
+  }
+
+  private static ClassNameMapper createMapper() throws Exception {
+    StringBuilder builder = new StringBuilder();
+    // Add the classes out of order, as the map is sorted by original name when it is written.
+    for (int i = NUMBER_OF_CLASSES - 1; i >= 0; i--) {
+      builder
+          .append("com.example.C")
+          .append(i)
+          .append(" -> a.")
+          .append(i)
+          .append(":\n")
+          .append("    int field -> a\n")
+          .append("    1:2:void method():")
+          .append(i)
+          .append(":")
+          .append(i + 1)
+          .append(" -> b\n");
+    }
+    return ClassNameMapper.mapperFromString(builder.toString()).sorted();
+  }
+
+  private static InternalOptions createOptions(StringBuilder builder) {
+    InternalOptions options = new InternalOptions();
+    options.tool = Tool.R8;
+    options.mapConsumer =
+        ProguardMapStringConsumer.builder()
+            .setStringConsumer(
+                new StringConsumer() {
+                  @Override
+                  public void accept(String string, DiagnosticsHandler handler) {
+                    builder.append(string);
+                  }
+                })
+            .build();
+    return options;
+  }
+}
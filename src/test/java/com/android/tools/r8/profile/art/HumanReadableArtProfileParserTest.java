@@ -0,0 +1,165 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.profile.art;
+
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.TextInputStream;
+import com.android.tools.r8.errors.Unreachable;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.profile.art.ArtProfileBuilderUtils.MutableArtProfileClassRule;
+import com.android.tools.r8.profile.art.ArtProfileBuilderUtils.MutableArtProfileMethodRule;
+import com.android.tools.r8.utils.MethodReferenceUtils;
+import com.android.tools.r8.utils.StringUtils;
+import com.android.tools.r8.utils.UTF8TextInputStream;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class HumanReadableArtProfileParserTest extends TestBase {
+
+  @Parameter(0)
+  public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  @Test
+  public void testFlags() {
+    parse(
+        ImmutableList.of(
+            "HSPLcom/example/Foo;->m(I[JLjava/lang/String;)V",
+            "PSHLcom/example/Foo;->m()Ljava/lang/Object;",
+            "SLcom/example/Foo;-><init>()V",
+            "Lcom/example/Foo;->m()V",
+            // Each flag may only occur once.
+            "HHLcom/example/Foo;->m()V",
+            // Flags are only allowed on method rules.
+            "HLcom/example/Foo;"),
+        ImmutableList.of(
+            "HSPLcom/example/Foo;->m(I[JLjava/lang/String;)V",
+            "HSPLcom/example/Foo;->m()Ljava/lang/Object;",
+            "SLcom/example/Foo;-><init>()V",
+            "Lcom/example/Foo;->m()V"),
+        ImmutableList.of(
+            "Unable to parse rule at line 5 from ART profile: HHLcom/example/Foo;->m()V",
+            "Unable to parse rule at line 6 from ART profile: HLcom/example/Foo;"));
+  }
+
+  @Test
+  public void testClassRulesCommentsAndInlineCaches() {
+    parse(
+        ImmutableList.of(
+            "# Comment",
+            "",
+            "Lcom/example/Foo;",
+            "[Lcom/example/Foo;  # Comment",
+            "HLcom/example/Foo;->m()[[I+Lcom/example/Bar;",
+            "Lcom/example/Foo;->m()V+"),
+        ImmutableList.of(
+            "Lcom/example/Foo;",
+            "Lcom/example/Foo;",
+            "HLcom/example/Foo;->m()[[I",
+            "Lcom/example/Foo;->m()V"),
+        ImmutableList.of());
+  }
+
+  @Test
+  public void testWildcards() {
+    parse(
+        ImmutableList.of(
+            "Lcom/example/*;",
+            "HSPLcom/example/Fo?;->m()V",
+            "HSPLcom/example/Foo;->m(Lcom/example/**;)V",
+            "HSPLcom/example/Foo;->m()?"),
+        ImmutableList.of(),
+        ImmutableList.of(
+            "Unable to parse rule at line 1 from ART profile: Lcom/example/*;",
+            "Unable to parse rule at line 2 from ART profile: HSPLcom/example/Fo?;->m()V",
+            "Unable to parse rule at line 3 from ART profile: "
+                + "HSPLcom/example/Foo;->m(Lcom/example/**;)V",
+            "Unable to parse rule at line 4 from ART profile: HSPLcom/example/Foo;->m()?"));
+  }
+
+  @Test
+  public void testMalformedRules() {
+    List<String> rules =
+        ImmutableList.of(
+            "Lcom/example/Foo",
+            "com/example/Foo;->m()V",
+            "Lcom/example/Foo;->",
+            "Lcom/example/Foo;->(I)V",
+            "Lcom/example/Foo;->m(",
+            "Lcom/example/Foo;->m(I",
+            "Lcom/example/Foo;->m()",
+            "Lcom/example/Foo;->m(Q)V",
+            "Lcom/example/Foo;->m(Lcom/example/Bar)V",
+            "Lcom/example/Foo;->m()VV");
+    List<String> expectedErrors = new ArrayList<>();
+    for (int i = 0; i < rules.size(); i++) {
+      expectedErrors.add(
+          "Unable to parse rule at line " + (i + 1) + " from ART profile: " + rules.get(i));
+    }
+    parse(rules, ImmutableList.of(), expectedErrors);
+  }
+
+  private static void parse(
+      List<String> lines, List<String> expectedRules, List<String> expectedErrors) {
+    List<String> rules = new ArrayList<>();
+    List<String> errors = new ArrayList<>();
+    HumanReadableArtProfileParser.builder()
+        .setDiagnosticConsumer(diagnostic -> errors.add(diagnostic.getDiagnosticMessage()))
+        .setProfileBuilder(createProfileBuilder(rules))
+        .build()
+        .parse(new UTF8TextInputStream(StringUtils.lines(lines)), Origin.unknown());
+    assertEquals(expectedRules, rules);
+    assertEquals(expectedErrors, errors);
+  }
+
+  // Records the rules of the profile in their human-readable form, including duplicates.
+  private static ArtProfileBuilder createProfileBuilder(List<String> rules) {
+    return new ArtProfileBuilder() {
+
+      @Override
+      public ArtProfileBuilder addClassRule(
+          Consumer<ArtProfileClassRuleBuilder> classRuleBuilderConsumer) {
+        MutableArtProfileClassRule classRule = new MutableArtProfileClassRule();
+        classRuleBuilderConsumer.accept(classRule);
+        rules.add(classRule.getClassReference().getDescriptor());
+        return this;
+      }
+
+      @Override
+      public ArtProfileBuilder addMethodRule(
+          Consumer<ArtProfileMethodRuleBuilder> methodRuleBuilderConsumer) {
+        MutableArtProfileMethodRule methodRule = new MutableArtProfileMethodRule();
+        methodRuleBuilderConsumer.accept(methodRule);
+        rules.add(
+            methodRule.getMethodRuleInfo()
+                + MethodReferenceUtils.toSmaliString(methodRule.getMethodReference()));
+        return this;
+      }
+
+      @Override
+      public ArtProfileBuilder addHumanReadableArtProfile(
+          TextInputStream textInputStream,
+          Consumer<HumanReadableArtProfileParserBuilder> parserBuilderConsumer) {
+        throw new Unreachable();
+      }
+    };
+  }
+}
@@ -138,7 +138,7 @@ public class ReachabilitySensitiveTest extends TestBase {
     // as this is a release build.
     assertTrue(
         (code.getDebugInfo() == null)
-            || Arrays.stream(code.getDebugInfo().asEventBasedInfo().events)
+            || Arrays.stream(code.getDebugInfo().asEventBasedInfo().getEvents().toArray())
                 .allMatch(event -> !(event instanceof StartLocal)));
   }
 
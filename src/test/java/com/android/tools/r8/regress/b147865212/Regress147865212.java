@@ -36,7 +36,14 @@ public class Regress147865212 extends TestBase {
 
   private boolean hasLocal(MethodSubject method) {
     return Arrays.stream(
-            method.getMethod().getCode().asDexCode().getDebugInfo().asEventBasedInfo().events)
+            method
+                .getMethod()
+                .getCode()
+                .asDexCode()
+                .getDebugInfo()
+                .asEventBasedInfo()
+                .getEvents()
+                .toArray())
         .anyMatch(event -> event instanceof StartLocal);
   }
 
@@ -0,0 +1,100 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.relocator;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertNull;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.references.Reference;
+import com.android.tools.r8.relocator.foo.bar.Baz;
+import com.android.tools.r8.relocator.foo.bar.BazImpl;
+import com.android.tools.r8.relocator.foo.baz.OtherImpl;
+import com.android.tools.r8.utils.StringUtils;
+import com.android.tools.r8.utils.ZipUtils;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.objectweb.asm.ClassReader;
+
+@RunWith(Parameterized.class)
+public class RelocatorStreamingTest extends TestBase {
+
+  private static final String SERVICE_FILE = "META-INF/services/foo.bar.Baz";
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public RelocatorStreamingTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void testStreamingRelocation() throws Exception {
+    Path testJar = temp.newFile("test.jar").toPath();
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(testJar))) {
+      ZipUtils.writeToZipStream(
+          out,
+          SERVICE_FILE,
+          StringUtils.lines("foo.bar.BazImpl", "foo.baz.OtherImpl").getBytes(),
+          ZipEntry.STORED);
+      ZipUtils.writeToZipStream(out, "foo/bar/Baz.class", Baz.dump(), ZipEntry.STORED);
+      ZipUtils.writeToZipStream(out, "foo/bar/BazImpl.class", BazImpl.dump(), ZipEntry.STORED);
+      ZipUtils.writeToZipStream(out, "foo/baz/OtherImpl.class", OtherImpl.dump(), ZipEntry.STORED);
+    }
+    Path relocatedJar = temp.newFolder().toPath().resolve("out.jar");
+    Relocator.run(
+        RelocatorCommand.builder()
+            .addProgramFile(testJar)
+            .setOutputPath(relocatedJar)
+            .setStreaming(true)
+            .addPackageMapping(
+                Reference.packageFromString("foo.bar"), Reference.packageFromString("baz.qux"))
+            .build());
+    try (ZipFile zip = new ZipFile(relocatedJar.toFile())) {
+      // The entries are written in the order of the input.
+      List<String> entryNames = new ArrayList<>();
+      Collections.list(zip.entries()).forEach(entry -> entryNames.add(entry.getName()));
+      assertEquals(
+          "[META-INF/services/baz.qux.Baz, baz/qux/Baz.class, baz/qux/BazImpl.class,"
+              + " foo/baz/OtherImpl.class]",
+          entryNames.toString());
+      assertNull(zip.getEntry("foo/bar/Baz.class"));
+
+      ZipEntry serviceEntry = zip.getEntry("META-INF/services/baz.qux.Baz");
+      assertNotNull(serviceEntry);
+      try (InputStream inputStream = zip.getInputStream(serviceEntry)) {
+        Scanner scanner = new Scanner(inputStream);
+        assertEquals("baz.qux.BazImpl", scanner.next());
+        assertEquals("foo.baz.OtherImpl", scanner.next());
+        assertFalse(scanner.hasNext());
+      }
+
+      try (InputStream inputStream = zip.getInputStream(zip.getEntry("baz/qux/BazImpl.class"))) {
+        ClassReader reader = new ClassReader(inputStream);
+        assertEquals("baz/qux/BazImpl", reader.getClassName());
+        assertEquals("[baz/qux/Baz]", Arrays.toString(reader.getInterfaces()));
+      }
+    }
+  }
+}
@@ -0,0 +1,119 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace;
+
+import static com.android.tools.r8.retrace.internal.StackTraceRegularExpressionParser.DEFAULT_REGULAR_EXPRESSION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.retrace.internal.StackTraceElementStringProxy;
+import com.android.tools.r8.retrace.internal.StackTraceRegularExpressionParser;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests that the frames that are parsed without running the default regular expression are parsed
+ * as if the regular expression was used.
+ */
+@RunWith(Parameterized.class)
+public class StackTraceDefaultFrameParserTest extends TestBase {
+
+  private static final List<String> LINES =
+      ImmutableList.of(
+          "\tat com.example.Foo.bar(Foo.java:10)",
+          "    at com.example.Foo.bar(SourceFile)",
+          "\tat com.example.Foo.<init>(Unknown Source)",
+          "\tat com.example.Foo.<clinit>(Native Method)",
+          "\tat com.example.Foo$1.run(Foo.java:1)",
+          "\tat Foo.bar(:2)",
+          // Class names that are prefixed by a class loader and/or a module and version.
+          "\tat java.base@11.0.2/java.lang.Thread.run(Thread.java:829)",
+          "\tat java.base/java.lang.Thread.run(Thread.java:829)",
+          "\tat app//com.example.Foo.bar(Foo.java:10)",
+          "\tat com.foo.loader/foo@9.0/com.example.Foo.bar(Foo.java:10)",
+          // Names with a segment that starts with a digit.
+          "\tat com.example.1Foo.bar(Foo.java:10)",
+          "\tat 1com.example.Foo.bar(Foo.java:10)",
+          "\tat com.example.Foo.1bar(Foo.java:10)",
+          "\tat com.example..Foo.bar(Foo.java:10)",
+          // Lines that are not matched by the first alternative of the regular expression.
+          "\tat com.example.Foo.bar (Foo.java:10)",
+          "\tat com.example.Foo.bar(Foo.java:10) ~[foo.jar:?]",
+          "\tat Suppressed.bar(Foo.java:10)",
+          "Caused by: com.example.Foo: message",
+          "at(Foo.java:10)");
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public StackTraceDefaultFrameParserTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void testSameAsRegularExpression() {
+    StackTraceRegularExpressionParser defaultParser = new StackTraceRegularExpressionParser();
+    // An equivalent expression that is not the default expression, which is always matched using
+    // the regular expression.
+    StackTraceRegularExpressionParser regularExpressionParser =
+        new StackTraceRegularExpressionParser("(?:" + DEFAULT_REGULAR_EXPRESSION + ")");
+    for (String line : LINES) {
+      assertEquals(
+          line,
+          describe(regularExpressionParser.parse(line)),
+          describe(defaultParser.parse(line)));
+    }
+  }
+
+  @Test
+  public void testModuleAndVersion() {
+    StackTraceElementStringProxy proxy =
+        new StackTraceRegularExpressionParser()
+            .parse("\tat java.base@11.0.2/java.lang.Thread.run(Thread.java:829)");
+    assertEquals("java.lang.Thread", proxy.getClassReference().getTypeName());
+    assertEquals("run", proxy.getMethodName());
+    assertEquals("Thread.java", proxy.getSourceFile());
+    assertEquals(829, proxy.getLineNumber());
+  }
+
+  @Test
+  public void testDigitLedSegment() {
+    StackTraceRegularExpressionParser parser = new StackTraceRegularExpressionParser();
+    StackTraceElementStringProxy proxy = parser.parse("\tat com.example.1Foo.bar(Foo.java:10)");
+    assertEquals("com.example.1Foo", proxy.getClassReference().getTypeName());
+    assertEquals("bar", proxy.getMethodName());
+
+    // A method name cannot start with a digit, thus the method name is matched by the preceding
+    // segments.
+    proxy = parser.parse("\tat com.example.Foo.1bar(Foo.java:10)");
+    assertEquals("com.example", proxy.getClassReference().getTypeName());
+    assertEquals("Foo.1bar", proxy.getMethodName());
+
+    proxy = parser.parse("\tat 1com.example.Foo.bar(Foo.java:10)");
+    assertFalse(proxy.hasClassName());
+    assertFalse(proxy.hasMethodName());
+  }
+
+  private static String describe(StackTraceElementStringProxy proxy) {
+    return String.join(
+        ", ",
+        "class: " + (proxy.hasClassName() ? proxy.getClassReference().getTypeName() : null),
+        "method: " + proxy.getMethodName(),
+        "source file: " + proxy.getSourceFile(),
+        "line: " + (proxy.hasLineNumber() ? proxy.lineNumberAsString() : null),
+        "field: " + proxy.getFieldName(),
+        "field or return type: " + proxy.getFieldOrReturnType(),
+        "arguments: " + proxy.getMethodArguments());
+  }
+}
@@ -0,0 +1,125 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace;
+
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.utils.ListUtils;
+import com.android.tools.r8.utils.StringUtils;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class StringRetraceBatchTest extends TestBase {
+
+  private static final String MAPPING =
+      StringUtils.unixLines(
+          "com.example.Main -> a:",
+          "    1:1:void inlinee():20:20 -> a",
+          "    1:1:void main(java.lang.String[]):10 -> a",
+          "    2:2:void main(java.lang.String[]):11:11 -> a",
+          "com.example.Foo -> b:",
+          "    void foo() -> c",
+          "    void bar() -> c");
+
+  private static final List<String> FIRST_STACKTRACE =
+      ImmutableList.of(
+          "java.lang.RuntimeException: b",
+          "\tat a.a(SourceFile:1)",
+          "\tat a.a(SourceFile:2)",
+          "\tat a.a(SourceFile:1)");
+
+  private static final List<String> SECOND_STACKTRACE =
+      ImmutableList.of("Exception in thread \"main\" a", "\tat b.c(SourceFile)");
+
+  private static final List<String> EXPECTED_FIRST_STACKTRACE =
+      ImmutableList.of(
+          "java.lang.RuntimeException: b",
+          "\tat com.example.Main.inlinee(Main.java:20)",
+          "\tat com.example.Main.main(Main.java:10)",
+          "\tat com.example.Main.main(Main.java:11)",
+          "\tat com.example.Main.inlinee(Main.java:20)",
+          "\tat com.example.Main.main(Main.java:10)");
+
+  private static final List<String> EXPECTED_SECOND_STACKTRACE =
+      ImmutableList.of(
+          "Exception in thread \"main\" com.example.Main",
+          "\tat com.example.Foo.bar(Foo.java)",
+          "\t<OR> at com.example.Foo.foo(Foo.java)");
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public StringRetraceBatchTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void test() throws Exception {
+    StringRetrace stringRetrace = getStringRetrace();
+    ExecutorService executorService = Executors.newFixedThreadPool(2);
+    try {
+      List<List<String>> stackTraces =
+          ImmutableList.of(FIRST_STACKTRACE, SECOND_STACKTRACE, FIRST_STACKTRACE);
+      List<List<String>> expected =
+          ImmutableList.of(
+              EXPECTED_FIRST_STACKTRACE, EXPECTED_SECOND_STACKTRACE, EXPECTED_FIRST_STACKTRACE);
+      assertEquals(expected, retraceStackTraces(stringRetrace, stackTraces, executorService));
+      assertEquals(
+          expected,
+          ListUtils.map(
+              stackTraces,
+              stackTrace ->
+                  stringRetrace.retrace(stackTrace, RetraceStackTraceContext.empty()).getResult()));
+
+      // A second batch uses the frames that are retraced by the first batch.
+      assertEquals(
+          ImmutableList.of(EXPECTED_SECOND_STACKTRACE, EXPECTED_FIRST_STACKTRACE),
+          retraceStackTraces(
+              stringRetrace,
+              ImmutableList.of(SECOND_STACKTRACE, FIRST_STACKTRACE),
+              executorService));
+
+      // An empty batch and an empty stack trace are retraced to empty results.
+      assertEquals(
+          ImmutableList.of(),
+          retraceStackTraces(stringRetrace, ImmutableList.of(), executorService));
+      assertEquals(
+          ImmutableList.of(ImmutableList.of()),
+          retraceStackTraces(
+              stringRetrace, ImmutableList.of(ImmutableList.of()), executorService));
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  private static List<List<String>> retraceStackTraces(
+      StringRetrace stringRetrace, List<List<String>> stackTraces, ExecutorService executorService)
+      throws Exception {
+    return ListUtils.map(
+        stringRetrace.retraceStackTraces(stackTraces, executorService),
+        RetraceStackFrameResultWithContext::getResult);
+  }
+
+  private static StringRetrace getStringRetrace() {
+    ProguardMappingSupplier mappingSupplier =
+        ProguardMappingSupplier.builder()
+            .setProguardMapProducer(ProguardMapProducer.fromString(MAPPING))
+            .build();
+    return StringRetrace.create(
+        RetraceOptions.builder().setMappingSupplier(mappingSupplier).build());
+  }
+}
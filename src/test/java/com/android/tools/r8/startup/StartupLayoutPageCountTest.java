@@ -0,0 +1,148 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.startup;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.D8TestCompileResult;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.references.ClassReference;
+import com.android.tools.r8.references.Reference;
+import com.android.tools.r8.startup.profile.ExternalStartupClass;
+import com.android.tools.r8.startup.profile.ExternalStartupItem;
+import com.android.tools.r8.startup.profile.ExternalStartupMethod;
+import com.android.tools.r8.startup.utils.DexStartupPageCounter;
+import com.android.tools.r8.startup.utils.StartupTestingUtils;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.google.common.io.ByteStreams;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Tests that the startup layout touches fewer pages than the default layout, when the startup
+ * methods are spread over the code section by the default layout.
+ */
+@RunWith(Parameterized.class)
+public class StartupLayoutPageCountTest extends TestBase implements Opcodes {
+
+  private static final int NUMBER_OF_CLASSES = 64;
+  private static final int NUMBER_OF_CLASSES_PER_STARTUP_CLASS = 16;
+  // Each invoke-static of System.nanoTime() is 6 bytes, thus each method has about 1 KB of code.
+  private static final int NUMBER_OF_INVOKES_PER_METHOD = 170;
+
+  @Parameter(0)
+  public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  @Test
+  public void test() throws Exception {
+    List<byte[]> programClassFileData = new ArrayList<>();
+    List<ExternalStartupItem> startupProfile = new ArrayList<>();
+    for (int i = 0; i < NUMBER_OF_CLASSES; i++) {
+      ClassReference classReference = Reference.classFromBinaryName("com/example/C" + i);
+      programClassFileData.add(createClass(classReference));
+      if (i % NUMBER_OF_CLASSES_PER_STARTUP_CLASS == 0) {
+        startupProfile.add(
+            ExternalStartupClass.builder().setClassReference(classReference).build());
+        startupProfile.add(
+            ExternalStartupMethod.builder()
+                .setMethodReference(
+                    Reference.method(classReference, "m", Collections.emptyList(), null))
+                .build());
+      }
+    }
+    D8TestCompileResult compileResult = compile(programClassFileData, startupProfile, true);
+    int pagesWithStartupLayout =
+        DexStartupPageCounter.countStartupPages(getPrimaryDex(compileResult), startupProfile);
+    int pagesWithDefaultLayout =
+        DexStartupPageCounter.countStartupPages(
+            getPrimaryDex(compile(programClassFileData, startupProfile, false)), startupProfile);
+    assertTrue(pagesWithStartupLayout > 0);
+    assertTrue(pagesWithStartupLayout < pagesWithDefaultLayout);
+
+    // The page report of the compiler agrees with the pages counted in the written dex files.
+    compileResult.assertInfoMessageThatMatches(
+        containsString(
+            "Startup pages touched in dex file 0: "
+                + pagesWithStartupLayout
+                + " (default layout: "
+                + pagesWithDefaultLayout
+                + ")"));
+  }
+
+  private D8TestCompileResult compile(
+      List<byte[]> programClassFileData,
+      List<ExternalStartupItem> startupProfile,
+      boolean enableStartupLayoutOptimizations)
+      throws Exception {
+    D8TestCompileResult compileResult =
+        testForD8()
+            .addProgramClassFileData(programClassFileData)
+            .addOptionsModification(
+                options ->
+                    options
+                        .getStartupOptions()
+                        .setEnableMinimalStartupDex(false)
+                        .setEnableStartupLayoutOptimizations(enableStartupLayoutOptimizations)
+                        .setEnableStartupLayoutPageReport(true))
+            .apply(
+                testBuilder -> StartupTestingUtils.addStartupProfile(testBuilder, startupProfile))
+            .release()
+            .setMinApi(AndroidApiLevel.L)
+            .compile();
+    if (enableStartupLayoutOptimizations) {
+      compileResult.assertInfoMessageThatMatches(containsString("Startup pages touched"));
+    } else {
+      compileResult.assertNoInfoMessages();
+    }
+    return compileResult;
+  }
+
+  private static byte[] getPrimaryDex(D8TestCompileResult compileResult) throws Exception {
+    try (InputStream inputStream =
+        compileResult.getApp().getDexProgramResourcesForTesting().get(0).getByteStream()) {
+      return ByteStreams.toByteArray(inputStream);
+    }
+  }
+
+  private static byte[] createClass(ClassReference classReference) {
+    ClassWriter cw = new ClassWriter(0);
+    cw.visit(
+        V1_8,
+        ACC_PUBLIC | ACC_SUPER,
+        classReference.getBinaryName(),
+        null,
+        "java/lang/Object",
+        null);
+    MethodVisitor mv = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "m", "()V", null, null);
+    mv.visitCode();
+    for (int i = 0; i < NUMBER_OF_INVOKES_PER_METHOD; i++) {
+      mv.visitMethodInsn(INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
+      mv.visitInsn(POP2);
+    }
+    mv.visitInsn(RETURN);
+    mv.visitMaxs(2, 0);
+    mv.visitEnd();
+    cw.visitEnd();
+    return cw.toByteArray();
+  }
+}
@@ -0,0 +1,205 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.startup.utils;
+
+import com.android.tools.r8.dex.StartupLayoutPageModel;
+import com.android.tools.r8.references.MethodReference;
+import com.android.tools.r8.startup.profile.ExternalStartupItem;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Computes the number of pages of a written dex file that are touched by the class data, the code
+ * items and the string data of the items in a startup profile.
+ *
+ * <p>This reads the dex file directly, and does not depend on the compiler's own model of the
+ * layout.
+ */
+public class DexStartupPageCounter {
+
+  private static final int STRING_IDS_OFF = 0x3C;
+  private static final int TYPE_IDS_OFF = 0x44;
+  private static final int PROTO_IDS_OFF = 0x4C;
+  private static final int METHOD_IDS_OFF = 0x5C;
+  private static final int CLASS_DEFS_SIZE = 0x60;
+  private static final int CLASS_DEFS_OFF = 0x64;
+
+  private final ByteBuffer buffer;
+  private final BitSet pages = new BitSet();
+
+  private DexStartupPageCounter(byte[] dex) {
+    this.buffer = ByteBuffer.wrap(dex).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  public static int countStartupPages(byte[] dex, Collection<ExternalStartupItem> startupItems) {
+    Set<String> startupClasses = new HashSet<>();
+    Set<String> startupMethods = new HashSet<>();
+    for (ExternalStartupItem startupItem : startupItems) {
+      startupItem.apply(
+          startupClass -> startupClasses.add(startupClass.getReference().getDescriptor()),
+          startupMethod -> startupMethods.add(toString(startupMethod.getReference())));
+    }
+    DexStartupPageCounter counter = new DexStartupPageCounter(dex);
+    counter.markStartupItems(startupClasses, startupMethods);
+    return counter.pages.cardinality();
+  }
+
+  private static String toString(MethodReference method) {
+    return method.getHolderClass().getDescriptor()
+        + method.getMethodName()
+        + method.getMethodDescriptor();
+  }
+
+  private void markStartupItems(Set<String> startupClasses, Set<String> startupMethods) {
+    int classDefsSize = buffer.getInt(CLASS_DEFS_SIZE);
+    int classDefsOff = buffer.getInt(CLASS_DEFS_OFF);
+    for (int i = 0; i < classDefsSize; i++) {
+      int classDefOff = classDefsOff + i * 32;
+      String descriptor = getTypeDescriptor(buffer.getInt(classDefOff));
+      int classDataOff = buffer.getInt(classDefOff + 24);
+      if (classDataOff == 0) {
+        continue;
+      }
+      buffer.position(classDataOff);
+      int staticFieldsSize = readUleb128();
+      int instanceFieldsSize = readUleb128();
+      int directMethodsSize = readUleb128();
+      int virtualMethodsSize = readUleb128();
+      for (int j = 0; j < (staticFieldsSize + instanceFieldsSize) * 2; j++) {
+        readUleb128();
+      }
+      int[] methodIndices = new int[directMethodsSize + virtualMethodsSize];
+      int[] codeOffsets = new int[methodIndices.length];
+      int methodIndex = 0;
+      for (int j = 0; j < methodIndices.length; j++) {
+        if (j == directMethodsSize) {
+          methodIndex = 0;
+        }
+        methodIndex += readUleb128();
+        readUleb128(); // access_flags
+        methodIndices[j] = methodIndex;
+        codeOffsets[j] = readUleb128();
+      }
+      if (startupClasses.contains(descriptor)) {
+        markPages(classDataOff, buffer.position());
+      }
+      for (int j = 0; j < methodIndices.length; j++) {
+        if (codeOffsets[j] != 0 && startupMethods.contains(getMethodString(methodIndices[j]))) {
+          markCodeItem(codeOffsets[j]);
+          markStringData(buffer.getInt(getMethodIdOff(methodIndices[j]) + 4));
+        }
+      }
+    }
+  }
+
+  private void markCodeItem(int codeOff) {
+    int triesSize = Short.toUnsignedInt(buffer.getShort(codeOff + 6));
+    int insnsSize = buffer.getInt(codeOff + 12);
+    int end = codeOff + 16 + insnsSize * 2;
+    if (triesSize > 0) {
+      if (insnsSize % 2 != 0) {
+        end += 2;
+      }
+      end += triesSize * 8;
+      buffer.position(end);
+      int handlersSize = readUleb128();
+      for (int i = 0; i < handlersSize; i++) {
+        int size = readSleb128();
+        for (int j = 0; j < Math.abs(size) * 2; j++) {
+          readUleb128();
+        }
+        if (size <= 0) {
+          readUleb128(); // catch_all_addr
+        }
+      }
+      end = buffer.position();
+    }
+    markPages(codeOff, end);
+  }
+
+  private void markStringData(int stringIdx) {
+    int stringDataOff = buffer.getInt(buffer.getInt(STRING_IDS_OFF) + stringIdx * 4);
+    buffer.position(stringDataOff);
+    readUleb128(); // utf16_size
+    while (buffer.get() != 0) {
+      // Skip the MUTF-8 encoded string up to and including the null terminator.
+    }
+    markPages(stringDataOff, buffer.position());
+  }
+
+  private void markPages(int start, int end) {
+    pages.set(
+        start / StartupLayoutPageModel.PAGE_SIZE, (end - 1) / StartupLayoutPageModel.PAGE_SIZE + 1);
+  }
+
+  private int getMethodIdOff(int methodIdx) {
+    return buffer.getInt(METHOD_IDS_OFF) + methodIdx * 8;
+  }
+
+  private String getMethodString(int methodIdx) {
+    int methodIdOff = getMethodIdOff(methodIdx);
+    int classIdx = Short.toUnsignedInt(buffer.getShort(methodIdOff));
+    int protoIdx = Short.toUnsignedInt(buffer.getShort(methodIdOff + 2));
+    int nameIdx = buffer.getInt(methodIdOff + 4);
+    int protoIdOff = buffer.getInt(PROTO_IDS_OFF) + protoIdx * 12;
+    StringBuilder builder =
+        new StringBuilder(getTypeDescriptor(classIdx)).append(getString(nameIdx)).append('(');
+    int parametersOff = buffer.getInt(protoIdOff + 8);
+    if (parametersOff != 0) {
+      int size = buffer.getInt(parametersOff);
+      for (int i = 0; i < size; i++) {
+        builder.append(
+            getTypeDescriptor(Short.toUnsignedInt(buffer.getShort(parametersOff + 4 + i * 2))));
+      }
+    }
+    return builder.append(')').append(getTypeDescriptor(buffer.getInt(protoIdOff + 4))).toString();
+  }
+
+  private String getTypeDescriptor(int typeIdx) {
+    return getString(buffer.getInt(buffer.getInt(TYPE_IDS_OFF) + typeIdx * 4));
+  }
+
+  // Only used for descriptors and names, which are ASCII in the tests.
+  private String getString(int stringIdx) {
+    buffer.position(buffer.getInt(buffer.getInt(STRING_IDS_OFF) + stringIdx * 4));
+    readUleb128();
+    StringBuilder builder = new StringBuilder();
+    for (byte b = buffer.get(); b != 0; b = buffer.get()) {
+      builder.append((char) b);
+    }
+    return builder.toString();
+  }
+
+  private int readUleb128() {
+    int result = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = buffer.get();
+      result |= (b & 0x7f) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return result;
+  }
+
+  private int readSleb128() {
+    int result = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = buffer.get();
+      result |= (b & 0x7f) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    if (shift < 32 && (b & 0x40) != 0) {
+      result |= -1 << shift;
+    }
+    return result;
+  }
+}
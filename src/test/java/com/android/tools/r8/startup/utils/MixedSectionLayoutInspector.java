@@ -17,6 +17,7 @@ import com.android.tools.r8.graph.ParameterAnnotationsList;
 import com.android.tools.r8.graph.ProgramMethod;
 import java.util.Collection;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 public abstract class MixedSectionLayoutInspector
     implements BiFunction<MixedSectionLayoutStrategy, VirtualFile, MixedSectionLayoutStrategy> {
@@ -64,6 +65,11 @@ public abstract class MixedSectionLayoutInspector
       MixedSectionLayoutStrategy mixedSectionLayoutStrategy, VirtualFile virtualFile) {
     return new MixedSectionLayoutStrategy() {
 
+      @Override
+      public void forEachStartupItem(Consumer<Object> consumer) {
+        mixedSectionLayoutStrategy.forEachStartupItem(consumer);
+      }
+
       @Override
       public Collection<DexAnnotation> getAnnotationLayout() {
         Collection<DexAnnotation> layout = mixedSectionLayoutStrategy.getAnnotationLayout();
@@ -0,0 +1,154 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class ArchiveBuilderTest extends TestBase {
+
+  private static final int NUMBER_OF_FILES = 100;
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public ArchiveBuilderTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  private static byte[] content(String name) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 10; i++) {
+      builder.append(name).append(';');
+    }
+    return builder.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private Path writeArchive(int threads) throws Exception {
+    Path archive = temp.newFolder().toPath().resolve("out.zip");
+    ArchiveBuilder builder = new ArchiveBuilder(archive);
+    builder.open();
+    ThrowingDiagnosticHandler handler = new ThrowingDiagnosticHandler();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = NUMBER_OF_FILES - 1; i >= 0; i--) {
+        int index = i;
+        futures.add(
+            executor.submit(
+                () -> {
+                  builder.addIndexedClassFile(
+                      index,
+                      "classes" + index + ".dex",
+                      ByteDataView.of(content("dex" + index)),
+                      handler);
+                  builder.addFile(
+                      "file" + index + ".txt", ByteDataView.of(content("txt" + index)), handler);
+                  builder.addFile(
+                      "stored" + index + ".bin",
+                      ByteDataView.of(content("bin" + index)),
+                      handler,
+                      false);
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    builder.close(handler);
+    return archive;
+  }
+
+  @Test
+  public void testDeterministicParallelOutput() throws Exception {
+    Path sequential = writeArchive(1);
+    Path parallel = writeArchive(4);
+    assertArrayEquals(Files.readAllBytes(sequential), Files.readAllBytes(parallel));
+  }
+
+  @Test
+  public void testEntries() throws Exception {
+    Path archive = writeArchive(4);
+    byte[] bytes = Files.readAllBytes(archive);
+    try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+      List<ZipEntry> entries = new ArrayList<>();
+      zipFile.stream().forEach(entries::add);
+      assertEquals(3 * NUMBER_OF_FILES, entries.size());
+      // All entries have the time 0, as when written with ZipOutputStream by ZipUtils.
+      for (ZipEntry entry : entries) {
+        assertEquals(0, entry.getTime());
+      }
+      // Indexed files are written first in the order of their index, followed by the other files
+      // sorted by name.
+      for (int i = 0; i < NUMBER_OF_FILES; i++) {
+        ZipEntry entry = entries.get(i);
+        assertEquals("classes" + i + ".dex", entry.getName());
+        assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+        assertArrayEquals(content("dex" + i), readEntry(zipFile, entry));
+      }
+      for (int i = 0; i < NUMBER_OF_FILES; i++) {
+        ZipEntry entry = zipFile.getEntry("file" + i + ".txt");
+        assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+        assertArrayEquals(content("txt" + i), readEntry(zipFile, entry));
+      }
+      for (int i = 0; i < NUMBER_OF_FILES; i++) {
+        ZipEntry entry = zipFile.getEntry("stored" + i + ".bin");
+        assertEquals(ZipEntry.STORED, entry.getMethod());
+        assertArrayEquals(content("bin" + i), readEntry(zipFile, entry));
+        // Stored entries are 4-byte aligned.
+        assertEquals(0, findData(bytes, content("bin" + i)) % 4);
+      }
+      List<String> names = ListUtils.map(entries, ZipEntry::getName);
+      List<String> otherNames = new ArrayList<>(names.subList(NUMBER_OF_FILES, names.size()));
+      otherNames.sort(String::compareTo);
+      assertEquals(otherNames, names.subList(NUMBER_OF_FILES, names.size()));
+    }
+  }
+
+  private static byte[] readEntry(ZipFile zipFile, ZipEntry entry) throws IOException {
+    try (InputStream in = zipFile.getInputStream(entry)) {
+      return ByteStreams.toByteArray(in);
+    }
+  }
+
+  private static int findData(byte[] bytes, byte[] data) {
+    outer:
+    for (int i = 0; i <= bytes.length - data.length; i++) {
+      for (int j = 0; j < data.length; j++) {
+        if (bytes[i + j] != data[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+}
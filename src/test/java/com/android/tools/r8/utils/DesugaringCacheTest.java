@@ -0,0 +1,235 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.ClassFileResourceProvider;
+import com.android.tools.r8.D8Command;
+import com.android.tools.r8.DexFilePerClassFileConsumer;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.ProgramResource.Kind;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.desugar.graph.DesugarGraphTestConsumer;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.synthesis.globals.GlobalSyntheticsTestingConsumer;
+import com.android.tools.r8.transformers.ClassFileTransformer.MethodPredicate;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class DesugaringCacheTest extends TestBase {
+
+  private final TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public DesugaringCacheTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  private static final Origin originI = makeOrigin("I");
+  private static final Origin originA = makeOrigin("A");
+  private static final Origin originMain = makeOrigin("Main");
+
+  private static Origin makeOrigin(String name) {
+    return new Origin(Origin.root()) {
+      @Override
+      public String part() {
+        return name;
+      }
+    };
+  }
+
+  @Test
+  public void test() throws Exception {
+    parameters.assertNoneRuntime();
+    Path cacheDirectory = temp.newFolder().toPath();
+    byte[] interfaceBytes = ToolHelper.getClassAsBytes(I.class);
+    Map<String, byte[]> expected = compile(interfaceBytes, null);
+    assertEquals(expected.keySet(), compile(interfaceBytes, cacheDirectory).keySet());
+    assertEquals(3, getNumberOfEntries(cacheDirectory));
+
+    // All classes are taken from the cache.
+    assertOutputEquals(expected, compile(interfaceBytes, cacheDirectory));
+
+    // Changing the default method of the interface requires compiling the unchanged class A again,
+    // as A contains the forwarding method of the default method.
+    byte[] changedInterfaceBytes =
+        transformer(I.class).renameMethod(MethodPredicate.onName("foo"), "bar").transform();
+    assertOutputEquals(
+        compile(changedInterfaceBytes, null), compile(changedInterfaceBytes, cacheDirectory));
+    assertEquals(4, getNumberOfEntries(cacheDirectory));
+  }
+
+  @Test
+  public void testLibraryArchiveChange() throws Exception {
+    parameters.assertNoneRuntime();
+    Path cacheDirectory = temp.newFolder().toPath();
+    byte[] interfaceBytes = ToolHelper.getClassAsBytes(I.class);
+    Path library = temp.newFolder().toPath().resolve("library.jar");
+    writeClassFileDataToJar(
+        library, Collections.singletonList(ToolHelper.getClassAsBytes(Library.class)));
+    FileTime lastModifiedTime = Files.getLastModifiedTime(library);
+    Consumer<D8Command.Builder> addLibrary = builder -> builder.addLibraryFiles(library);
+    Map<String, byte[]> expected = compile(interfaceBytes, null, addLibrary);
+    assertOutputEquals(expected, compile(interfaceBytes, cacheDirectory, addLibrary));
+    assertEquals(3, getNumberOfEntries(cacheDirectory));
+    assertOutputEquals(expected, compile(interfaceBytes, cacheDirectory, addLibrary));
+    assertEquals(3, getNumberOfEntries(cacheDirectory));
+
+    // Changing a method of the library invalidates all entries, also when the archive has the same
+    // path and modification time as before.
+    writeClassFileDataToJar(library, Collections.singletonList(getChangedLibraryBytes()));
+    Files.setLastModifiedTime(library, lastModifiedTime);
+    assertOutputEquals(expected, compile(interfaceBytes, cacheDirectory, addLibrary));
+    assertEquals(6, getNumberOfEntries(cacheDirectory));
+  }
+
+  @Test
+  public void testLibraryProviderChange() throws Exception {
+    parameters.assertNoneRuntime();
+    Path cacheDirectory = temp.newFolder().toPath();
+    byte[] interfaceBytes = ToolHelper.getClassAsBytes(I.class);
+    Consumer<D8Command.Builder> addLibrary =
+        builder ->
+            builder.addLibraryResourceProvider(
+                createLibraryProvider(ToolHelper.getClassAsBytes(Library.class)));
+    Map<String, byte[]> expected = compile(interfaceBytes, null, addLibrary);
+    assertOutputEquals(expected, compile(interfaceBytes, cacheDirectory, addLibrary));
+    assertEquals(3, getNumberOfEntries(cacheDirectory));
+    assertOutputEquals(expected, compile(interfaceBytes, cacheDirectory, addLibrary));
+    assertEquals(3, getNumberOfEntries(cacheDirectory));
+
+    // Changing a method of a library class with the same descriptor invalidates all entries.
+    byte[] changedLibraryBytes = getChangedLibraryBytes();
+    assertOutputEquals(
+        expected,
+        compile(
+            interfaceBytes,
+            cacheDirectory,
+            builder ->
+                builder.addLibraryResourceProvider(createLibraryProvider(changedLibraryBytes))));
+    assertEquals(6, getNumberOfEntries(cacheDirectory));
+  }
+
+  private byte[] getChangedLibraryBytes() throws Exception {
+    return transformer(Library.class)
+        .renameMethod(MethodPredicate.onName("foo"), "bar")
+        .transform();
+  }
+
+  private static ClassFileResourceProvider createLibraryProvider(byte[] bytes) {
+    String descriptor = descriptor(Library.class);
+    return new ClassFileResourceProvider() {
+      @Override
+      public Set<String> getClassDescriptors() {
+        return Collections.singleton(descriptor);
+      }
+
+      @Override
+      public ProgramResource getProgramResource(String requestedDescriptor) {
+        return requestedDescriptor.equals(descriptor)
+            ? ProgramResource.fromBytes(
+                Origin.unknown(), Kind.CF, bytes, Collections.singleton(descriptor))
+            : null;
+      }
+    };
+  }
+
+  private Map<String, byte[]> compile(byte[] interfaceBytes, Path cacheDirectory)
+      throws Exception {
+    return compile(interfaceBytes, cacheDirectory, builder -> {});
+  }
+
+  private Map<String, byte[]> compile(
+      byte[] interfaceBytes, Path cacheDirectory, Consumer<D8Command.Builder> configuration)
+      throws Exception {
+    Map<String, byte[]> output = new TreeMap<>();
+    DesugarGraphTestConsumer desugarGraphConsumer = new DesugarGraphTestConsumer();
+    D8Command.Builder builder = D8Command.builder();
+    configuration.accept(builder);
+    ToolHelper.runD8(
+        builder
+            .addClassProgramData(interfaceBytes, originI)
+            .addClassProgramData(ToolHelper.getClassAsBytes(A.class), originA)
+            .addClassProgramData(ToolHelper.getClassAsBytes(Main.class), originMain)
+            .addLibraryFiles(ToolHelper.getMostRecentAndroidJar())
+            .setMinApiLevel(AndroidApiLevel.B.getLevel())
+            .setIntermediate(true)
+            .setDesugarGraphConsumer(desugarGraphConsumer)
+            .setGlobalSyntheticsConsumer(new GlobalSyntheticsTestingConsumer())
+            .setProgramConsumer(
+                new DexFilePerClassFileConsumer.ForwardingConsumer(null) {
+                  @Override
+                  public synchronized void accept(
+                      String primaryClassDescriptor,
+                      ByteDataView data,
+                      Set<String> descriptors,
+                      DiagnosticsHandler handler) {
+                    output.put(primaryClassDescriptor, data.copyByteData());
+                  }
+                }),
+        options -> options.desugaringCacheDirectory = cacheDirectory);
+    // The dependency edges are reported also for the classes taken from the cache.
+    assertTrue(desugarGraphConsumer.contains(originI, originA));
+    assertEquals(1, desugarGraphConsumer.totalEdgeCount());
+    return output;
+  }
+
+  private static void assertOutputEquals(Map<String, byte[]> expected, Map<String, byte[]> actual) {
+    assertEquals(expected.keySet(), actual.keySet());
+    expected.forEach((descriptor, bytes) -> assertArrayEquals(bytes, actual.get(descriptor)));
+  }
+
+  private static int getNumberOfEntries(Path cacheDirectory) throws Exception {
+    try (Stream<Path> files = Files.walk(cacheDirectory)) {
+      return files.filter(Files::isRegularFile).collect(Collectors.toList()).size();
+    }
+  }
+
+  public static class Library {
+
+    public static void foo() {}
+  }
+
+  public interface I {
+
+    default void foo() {
+      System.out.println("I.foo");
+    }
+  }
+
+  public static class A implements I {}
+
+  public static class Main {
+
+    public static void main(String[] args) {
+      new A().foo();
+    }
+  }
+}
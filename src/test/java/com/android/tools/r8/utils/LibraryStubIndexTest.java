@@ -0,0 +1,108 @@
+// Copyright (c) 2023, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestDiagnosticMessages;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ToolHelper;
+import com.google.common.collect.ImmutableSet;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class LibraryStubIndexTest extends TestBase {
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public LibraryStubIndexTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void testIndex() throws Exception {
+    Path indexDirectory = temp.newFolder().toPath();
+    Path androidJar = ToolHelper.getMostRecentAndroidJar();
+    LibraryStubIndex index = LibraryStubIndex.getOrCreate(androidJar, indexDirectory);
+    assertTrue(index.hasClass("Ljava/lang/Object;"));
+    assertTrue(index.hasClass("Landroid/app/Activity;"));
+    assertFalse(index.hasClass("Lcom/example/Missing;"));
+    List<String> descriptors = index.getClassDescriptors();
+    assertEquals(index.getNumberOfClasses(), descriptors.size());
+    List<String> sortedDescriptors = new ArrayList<>(descriptors);
+    sortedDescriptors.sort(String::compareTo);
+    assertEquals(sortedDescriptors, descriptors);
+
+    // The index is only generated once per archive.
+    LibraryStubIndex.getOrCreate(androidJar, indexDirectory);
+    try (Stream<Path> files = Files.list(indexDirectory)) {
+      assertEquals(1, files.collect(Collectors.toList()).size());
+    }
+  }
+
+  @Test
+  public void testD8() throws Exception {
+    LibraryClassLoadingStatistics statistics = compileWithD8(null);
+    LibraryClassLoadingStatistics statisticsWithIndex =
+        compileWithD8(temp.newFolder().toPath());
+
+    // Only a small part of the library is loaded, and the same classes are loaded with the index.
+    assertTrue(statistics.getNumberOfLoadedClasses() > 0);
+    assertTrue(
+        statistics.getNumberOfLoadedClasses() < statistics.getNumberOfAvailableClasses() / 10);
+    assertEquals(
+        statistics.getNumberOfAvailableClasses(),
+        statisticsWithIndex.getNumberOfAvailableClasses());
+    assertEquals(
+        statistics.getNumberOfLoadedClasses(), statisticsWithIndex.getNumberOfLoadedClasses());
+    assertEquals(
+        ImmutableSet.copyOf(statistics.getLoadedClasses()),
+        ImmutableSet.copyOf(statisticsWithIndex.getLoadedClasses()));
+  }
+
+  private LibraryClassLoadingStatistics compileWithD8(Path indexDirectory) throws Exception {
+    LibraryClassLoadingStatistics statistics = new LibraryClassLoadingStatistics();
+    testForD8(Backend.DEX)
+        .addProgramClasses(Main.class)
+        .addLibraryFiles(ToolHelper.getMostRecentAndroidJar())
+        .setMinApi(AndroidApiLevel.B)
+        .addOptionsModification(
+            options -> {
+              options.libraryStubIndexDirectory = indexDirectory;
+              options.setLibraryClassLoadingStatisticsForTesting(statistics);
+            })
+        .compileWithExpectedDiagnostics(TestDiagnosticMessages::assertNoMessages);
+    return statistics;
+  }
+
+  static class Main implements Runnable {
+
+    public static void main(String[] args) {
+      new Main().run();
+    }
+
+    @Override
+    public void run() {
+      System.out.println("Hello, world!");
+      System.out.println(new ArrayList<>().isEmpty());
+    }
+  }
+}
@@ -290,7 +290,7 @@ public class FoundMethodSubject extends MethodSubject {
           return true;
         }
       }
-      for (DexDebugEvent event : eventBasedInfo.events) {
+      for (DexDebugEvent event : eventBasedInfo.getEvents()) {
         if (event instanceof DexDebugEvent.StartLocal) {
           return true;
         }
@@ -342,7 +342,7 @@ public class FoundMethodSubject extends MethodSubject {
     DexDebugPositionState state =
         new DexDebugPositionState(
             info.startLine, getMethod().getReference(), getMethod().isD8R8Synthesized());
-    Iterator<DexDebugEvent> iterator = Arrays.asList(info.events).iterator();
+    Iterator<DexDebugEvent> iterator = info.getEvents().iterator();
     for (DexInstruction insn : code.instructions) {
       int offset = insn.getOffset();
       while (state.getCurrentPc() < offset && iterator.hasNext()) {